@@ -17,6 +17,11 @@ package org.rapidcontext.app;
 import java.io.File;
 import java.io.IOException;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
@@ -108,6 +113,12 @@ public class ApplicationContext extends Context {
      */
     private WebMatcher[] matchers = null;
 
+    /**
+     * The most recent startup step durations (in millis), indexed by
+     * step name. Access must be synchronized on the map itself.
+     */
+    private final Map<String,Long> startup = new LinkedHashMap<>();
+
     /**
      * Returns the currently active application context.
      *
@@ -167,10 +178,18 @@ public class ApplicationContext extends Context {
         super("global");
         File builtinDir = FileUtil.canonical(new File(baseDir, "plugin"));
         File pluginDir = FileUtil.canonical(new File(localDir, "plugin"));
+        File catalogDir = FileUtil.canonical(new File(localDir, "catalog"));
         initTmpDir(FileUtil.canonical(new File(localDir, "tmp")));
         set(CX_DIRECTORY, pluginDir);
         AppStorage storage = set(CX_STORAGE, new AppStorage());
-        this.pluginManager = new PluginManager(builtinDir, pluginDir, storage);
+        storage.addPropertyIndex(Procedure.PATH, Procedure.KEY_TYPE);
+        storage.addPropertyIndex(Procedure.PATH, Procedure.KEY_ALIAS);
+        storage.addPropertyIndex(User.PATH, User.KEY_EMAIL);
+        storage.addPropertyIndex(User.PATH, User.KEY_ENABLED);
+        storage.addPropertyIndex(Type.PATH, Type.KEY_ALIAS);
+        timed("storages", () -> {
+            this.pluginManager = new PluginManager(builtinDir, pluginDir, catalogDir, storage);
+        });
         this.config = storage.load(PATH_CONFIG, Dict.class);
         if (this.config == null) {
             LOG.severe("failed to load application config");
@@ -209,13 +228,43 @@ public class ApplicationContext extends Context {
      * and the environment configuration.
      */
     private void initAll() {
+        long start = System.currentTimeMillis();
         Type.loader = this.pluginManager.classLoader;
-        initPlugins();
+        timed("plugins", this::initPlugins);
         initScheduler();
-        initCaches();
+        timed("caches", this::initCaches);
+        recordStep("total", System.currentTimeMillis() - start);
         START_TIME = new Date();
     }
 
+    /**
+     * Runs a startup step and records the step duration.
+     *
+     * @param step           the startup step name
+     * @param task           the task to run
+     */
+    private void timed(String step, Runnable task) {
+        long start = System.currentTimeMillis();
+        try {
+            task.run();
+        } finally {
+            recordStep(step, System.currentTimeMillis() - start);
+        }
+    }
+
+    /**
+     * Records a startup step duration.
+     *
+     * @param step           the startup step name
+     * @param duration       the step duration (in millis)
+     */
+    private void recordStep(String step, long duration) {
+        LOG.fine("startup step " + step + " completed in " + duration + " ms");
+        synchronized (startup) {
+            startup.put(step, duration);
+        }
+    }
+
     /**
      * Loads all plug-ins listed in an application specific plug-in
      * configuration file. Also loads any jar libraries found in the
@@ -254,28 +303,78 @@ public class ApplicationContext extends Context {
     }
 
     /**
-     * Initializes cached objects.
+     * Initializes cached objects in parallel. Types are resolved
+     * lazily when first used.
+     *
+     * @see #initCaches(boolean)
      */
-    @SuppressWarnings("resource")
     private void initCaches() {
-        Vault.loadAll(storage());
-        // FIXME: Why is pre-loading of all types necessary?
-        Type.all(storage()).forEach(o -> { /* Force refresh cached types */ });
-        Interceptor.init(storage());
-        // FIXME: Remove singleton environment reference
-        set(CX_ENVIRONMENT, Environment.all(storage()).findFirst().orElse(null));
-        // FIXME: Remove role cache from SecurityContext
-        try {
-            SecurityContext.init(storage());
-        } catch (StorageException e) {
-            LOG.severe("Failed to load security config: " + e.getMessage());
+        initCaches(true);
+    }
+
+    /**
+     * Initializes cached objects. The vaults are loaded first (as
+     * other objects may use vault values), after which the remaining
+     * independent steps run either in parallel on virtual threads, or
+     * one at a time in declaration order. Both modes result in the
+     * same cached objects.
+     *
+     * @param parallel       the parallel initialization flag
+     */
+    @SuppressWarnings("resource")
+    void initCaches(boolean parallel) {
+        timed("vaults", () -> Vault.loadAll(storage()));
+        LinkedHashMap<String,Runnable> steps = new LinkedHashMap<>();
+        steps.put("interceptors", () -> Interceptor.init(storage()));
+        steps.put("environment", () -> {
+            // FIXME: Remove singleton environment reference
+            set(CX_ENVIRONMENT, Environment.all(storage()).findFirst().orElse(null));
+        });
+        steps.put("security", () -> {
+            // FIXME: Remove role cache from SecurityContext
+            try {
+                SecurityContext.init(storage());
+            } catch (StorageException e) {
+                LOG.severe("Failed to load security config: " + e.getMessage());
+            }
+        });
+        steps.put("metrics", () -> {
+            Connection.metrics(storage()); // Load or create connection metrics
+            Procedure.metrics(storage()); // Load or create procedure metrics
+            User.metrics(storage()); // Load or create user metrics
+        });
+        if (parallel) {
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                CompletableFuture.allOf(
+                    steps.entrySet().stream()
+                        .map(e -> initStep(executor, e.getKey(), e.getValue()))
+                        .toArray(CompletableFuture<?>[]::new)
+                ).join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException re) {
+                    throw re;
+                }
+                throw e;
+            }
+        } else {
+            steps.forEach(this::timed);
         }
-        Connection.metrics(storage()); // Load or create connection metrics
-        Procedure.metrics(storage()); // Load or create procedure metrics
-        User.metrics(storage()); // Load or create user metrics
         scheduler().submit(() -> Procedure.refreshAliases(storage())); // FIXME: Move aliases into storage catalog
     }
 
+    /**
+     * Starts a timed startup step on an executor.
+     *
+     * @param executor       the executor to use
+     * @param step           the startup step name
+     * @param task           the task to run
+     *
+     * @return the future for the step completion
+     */
+    private CompletableFuture<Void> initStep(ExecutorService executor, String step, Runnable task) {
+        return CompletableFuture.runAsync(() -> timed(step, task), executor);
+    }
+
     /**
      * Destroys this context and frees all resources.
      */
@@ -310,6 +409,20 @@ public class ApplicationContext extends Context {
         return "@" + Integer.toHexString(START_TIME.hashCode() & 0xffffffff);
     }
 
+    /**
+     * Returns the most recent startup step durations. Parallel steps
+     * are included individually, so the durations may overlap.
+     *
+     * @return the dictionary of step durations (in millis)
+     */
+    public Dict startupTimes() {
+        Dict res = new Dict();
+        synchronized (startup) {
+            startup.forEach(res::set);
+        }
+        return res;
+    }
+
     /**
      * Returns the application configuration.
      *
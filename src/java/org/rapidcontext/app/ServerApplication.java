@@ -18,10 +18,22 @@ import java.io.File;
 import java.net.ServerSocket;
 import javax.servlet.MultipartConfigElement;
 
+import org.eclipse.jetty.alpn.server.ALPNServerConnectionFactory;
 import org.eclipse.jetty.ee8.servlet.ServletContextHandler;
+import org.eclipse.jetty.ee8.servlet.ServletHolder;
+import org.eclipse.jetty.http2.HTTP2Cipher;
+import org.eclipse.jetty.http2.server.HTTP2CServerConnectionFactory;
+import org.eclipse.jetty.http2.server.HTTP2ServerConnectionFactory;
+import org.eclipse.jetty.server.ConnectionFactory;
+import org.eclipse.jetty.server.HttpConfiguration;
+import org.eclipse.jetty.server.HttpConnectionFactory;
+import org.eclipse.jetty.server.SecureRequestCustomizer;
 import org.eclipse.jetty.server.Server;
 import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.SslConnectionFactory;
+import org.eclipse.jetty.util.ssl.SslContextFactory;
 import org.eclipse.jetty.util.thread.VirtualThreadPool;
+import org.rapidcontext.core.data.Dict;
 
 /**
  * The stand-alone server application.
@@ -52,6 +64,16 @@ public class ServerApplication {
      */
     public int port = 0;
 
+    /**
+     * The server connector configuration. If not set, the "server"
+     * dictionary in the application configuration is used. Supports
+     * the acceptors, selectors, acceptQueueSize, idleTimeout,
+     * outputBufferSize, outputAggregationSize, requestHeaderSize,
+     * responseHeaderSize, http2, tlsPort, keyStore, keyStorePassword
+     * and keyStoreType options.
+     */
+    public Dict config = null;
+
     /**
      * The Jetty web server used.
      */
@@ -119,6 +141,9 @@ public class ServerApplication {
     public void init() {
         ApplicationContext.init(appDir, localDir, false);
         port = findAvailablePort(port);
+        if (config == null) {
+            config = ApplicationContext.active().getConfig().getDict("server");
+        }
     }
 
     /**
@@ -132,16 +157,30 @@ public class ServerApplication {
             stop();
         }
         server = new Server(new VirtualThreadPool());
-        ServerConnector connector = new ServerConnector(server);
+        Dict opts = (config == null) ? new Dict() : config;
+        int tlsPort = opts.get("tlsPort", Integer.class, 0);
+        boolean http2 = opts.get("http2", Boolean.class, false);
+        HttpConfiguration http = createHttpConfig(opts);
+        if (tlsPort > 0) {
+            http.setSecurePort(tlsPort);
+        }
+        HttpConnectionFactory http1 = new HttpConnectionFactory(http);
+        ServerConnector connector = http2 ?
+            createConnector(opts, http1, new HTTP2CServerConnectionFactory(http)) :
+            createConnector(opts, http1);
         connector.setPort(port);
         server.addConnector(connector);
+        if (tlsPort > 0) {
+            server.addConnector(createTlsConnector(opts, http, http2));
+        }
         server.setStopTimeout(10000L);
         server.setStopAtShutdown(true);
         ServletContextHandler root = new ServletContextHandler(ServletContextHandler.NO_SESSIONS);
         root.setContextPath("/");
         root.setBaseResourceAsPath(appDir.toPath());
-        root.addServlet(ServletApplication.class, "/*").getRegistration()
-            .setMultipartConfig(new MultipartConfigElement(""));
+        ServletHolder holder = root.addServlet(ServletApplication.class, "/*");
+        holder.getRegistration().setMultipartConfig(new MultipartConfigElement(""));
+        holder.setInitOrder(0); // Initialize on start, not in first request
         server.setHandler(root);
         port = connector.getPort();
         try {
@@ -152,6 +191,101 @@ public class ServerApplication {
         }
     }
 
+    /**
+     * Creates the HTTP configuration from the server options. Any
+     * options not set will use the Jetty defaults.
+     *
+     * @param opts           the server configuration options
+     *
+     * @return the HTTP configuration
+     */
+    private static HttpConfiguration createHttpConfig(Dict opts) {
+        HttpConfiguration http = new HttpConfiguration();
+        int bufferSize = opts.get("outputBufferSize", Integer.class, http.getOutputBufferSize());
+        http.setOutputBufferSize(bufferSize);
+        int aggregationSize = opts.get("outputAggregationSize", Integer.class, bufferSize / 4);
+        http.setOutputAggregationSize(aggregationSize);
+        int requestSize = opts.get("requestHeaderSize", Integer.class, http.getRequestHeaderSize());
+        http.setRequestHeaderSize(requestSize);
+        int responseSize = opts.get("responseHeaderSize", Integer.class, http.getResponseHeaderSize());
+        http.setResponseHeaderSize(responseSize);
+        return http;
+    }
+
+    /**
+     * Creates a server connector from the server options. The number
+     * of acceptor and selector threads default to -1, i.e. chosen by
+     * Jetty based on the number of available processors.
+     *
+     * @param opts           the server configuration options
+     * @param factories      the connection factories to use
+     *
+     * @return the server connector (without port)
+     */
+    private ServerConnector createConnector(Dict opts, ConnectionFactory... factories) {
+        int acceptors = opts.get("acceptors", Integer.class, -1);
+        int selectors = opts.get("selectors", Integer.class, -1);
+        ServerConnector connector = new ServerConnector(server, acceptors, selectors, factories);
+        connector.setAcceptQueueSize(opts.get("acceptQueueSize", Integer.class, 0));
+        connector.setIdleTimeout(opts.get("idleTimeout", Long.class, connector.getIdleTimeout()));
+        return connector;
+    }
+
+    /**
+     * Creates a TLS server connector from the server options. If
+     * HTTP/2 is enabled, the protocol is negotiated with ALPN
+     * (falling back to HTTP/1.1).
+     *
+     * @param opts           the server configuration options
+     * @param http           the plain HTTP configuration
+     * @param http2          the HTTP/2 enabled flag
+     *
+     * @return the TLS server connector
+     */
+    private ServerConnector createTlsConnector(Dict opts, HttpConfiguration http, boolean http2) {
+        HttpConfiguration https = new HttpConfiguration(http);
+        https.addCustomizer(new SecureRequestCustomizer());
+        HttpConnectionFactory http1 = new HttpConnectionFactory(https);
+        SslContextFactory.Server ssl = createSslContext(opts);
+        ServerConnector connector;
+        if (http2) {
+            ssl.setCipherComparator(HTTP2Cipher.COMPARATOR);
+            ALPNServerConnectionFactory alpn = new ALPNServerConnectionFactory();
+            alpn.setDefaultProtocol(http1.getProtocol());
+            connector = createConnector(
+                opts,
+                new SslConnectionFactory(ssl, alpn.getProtocol()),
+                alpn,
+                new HTTP2ServerConnectionFactory(https),
+                http1
+            );
+        } else {
+            connector = createConnector(opts, new SslConnectionFactory(ssl, http1.getProtocol()), http1);
+        }
+        connector.setPort(opts.get("tlsPort", Integer.class, 0));
+        return connector;
+    }
+
+    /**
+     * Creates the TLS context from the server options. The key store
+     * file name is resolved relative to the local add-on directory.
+     *
+     * @param opts           the server configuration options
+     *
+     * @return the TLS context factory
+     */
+    private SslContextFactory.Server createSslContext(Dict opts) {
+        File file = new File(opts.get("keyStore", String.class, "keystore.p12"));
+        if (!file.isAbsolute()) {
+            file = new File(localDir, file.getPath());
+        }
+        SslContextFactory.Server ssl = new SslContextFactory.Server();
+        ssl.setKeyStorePath(file.getPath());
+        ssl.setKeyStoreType(opts.get("keyStoreType", String.class, "PKCS12"));
+        ssl.setKeyStorePassword(opts.get("keyStorePassword", String.class, ""));
+        return ssl;
+    }
+
     /**
      * Shuts down a running server application. The start and stop
      * methods can be called multiple times.
@@ -80,6 +80,12 @@ public class ApiUtil {
                 query.filterFileExtension("." + ext);
             }
         }
+        if (opts.containsKey("where")) {
+            Dict where = opts.getDict("where");
+            for (String key : where.keys()) {
+                query.filterProperty(key, where.get(key, String.class, ""));
+            }
+        }
         Stream<Metadata> stream = query.metadatas();
         if (opts.containsKey("mimeType")) {
             String mimeType = opts.get("mimeType", String.class, "");
@@ -68,7 +68,7 @@ public class AppStorage extends RootStorage {
      * @return the metadata for the object, or null if not found
      */
     @Override
-    public synchronized Metadata lookup(Path path) {
+    public Metadata lookup(Path path) {
         return isAccessible(path) ? super.lookup(redirect(path)) : null;
     }
 
@@ -84,7 +84,7 @@ public class AppStorage extends RootStorage {
      *         null if not found
      */
     @Override
-    public synchronized Object load(Path path) {
+    public Object load(Path path) {
         return isAccessible(path) ? super.load(redirect(path)) : null;
     }
 
@@ -37,7 +37,8 @@ public class EnvironmentVault extends Vault {
     }
 
     /**
-     * Lookup a specified key value in this vault.
+     * Lookup a specified key value in this vault. Values are memoized
+     * for a short time.
      *
      * @param key            the key identifier
      *
@@ -46,6 +47,6 @@ public class EnvironmentVault extends Vault {
      */
     @Override
     public String lookup(String key) {
-        return System.getenv(key);
+        return cached(key, System::getenv);
     }
 }
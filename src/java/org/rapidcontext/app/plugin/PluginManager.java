@@ -19,7 +19,11 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
 import java.net.URLClassLoader;
-import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -28,11 +32,13 @@ import org.rapidcontext.app.model.AppStorage;
 import org.rapidcontext.core.data.Binary;
 import org.rapidcontext.core.data.Dict;
 import org.rapidcontext.core.storage.DirStorage;
+import org.rapidcontext.core.storage.Metadata;
 import org.rapidcontext.core.storage.Path;
 import org.rapidcontext.core.storage.Storage;
 import org.rapidcontext.core.storage.StorageException;
 import org.rapidcontext.core.storage.ZipStorage;
 import org.rapidcontext.core.type.Plugin;
+import org.rapidcontext.util.BinaryUtil;
 import org.rapidcontext.util.FileUtil;
 
 /**
@@ -71,6 +77,13 @@ public final class PluginManager {
      */
     public File pluginDir = null;
 
+    /**
+     * The catalog image directory, or null if catalog images aren't
+     * used. Parsed plug-in catalog objects are stored here between
+     * restarts.
+     */
+    public File catalogDir = null;
+
     /**
      * The storage to use when loading and unloading plug-ins.
      */
@@ -82,21 +95,24 @@ public final class PluginManager {
     public PluginClassLoader classLoader = new PluginClassLoader();
 
     /**
-     * A list of all temporary files created. When destroying all
-     * plug-ins, all these files are deleted.
+     * The temporary JAR file copies, indexed by content digest. The
+     * files are kept when unloading plug-ins, so that unchanged JAR
+     * files are reused (instead of copied again) on reload.
      */
-    private ArrayList<File> tempFiles = new ArrayList<>();
+    private final ConcurrentHashMap<String,File> jarFiles = new ConcurrentHashMap<>();
 
     /**
      * Creates a new plug-in storage.
      *
      * @param builtinDir     the built-in plug-in directory
      * @param pluginDir      the base plug-in directory
+     * @param catalogDir     the catalog image directory, or null
      * @param storage        the storage to use for plug-ins
      */
-    public PluginManager(File builtinDir, File pluginDir, AppStorage storage) {
+    public PluginManager(File builtinDir, File pluginDir, File catalogDir, AppStorage storage) {
         this.builtinDir = builtinDir;
         this.pluginDir = pluginDir;
+        this.catalogDir = catalogDir;
         this.storage = storage;
         if (!builtinDir.equals(pluginDir)) {
             File builtinLocal = new File(builtinDir, LOCAL_PLUGIN);
@@ -245,7 +261,11 @@ public final class PluginManager {
             if (file.isDirectory()) {
                 ps = new DirStorage(file, false);
             } else {
-                ps = new PluginZipStorage(pluginId, file);
+                PluginZipStorage zs = new PluginZipStorage(pluginId, file);
+                if (catalogDir != null) {
+                    zs.loadCatalog(new File(catalogDir, pluginId + ".catalog"));
+                }
+                ps = zs;
             }
             storage.mount(ps, Plugin.storagePath(pluginId));
         } catch (Exception e) {
@@ -435,54 +455,66 @@ public final class PluginManager {
         }
         storage.cacheClean(true);
         classLoader = new PluginClassLoader();
-        while (tempFiles.size() > 0) {
-            File file = tempFiles.remove(tempFiles.size() - 1);
-            try {
-                file.delete();
-            } catch (Exception ignore) {
-                // File will be deleted on exit instead
-            }
-        }
     }
 
     /**
      * Loads all JAR files found in the specified plug-in library
      * path. All the files found will be copied to a temporary
      * directory before loading in order to avoid file locking and
-     * other issues.
+     * other issues. The files are prepared in parallel, but added to
+     * the class loader in storage order. This method will only log
+     * errors on failure and no error will be thrown.
      *
      * @param pluginId       the unique plug-in id
      */
     private void loadJarFiles(String pluginId) {
         Path path = Path.resolve(Plugin.storagePath(pluginId), AppStorage.PATH_LIB);
-        storage.query(path)
+        List<Path> paths = storage.query(path)
             .filterFileExtension(".jar")
             .metadatas()
-            .filter(meta -> meta.isBinary())
-            .forEach(meta -> loadJarFile(meta.path()));
+            .filter(Metadata::isBinary)
+            .map(Metadata::path)
+            .toList();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<File>> files = paths.stream()
+                .map(p -> executor.submit(() -> jarFile(p)))
+                .toList();
+            for (int i = 0; i < paths.size(); i++) {
+                try {
+                    LOG.fine("adding JAR to class loader: " + paths.get(i));
+                    classLoader.addJar(files.get(i).get());
+                } catch (Exception e) {
+                    LOG.log(Level.SEVERE, "failed to load JAR file: " + paths.get(i), e);
+                }
+            }
+        }
     }
 
     /**
-     * Adds a JAR file to the plug-in class loader. The JAR file will
-     * be copied from storage to a temporary directory to avoid file
-     * locking and other issues. This method will only log errors on
-     * failure and no error will be thrown.
+     * Returns a temporary file copy of a JAR file. The JAR file
+     * content digest is used to reuse any previous identical copy.
+     * Otherwise the JAR file is copied from storage to a new
+     * temporary file.
      *
      * @param path           the storage path to the JAR file
+     *
+     * @return the temporary JAR file copy
+     *
+     * @throws Exception if the JAR file couldn't be read or copied
      */
-    private void loadJarFile(Path path) {
-        try {
-            LOG.fine("adding JAR to class loader: " + path);
-            Binary data = storage.load(path, Binary.class);
-            File tmpFile = FileUtil.tempFile(path.name());
-            tempFiles.add(tmpFile);
+    File jarFile(Path path) throws Exception {
+        Binary data = storage.load(path, Binary.class);
+        byte[] hash = BinaryUtil.hashBytes(BinaryUtil.Hash.SHA2, data.openStream());
+        String digest = BinaryUtil.encodeHexString(hash);
+        File file = jarFiles.get(digest);
+        if (file == null || !file.isFile()) {
+            file = FileUtil.tempFile(path.name());
             try (InputStream is = data.openStream()) {
-                FileUtil.copy(is, tmpFile);
+                FileUtil.copy(is, file);
             }
-            classLoader.addJar(tmpFile);
-        } catch (Exception e) {
-            LOG.log(Level.SEVERE, "failed to load JAR file: " + path, e);
+            jarFiles.put(digest, file);
         }
+        return file;
     }
 
     /**
@@ -16,10 +16,8 @@ package org.rapidcontext.app.plugin;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.Date;
 
 import org.apache.commons.lang3.Strings;
-import org.rapidcontext.core.storage.Index;
 import org.rapidcontext.core.storage.Path;
 import org.rapidcontext.core.storage.ZipStorage;
 import org.rapidcontext.core.type.Plugin;
@@ -48,18 +46,7 @@ public final class PluginZipStorage extends ZipStorage {
             // Relocate to /plugin/<id>.properties location
             String ext = Strings.CS.removeStart(legacyPath.name(), "plugin");
             Path fixedPath = Path.resolve(Plugin.PATH, pluginId + ext);
-            Index root = (Index) entries.get(Path.ROOT);
-            Object data = entries.get(legacyPath);
-            root.removeObject(legacyPath.name());
-            paths.remove(legacyPath);
-            entries.remove(legacyPath);
-            Index idx = new Index(new Date());
-            root.addIndex(Plugin.PATH.name());
-            paths.put(Plugin.PATH, Plugin.PATH);
-            entries.put(Plugin.PATH, idx);
-            idx.addObject(fixedPath.name());
-            paths.put(fixedPath, fixedPath);
-            entries.put(fixedPath, data);
+            relocate(legacyPath, fixedPath);
         }
     }
 }
@@ -14,7 +14,9 @@
 
 package org.rapidcontext.app.proc;
 
+import org.apache.commons.lang3.Strings;
 import org.rapidcontext.core.data.Dict;
+import org.rapidcontext.core.proc.AdmissionInterceptor;
 import org.rapidcontext.core.proc.Bindings;
 import org.rapidcontext.core.proc.CallContext;
 import org.rapidcontext.core.proc.ProcedureException;
@@ -64,10 +66,23 @@ public class ConnectionMetricsProcedure extends Procedure {
         Dict res = new Dict();
         Connection.metrics(cx.storage()).stream()
             .filter(e -> {
-                Path path = Path.resolve(Connection.PATH, e.getKey());
+                String id = Strings.CS.removeEnd(e.getKey(), Connection.METRICS_VALIDATE);
+                id = Strings.CS.removeEnd(id, AdmissionInterceptor.METRICS_QUEUE);
+                Path path = Path.resolve(Connection.PATH, id);
                 return cx.hasReadAccess(path.toString());
             })
             .forEach(e -> res.set(e.getKey(), e.getValue().values()));
+        for (String id : res.keys()) {
+            boolean isChild = Strings.CS.endsWithAny(id, Connection.METRICS_VALIDATE, AdmissionInterceptor.METRICS_QUEUE);
+            Connection con = isChild ? null : Connection.find(cx.storage(), id);
+            if (con != null) {
+                Dict channels = new Dict()
+                    .set("used", con.usedChannels())
+                    .set("open", con.openChannels())
+                    .set("peak", con.peakChannels());
+                res.getDict(id).set("channels", channels);
+            }
+        }
         return res;
     }
 }
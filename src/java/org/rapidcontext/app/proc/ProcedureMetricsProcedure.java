@@ -14,9 +14,13 @@
 
 package org.rapidcontext.app.proc;
 
+import org.apache.commons.lang3.Strings;
 import org.rapidcontext.core.data.Dict;
+import org.rapidcontext.core.proc.AdmissionInterceptor;
 import org.rapidcontext.core.proc.Bindings;
+import org.rapidcontext.core.proc.CacheInterceptor;
 import org.rapidcontext.core.proc.CallContext;
+import org.rapidcontext.core.proc.CoalesceInterceptor;
 import org.rapidcontext.core.proc.ProcedureException;
 import org.rapidcontext.core.type.Procedure;
 
@@ -61,8 +65,42 @@ public class ProcedureMetricsProcedure extends Procedure {
         cx.requireSearchAccess("procedure/");
         Dict res = new Dict();
         Procedure.metrics(cx.storage()).stream()
-            .filter(e -> cx.hasReadAccess("procedure/" + e.getKey()))
+            .filter(e -> {
+                String id = Strings.CS.removeEnd(e.getKey(), AdmissionInterceptor.METRICS_QUEUE);
+                id = Strings.CS.removeEnd(id, CacheInterceptor.METRICS_CACHE);
+                id = Strings.CS.removeEnd(id, CoalesceInterceptor.METRICS_COALESCED);
+                return cx.hasReadAccess("procedure/" + id);
+            })
             .forEach(e -> res.set(e.getKey(), e.getValue().values()));
+        for (String key : res.keys()) {
+            if (key.endsWith(CacheInterceptor.METRICS_CACHE)) {
+                String id = Strings.CS.removeEnd(key, CacheInterceptor.METRICS_CACHE);
+                Dict hits = res.getDict(key).getDict("count");
+                Dict calls = res.getDict(id).getDict("count");
+                res.getDict(key).set("ratio", hitRatio(hits, calls));
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Calculates the cache hit ratio for each metrics interval. Cache
+     * hits are not counted as procedure calls, so the ratio is hits
+     * divided by the sum of hits and calls.
+     *
+     * @param hits           the cache hit counts
+     * @param calls          the procedure call counts
+     *
+     * @return the dictionary of hit ratios (from 0.0 to 1.0)
+     */
+    private static Dict hitRatio(Dict hits, Dict calls) {
+        Dict res = new Dict();
+        for (String interval : hits.keys()) {
+            long h = hits.get(interval, Long.class, 0L);
+            long total = h + calls.get(interval, Long.class, 0L);
+            double ratio = (total > 0) ? (double) h / total : 0.0;
+            res.set(interval, Math.round(ratio * 1000.0) / 1000.0);
+        }
         return res;
     }
 }
@@ -21,6 +21,7 @@ import org.rapidcontext.core.data.Dict;
 import org.rapidcontext.core.proc.Bindings;
 import org.rapidcontext.core.proc.CallContext;
 import org.rapidcontext.core.proc.ProcedureException;
+import org.rapidcontext.core.security.Token;
 import org.rapidcontext.core.type.Environment;
 import org.rapidcontext.core.type.Procedure;
 import org.rapidcontext.core.type.User;
@@ -82,6 +83,8 @@ public class StatusProcedure extends Procedure {
         res.set("initTime", ApplicationContext.INIT_TIME);
         res.set("startTime", ApplicationContext.START_TIME);
         res.set("currentTime", new Date());
+        res.set("startup", ctx.startupTimes());
+        res.set("tokenCache", Token.cacheStats());
         return res;
     }
 
@@ -14,7 +14,9 @@
 
 package org.rapidcontext.app.proc;
 
+import org.apache.commons.lang3.Strings;
 import org.rapidcontext.core.data.Dict;
+import org.rapidcontext.core.proc.AdmissionInterceptor;
 import org.rapidcontext.core.proc.Bindings;
 import org.rapidcontext.core.proc.CallContext;
 import org.rapidcontext.core.proc.ProcedureException;
@@ -64,7 +66,8 @@ public class UserMetricsProcedure extends Procedure {
         Dict res = new Dict();
         User.metrics(cx.storage()).stream()
             .filter(e -> {
-                Path path = Path.resolve(User.PATH, e.getKey());
+                String id = Strings.CS.removeEnd(e.getKey(), AdmissionInterceptor.METRICS_QUEUE);
+                Path path = Path.resolve(User.PATH, id);
                 return cx.hasReadAccess(path.toString());
             })
             .forEach(e -> res.set(e.getKey(), e.getValue().values()));
@@ -20,6 +20,7 @@ import org.rapidcontext.core.data.Dict;
 import org.rapidcontext.core.proc.Bindings;
 import org.rapidcontext.core.proc.CallContext;
 import org.rapidcontext.core.proc.ProcedureException;
+import org.rapidcontext.core.storage.Query;
 import org.rapidcontext.core.storage.StorableObject;
 import org.rapidcontext.core.storage.Storage;
 import org.rapidcontext.core.type.Procedure;
@@ -32,8 +33,6 @@ import org.rapidcontext.core.type.User;
  */
 public class UserSearchProcedure extends Procedure {
 
-    // TODO: Replace this procedure with Query API?
-
     /**
      * Creates a new procedure from a serialized representation.
      *
@@ -67,7 +66,13 @@ public class UserSearchProcedure extends Procedure {
 
         Storage storage = cx.storage();
         String match = bindings.getValue("email", "").toString().trim();
-        return storage.query(User.PATH).paths().map(path -> {
+        Query query = storage.query(User.PATH);
+        if (!match.isEmpty()) {
+            // Note: Users without email aren't indexed, so a full scan
+            //       is required to match those
+            query.filterProperty(User.KEY_EMAIL, match);
+        }
+        return query.paths().map(path -> {
             User user = storage.load(path, User.class);
             // TODO: Should really also compare with realm
             if (user != null && user.email().equalsIgnoreCase(match)) {
@@ -0,0 +1,304 @@
+/*
+ * RapidContext <https://www.rapidcontext.com/>
+ * Copyright (c) 2007-2026 Per Cederberg. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the BSD license.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the RapidContext LICENSE for more details.
+ */
+
+package org.rapidcontext.app.web;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.rapidcontext.core.data.Binary;
+import org.rapidcontext.core.storage.Metadata;
+import org.rapidcontext.core.storage.Path;
+import org.rapidcontext.core.storage.RootStorage;
+import org.rapidcontext.core.storage.Storage;
+import org.rapidcontext.core.web.Mime;
+import org.rapidcontext.util.BinaryUtil;
+
+/**
+ * A concatenated bundle of all CSS or JavaScript files for the app
+ * launcher. The bundle name contains a hash of the contents, so that
+ * the bundle can be cached permanently by web browsers. The bundle is
+ * served from the "files/bundle/" directory (relative to the cache
+ * path), so relative CSS URLs are rewritten to the original file
+ * locations.
+ *
+ * @author Per Cederberg
+ */
+class AppBundle implements Binary {
+
+    /**
+     * The class logger.
+     */
+    private static final Logger LOG =
+        Logger.getLogger(AppBundle.class.getName());
+
+    /**
+     * The bundle directory name (relative to the files path).
+     */
+    public static final String DIR = "bundle";
+
+    /**
+     * The regular expression for matching a CSS URL.
+     */
+    private static final Pattern RE_CSS_URL =
+        Pattern.compile("url\\(\\s*(['\"]?)([^'\")]+)\\1\\s*\\)");
+
+    /**
+     * The regular expression for matching an absolute URL.
+     */
+    private static final Pattern RE_ABSOLUTE_URL =
+        Pattern.compile("^([a-zA-Z][a-zA-Z0-9+.-]*:|/|#)");
+
+    /**
+     * The bundle file type (i.e. "css" or "js").
+     */
+    private String type;
+
+    /**
+     * The bundled file paths.
+     */
+    private Path[] paths;
+
+    /**
+     * The bundled file last modified timestamps (from metadata).
+     */
+    private long[] modified;
+
+    /**
+     * The concatenated file data.
+     */
+    private byte[] data;
+
+    /**
+     * The SHA-256 hash of the concatenated data.
+     */
+    private String hash;
+
+    /**
+     * Creates a new bundle from all matching files in storage. The
+     * file type is both used as a subdirectory (i.e. "files/css")
+     * and as a suffix (i.e. "*.css") when performing the search. The
+     * files are concatenated in case-insensitive path order.
+     *
+     * @param storage        the storage to read from
+     * @param type           the file type to bundle
+     *
+     * @return the new bundle
+     */
+    public static AppBundle build(Storage storage, String type) {
+        Path storagePath = Path.resolve(RootStorage.PATH_FILES, type + "/");
+        Path[] paths = storage.query(storagePath)
+            .filterFileExtension("." + type)
+            .paths()
+            .sorted((a, b) -> a.toString().compareToIgnoreCase(b.toString()))
+            .toArray(Path[]::new);
+        return new AppBundle(storage, type, paths);
+    }
+
+    /**
+     * Creates a new bundle from the specified files.
+     *
+     * @param storage        the storage to read from
+     * @param type           the file type to bundle
+     * @param paths          the file paths to concatenate
+     */
+    private AppBundle(Storage storage, String type, Path[] paths) {
+        this.type = type;
+        this.paths = paths;
+        this.modified = new long[paths.length];
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        int start = RootStorage.PATH_FILES.length();
+        for (int i = 0; i < paths.length; i++) {
+            String file = paths[i].toIdent(start);
+            Metadata meta = storage.lookup(paths[i]);
+            Object obj = storage.load(paths[i]);
+            if (meta != null && obj instanceof Binary b) {
+                modified[i] = modified(meta);
+                try (InputStream is = b.openStream()) {
+                    String text = new String(is.readAllBytes(), StandardCharsets.UTF_8);
+                    if (type.equals("css")) {
+                        text = rewriteUrls(text, paths[i].parent().toIdent(start));
+                    }
+                    append(os, "/* " + file + " */\n");
+                    append(os, text);
+                    append(os, type.equals("js") ? "\n;\n" : "\n");
+                } catch (IOException e) {
+                    LOG.log(Level.WARNING, "failed to read bundle file " + paths[i], e);
+                }
+            }
+        }
+        this.data = os.toByteArray();
+        try {
+            this.hash = BinaryUtil.encodeHexString(BinaryUtil.hashBytes(BinaryUtil.Hash.SHA2, data));
+        } catch (NoSuchAlgorithmException e) {
+            this.hash = Integer.toHexString(Arrays.hashCode(data));
+        }
+    }
+
+    /**
+     * Appends a string to the bundle output.
+     *
+     * @param os             the output stream
+     * @param text           the text to append
+     */
+    private static void append(ByteArrayOutputStream os, String text) {
+        os.writeBytes(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Rewrites all relative URLs in a CSS file, so that they resolve
+     * to the same files from the bundle directory.
+     *
+     * @param css            the CSS text
+     * @param dir            the CSS file directory (e.g. "css/")
+     *
+     * @return the CSS text with rewritten URLs
+     */
+    static String rewriteUrls(String css, String dir) {
+        Matcher m = RE_CSS_URL.matcher(css);
+        StringBuilder res = new StringBuilder();
+        while (m.find()) {
+            String url = m.group(2).strip();
+            if (RE_ABSOLUTE_URL.matcher(url).find()) {
+                m.appendReplacement(res, Matcher.quoteReplacement(m.group()));
+            } else {
+                String quote = m.group(1);
+                String str = "url(" + quote + "../" + dir + url + quote + ")";
+                m.appendReplacement(res, Matcher.quoteReplacement(str));
+            }
+        }
+        m.appendTail(res);
+        return res.toString();
+    }
+
+    /**
+     * Returns the bundle file name. The name is based on the content
+     * hash and the file type.
+     *
+     * @return the bundle file name
+     */
+    public String name() {
+        return hash.substring(0, 20) + "." + type;
+    }
+
+    /**
+     * Checks if the bundle is empty (i.e. no files were found).
+     *
+     * @return true if the bundle is empty, or
+     *         false otherwise
+     */
+    public boolean isEmpty() {
+        return paths.length == 0;
+    }
+
+    /**
+     * Checks if all bundled files are unmodified. This performs a
+     * storage lookup for each file, but doesn't detect new files.
+     *
+     * @param storage        the storage to check
+     *
+     * @return true if all bundled files are unmodified, or
+     *         false otherwise
+     */
+    public boolean isValid(Storage storage) {
+        for (int i = 0; i < paths.length; i++) {
+            Metadata meta = storage.lookup(paths[i]);
+            if (meta == null || modified(meta) != modified[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the last modified timestamp from file metadata.
+     *
+     * @param meta           the file metadata
+     *
+     * @return the last modified timestamp, or
+     *         zero (0) if unknown
+     */
+    private static long modified(Metadata meta) {
+        return (meta.modified() == null) ? 0L : meta.modified().getTime();
+    }
+
+    /**
+     * Returns the size (in bytes) of the binary object, if known.
+     *
+     * @return the object size (in bytes), or
+     *         -1 if unknown
+     */
+    @Override
+    public long size() {
+        return data.length;
+    }
+
+    /**
+     * The last modified timestamp for the object, if known.
+     *
+     * @return the last modified timestamp, or
+     *         zero (0) or the current system if unknown
+     */
+    @Override
+    public long lastModified() {
+        long res = 0L;
+        for (long ts : modified) {
+            res = Math.max(res, ts);
+        }
+        return res;
+    }
+
+    /**
+     * The MIME type of the binary data. Use a standard opaque
+     * binary data MIME type or one based on requested file name
+     * if unknown.
+     *
+     * @return the MIME type of the binary data
+     */
+    @Override
+    public String mimeType() {
+        return Mime.type(name());
+    }
+
+    /**
+     * The SHA-256 of the binary data, if known.
+     *
+     * @return the hexadecimal string with the SHA-256 hash, or
+     *         null if not available
+     */
+    @Override
+    public String sha256() {
+        return hash;
+    }
+
+    /**
+     * Opens a new input stream for reading the data. Note that this
+     * method SHOULD be possible to call several times.
+     *
+     * @return a new input stream for reading the binary data
+     */
+    @Override
+    public InputStream openStream() {
+        return new ByteArrayInputStream(data);
+    }
+}
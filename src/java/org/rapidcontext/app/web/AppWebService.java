@@ -20,7 +20,14 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Pattern;
@@ -42,6 +49,7 @@ import org.rapidcontext.core.storage.Storage;
 import org.rapidcontext.core.type.Session;
 import org.rapidcontext.core.web.Mime;
 import org.rapidcontext.core.web.Request;
+import org.rapidcontext.util.BinaryUtil;
 import org.rapidcontext.util.FileUtil;
 
 /**
@@ -89,11 +97,73 @@ public class AppWebService extends FileWebService {
      */
     public static final String KEY_HEADER = "header";
 
+    /**
+     * The dictionary key for the per-session file upload quota.
+     */
+    public static final String KEY_UPLOAD_QUOTA = "uploadQuota";
+
+    /**
+     * The default per-session file upload quota (in bytes).
+     */
+    public static final long DEFAULT_UPLOAD_QUOTA = 256L * 1024L * 1024L;
+
     /**
      * The regular expression for matching a static file path.
      */
     private static final Pattern RE_FILES = Pattern.compile("^((rapidcontext/files|@).*?)/");
 
+    /**
+     * The minimum interval (in millis) between bundle file checks.
+     */
+    private static final long BUNDLE_CHECK_MILLIS = 2000L;
+
+    /**
+     * The maximum number of rendered app launch pages to cache. The
+     * base URL is taken from the request Host header, so the number
+     * of distinct cache keys isn't bounded by the configuration.
+     */
+    private static final int MAX_PAGES = 64;
+
+    /**
+     * The current CSS and JS bundles. Indexed by file type.
+     */
+    private static HashMap<String,AppBundle> bundles = new HashMap<>();
+
+    /**
+     * The recently built bundles. Indexed by bundle file name. Older
+     * bundles are kept for a while, so that previously rendered pages
+     * remain functional.
+     */
+    private static LinkedHashMap<String,AppBundle> bundleNames = new LinkedHashMap<>();
+
+    /**
+     * The storage modification counter for the current bundles.
+     */
+    private static long bundleModCount = -1L;
+
+    /**
+     * The timestamp of the last bundle file check.
+     */
+    private static long bundleChecked = 0L;
+
+    /**
+     * The rendered app launch pages. Indexed by app identifier and
+     * base URL. The least recently used pages are evicted once the
+     * cache is full. Access must be synchronized on this map.
+     */
+    private LinkedHashMap<String,String> pages = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String,String> eldest) {
+            return size() > MAX_PAGES;
+        }
+    };
+
+    /**
+     * The validation stamp for the rendered app launch pages. Based
+     * on the template modification time and the current bundles.
+     */
+    private String pagesStamp = null;
+
     /**
      * The log web service used for the "rapidcontext/log" URL.
      */
@@ -104,6 +174,11 @@ public class AppWebService extends FileWebService {
      */
     protected StatusWebService statusService;
 
+    /**
+     * The metrics web service used for the "rapidcontext/metrics" URL.
+     */
+    protected MetricsWebService metricsService;
+
     /**
      * The procedure web service used for the "rapidcontext/procedure/" URLs.
      */
@@ -141,6 +216,56 @@ public class AppWebService extends FileWebService {
             .toArray(String[]::new);
     }
 
+    /**
+     * Returns the current bundle of files of a specified type. The
+     * bundle is rebuilt if the storage "/files/" tree was modified,
+     * or if any of the bundled files were modified. The latter check
+     * is throttled to avoid repeated lookups.
+     *
+     * @param type           the file type to bundle
+     *
+     * @return the current bundle for the file type
+     */
+    private static synchronized AppBundle bundle(String type) {
+        Storage storage = Context.active().storage();
+        long modCount = -1L;
+        if (storage instanceof RootStorage rs) {
+            modCount = rs.modCount(RootStorage.PATH_FILES);
+        }
+        long now = System.currentTimeMillis();
+        boolean checkFiles = now - bundleChecked > BUNDLE_CHECK_MILLIS;
+        if (modCount != bundleModCount || modCount < 0) {
+            bundles.clear();
+        } else if (checkFiles) {
+            bundles.values().removeIf(b -> !b.isValid(storage));
+        }
+        bundleModCount = modCount;
+        if (checkFiles) {
+            bundleChecked = now;
+        }
+        return bundles.computeIfAbsent(type, t -> {
+            AppBundle bundle = AppBundle.build(storage, t);
+            LOG.fine("built app bundle " + bundle.name());
+            bundleNames.put(bundle.name(), bundle);
+            while (bundleNames.size() > 8) {
+                bundleNames.remove(bundleNames.keySet().iterator().next());
+            }
+            return bundle;
+        });
+    }
+
+    /**
+     * Returns a recently built bundle by name.
+     *
+     * @param name           the bundle file name
+     *
+     * @return the bundle found, or
+     *         null if not found
+     */
+    private static synchronized AppBundle bundleByName(String name) {
+        return bundleNames.get(name);
+    }
+
     /**
      * Creates a new app web service from a serialized representation.
      *
@@ -155,6 +280,7 @@ public class AppWebService extends FileWebService {
         this.dict.setDefault(KEY_LANG, "en");
         logger = new LogWebService(id, type, dict);
         statusService = new StatusWebService(id, type, dict);
+        metricsService = new MetricsWebService(id, type, dict);
         procedureService = new ProcedureWebService(id, type, dict);
         storageService = new StorageWebService(id, type, dict);
     }
@@ -223,6 +349,16 @@ public class AppWebService extends FileWebService {
         return res;
     }
 
+    /**
+     * Returns the per-session file upload quota. This limits the
+     * total size of all uploaded files in each session.
+     *
+     * @return the file upload quota (in bytes)
+     */
+    public long uploadQuota() {
+        return dict.get(KEY_UPLOAD_QUOTA, Long.class, DEFAULT_UPLOAD_QUOTA);
+    }
+
     /**
      * Returns the HTTP methods implemented for the specified
      * request. The OPTIONS or HEAD methods doesn't have to be added
@@ -240,6 +376,8 @@ public class AppWebService extends FileWebService {
             return logger.methodsImpl(request);
         } else if (request.matchPath("rapidcontext/status")) {
             return statusService.methodsImpl(request);
+        } else if (request.matchPath("rapidcontext/metrics")) {
+            return metricsService.methodsImpl(request);
         } else if (request.matchPath("rapidcontext/procedure/")) {
             return procedureService.methodsImpl(request);
         } else if (request.matchPath("rapidcontext/storage/")) {
@@ -265,6 +403,8 @@ public class AppWebService extends FileWebService {
             logger.process(request);
         } else if (request.matchPath("rapidcontext/status")) {
             statusService.process(request);
+        } else if (request.matchPath("rapidcontext/metrics")) {
+            metricsService.process(request);
         } else if (request.matchPath("rapidcontext/procedure/")) {
             procedureService.process(request);
         } else if (request.matchPath("rapidcontext/storage/")) {
@@ -283,7 +423,11 @@ public class AppWebService extends FileWebService {
     protected void doGet(Request request) {
         String baseUrl = Strings.CS.removeEnd(request.getUrl(), request.getPath());
         if (request.matchPath(RE_FILES)) {
-            processFile(request, Path.resolve(RootStorage.PATH_FILES, request.getPath()), true);
+            if (request.matchPath(AppBundle.DIR + "/")) {
+                processBundle(request, request.getPath());
+            } else {
+                processFile(request, Path.resolve(RootStorage.PATH_FILES, request.getPath()), true);
+            }
         } else if (request.matchPath("rapidcontext/app/")) {
             String appId = Strings.CS.removeEnd(request.getPath(), "/");
             processApp(request, appId, baseUrl);
@@ -316,7 +460,9 @@ public class AppWebService extends FileWebService {
     /**
      * Processes an app launch request. This loads the app launcher
      * template from storage and replaces all template variables with
-     * their corresponding search results and values.
+     * their corresponding search results and values. The rendered
+     * page is cached per app and base URL (for the most recently used
+     * pages), until the template or any of the bundles are modified.
      *
      * @param request        the request to process
      * @param appId          the app identifier to launch
@@ -335,10 +481,30 @@ public class AppWebService extends FileWebService {
             }
             appId = loginId();
         }
-        Object tpl = storage.load(RootStorage.PATH_FILES.child("index.tmpl", false));
-        if (appId != null && tpl instanceof Binary b) {
+        Path tplPath = RootStorage.PATH_FILES.child("index.tmpl", false);
+        Metadata tplMeta = storage.lookup(tplPath);
+        if (appId != null && tplMeta != null && tplMeta.isBinary()) {
+            String stamp = tplMeta.modified() + ":" +
+                           bundle("css").name() + ":" +
+                           bundle("js").name();
+            String key = appId + " " + baseUrl;
+            String str;
+            synchronized (pages) {
+                if (!stamp.equals(pagesStamp)) {
+                    pages.clear();
+                    pagesStamp = stamp;
+                }
+                str = pages.get(key);
+            }
             try {
-                String str = processAppTemplate(b, baseUrl, appId);
+                if (str == null && storage.load(tplPath) instanceof Binary b) {
+                    str = processAppTemplate(b, baseUrl, appId);
+                    synchronized (pages) {
+                        if (stamp.equals(pagesStamp)) {
+                            pages.put(key, str);
+                        }
+                    }
+                }
                 request.sendText(Mime.HTML[0], str);
             } catch (IOException e) {
                 LOG.log(Level.WARNING, "failed to launch app: " + appId, e);
@@ -424,21 +590,53 @@ public class AppWebService extends FileWebService {
             String cache = ApplicationContext.active().cachePath();
             res.append(line.replace("%FILES%", cache));
         } else if (line.contains("%JS_FILES%")) {
-            for (String str : resources("js", path())) {
-                res.append(line.replace("%JS_FILES%", str));
-                res.append("\n");
-            }
+            processAppTemplateBundle(res, line, "%JS_FILES%", bundle("js"));
         } else if (line.contains("%CSS_FILES%")) {
-            for (String str : resources("css", path())) {
-                res.append(line.replace("%CSS_FILES%", str));
-                res.append("\n");
-            }
+            processAppTemplateBundle(res, line, "%CSS_FILES%", bundle("css"));
         } else {
             res.append(line);
             res.append("\n");
         }
     }
 
+    /**
+     * Processes a bundle line from the HTML template file for an app.
+     * The line is omitted if the bundle is empty.
+     *
+     * @param res            the result buffer
+     * @param line           the line to process
+     * @param variable       the template variable to replace
+     * @param bundle         the bundle to link
+     */
+    private void processAppTemplateBundle(StringBuilder res,
+                                          String line,
+                                          String variable,
+                                          AppBundle bundle) {
+        if (!bundle.isEmpty()) {
+            String cache = ApplicationContext.active().cachePath();
+            String url = cache + "/" + AppBundle.DIR + "/" + bundle.name();
+            res.append(line.replace(variable, url));
+            res.append("\n");
+        }
+    }
+
+    /**
+     * Processes a bundle file request. Bundles have content hash file
+     * names, so the response is marked as immutable.
+     *
+     * @param request        the request to process
+     * @param name           the bundle file name
+     */
+    protected void processBundle(Request request, String name) {
+        AppBundle bundle = bundleByName(Strings.CS.removeStart(name, "/"));
+        if (bundle == null) {
+            errorNotFound(request);
+        } else {
+            request.sendBinary(bundle);
+            request.setResponseHeader(Header.CACHE_CONTROL, "public, max-age=31536000, immutable");
+        }
+    }
+
     /**
      * Processes a file download request. This is used when file data
      * is POST:ed to the special download URL, which makes the handler
@@ -471,7 +669,11 @@ public class AppWebService extends FileWebService {
 
     /**
      * Processes a file upload request. This is used when files are
-     * POST:ed to the special upload URL.
+     * POST:ed to the special upload URL. The file data is streamed
+     * to a temporary file, while computing a SHA-256 checksum. The
+     * checksum is returned in the "Repr-Digest" response header, and
+     * verified against any "sha256" request parameter. Uploads
+     * exceeding the per-session quota are rejected.
      *
      * @param request        the request to process
      */
@@ -481,6 +683,12 @@ public class AppWebService extends FileWebService {
             errorUnauthorized(request);
             return;
         }
+        long quota = uploadQuota();
+        if (request.getContentLength() > quota) {
+            errorTooLarge(request, "upload exceeds session quota of " + quota + " bytes");
+            return;
+        }
+        File file = null;
         try {
             Part part = request.getNextFile();
             if (part == null) {
@@ -501,15 +709,35 @@ public class AppWebService extends FileWebService {
             if (fileId == null || fileId.isBlank()) {
                 fileId = fileName;
             }
-            File file = FileUtil.tempFile(fileName);
-            try (InputStream is = part.getInputStream()) {
+            long available = quota - session.filesSize(fileId);
+            if (part.getSize() > available) {
+                errorTooLarge(request, "upload exceeds session quota of " + quota + " bytes");
+                return;
+            }
+            file = FileUtil.tempFile(fileName);
+            MessageDigest digest = MessageDigest.getInstance(BinaryUtil.Hash.SHA2);
+            try (InputStream is = new DigestInputStream(part.getInputStream(), digest)) {
                 FileUtil.copy(is, file);
             }
+            byte[] hash = digest.digest();
+            String sha256 = BinaryUtil.encodeHexString(hash);
+            String expected = request.getParameter("sha256");
+            if (expected != null && !expected.equalsIgnoreCase(sha256)) {
+                errorBadRequest(request, "File checksum mismatch, SHA-256 was " + sha256);
+                return;
+            }
             session.addFile(fileId, file);
+            file = null;
+            String b64 = Base64.getEncoder().encodeToString(hash);
+            request.setResponseHeader("Repr-Digest", "sha-256=:" + b64 + ":");
             request.sendText(Mime.TEXT[0], "Session file " + fileId + " uploaded");
-        } catch (IOException e) {
+        } catch (IOException | NoSuchAlgorithmException e) {
             LOG.log(Level.WARNING, "failed to process file upload", e);
             errorBadRequest(request, e.getMessage());
+        } finally {
+            if (file != null) {
+                file.delete();
+            }
         }
     }
 }
@@ -0,0 +1,243 @@
+/*
+ * RapidContext <https://www.rapidcontext.com/>
+ * Copyright (c) 2007-2026 Per Cederberg. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the BSD license.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the RapidContext LICENSE for more details.
+ */
+
+package org.rapidcontext.app.web;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.lang.management.RuntimeMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import java.util.Map.Entry;
+
+import org.rapidcontext.core.ctx.ThreadContext;
+import org.rapidcontext.core.data.Dict;
+import org.rapidcontext.core.proc.AdmissionInterceptor;
+import org.rapidcontext.core.proc.CacheInterceptor;
+import org.rapidcontext.core.proc.CoalesceInterceptor;
+import org.rapidcontext.core.stats.MovingUsage;
+import org.rapidcontext.core.stats.OpenMetricsWriter;
+import org.rapidcontext.core.storage.Storage;
+import org.rapidcontext.core.type.Connection;
+import org.rapidcontext.core.type.Metrics;
+import org.rapidcontext.core.type.Procedure;
+import org.rapidcontext.core.type.Session;
+import org.rapidcontext.core.type.User;
+import org.rapidcontext.core.type.WebService;
+import org.rapidcontext.core.web.Mime;
+import org.rapidcontext.core.web.Request;
+
+/**
+ * A metrics scrape web service. This service renders all procedure,
+ * connection and user metrics, together with JVM, connection pool,
+ * result cache and session gauges in the OpenMetrics (or Prometheus)
+ * text format. Read access to the metrics storage path is required.
+ *
+ * @author Per Cederberg
+ */
+public class MetricsWebService extends WebService {
+
+    /**
+     * The MIME types accepted for the OpenMetrics text format.
+     */
+    private static final String[] OPENMETRICS = { "application/openmetrics-text" };
+
+    /**
+     * The procedure metrics key suffixes and metric name parts.
+     */
+    private static final String[][] PROCEDURE_SUFFIXES = {
+        { CacheInterceptor.METRICS_CACHE, "_cache" },
+        { CoalesceInterceptor.METRICS_COALESCED, "_coalesced" },
+        { AdmissionInterceptor.METRICS_QUEUE, "_queue" }
+    };
+
+    /**
+     * The connection metrics key suffixes and metric name parts.
+     */
+    private static final String[][] CONNECTION_SUFFIXES = {
+        { Connection.METRICS_VALIDATE, "_validate" },
+        { AdmissionInterceptor.METRICS_QUEUE, "_queue" }
+    };
+
+    /**
+     * Creates a new metrics web service from a serialized representation.
+     *
+     * @param id             the object identifier
+     * @param type           the object type name
+     * @param dict           the serialized representation
+     */
+    public MetricsWebService(String id, String type, Dict dict) {
+        super(id, type, dict);
+    }
+
+    /**
+     * Returns the HTTP methods implemented for the specified
+     * request. The OPTIONS or HEAD methods doesn't have to be added
+     * to the result (added automatically later).
+     *
+     * @param request        the request to check
+     *
+     * @return the array of HTTP method names supported
+     *
+     * @see #methods(Request)
+     */
+    @Override
+    protected String[] methodsImpl(Request request) {
+        return METHODS_GET;
+    }
+
+    /**
+     * Processes an HTTP GET request.
+     *
+     * @param request        the request to process
+     */
+    @Override
+    protected void doGet(Request request) {
+        ThreadContext cx = ThreadContext.active();
+        if (!cx.hasReadAccess(Metrics.PATH.toString())) {
+            errorUnauthorized(request);
+            return;
+        }
+        Storage storage = cx.storage();
+        StringBuilder buffer = new StringBuilder(16384);
+        OpenMetricsWriter out = new OpenMetricsWriter(buffer, Mime.isOutputMatch(request, OPENMETRICS));
+        Metrics procedures = Procedure.metrics(storage);
+        usage(out, "rapidcontext_procedure", "procedure", procedures, PROCEDURE_SUFFIXES);
+        Metrics connections = Connection.metrics(storage);
+        usage(out, "rapidcontext_connection", "connection", connections, CONNECTION_SUFFIXES);
+        channels(out, storage, connections);
+        usage(out, "rapidcontext_user", "user", User.metrics(storage), new String[0][]);
+        out.family("rapidcontext_result_cache_procedures", OpenMetricsWriter.GAUGE,
+                   "Number of procedures with cached results.");
+        out.sample("rapidcontext_result_cache_procedures", CacheInterceptor.cacheCount());
+        out.family("rapidcontext_result_cache_entries", OpenMetricsWriter.GAUGE,
+                   "Number of cached procedure results.");
+        out.sample("rapidcontext_result_cache_entries", CacheInterceptor.entryCount());
+        out.family("rapidcontext_sessions", OpenMetricsWriter.GAUGE,
+                   "Number of stored sessions (at last expiry check).");
+        out.sample("rapidcontext_sessions", Session.storedCount());
+        jvm(out);
+        out.end();
+        request.sendText(out.mimeType(), buffer.toString());
+    }
+
+    /**
+     * Writes the usage metrics for a metrics set. Keys with a known
+     * suffix are written as separate metric families.
+     *
+     * @param out            the metrics writer
+     * @param prefix         the metric family name prefix
+     * @param label          the label name for the key
+     * @param metrics        the metrics set
+     * @param suffixes       the key suffixes and metric name parts
+     */
+    private static void usage(OpenMetricsWriter out,
+                              String prefix,
+                              String label,
+                              Metrics metrics,
+                              String[][] suffixes) {
+
+        List<Entry<String, MovingUsage>> base = metrics.stream()
+            .filter(e -> !hasSuffix(e.getKey(), suffixes))
+            .toList();
+        out.usage(prefix, label, null, base);
+        for (String[] suffix : suffixes) {
+            List<Entry<String, MovingUsage>> entries = metrics.stream()
+                .filter(e -> e.getKey().endsWith(suffix[0]))
+                .toList();
+            out.usage(prefix + suffix[1], label, suffix[0], entries);
+        }
+    }
+
+    /**
+     * Checks if a metrics key ends with any of the known suffixes.
+     *
+     * @param key            the metrics key
+     * @param suffixes       the key suffixes and metric name parts
+     *
+     * @return true if a suffix matched, or
+     *         false otherwise
+     */
+    private static boolean hasSuffix(String key, String[][] suffixes) {
+        for (String[] suffix : suffixes) {
+            if (key.endsWith(suffix[0])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Writes the connection channel pool gauges.
+     *
+     * @param out            the metrics writer
+     * @param storage        the storage to use
+     * @param metrics        the connection metrics set
+     */
+    private static void channels(OpenMetricsWriter out, Storage storage, Metrics metrics) {
+        String name = "rapidcontext_connection_channels";
+        out.family(name, OpenMetricsWriter.GAUGE, "Number of connection channels.");
+        metrics.stream()
+            .map(Entry::getKey)
+            .filter(id -> !hasSuffix(id, CONNECTION_SUFFIXES))
+            .forEach(id -> {
+                Connection con = Connection.find(storage, id);
+                if (con != null) {
+                    out.sample(name, con.usedChannels(), "connection", id, "state", "used");
+                    out.sample(name, con.openChannels(), "connection", id, "state", "open");
+                    out.sample(name, con.peakChannels(), "connection", id, "state", "peak");
+                }
+            });
+    }
+
+    /**
+     * Writes the JVM memory, thread and garbage collection metrics.
+     *
+     * @param out            the metrics writer
+     */
+    private static void jvm(OpenMetricsWriter out) {
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        MemoryUsage nonHeap = ManagementFactory.getMemoryMXBean().getNonHeapMemoryUsage();
+        out.family("jvm_memory_used_bytes", OpenMetricsWriter.GAUGE, "Used JVM memory (in bytes).");
+        out.sample("jvm_memory_used_bytes", heap.getUsed(), "area", "heap");
+        out.sample("jvm_memory_used_bytes", nonHeap.getUsed(), "area", "nonheap");
+        out.family("jvm_memory_committed_bytes", OpenMetricsWriter.GAUGE, "Committed JVM memory (in bytes).");
+        out.sample("jvm_memory_committed_bytes", heap.getCommitted(), "area", "heap");
+        out.sample("jvm_memory_committed_bytes", nonHeap.getCommitted(), "area", "nonheap");
+        out.family("jvm_memory_max_bytes", OpenMetricsWriter.GAUGE, "Maximum JVM memory (in bytes).");
+        out.sample("jvm_memory_max_bytes", heap.getMax(), "area", "heap");
+        out.sample("jvm_memory_max_bytes", nonHeap.getMax(), "area", "nonheap");
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        out.family("jvm_threads_current", OpenMetricsWriter.GAUGE, "Current number of platform threads.");
+        out.sample("jvm_threads_current", threads.getThreadCount());
+        out.family("jvm_threads_peak", OpenMetricsWriter.GAUGE, "Peak number of platform threads.");
+        out.sample("jvm_threads_peak", threads.getPeakThreadCount());
+        List<GarbageCollectorMXBean> gcs = ManagementFactory.getGarbageCollectorMXBeans();
+        out.family("jvm_gc_collections", OpenMetricsWriter.COUNTER, "Number of garbage collections.");
+        for (GarbageCollectorMXBean gc : gcs) {
+            out.sample("jvm_gc_collections_total", Math.max(0, gc.getCollectionCount()), "gc", gc.getName());
+        }
+        out.family("jvm_gc_collection_seconds", OpenMetricsWriter.COUNTER, "Time spent in garbage collection.");
+        for (GarbageCollectorMXBean gc : gcs) {
+            double secs = Math.max(0, gc.getCollectionTime()) / 1000.0;
+            out.sample("jvm_gc_collection_seconds_total", secs, "gc", gc.getName());
+        }
+        RuntimeMXBean runtime = ManagementFactory.getRuntimeMXBean();
+        out.family("process_start_time_seconds", OpenMetricsWriter.GAUGE, "Process start time (Unix epoch seconds).");
+        out.sample("process_start_time_seconds", runtime.getStartTime() / 1000.0);
+        out.family("process_uptime_seconds", OpenMetricsWriter.GAUGE, "Process uptime (in seconds).");
+        out.sample("process_uptime_seconds", runtime.getUptime() / 1000.0);
+    }
+}
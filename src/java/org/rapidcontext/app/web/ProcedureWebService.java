@@ -15,23 +15,31 @@
 package org.rapidcontext.app.web;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.rapidcontext.app.model.RequestContext;
 import org.rapidcontext.core.ctx.ThreadContext;
+import org.rapidcontext.core.data.Array;
 import org.rapidcontext.core.data.Dict;
 import org.rapidcontext.core.data.JsonSerializer;
+import org.rapidcontext.core.proc.AdmissionException;
+import org.rapidcontext.core.proc.AdmissionInterceptor;
 import org.rapidcontext.core.proc.Bindings;
 import org.rapidcontext.core.proc.CallContext;
 import org.rapidcontext.core.proc.ProcedureException;
 import org.rapidcontext.core.type.Procedure;
+import org.rapidcontext.core.type.Session;
 import org.rapidcontext.core.type.User;
 import org.rapidcontext.core.type.WebService;
 import org.rapidcontext.core.web.Mime;
 import org.rapidcontext.core.web.Request;
+import org.rapidcontext.core.web.RequestSizeException;
 import org.rapidcontext.util.ValueUtil;
 
 /**
@@ -39,6 +47,12 @@ import org.rapidcontext.util.ValueUtil;
  * through HTTP GET or POST calls. Arguments are automatically matched by name
  * or from 'arg0'... request parameters.
  *
+ * A JSON array of calls POST:ed to the service root is executed as a
+ * batch. Each call object contains a 'procedure' name and optional
+ * 'args' (array or object). Calls run concurrently (or sequentially if
+ * the 'system:sequential' parameter is set), and the results are
+ * returned as a JSON array or streamed as newline-delimited JSON.
+ *
  * @author Per Cederberg
  */
 public class ProcedureWebService extends WebService {
@@ -64,6 +78,37 @@ public class ProcedureWebService extends WebService {
      */
     public static final String KEY_OUTPUT_TYPE = "outputType";
 
+    /**
+     * The dictionary key for the maximum input data size (in bytes).
+     */
+    public static final String KEY_MAX_INPUT_SIZE = "maxInputSize";
+
+    /**
+     * The dictionary key for the maximum input data nesting depth.
+     */
+    public static final String KEY_MAX_INPUT_DEPTH = "maxInputDepth";
+
+    /**
+     * The dictionary key for the maximum number of calls in a batch.
+     */
+    public static final String KEY_MAX_BATCH_SIZE = "maxBatchSize";
+
+    /**
+     * The default maximum input data size (in bytes).
+     */
+    public static final long DEFAULT_MAX_INPUT_SIZE = 32L * 1024L * 1024L;
+
+    /**
+     * The default maximum number of calls in a batch.
+     */
+    public static final int DEFAULT_MAX_BATCH_SIZE = 100;
+
+    /**
+     * The internal result dictionary key for an admission rejection.
+     * Removed before the result is sent.
+     */
+    private static final String KEY_REJECTED = "_rejected";
+
     /**
      * Creates a new file web service from a serialized representation.
      *
@@ -106,6 +151,36 @@ public class ProcedureWebService extends WebService {
         return dict.get(KEY_OUTPUT_TYPE, String.class, "json+metadata");
     }
 
+    /**
+     * Returns the maximum input data size. Larger JSON request bodies
+     * will be rejected.
+     *
+     * @return the maximum input data size (in bytes)
+     */
+    public long maxInputSize() {
+        return dict.get(KEY_MAX_INPUT_SIZE, Long.class, DEFAULT_MAX_INPUT_SIZE);
+    }
+
+    /**
+     * Returns the maximum input data nesting depth. JSON request
+     * bodies with more deeply nested objects or arrays will be
+     * rejected.
+     *
+     * @return the maximum input data nesting depth
+     */
+    public int maxInputDepth() {
+        return dict.get(KEY_MAX_INPUT_DEPTH, Integer.class, JsonSerializer.MAX_DEPTH);
+    }
+
+    /**
+     * Returns the maximum number of calls in a batch request.
+     *
+     * @return the maximum number of calls in a batch
+     */
+    public int maxBatchSize() {
+        return dict.get(KEY_MAX_BATCH_SIZE, Integer.class, DEFAULT_MAX_BATCH_SIZE);
+    }
+
     /**
      * Returns the HTTP methods implemented for the specified
      * request. The OPTIONS or HEAD methods doesn't have to be added
@@ -139,7 +214,11 @@ public class ProcedureWebService extends WebService {
      */
     @Override
     protected void doPost(Request request) {
-        processProcedure(request);
+        if (request.getPath().isEmpty() && Mime.isInputMatch(request, Mime.JSON)) {
+            processBatch(request);
+        } else {
+            processProcedure(request);
+        }
     }
 
     /**
@@ -149,6 +228,10 @@ public class ProcedureWebService extends WebService {
      * @param request        the request to process
      */
     protected void processProcedure(Request request) {
+        if (Mime.isInputMatch(request, Mime.JSON) && request.getContentLength() > maxInputSize()) {
+            errorTooLarge(request, "input data exceeds " + maxInputSize() + " bytes");
+            return;
+        }
         String name = prefix() + request.getPath();
         String source = "web [" + request.getRemoteAddr() + "]";
         long startTime = System.currentTimeMillis();
@@ -161,23 +244,249 @@ public class ProcedureWebService extends WebService {
         res.set("execTime", (int) execTime);
         String err = res.get("error", String.class);
         User.report(ThreadContext.active().user(), startTime, err == null, err);
+        AdmissionException rejected = res.get(KEY_REJECTED, AdmissionException.class);
+        res.remove(KEY_REJECTED);
+        int errorStatus = Status.BAD_REQUEST;
+        if (rejected != null) {
+            boolean isUser = AdmissionInterceptor.SCOPE_USER.equals(rejected.scope());
+            errorStatus = isUser ? Status.TOO_MANY_REQUESTS : Status.SERVICE_UNAVAILABLE;
+            request.setResponseHeader(Header.RETRY_AFTER, String.valueOf(rejected.retryAfter()));
+        }
         boolean isTextOutput = outputType().equalsIgnoreCase("text");
         boolean isJsonOutput = outputType().equalsIgnoreCase("json");
         if (isTextOutput || isJsonOutput) {
             if (res.containsKey("error")) {
                 String error = res.get("error", String.class, "internal error");
-                request.sendError(Status.BAD_REQUEST, Mime.TEXT[0], error);
+                request.sendError(errorStatus, Mime.TEXT[0], error);
             } else if (isTextOutput) {
-                request.sendText(Mime.TEXT[0], res.get("data", String.class, ""));
+                sendOutput(request, Mime.TEXT[0], res.get("data", String.class, ""));
             } else {
                 Object data = res.get("data");
-                request.sendText(Mime.JSON[0], JsonSerializer.serialize(data, false));
+                sendOutput(request, Mime.JSON[0], JsonSerializer.serialize(data, false));
             }
+        } else if (rejected != null) {
+            request.sendError(errorStatus, Mime.JSON[0], JsonSerializer.serialize(res, false));
         } else {
             request.sendText(Mime.JSON[0], JsonSerializer.serialize(res, false));
         }
     }
 
+    /**
+     * Sends the procedure output data as the request response. For
+     * GET requests, the response is conditional (with an ETag from
+     * a hash of the text), so that polling clients don't have to
+     * download unchanged results.
+     *
+     * @param request        the request to process
+     * @param mimeType       the MIME type of the output
+     * @param text           the output text
+     */
+    private void sendOutput(Request request, String mimeType, String text) {
+        if (request.hasMethod(Method.GET)) {
+            request.sendText(mimeType, text, null);
+        } else {
+            request.sendText(mimeType, text);
+        }
+    }
+
+    /**
+     * Processes a batch procedure execution request. The request body
+     * must contain a JSON array of call objects, each with a
+     * 'procedure' name and optional 'args' (an array or an object with
+     * named arguments). The calls are executed concurrently on virtual
+     * threads, unless the 'system:sequential' parameter is set. The
+     * results are returned as a JSON array (in call order), or streamed
+     * as newline-delimited JSON (in completion order) if accepted by
+     * the client.
+     *
+     * @param request        the request to process
+     */
+    protected void processBatch(Request request) {
+        Array calls;
+        try (InputStream is = request.getInputStream(maxInputSize())) {
+            Object obj = JsonSerializer.unserialize(is, maxInputDepth());
+            calls = (obj instanceof Array a) ? a : null;
+        } catch (RequestSizeException e) {
+            errorTooLarge(request, e.getMessage());
+            return;
+        } catch (IOException e) {
+            errorBadRequest(request, e.getMessage());
+            return;
+        }
+        if (calls == null) {
+            errorBadRequest(request, "batch input must be a JSON array of calls");
+            return;
+        } else if (calls.size() > maxBatchSize()) {
+            errorBadRequest(request, "batch exceeds " + maxBatchSize() + " calls");
+            return;
+        }
+        boolean isSequential = ValueUtil.bool(request.getParameter("system:sequential"), false);
+        ThreadContext cx = ThreadContext.active();
+        Session session = cx.session();
+        User user = cx.user();
+        int count = calls.size();
+        LinkedBlockingQueue<Dict> done = new LinkedBlockingQueue<>();
+        if (isSequential) {
+            Thread.startVirtualThread(() -> {
+                for (int i = 0; i < count; i++) {
+                    done.add(processBatchCall(i, calls.get(i), session, user));
+                }
+            });
+        } else {
+            for (int i = 0; i < count; i++) {
+                int idx = i;
+                Thread.startVirtualThread(() -> {
+                    done.add(processBatchCall(idx, calls.get(idx), session, user));
+                });
+            }
+        }
+        if (Mime.isOutputMatch(request, Mime.NDJSON)) {
+            request.sendStream(Mime.NDJSON[0], os -> {
+                boolean[] sent = new boolean[count];
+                for (int i = 0; i < count; i++) {
+                    Dict res = awaitBatchCall(done);
+                    if (res == null) {
+                        for (int j = 0; j < count; j++) {
+                            if (!sent[j]) {
+                                String line = JsonSerializer.serialize(interruptedBatchCall(j), false) + "\n";
+                                os.write(line.getBytes(StandardCharsets.UTF_8));
+                            }
+                        }
+                        os.flush();
+                        break;
+                    }
+                    sent[res.get("index", Integer.class)] = true;
+                    String line = JsonSerializer.serialize(res, false) + "\n";
+                    os.write(line.getBytes(StandardCharsets.UTF_8));
+                    os.flush();
+                }
+            });
+        } else {
+            Object[] results = new Object[count];
+            for (int i = 0; i < count; i++) {
+                Dict res = awaitBatchCall(done);
+                if (res == null) {
+                    break;
+                }
+                results[res.get("index", Integer.class)] = res;
+            }
+            for (int i = 0; i < count; i++) {
+                if (results[i] == null) {
+                    results[i] = interruptedBatchCall(i);
+                }
+            }
+            request.sendText(Mime.JSON[0], JsonSerializer.serialize(Array.of(results), false));
+        }
+    }
+
+    /**
+     * Executes a single call in a batch request. The call is executed
+     * in a new request context for the user and session, so that access
+     * control and metrics are handled just as for single calls.
+     *
+     * @param index          the call index in the batch
+     * @param call           the call object
+     * @param session        the request session, or null for none
+     * @param user           the request user, or null for anonymous
+     *
+     * @return the call result dictionary (with "data" or "error" keys)
+     */
+    protected Dict processBatchCall(int index, Object call, Session session, User user) {
+        Dict res = new Dict().set("index", index);
+        long startTime = System.currentTimeMillis();
+        RequestContext cx = RequestContext.initAsync(session, user);
+        String name = prefix();
+        try {
+            if (call instanceof Dict dict) {
+                name += dict.get("procedure", String.class, "");
+                res.set("procedure", name);
+                Procedure proc = Procedure.find(cx.storage(), name);
+                if (proc == null) {
+                    throw new ProcedureException("no procedure '" + name + "' found");
+                }
+                res.set("data", CallContext.execute(name, processBatchArgs(proc, dict.get("args"))));
+            } else {
+                throw new ProcedureException("invalid batch call, expected an object");
+            }
+        } catch (Exception e) {
+            String msg = e.getMessage() != null ? e.getMessage() : e.toString();
+            String logPrefix = cx.id() + "-->" + name + "(): ";
+            res.set("error", msg);
+            if (e instanceof ProcedureException) {
+                LOG.info(logPrefix + msg);
+            } else {
+                LOG.log(Level.WARNING, e, () -> logPrefix + "internal error in procedure");
+            }
+        } finally {
+            cx.close();
+        }
+        res.set("execStart", new Date(startTime));
+        res.set("execTime", (int) (System.currentTimeMillis() - startTime));
+        String err = res.get("error", String.class);
+        User.report(user, startTime, err == null, err);
+        return res;
+    }
+
+    /**
+     * Extracts procedure arguments for a batch call. Arguments can be
+     * provided either as an array (in binding order), or as an object
+     * with named arguments. Missing named arguments are set to their
+     * default values.
+     *
+     * @param proc           the procedure
+     * @param args           the call arguments array or object
+     *
+     * @return an array with procedure arguments
+     *
+     * @throws ProcedureException if the bindings couldn't be read
+     */
+    protected Object[] processBatchArgs(Procedure proc, Object args)
+    throws ProcedureException {
+        if (args instanceof Array arr) {
+            return arr.values();
+        }
+        Dict named = (args instanceof Dict d) ? d : new Dict();
+        Bindings bindings = proc.getBindings();
+        ArrayList<Object> res = new ArrayList<>();
+        for (String name : bindings.getNames(Bindings.ARGUMENT)) {
+            res.add(named.containsKey(name) ? named.get(name) : bindings.getValue(name, null));
+        }
+        return res.toArray();
+    }
+
+    /**
+     * Waits for the next completed batch call result. If the thread
+     * is interrupted, null is returned and the interrupt flag is
+     * restored (so the caller must stop waiting).
+     *
+     * @param done           the queue of completed call results
+     *
+     * @return the call result dictionary, or
+     *         null if the thread was interrupted
+     */
+    private static Dict awaitBatchCall(LinkedBlockingQueue<Dict> done) {
+        try {
+            return done.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * Creates an error result for a batch call that wasn't awaited due
+     * to the request thread being interrupted.
+     *
+     * @param index          the call index in the batch
+     *
+     * @return the call result dictionary (with an "error" key)
+     */
+    private static Dict interruptedBatchCall(int index) {
+        return new Dict()
+            .set("index", index)
+            .set("error", "interrupted while waiting for batch call");
+    }
+
     /**
      * Processes a procedure call and returns the result dictionary.
      *
@@ -212,7 +521,10 @@ public class ProcedureWebService extends WebService {
         } catch (Exception e) {
             String msg = e.getMessage() != null ? e.getMessage() : e.toString();
             res.set("error", msg);
-            if (e instanceof ProcedureException) {
+            if (e instanceof AdmissionException ae) {
+                res.set(KEY_REJECTED, ae);
+            }
+            if (e instanceof ProcedureException || e instanceof RequestSizeException) {
                 LOG.info(logPrefix + msg);
             } else {
                 LOG.log(Level.WARNING, e, () -> logPrefix + "internal error in procedure");
@@ -228,7 +540,9 @@ public class ProcedureWebService extends WebService {
 
     /**
      * Extracts procedure arguments from the request parameters. The arguments
-     * will be unserialized from JSON unless input format isn't "text".
+     * will be unserialized from JSON unless input format isn't "text". JSON
+     * request bodies are decoded directly from the input stream, subject to
+     * the configured size and nesting depth limits.
      *
      * @param proc           the procedure
      * @param request        the request to process
@@ -236,7 +550,8 @@ public class ProcedureWebService extends WebService {
      *
      * @return an array with procedure arguments
      *
-     * @throws IOException if an argument wasn't valid JSON
+     * @throws IOException if an argument wasn't valid JSON, or if the
+     *             input data exceeded the size or depth limits
      * @throws ProcedureException if an argument was missing
      */
     protected Object[] processArgs(Procedure proc, Request request, String logPrefix)
@@ -247,13 +562,11 @@ public class ProcedureWebService extends WebService {
         Bindings bindings = proc.getBindings();
         Dict jsonArgs = null;
         if (Mime.isInputMatch(request, Mime.JSON)) {
-            String input = request.getInputString();
-            if (LOG.isLoggable(Level.FINE)) {
-                LOG.fine(logPrefix + "arguments JSON: " + input);
-            }
-            Object obj = JsonSerializer.unserialize(input);
-            if (obj instanceof Dict d) {
-                jsonArgs = d;
+            try (InputStream is = request.getInputStream(maxInputSize())) {
+                Object obj = JsonSerializer.unserialize(is, maxInputDepth());
+                if (obj instanceof Dict d) {
+                    jsonArgs = d;
+                }
             }
         }
         for (String name : bindings.getNames(Bindings.ARGUMENT)) {
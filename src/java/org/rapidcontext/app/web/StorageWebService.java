@@ -16,6 +16,7 @@ package org.rapidcontext.app.web;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Date;
 import java.util.Objects;
 import java.util.logging.Level;
@@ -38,10 +39,14 @@ import org.rapidcontext.core.data.YamlSerializer;
 import org.rapidcontext.core.storage.Metadata;
 import org.rapidcontext.core.storage.Path;
 import org.rapidcontext.core.storage.RootStorage;
+import org.rapidcontext.core.storage.StorableObject;
 import org.rapidcontext.core.storage.Storage;
+import org.rapidcontext.core.type.Role;
+import org.rapidcontext.core.type.User;
 import org.rapidcontext.core.type.WebService;
 import org.rapidcontext.core.web.Mime;
 import org.rapidcontext.core.web.Request;
+import org.rapidcontext.util.BinaryUtil;
 import org.rapidcontext.util.DateUtil;
 import org.rapidcontext.util.ValueUtil;
 
@@ -135,38 +140,93 @@ public class StorageWebService extends WebService {
         opts.set("computed", Boolean.TRUE);
         opts.set("hidden", ValueUtil.bool(request.getParameter("hidden"), false));
         opts.set("metadata", ValueUtil.bool(request.getParameter("metadata"), false));
+        String etag = (meta == null || data == null) ? null : versionTag(request, meta, data);
         if (meta == null || data == null) {
             errorNotFound(request);
         } else if (data instanceof Binary b && path.equals(meta.path())) {
             request.sendBinary(b);
+        } else if (etag != null && request.isNotModified(etag)) {
+            request.sendNotModified(etag);
         } else if (opts.get("metadata", Boolean.class, false)) {
             Object o = ApiUtil.serialize(meta, data, opts, false);
-            sendResult(request, meta.path(), null, o);
+            sendResult(request, meta.path(), null, o, etag);
         } else {
             Object m = ApiUtil.serialize(meta.path(), meta, opts, false);
             Object o = ApiUtil.serialize(meta.path(), data, opts, false);
-            sendResult(request, meta.path(), m, o);
+            sendResult(request, meta.path(), m, o, etag);
         }
     }
 
-    private void sendResult(Request request, Path path, Object meta, Object data) {
+    /**
+     * Sends a storage lookup result in the requested format. The
+     * response is conditional, with an ETag from the version tag (if
+     * provided) or from a hash of the serialized text.
+     *
+     * @param request        the request to process
+     * @param path           the object storage path
+     * @param meta           the serialized metadata, or null
+     * @param data           the serialized data
+     * @param etag           the version tag, or null for none
+     */
+    private void sendResult(Request request, Path path, Object meta, Object data, String etag) {
         if (Strings.CI.endsWith(request.getPath(), Storage.EXT_JSON)) {
-            request.sendText(Mime.JSON[0], JsonSerializer.serialize(data, true));
+            request.sendText(Mime.JSON[0], JsonSerializer.serialize(data, true), etag);
         } else if (Strings.CI.endsWith(request.getPath(), Storage.EXT_PROPERTIES)) {
             try {
-                request.sendText(Mime.TEXT[0], PropertiesSerializer.serialize(data));
+                request.sendText(Mime.TEXT[0], PropertiesSerializer.serialize(data), etag);
             } catch (IOException e) {
                 LOG.log(Level.WARNING, "error serializing properties", e);
                 request.sendText(Mime.TEXT[0], e.toString());
             }
         } else if (Strings.CI.endsWith(request.getPath(), Storage.EXT_XML)) {
             String root = (meta == null) ? "result" : "data";
-            request.sendText(Mime.XML[0], XmlSerializer.serialize(root, data));
+            request.sendText(Mime.XML[0], XmlSerializer.serialize(root, data), etag);
         } else if (Strings.CI.endsWith(request.getPath(), Storage.EXT_YAML)) {
-            request.sendText(Mime.YAML[0], YamlSerializer.serialize(data));
+            request.sendText(Mime.YAML[0], YamlSerializer.serialize(data), etag);
         } else {
-            request.sendText(Mime.HTML[0], HtmlRenderer.render(path, meta, data));
+            request.sendText(Mime.HTML[0], HtmlRenderer.render(path, meta, data), etag);
+        }
+    }
+
+    /**
+     * Returns a version tag for a storage lookup result. The tag is
+     * derived from the request path and options, the current user,
+     * the object modification time and the storage modification
+     * counters (for the object, roles and users). This allows
+     * conditional requests to be answered without serializing the
+     * data. Objects with computed (live) state, unknown modification
+     * times or storage information paths have no version tag, and
+     * will use a hash of the serialized text instead.
+     *
+     * @param request        the request to process
+     * @param meta           the object metadata
+     * @param data           the object data
+     *
+     * @return the version tag, or null if not available
+     */
+    private String versionTag(Request request, Metadata meta, Object data) {
+        Storage storage = Context.active().storage();
+        Date modified = meta.modified();
+        boolean isLive = (
+            data instanceof StorableObject ||
+            meta.path().startsWith(RootStorage.PATH_STORAGE) ||
+            meta.path().equals(Storage.PATH_STORAGEINFO)
+        );
+        if (modified == null || isLive || !(storage instanceof RootStorage rs)) {
+            return null;
         }
+        User user = ThreadContext.active().user();
+        String str = StringUtils.joinWith(":",
+            request.getPath(),
+            request.getParameter("hidden"),
+            request.getParameter("metadata"),
+            (user == null) ? "" : user.id(),
+            modified.getTime(),
+            rs.modCount(meta.path()),
+            rs.modCount(Role.PATH),
+            rs.modCount(User.PATH)
+        );
+        return "v" + BinaryUtil.hashFnv64(str.getBytes(StandardCharsets.UTF_8));
     }
 
     /**
@@ -14,12 +14,16 @@
 
 package org.rapidcontext.core.data;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.RandomAccess;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
 
@@ -48,16 +52,19 @@ import org.rapidcontext.util.ValueUtil;
  * The values in the array may have any type, but recommended types
  * are String, Integer, Boolean, Dict and Array. Circular or
  * self-referencing structures should not be used, since most data
- * serialization cannot handle them.
+ * serialization cannot handle them. Arrays containing only Integer,
+ * Long or Double values (of a single type) are stored as primitive
+ * values internally, until some other value is added.
  *
  * @author Per Cederberg
  */
 public class Array implements Iterable<Object> {
 
     /**
-     * A list of indexable array values.
+     * A list of indexable array values. This is either an ArrayList
+     * or a NumberList (for numeric values).
      */
-    private ArrayList<Object> list = null;
+    private List<Object> list = null;
 
     /**
      * The sealed flag. When this flag is set to true, no further
@@ -249,7 +256,9 @@ public class Array implements Iterable<Object> {
      */
     public Array copy() {
         Array res = new Array(size());
-        if (list != null) {
+        if (list instanceof NumberList l) {
+            res.list = l.copy();
+        } else if (list != null) {
             for (Object value : list) {
                 if (value instanceof Dict d) {
                     value = d.copy();
@@ -549,13 +558,22 @@ public class Array implements Iterable<Object> {
             String msg = "cannot modify sealed array";
             throw new UnsupportedOperationException(msg);
         }
-        if (list == null) {
+        boolean isEmpty = (list == null || list.isEmpty());
+        if (isEmpty && index == 0 && NumberList.isNumber(value)) {
+            list = new NumberList(value.getClass(), 10);
+        } else if (list == null) {
             list = new ArrayList<>(index + 1);
+        } else if (list instanceof NumberList l && !l.accepts(value, index)) {
+            list = new ArrayList<>(list);
         }
-        while (index >= list.size()) {
+        while (index > list.size()) {
             list.add(null);
         }
-        list.set(index, value);
+        if (index == list.size()) {
+            list.add(value);
+        } else {
+            list.set(index, value);
+        }
         return this;
     }
 
@@ -595,11 +613,13 @@ public class Array implements Iterable<Object> {
             String msg = "cannot modify sealed array";
             throw new UnsupportedOperationException(msg);
         }
-        if (arr != null && arr.size() > 0) {
+        if (arr != null && arr.list instanceof NumberList l && size() <= 0) {
+            list = l.copy();
+        } else if (arr != null && arr.size() > 0) {
             if (list == null) {
                 list = new ArrayList<>(arr.size());
-            } else {
-                list.ensureCapacity(list.size() + arr.size());
+            } else if (list instanceof ArrayList<Object> a) {
+                a.ensureCapacity(a.size() + arr.size());
             }
             for (Object o : arr) {
                 add(o);
@@ -793,4 +813,195 @@ public class Array implements Iterable<Object> {
         }
         return this;
     }
+
+
+    /**
+     * A list of numeric values stored in primitive form. Only values
+     * of a single type (Integer, Long or Double) can be stored. The
+     * values are boxed on access.
+     */
+    private static final class NumberList extends AbstractList<Object>
+    implements RandomAccess {
+
+        /**
+         * The number type (Integer, Long or Double).
+         */
+        private final Class<?> type;
+
+        /**
+         * The primitive values (using raw bits for Double).
+         */
+        private long[] data;
+
+        /**
+         * The number of values in the list.
+         */
+        private int size = 0;
+
+        /**
+         * Checks if a value can be stored in a number list.
+         *
+         * @param value          the value to check
+         *
+         * @return true if the value is an Integer, Long or Double, or
+         *         false otherwise
+         */
+        static boolean isNumber(Object value) {
+            return value instanceof Integer ||
+                   value instanceof Long ||
+                   value instanceof Double;
+        }
+
+        /**
+         * Creates a new empty number list.
+         *
+         * @param type           the number type
+         * @param capacity       the initial capacity
+         */
+        NumberList(Class<?> type, int capacity) {
+            this.type = type;
+            this.data = new long[capacity];
+        }
+
+        /**
+         * Checks if a value can be stored in this list at the
+         * specified index (without null padding).
+         *
+         * @param value          the value to check
+         * @param index          the index to store at
+         *
+         * @return true if the value can be stored, or
+         *         false otherwise
+         */
+        boolean accepts(Object value, int index) {
+            return value != null && value.getClass() == type && index <= size;
+        }
+
+        /**
+         * Creates a copy of this list.
+         *
+         * @return a new list with the same values
+         */
+        NumberList copy() {
+            NumberList res = new NumberList(type, 0);
+            res.data = Arrays.copyOf(data, size);
+            res.size = size;
+            return res;
+        }
+
+        /**
+         * Converts a number to primitive form.
+         *
+         * @param value          the number to convert
+         *
+         * @return the primitive value
+         *
+         * @throws ClassCastException if the value type doesn't match
+         */
+        private long toBits(Object value) {
+            if (value == null || value.getClass() != type) {
+                throw new ClassCastException("value not a " + type.getSimpleName());
+            } else if (value instanceof Double d) {
+                return Double.doubleToRawLongBits(d);
+            } else {
+                return ((Number) value).longValue();
+            }
+        }
+
+        /**
+         * Converts a primitive value to a number object.
+         *
+         * @param bits           the primitive value
+         *
+         * @return the number object
+         */
+        private Object fromBits(long bits) {
+            if (type == Integer.class) {
+                return Integer.valueOf((int) bits);
+            } else if (type == Long.class) {
+                return Long.valueOf(bits);
+            } else {
+                return Double.valueOf(Double.longBitsToDouble(bits));
+            }
+        }
+
+        /**
+         * Returns the number of values in the list.
+         *
+         * @return the number of values
+         */
+        @Override
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Returns the value at the specified index.
+         *
+         * @param index          the list index
+         *
+         * @return the boxed value
+         */
+        @Override
+        public Object get(int index) {
+            Objects.checkIndex(index, size);
+            return fromBits(data[index]);
+        }
+
+        /**
+         * Replaces the value at the specified index.
+         *
+         * @param index          the list index
+         * @param value          the new value
+         *
+         * @return the previous value
+         *
+         * @throws ClassCastException if the value type doesn't match
+         */
+        @Override
+        public Object set(int index, Object value) {
+            Objects.checkIndex(index, size);
+            Object prev = fromBits(data[index]);
+            data[index] = toBits(value);
+            return prev;
+        }
+
+        /**
+         * Inserts a value at the specified index.
+         *
+         * @param index          the list index
+         * @param value          the value to insert
+         *
+         * @throws ClassCastException if the value type doesn't match
+         */
+        @Override
+        public void add(int index, Object value) {
+            Objects.checkIndex(index, size + 1);
+            long bits = toBits(value);
+            if (size == data.length) {
+                data = Arrays.copyOf(data, Math.max(10, size + (size >> 1)));
+            }
+            System.arraycopy(data, index, data, index + 1, size - index);
+            data[index] = bits;
+            size++;
+            modCount++;
+        }
+
+        /**
+         * Removes the value at the specified index.
+         *
+         * @param index          the list index
+         *
+         * @return the removed value
+         */
+        @Override
+        public Object remove(int index) {
+            Objects.checkIndex(index, size);
+            Object prev = fromBits(data[index]);
+            System.arraycopy(data, index + 1, data, index, size - index - 1);
+            size--;
+            modCount++;
+            return prev;
+        }
+    }
 }
@@ -15,11 +15,14 @@
 package org.rapidcontext.core.data;
 
 import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.function.Supplier;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import org.apache.commons.lang3.ArrayUtils;
@@ -48,15 +51,50 @@ import org.rapidcontext.util.ValueUtil;
  * Array. Circular or self-referencing structures should not be used,
  * since most data serialization cannot handle them.
  *
+ * Small dictionaries are stored as parallel key and value arrays
+ * internally, and are only converted to a hash table when growing
+ * beyond a few keys. Dictionaries with the same keys (e.g. rows of
+ * data) can also share a key schema, avoiding duplicate key arrays
+ * and lookup tables.
+ *
  * @author Per Cederberg
  */
 public class Dict {
 
     /**
-     * A hash map with names and values.
+     * The maximum number of keys stored in the key and value arrays.
+     * Larger dictionaries are stored in a hash map instead, unless
+     * the keys are shared with a schema.
+     */
+    private static final int MAX_SMALL_SIZE = 12;
+
+    /**
+     * A hash map with names and values, or null if using the key and
+     * value arrays.
      */
     private LinkedHashMap<String,Object> map = null;
 
+    /**
+     * The key names (in insertion order). If the dictionary is using
+     * a shared schema, this array must not be modified.
+     */
+    private String[] keys = null;
+
+    /**
+     * The values, with the same indices as the keys.
+     */
+    private Object[] values = null;
+
+    /**
+     * The number of keys in the key and value arrays.
+     */
+    private int count = 0;
+
+    /**
+     * The shared key schema, or null if the keys array isn't shared.
+     */
+    private Schema schema = null;
+
     /**
      * The sealed flag. When this flag is set to true, no further
      * changes are permitted to this dictionary. Any calls to the
@@ -107,11 +145,28 @@ public class Dict {
      * @param initialCapacity the initial dictionary capacity
      */
     public Dict(int initialCapacity) {
-        if (initialCapacity > 0) {
+        if (initialCapacity > MAX_SMALL_SIZE) {
             map = new LinkedHashMap<>(initialCapacity);
+        } else if (initialCapacity > 0) {
+            keys = new String[initialCapacity];
+            values = new Object[initialCapacity];
         }
     }
 
+    /**
+     * Creates a new dictionary with a shared key schema. All schema
+     * keys will be defined with null values. Adding or removing keys
+     * is supported, but will copy the keys from the schema.
+     *
+     * @param schema         the shared key schema
+     */
+    public Dict(Schema schema) {
+        this.keys = schema.keys;
+        this.values = new Object[schema.keys.length];
+        this.count = schema.keys.length;
+        this.schema = schema;
+    }
+
     /**
      * Checks if this dictionary is identical to another one. The two
      * dictionaries will be considered equal if they have the same
@@ -124,7 +179,17 @@ public class Dict {
      */
     @Override
     public boolean equals(final Object obj) {
-        return obj instanceof Dict d && Objects.equals(this.map, d.map);
+        if (obj == this) {
+            return true;
+        } else if (obj instanceof Dict d && size() == d.size()) {
+            return stream().allMatch(e -> {
+                String key = e.getKey();
+                Object val = e.getValue();
+                return Objects.equals(val, d.get(key)) && (val != null || d.containsKey(key));
+            });
+        } else {
+            return false;
+        }
     }
 
     /**
@@ -134,7 +199,14 @@ public class Dict {
      */
     @Override
     public int hashCode() {
-        return Objects.hashCode(this.map);
+        if (map != null) {
+            return map.hashCode();
+        }
+        int res = 0;
+        for (int i = 0; i < count; i++) {
+            res += keys[i].hashCode() ^ Objects.hashCode(values[i]);
+        }
+        return res;
     }
 
     /**
@@ -154,7 +226,7 @@ public class Dict {
             buffer.append(" ");
             buffer.append(keys[i]);
             buffer.append(": ");
-            buffer.append(map.get(keys[i]));
+            buffer.append(get(keys[i]));
         }
         if (keys.length > 4) {
             buffer.append(", ...");
@@ -172,7 +244,13 @@ public class Dict {
      * @return the entry object stream
      */
     public Stream<Entry<String, Object>> stream() {
-        return (map == null) ? Stream.empty() : map.entrySet().stream();
+        if (map != null) {
+            return map.entrySet().stream();
+        } else {
+            return IntStream.range(0, count).mapToObj(i -> {
+                return new SimpleImmutableEntry<>(keys[i], values[i]);
+            });
+        }
     }
 
     /**
@@ -204,21 +282,42 @@ public class Dict {
      * @return a deep copy of this object
      */
     public Dict copy() {
-        Dict res = new Dict(size());
+        Dict res = new Dict();
         if (map != null) {
+            res.map = new LinkedHashMap<>(map.size());
             for (Entry<String, Object> e : map.entrySet()) {
-                Object value = e.getValue();
-                if (value instanceof Dict d) {
-                    value = d.copy();
-                } else if (value instanceof Array a) {
-                    value = a.copy();
-                }
-                res.map.put(e.getKey(), value);
+                res.map.put(e.getKey(), copyValue(e.getValue()));
+            }
+        } else if (count > 0) {
+            res.keys = (schema != null) ? keys : Arrays.copyOf(keys, count);
+            res.values = new Object[count];
+            res.count = count;
+            res.schema = schema;
+            for (int i = 0; i < count; i++) {
+                res.values[i] = copyValue(values[i]);
             }
         }
         return res;
     }
 
+    /**
+     * Creates a copy of a dictionary value. Dictionary and array
+     * values will be recursively copied.
+     *
+     * @param value          the value to copy
+     *
+     * @return the copied value
+     */
+    private static Object copyValue(Object value) {
+        if (value instanceof Dict d) {
+            return d.copy();
+        } else if (value instanceof Array a) {
+            return a.copy();
+        } else {
+            return value;
+        }
+    }
+
     /**
      * Checks if this dictionary is sealed.
      *
@@ -239,14 +338,14 @@ public class Dict {
      */
     public void seal(boolean recursive) {
         sealed = true;
-        if (recursive && map != null) {
-            for (Object value : map.values()) {
-                if (value instanceof Dict d) {
+        if (recursive) {
+            stream().forEach(e -> {
+                if (e.getValue() instanceof Dict d) {
                     d.seal(recursive);
-                } else if (value instanceof Array a) {
+                } else if (e.getValue() instanceof Array a) {
                     a.seal(recursive);
                 }
-            }
+            });
         }
     }
 
@@ -258,7 +357,7 @@ public class Dict {
      *         zero (0) if empty
      */
     public int size() {
-        return (map == null) ? 0 : map.size();
+        return (map == null) ? count : map.size();
     }
 
     /**
@@ -272,7 +371,7 @@ public class Dict {
      *         false otherwise
      */
     public boolean containsKey(String key) {
-        return map != null && map.containsKey(key);
+        return (map == null) ? indexOf(key) >= 0 : map.containsKey(key);
     }
 
     /**
@@ -300,14 +399,11 @@ public class Dict {
      *         null if the value wasn't found
      */
     public String keyOf(Object value) {
-        if (map != null) {
-            for (Entry<String, Object> e : map.entrySet()) {
-                if (Objects.equals(value, e.getValue())) {
-                    return e.getKey();
-                }
-            }
-        }
-        return null;
+        return stream()
+            .filter(e -> Objects.equals(value, e.getValue()))
+            .map(Entry::getKey)
+            .findFirst()
+            .orElse(null);
     }
 
     /**
@@ -318,7 +414,13 @@ public class Dict {
      */
     public String[] keys() {
         String[] empty = ArrayUtils.EMPTY_STRING_ARRAY;
-        return (size() <= 0) ? empty : map.keySet().toArray(empty);
+        if (size() <= 0) {
+            return empty;
+        } else if (map != null) {
+            return map.keySet().toArray(empty);
+        } else {
+            return Arrays.copyOf(keys, count);
+        }
     }
 
     /**
@@ -330,7 +432,14 @@ public class Dict {
      *         null if the key or value is not defined
      */
     public Object get(String key) {
-        return (map == null || key == null) ? null : map.get(key);
+        if (key == null) {
+            return null;
+        } else if (map != null) {
+            return map.get(key);
+        } else {
+            int idx = indexOf(key);
+            return (idx < 0) ? null : values[idx];
+        }
     }
 
     /**
@@ -459,10 +568,7 @@ public class Dict {
             String msg = "property key cannot be null or empty";
             throw new NullPointerException(msg);
         }
-        if (map == null) {
-            map = new LinkedHashMap<>();
-        }
-        map.put(key, value);
+        put(key, value);
         return this;
     }
 
@@ -520,8 +626,8 @@ public class Dict {
      */
     public Dict setAll(Dict dict) {
         if (dict != null && dict.size() > 0) {
-            for (Entry<String, Object> e : dict.map.entrySet()) {
-                set(e.getKey(), e.getValue());
+            for (String key : dict.keys()) {
+                set(key, dict.get(key));
             }
         }
         return this;
@@ -568,11 +674,12 @@ public class Dict {
      */
     public Dict merge(Dict dict) {
         if (dict != null && dict.size() > 0) {
-            for (Entry<String, Object> e : dict.map.entrySet()) {
-                if (e.getValue() == null) {
-                    remove(e.getKey());
+            for (String key : dict.keys()) {
+                Object value = dict.get(key);
+                if (value == null) {
+                    remove(key);
                 } else {
-                    set(e.getKey(), e.getValue());
+                    set(key, value);
                 }
             }
         }
@@ -596,7 +703,132 @@ public class Dict {
         }
         if (map != null) {
             map.remove(key);
+        } else {
+            int idx = indexOf(key);
+            if (idx >= 0) {
+                unshare(count);
+                System.arraycopy(keys, idx + 1, keys, idx, count - idx - 1);
+                System.arraycopy(values, idx + 1, values, idx, count - idx - 1);
+                count--;
+                keys[count] = null;
+                values[count] = null;
+            }
         }
         return this;
     }
+
+    /**
+     * Searches for a key in the key array.
+     *
+     * @param key            the key name
+     *
+     * @return the key array index, or
+     *         -1 if not found
+     */
+    private int indexOf(String key) {
+        if (schema != null) {
+            Integer idx = schema.index.get(key);
+            return (idx == null) ? -1 : idx.intValue();
+        }
+        for (int i = 0; i < count; i++) {
+            if (keys[i] == key || keys[i].equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Stores a key and value without any checks. Small dictionaries
+     * are converted to use a hash map if growing too large.
+     *
+     * @param key            the key name
+     * @param value          the value to set
+     */
+    private void put(String key, Object value) {
+        int idx = (map == null) ? indexOf(key) : -1;
+        if (map != null) {
+            map.put(key, value);
+        } else if (idx >= 0) {
+            values[idx] = value;
+        } else if (count >= MAX_SMALL_SIZE) {
+            map = new LinkedHashMap<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                map.put(keys[i], values[i]);
+            }
+            map.put(key, value);
+            keys = null;
+            values = null;
+            count = 0;
+            schema = null;
+        } else {
+            unshare(count + 1);
+            keys[count] = key;
+            values[count] = value;
+            count++;
+        }
+    }
+
+    /**
+     * Ensures that the key and value arrays are not shared with a
+     * schema and that they have (at least) the specified capacity.
+     *
+     * @param capacity       the minimum array capacity
+     */
+    private void unshare(int capacity) {
+        if (schema != null || keys == null || keys.length < capacity) {
+            int size = Math.max(capacity, (keys == null) ? 4 : Math.min(count * 2, MAX_SMALL_SIZE));
+            keys = Arrays.copyOf((keys == null) ? new String[0] : keys, size);
+            values = Arrays.copyOf((values == null) ? new Object[0] : values, size);
+            schema = null;
+        }
+    }
+
+
+    /**
+     * A shared key schema for dictionaries. A schema is used to avoid
+     * duplicating key arrays and lookup tables for dictionaries that
+     * all have the same keys, e.g. rows of data.
+     */
+    public static final class Schema {
+
+        /**
+         * The schema keys.
+         */
+        private final String[] keys;
+
+        /**
+         * The map of keys to array indices.
+         */
+        private final HashMap<String,Integer> index;
+
+        /**
+         * Creates a new shared key schema.
+         *
+         * @param keys           the unique dictionary key names
+         *
+         * @throws IllegalArgumentException if a key name was empty
+         *             or not unique
+         */
+        public Schema(String... keys) {
+            this.keys = keys.clone();
+            this.index = new HashMap<>(keys.length * 2);
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == null || keys[i].isBlank()) {
+                    throw new IllegalArgumentException("schema key cannot be null or empty");
+                } else if (index.put(keys[i], i) != null) {
+                    throw new IllegalArgumentException("duplicate schema key: " + keys[i]);
+                }
+            }
+        }
+
+        /**
+         * Returns the schema key names.
+         *
+         * @return a new array with the key names
+         */
+        public String[] keys() {
+            return keys.clone();
+        }
+    }
 }
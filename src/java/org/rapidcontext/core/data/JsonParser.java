@@ -0,0 +1,390 @@
+/*
+ * RapidContext <https://www.rapidcontext.com/>
+ * Copyright (c) 2007-2026 Per Cederberg. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the BSD license.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the RapidContext LICENSE for more details.
+ */
+
+package org.rapidcontext.core.data;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Date;
+
+import org.rapidcontext.util.DateUtil;
+
+/**
+ * A streaming JSON parser. Reads JSON text directly from a character
+ * stream, without first buffering the whole input. The values
+ * returned are identical to those from JavaScript JSON.parse() after
+ * unwrapping, i.e. integral numbers become Integer or Long, date
+ * strings in epoch format become Date, and object properties with
+ * blank names are omitted.
+ *
+ * @author Per Cederberg
+ */
+final class JsonParser {
+
+    /**
+     * The input character stream.
+     */
+    private Reader reader;
+
+    /**
+     * The maximum object and array nesting depth.
+     */
+    private int maxDepth;
+
+    /**
+     * The current nesting depth.
+     */
+    private int depth = 0;
+
+    /**
+     * The next character, or -1 for end of stream.
+     */
+    private int next;
+
+    /**
+     * The current line number (starting from 1).
+     */
+    private int line = 1;
+
+    /**
+     * The current column number (starting from 1).
+     */
+    private int column = 0;
+
+    /**
+     * The shared buffer for string and number tokens.
+     */
+    private StringBuilder buffer = new StringBuilder();
+
+    /**
+     * Creates a new JSON parser.
+     *
+     * @param reader         the input character stream
+     * @param maxDepth       the maximum nesting depth
+     *
+     * @throws IOException if the input stream couldn't be read
+     */
+    JsonParser(Reader reader, int maxDepth) throws IOException {
+        this.reader = reader;
+        this.maxDepth = maxDepth;
+        read();
+    }
+
+    /**
+     * Parses a single JSON value from the input stream. Any trailing
+     * characters (besides whitespace) is treated as an error.
+     *
+     * @return the Java data representation
+     *
+     * @throws IOException if the input couldn't be read or parsed
+     */
+    Object parse() throws IOException {
+        Object res = parseValue();
+        skipWhitespace();
+        if (next >= 0) {
+            throw error("unexpected trailing data");
+        }
+        return res;
+    }
+
+    /**
+     * Parses a JSON value.
+     *
+     * @return the Java data representation
+     *
+     * @throws IOException if the input couldn't be read or parsed
+     */
+    private Object parseValue() throws IOException {
+        skipWhitespace();
+        switch (next) {
+        case '{':
+            return parseObject();
+        case '[':
+            return parseArray();
+        case '"':
+            String str = parseString();
+            return DateUtil.isEpochFormat(str) ? new Date(Long.parseLong(str.substring(1))) : str;
+        case 't':
+            parseLiteral("true");
+            return Boolean.TRUE;
+        case 'f':
+            parseLiteral("false");
+            return Boolean.FALSE;
+        case 'n':
+            parseLiteral("null");
+            return null;
+        default:
+            if (next == '-' || (next >= '0' && next <= '9')) {
+                return parseNumber();
+            }
+            throw error((next < 0) ? "unexpected end of data" : "unexpected character");
+        }
+    }
+
+    /**
+     * Parses a JSON object.
+     *
+     * @return the corresponding dictionary
+     *
+     * @throws IOException if the input couldn't be read or parsed
+     */
+    private Dict parseObject() throws IOException {
+        enter();
+        Dict dict = new Dict();
+        read();
+        skipWhitespace();
+        if (next == '}') {
+            read();
+            depth--;
+            return dict;
+        }
+        while (true) {
+            skipWhitespace();
+            if (next != '"') {
+                throw error("expected property name");
+            }
+            String key = parseString();
+            skipWhitespace();
+            expect(':');
+            Object val = parseValue();
+            if (!key.isBlank()) {
+                dict.set(key, val);
+            }
+            skipWhitespace();
+            if (next == '}') {
+                read();
+                depth--;
+                return dict;
+            }
+            expect(',');
+        }
+    }
+
+    /**
+     * Parses a JSON array.
+     *
+     * @return the corresponding array
+     *
+     * @throws IOException if the input couldn't be read or parsed
+     */
+    private Array parseArray() throws IOException {
+        enter();
+        Array arr = new Array();
+        read();
+        skipWhitespace();
+        if (next == ']') {
+            read();
+            depth--;
+            return arr;
+        }
+        while (true) {
+            arr.add(parseValue());
+            skipWhitespace();
+            if (next == ']') {
+                read();
+                depth--;
+                return arr;
+            }
+            expect(',');
+        }
+    }
+
+    /**
+     * Parses a JSON string (including the quotes).
+     *
+     * @return the unescaped string
+     *
+     * @throws IOException if the input couldn't be read or parsed
+     */
+    private String parseString() throws IOException {
+        buffer.setLength(0);
+        read();
+        while (next != '"') {
+            if (next < 0) {
+                throw error("unterminated string");
+            } else if (next < 0x20) {
+                throw error("control character in string");
+            } else if (next == '\\') {
+                read();
+                switch (next) {
+                case '"', '\\', '/' -> buffer.append((char) next);
+                case 'b' -> buffer.append('\b');
+                case 'f' -> buffer.append('\f');
+                case 'n' -> buffer.append('\n');
+                case 'r' -> buffer.append('\r');
+                case 't' -> buffer.append('\t');
+                case 'u' -> {
+                    int code = 0;
+                    for (int i = 0; i < 4; i++) {
+                        read();
+                        int digit = Character.digit(next, 16);
+                        if (next < 0 || digit < 0) {
+                            throw error("invalid unicode escape");
+                        }
+                        code = code * 16 + digit;
+                    }
+                    buffer.append((char) code);
+                }
+                default -> throw error("invalid escape character");
+                }
+            } else {
+                buffer.append((char) next);
+            }
+            read();
+        }
+        read();
+        return buffer.toString();
+    }
+
+    /**
+     * Parses a JSON number. The number is converted in the same way
+     * as JavaScript numbers are unwrapped, i.e. to an Integer or a
+     * Long when integral, and to a Double otherwise.
+     *
+     * @return the number value
+     *
+     * @throws IOException if the input couldn't be read or parsed
+     */
+    private Number parseNumber() throws IOException {
+        buffer.setLength(0);
+        if (next == '-') {
+            consume();
+        }
+        if (next == '0') {
+            consume();
+        } else {
+            consumeDigits();
+        }
+        if (next == '.') {
+            consume();
+            consumeDigits();
+        }
+        if (next == 'e' || next == 'E') {
+            consume();
+            if (next == '+' || next == '-') {
+                consume();
+            }
+            consumeDigits();
+        }
+        double d = Double.parseDouble(buffer.toString());
+        if (d % 1 == 0 && d <= Integer.MAX_VALUE && d >= Integer.MIN_VALUE) {
+            return Integer.valueOf((int) d);
+        } else if (d % 1 == 0 && d <= Long.MAX_VALUE && d >= Long.MIN_VALUE) {
+            return Long.valueOf((long) d);
+        } else {
+            return Double.valueOf(d);
+        }
+    }
+
+    /**
+     * Parses a literal keyword (i.e. "true", "false" or "null").
+     *
+     * @param literal        the expected literal
+     *
+     * @throws IOException if the input couldn't be read or parsed
+     */
+    private void parseLiteral(String literal) throws IOException {
+        for (int i = 0; i < literal.length(); i++) {
+            if (next != literal.charAt(i)) {
+                throw error("invalid literal, expected '" + literal + "'");
+            }
+            read();
+        }
+    }
+
+    /**
+     * Increases the nesting depth, checking for the depth limit.
+     *
+     * @throws IOException if the maximum depth was exceeded
+     */
+    private void enter() throws IOException {
+        if (++depth > maxDepth) {
+            throw error("maximum nesting depth " + maxDepth + " exceeded");
+        }
+    }
+
+    /**
+     * Consumes one or more decimal digits into the buffer.
+     *
+     * @throws IOException if the input couldn't be read or parsed
+     */
+    private void consumeDigits() throws IOException {
+        if (next < '0' || next > '9') {
+            throw error("invalid number");
+        }
+        while (next >= '0' && next <= '9') {
+            consume();
+        }
+    }
+
+    /**
+     * Consumes the next character into the buffer.
+     *
+     * @throws IOException if the input couldn't be read
+     */
+    private void consume() throws IOException {
+        buffer.append((char) next);
+        read();
+    }
+
+    /**
+     * Consumes an expected character.
+     *
+     * @param ch             the expected character
+     *
+     * @throws IOException if the input couldn't be read or parsed
+     */
+    private void expect(char ch) throws IOException {
+        if (next != ch) {
+            throw error((next < 0) ? "unexpected end of data" : "expected '" + ch + "'");
+        }
+        read();
+    }
+
+    /**
+     * Skips any whitespace characters.
+     *
+     * @throws IOException if the input couldn't be read
+     */
+    private void skipWhitespace() throws IOException {
+        while (next == ' ' || next == '\t' || next == '\n' || next == '\r') {
+            read();
+        }
+    }
+
+    /**
+     * Reads the next character from the input stream.
+     *
+     * @throws IOException if the input couldn't be read
+     */
+    private void read() throws IOException {
+        if (next == '\n') {
+            line++;
+            column = 0;
+        }
+        next = reader.read();
+        column++;
+    }
+
+    /**
+     * Creates a parse error with the current input position.
+     *
+     * @param message        the error message
+     *
+     * @return the new exception
+     */
+    private IOException error(String message) {
+        return new IOException("invalid JSON: " + message + " at line " + line + ", column " + column);
+    }
+}
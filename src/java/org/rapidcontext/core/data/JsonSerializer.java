@@ -14,18 +14,20 @@
 
 package org.rapidcontext.core.data;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.StringReader;
 import java.nio.charset.StandardCharsets;
 import java.util.Date;
 import java.util.Map;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Strings;
-import org.mozilla.javascript.Function;
-import org.rapidcontext.core.js.JsException;
-import org.rapidcontext.core.js.JsRuntime;
 import org.rapidcontext.util.DateUtil;
 
 /**
@@ -44,8 +46,10 @@ import org.rapidcontext.util.DateUtil;
  */
 public final class JsonSerializer {
 
-    // The compiled unserialize function
-    private static Function unserializeFunction = null;
+    /**
+     * The default maximum nesting depth when unserializing.
+     */
+    public static final int MAX_DEPTH = 256;
 
     /**
      * Serializes an object into a JSON representation.
@@ -256,17 +260,43 @@ public final class JsonSerializer {
      * @throws IOException if the unserialization failed
      */
     public static Object unserialize(String json) throws IOException {
-        try {
-            if (unserializeFunction == null) {
-                String[] args = new String[] { "val" };
-                String body = "return JSON.parse(val);";
-                unserializeFunction = JsRuntime.compile("unserialize", args, body);
-            }
-            Object[] args = new Object[] { json };
-            return JsRuntime.unwrap(JsRuntime.call(unserializeFunction, args));
-        } catch (JsException e) {
-            throw new IOException("Failed to unserialize JSON", e);
-        }
+        return unserialize(new StringReader(json), MAX_DEPTH);
+    }
+
+    /**
+     * Unserializes JSON data from an input stream into a Java object.
+     * The data is decoded as UTF-8 while being read, so the input is
+     * never buffered in full. The input stream will NOT be closed by
+     * this method.
+     *
+     * @param is             the input stream to read
+     * @param maxDepth       the maximum object and array nesting depth
+     *
+     * @return the Java data representation
+     *
+     * @throws IOException if the input couldn't be read or if the
+     *             unserialization failed
+     */
+    public static Object unserialize(InputStream is, int maxDepth) throws IOException {
+        Reader reader = new InputStreamReader(is, StandardCharsets.UTF_8);
+        return unserialize(new BufferedReader(reader, 8192), maxDepth);
+    }
+
+    /**
+     * Unserializes JSON data from a character stream into a Java
+     * object. Returns the corresponding String, Number, Boolean, Dict
+     * or Array value.
+     *
+     * @param reader         the character stream to read
+     * @param maxDepth       the maximum object and array nesting depth
+     *
+     * @return the Java data representation
+     *
+     * @throws IOException if the input couldn't be read or if the
+     *             unserialization failed
+     */
+    public static Object unserialize(Reader reader, int maxDepth) throws IOException {
+        return new JsonParser(reader, maxDepth).parse();
     }
 
     // No instances
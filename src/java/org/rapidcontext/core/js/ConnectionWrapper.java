@@ -27,11 +27,14 @@ import org.mozilla.javascript.Scriptable;
 import org.mozilla.javascript.ScriptableObject;
 import org.mozilla.javascript.Wrapper;
 import org.rapidcontext.core.proc.CallContext;
+import org.rapidcontext.core.proc.ProcedureException;
 import org.rapidcontext.core.type.Channel;
 
 /**
  * A JavaScript connection wrapper. This class encapsulates a
- * connection channel and forwards calls to the Java methods.
+ * connection channel and forwards calls to the Java methods. The
+ * wrapper may also be created from a connection identifier, in
+ * which case the channel is reserved on first use.
  *
  * @author Per Cederberg
  */
@@ -45,10 +48,16 @@ public final class ConnectionWrapper extends ScriptableObject implements Wrapper
         "equals", "getClass", "hashCode", "notify", "notifyAll", "wait"
     );
 
+    /**
+     * The connection identifier for lazy reservation, or null if
+     * the channel has already been reserved.
+     */
+    private String id;
+
     /**
      * The encapsulated connection channel.
      */
-    private Channel channel;
+    private Channel channel = null;
 
     /**
      * The visible connection methods.
@@ -63,6 +72,28 @@ public final class ConnectionWrapper extends ScriptableObject implements Wrapper
      */
     public ConnectionWrapper(Channel channel, Scriptable parentScope) {
         super(parentScope, getObjectPrototype(parentScope));
+        attach(channel);
+    }
+
+    /**
+     * Creates a new lazy JavaScript connection wrapper. The
+     * connection channel will be reserved in the active call context
+     * on first use.
+     *
+     * @param id             the connection identifier
+     * @param parentScope    the object parent scope
+     */
+    public ConnectionWrapper(String id, Scriptable parentScope) {
+        super(parentScope, getObjectPrototype(parentScope));
+        this.id = id;
+    }
+
+    /**
+     * Attaches a connection channel and creates the visible methods.
+     *
+     * @param channel        the connection channel
+     */
+    private void attach(Channel channel) {
         this.channel = channel;
         for (Method m : channel.getClass().getMethods()) {
             boolean isPublic = (m.getModifiers() & Modifier.PUBLIC) > 0;
@@ -73,6 +104,31 @@ public final class ConnectionWrapper extends ScriptableObject implements Wrapper
         }
     }
 
+    /**
+     * Returns the connection channel, reserving it if needed.
+     *
+     * @return the connection channel
+     *
+     * @throws EvaluatorException if the channel couldn't be reserved
+     */
+    private Channel channel() {
+        if (channel == null && id != null) {
+            String connectionId = id;
+            id = null;
+            try {
+                Channel res = CallContext.active().connectionReserve(connectionId);
+                if (res == null) {
+                    throw new ProcedureException("no connection '" + connectionId + "' found");
+                }
+                attach(res);
+            } catch (ProcedureException e) {
+                id = connectionId;
+                throw new EvaluatorException(e.getMessage());
+            }
+        }
+        return channel;
+    }
+
     /**
      * Creates a new JavaScript function that wraps a Java method.
      *
@@ -82,7 +138,7 @@ public final class ConnectionWrapper extends ScriptableObject implements Wrapper
      */
     private final Function createFunction(Method m) {
         return new LambdaFunction(this, m.getName(), m.getParameterCount(), (ctx, scope, thisObj, args) -> {
-            Channel target = ConnectionWrapper.this.channel;
+            Channel target = ConnectionWrapper.this.channel();
             String signature = target.getConnection().path() + "#" + m.getName();
             for (int i = 0; i < args.length; i++) {
                 args[i] = JsRuntime.unwrap(args[i]);
@@ -135,6 +191,7 @@ public final class ConnectionWrapper extends ScriptableObject implements Wrapper
      */
     @Override
     public Object get(String name, Scriptable start) {
+        channel();
         if (methods.containsKey(name)) {
             return methods.get(name);
         } else {
@@ -142,6 +199,32 @@ public final class ConnectionWrapper extends ScriptableObject implements Wrapper
         }
     }
 
+    /**
+     * Checks if a named property exists in this object.
+     *
+     * @param name           the name of the property
+     * @param start          the object in which the lookup began
+     *
+     * @return true if the property exists, or
+     *         false otherwise
+     */
+    @Override
+    public boolean has(String name, Scriptable start) {
+        channel();
+        return super.has(name, start);
+    }
+
+    /**
+     * Returns an array of enumerable property identifiers.
+     *
+     * @return the array of property identifiers
+     */
+    @Override
+    public Object[] getIds() {
+        channel();
+        return super.getIds();
+    }
+
     /**
      * Returns the wrapped object.
      *
@@ -149,6 +232,28 @@ public final class ConnectionWrapper extends ScriptableObject implements Wrapper
      */
     @Override
     public Object unwrap() {
-        return channel;
+        return channel();
+    }
+
+    /**
+     * A lazy connection reference. Used for passing connection
+     * bindings that haven't yet been reserved to the JavaScript
+     * runtime.
+     */
+    static final class Reference {
+
+        /**
+         * The connection identifier.
+         */
+        final String id;
+
+        /**
+         * Creates a new lazy connection reference.
+         *
+         * @param id             the connection identifier
+         */
+        Reference(String id) {
+            this.id = id;
+        }
     }
 }
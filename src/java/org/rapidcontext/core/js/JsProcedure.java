@@ -100,8 +100,14 @@ public class JsProcedure extends Procedure {
         for (String arg : bindings.getNames()) {
             // Note: All bindings are added as arguments here, as scope
             //       variables are bound at compile-time...
-            if (!BINDING_CODE.equals(arg)) {
-                args.add(bindings.getValue(arg, null));
+            Object val = bindings.getValue(arg, null);
+            if (BINDING_CODE.equals(arg)) {
+                // Skip code binding
+            } else if (bindings.getType(arg) == Bindings.CONNECTION && val instanceof String id) {
+                // Lazy connection reservation, not yet reserved
+                args.add(new ConnectionWrapper.Reference(id));
+            } else {
+                args.add(val);
             }
         }
         try {
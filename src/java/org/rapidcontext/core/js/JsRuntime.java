@@ -123,6 +123,8 @@ public final class JsRuntime {
                     safeArgs[i] = new ProcedureWrapper(p, scope);
                 } else if (args[i] instanceof Channel c) {
                     safeArgs[i] = new ConnectionWrapper(c, scope);
+                } else if (args[i] instanceof ConnectionWrapper.Reference r) {
+                    safeArgs[i] = new ConnectionWrapper(r.id, scope);
                 } else {
                     safeArgs[i] = wrap(args[i], scope);
                 }
@@ -0,0 +1,68 @@
+/*
+ * RapidContext <https://www.rapidcontext.com/>
+ * Copyright (c) 2007-2026 Per Cederberg. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the BSD license.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the RapidContext LICENSE for more details.
+ */
+
+package org.rapidcontext.core.proc;
+
+/**
+ * A procedure admission exception. Thrown when a procedure call is
+ * rejected due to a concurrency limit, either because the wait queue
+ * was full or because the maximum queue time was exceeded.
+ *
+ * @author Per Cederberg
+ */
+public class AdmissionException extends ProcedureException {
+
+    /**
+     * The rejection scope (e.g. "procedure", "connection" or "user").
+     */
+    private String scope;
+
+    /**
+     * The suggested retry delay (in seconds).
+     */
+    private int retryAfter;
+
+    /**
+     * Creates a new admission exception.
+     *
+     * @param scope          the rejection scope
+     * @param id             the limited object identifier
+     * @param message        the detailed error message
+     * @param retryAfter     the suggested retry delay (in seconds)
+     */
+    public AdmissionException(String scope, String id, String message, int retryAfter) {
+        super("call rejected by " + scope + " '" + id + "' limit: " + message);
+        this.scope = scope;
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * Returns the rejection scope, i.e. the type of limit that caused
+     * the call to be rejected.
+     *
+     * @return the rejection scope (e.g. "procedure", "connection" or "user")
+     */
+    public String scope() {
+        return scope;
+    }
+
+    /**
+     * Returns the suggested retry delay.
+     *
+     * @return the suggested retry delay (in seconds)
+     */
+    public int retryAfter() {
+        return retryAfter;
+    }
+}
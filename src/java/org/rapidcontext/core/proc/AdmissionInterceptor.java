@@ -0,0 +1,548 @@
+/*
+ * RapidContext <https://www.rapidcontext.com/>
+ * Copyright (c) 2007-2026 Per Cederberg. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the BSD license.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the RapidContext LICENSE for more details.
+ */
+
+package org.rapidcontext.core.proc;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Logger;
+
+import org.rapidcontext.core.data.Dict;
+import org.rapidcontext.core.storage.Storage;
+import org.rapidcontext.core.type.Connection;
+import org.rapidcontext.core.type.Metrics;
+import org.rapidcontext.core.type.Procedure;
+import org.rapidcontext.core.type.User;
+
+/**
+ * A procedure admission control interceptor. This interceptor limits
+ * the number of concurrent top-level procedure calls per procedure,
+ * per connection and per user. Calls exceeding a limit are queued
+ * (up to a maximum queue length and queue time) and are otherwise
+ * rejected with an AdmissionException. Admission is checked before
+ * any other resources are reserved, so that overloaded connection
+ * pools or procedures fail fast instead of piling up waiting calls.
+ *
+ * Each limit may optionally be adaptive, in which case the effective
+ * concurrency limit is adjusted between one (1) and the configured
+ * maximum based on the observed call latency. Whenever the latency
+ * increases well above the minimum observed latency, the limit is
+ * reduced (i.e. calls are likely queueing somewhere downstream).
+ * Otherwise the limit is slowly increased again.
+ *
+ * @author Per Cederberg
+ */
+public class AdmissionInterceptor extends ReserveInterceptor {
+
+    /**
+     * The class logger.
+     */
+    private static final Logger LOG =
+        Logger.getLogger(AdmissionInterceptor.class.getName());
+
+    /**
+     * The dictionary key for the maximum queue time (in millis).
+     */
+    public static final String KEY_TIMEOUT = "timeout";
+
+    /**
+     * The dictionary key for the maximum concurrency limit in a scope
+     * section. Zero (0) or a negative value disables the limit.
+     */
+    public static final String KEY_LIMIT = "limit";
+
+    /**
+     * The dictionary key for the maximum queue length in a scope
+     * section.
+     */
+    public static final String KEY_QUEUE = "queue";
+
+    /**
+     * The dictionary key for the adaptive limit flag in a scope
+     * section.
+     */
+    public static final String KEY_ADAPTIVE = "adaptive";
+
+    /**
+     * The dictionary key for the per-identifier limit overrides in a
+     * scope section.
+     */
+    public static final String KEY_OVERRIDE = "override";
+
+    /**
+     * The procedure limit scope (and dictionary key).
+     */
+    public static final String SCOPE_PROCEDURE = "procedure";
+
+    /**
+     * The connection limit scope (and dictionary key).
+     */
+    public static final String SCOPE_CONNECTION = "connection";
+
+    /**
+     * The user limit scope (and dictionary key).
+     */
+    public static final String SCOPE_USER = "user";
+
+    /**
+     * The metrics key suffix for queue time metrics.
+     */
+    public static final String METRICS_QUEUE = ":queue";
+
+    /**
+     * The call context attribute for the list of acquired limiters.
+     */
+    public static final String CX_ADMISSION = "admission";
+
+    /**
+     * The call context attribute for the admission timestamp.
+     */
+    public static final String CX_ADMITTED = "admitted";
+
+    /**
+     * The default maximum queue time (in millis).
+     */
+    public static final int DEFAULT_TIMEOUT = 10000;
+
+    /**
+     * The map of active limiters, indexed by scope and identifier.
+     */
+    private ConcurrentHashMap<String, Limiter> limiters = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new interceptor from a serialized representation.
+     *
+     * @param id             the object identifier
+     * @param type           the object type name
+     * @param dict           the serialized representation
+     */
+    public AdmissionInterceptor(String id, String type, Dict dict) {
+        super(id, type, dict);
+    }
+
+    /**
+     * Returns the maximum queue time.
+     *
+     * @return the maximum queue time (in millis)
+     */
+    public int timeout() {
+        return dict.get(KEY_TIMEOUT, Integer.class, DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * Reserves all resources needed for executing a procedure. All
+     * resources needed by sub-procedures will also be reserved. For
+     * top-level calls, the procedure, connection and user limits
+     * are acquired before forwarding the call.
+     *
+     * @param cx             the procedure context
+     * @param proc           the procedure definition
+     *
+     * @throws ProcedureException if some resource couldn't be reserved
+     */
+    @Override
+    public void reserve(CallContext cx, Procedure proc)
+    throws ProcedureException {
+
+        if (cx.isTop()) {
+            ArrayList<Limiter> permits = new ArrayList<>();
+            cx.set(CX_ADMISSION, permits);
+            User user = cx.user();
+            if (user != null) {
+                acquire(cx, permits, SCOPE_USER, user.id());
+            }
+            acquire(cx, permits, SCOPE_PROCEDURE, proc.id());
+            LinkedHashSet<String> conns = new LinkedHashSet<>();
+            connections(cx.storage(), proc, conns, new HashSet<>());
+            for (String id : conns) {
+                acquire(cx, permits, SCOPE_CONNECTION, id);
+            }
+            cx.set(CX_ADMITTED, System.currentTimeMillis());
+        }
+        super.reserve(cx, proc);
+    }
+
+    /**
+     * Releases all reserved adapter connections. The connections
+     * will either be committed or rolled back, depending on the
+     * commit flag. For top-level calls, any acquired limits are
+     * also released.
+     *
+     * @param cx             the procedure context
+     * @param commit         the commit (or rollback) flag
+     */
+    @Override
+    public void releaseAll(CallContext cx, boolean commit) {
+        try {
+            super.releaseAll(cx, commit);
+        } finally {
+            if (cx.isTop() && cx.get(CX_ADMISSION, ArrayList.class) instanceof ArrayList<?> permits) {
+                Long admitted = cx.get(CX_ADMITTED, Long.class);
+                long latency = (admitted == null) ? -1 : System.currentTimeMillis() - admitted;
+                for (int i = permits.size() - 1; i >= 0; i--) {
+                    ((Limiter) permits.get(i)).release(latency);
+                }
+                cx.remove(CX_ADMISSION);
+                cx.remove(CX_ADMITTED);
+            }
+        }
+    }
+
+    /**
+     * Acquires a limiter permit (if a limit applies). The queue time
+     * or rejection is reported to the metrics for the scope.
+     *
+     * @param cx             the procedure context
+     * @param permits        the list of acquired limiters
+     * @param scope          the limit scope
+     * @param id             the object identifier
+     *
+     * @throws AdmissionException if the call was rejected
+     */
+    private void acquire(CallContext cx, ArrayList<Limiter> permits, String scope, String id)
+    throws AdmissionException {
+
+        Limiter limiter = limiter(scope, id);
+        if (limiter != null) {
+            long start = System.currentTimeMillis();
+            try {
+                limiter.acquire(timeout());
+                permits.add(limiter);
+                report(cx.storage(), scope, id, start, true, null);
+            } catch (AdmissionException e) {
+                LOG.fine(e.getMessage());
+                report(cx.storage(), scope, id, start, false, e.getMessage());
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Returns the limiter for a scope and identifier. The limiter will
+     * be created on first use.
+     *
+     * @param scope          the limit scope
+     * @param id             the object identifier
+     *
+     * @return the limiter found or created, or
+     *         null if no limit applies
+     */
+    Limiter limiter(String scope, String id) {
+        String key = scope + ":" + id;
+        Limiter res = limiters.get(key);
+        if (res == null) {
+            Dict conf = dict.getDict(scope);
+            int def = conf.get(KEY_LIMIT, Integer.class, 0);
+            int limit = conf.getDict(KEY_OVERRIDE).get(id, Integer.class, def);
+            if (limit > 0) {
+                int queue = conf.get(KEY_QUEUE, Integer.class, 0);
+                boolean adaptive = conf.get(KEY_ADAPTIVE, Boolean.class, false);
+                res = limiters.computeIfAbsent(key, k -> new Limiter(scope, id, limit, queue, adaptive));
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Collects all connection identifiers used by a procedure and its
+     * sub-procedures.
+     *
+     * @param storage        the storage to use for lookups
+     * @param proc           the procedure to inspect
+     * @param res            the set of connection identifiers found
+     * @param visited        the set of procedure identifiers visited
+     */
+    private static void connections(Storage storage,
+                                    Procedure proc,
+                                    LinkedHashSet<String> res,
+                                    HashSet<String> visited) {
+
+        if (proc == null || !visited.add(proc.id())) {
+            return;
+        }
+        Bindings bindings = proc.getBindings();
+        try {
+            for (String name : bindings.getNames(Bindings.CONNECTION)) {
+                if (bindings.getValue(name, null) instanceof String s && !s.isBlank()) {
+                    res.add(s);
+                }
+            }
+            for (String name : bindings.getNames(Bindings.PROCEDURE)) {
+                if (bindings.getValue(name, null) instanceof String s && !s.isBlank()) {
+                    connections(storage, Procedure.find(storage, s), res, visited);
+                }
+            }
+        } catch (ProcedureException e) {
+            LOG.fine("failed to inspect bindings for " + proc + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reports queue time metrics for a scope and identifier.
+     *
+     * @param storage        the storage to use
+     * @param scope          the limit scope
+     * @param id             the object identifier
+     * @param start          the queue start time (in millis)
+     * @param success        the admission success flag
+     * @param error          the optional rejection message
+     */
+    private static void report(Storage storage,
+                               String scope,
+                               String id,
+                               long start,
+                               boolean success,
+                               String error) {
+
+        if (storage != null) {
+            Metrics metrics = switch (scope) {
+                case SCOPE_USER -> User.metrics(storage);
+                case SCOPE_CONNECTION -> Connection.metrics(storage);
+                default -> Procedure.metrics(storage);
+            };
+            long now = System.currentTimeMillis();
+            metrics.report(id + METRICS_QUEUE, now, 1, now - start, success, error);
+        }
+    }
+
+
+    /**
+     * A concurrency limiter with a bounded wait queue. The effective
+     * limit may optionally be adapted to the observed latency, using
+     * a smoothed gradient between the minimum and the current latency.
+     * Locking is used instead of synchronized blocks, in order to
+     * avoid pinning virtual threads while waiting.
+     */
+    static final class Limiter {
+
+        /**
+         * The latency tolerance factor, i.e. how much the latency may
+         * increase above the minimum before the limit is reduced.
+         */
+        static final double TOLERANCE = 2.0;
+
+        /**
+         * The smoothing factor for adaptive limit changes.
+         */
+        static final double SMOOTHING = 0.2;
+
+        /**
+         * The minimum latency drift factor. Allows the minimum latency
+         * to slowly follow persistent latency increases.
+         */
+        static final double DRIFT = 0.01;
+
+        /**
+         * The limit scope.
+         */
+        private final String scope;
+
+        /**
+         * The limited object identifier.
+         */
+        private final String id;
+
+        /**
+         * The maximum concurrency limit.
+         */
+        private final int maxLimit;
+
+        /**
+         * The maximum queue length.
+         */
+        private final int maxQueue;
+
+        /**
+         * The adaptive limit flag.
+         */
+        private final boolean adaptive;
+
+        /**
+         * The limiter lock.
+         */
+        private final ReentrantLock lock = new ReentrantLock();
+
+        /**
+         * The permit available condition.
+         */
+        private final Condition available = lock.newCondition();
+
+        /**
+         * The current (effective) concurrency limit.
+         */
+        private double limit;
+
+        /**
+         * The number of active permits.
+         */
+        private int active = 0;
+
+        /**
+         * The number of queued (waiting) threads.
+         */
+        private int waiting = 0;
+
+        /**
+         * The minimum observed latency (in millis), or zero if unknown.
+         */
+        private double minLatency = 0.0;
+
+        /**
+         * Creates a new limiter.
+         *
+         * @param scope          the limit scope
+         * @param id             the limited object identifier
+         * @param limit          the maximum concurrency limit
+         * @param queue          the maximum queue length
+         * @param adaptive       the adaptive limit flag
+         */
+        Limiter(String scope, String id, int limit, int queue, boolean adaptive) {
+            this.scope = scope;
+            this.id = id;
+            this.maxLimit = Math.max(1, limit);
+            this.maxQueue = Math.max(0, queue);
+            this.adaptive = adaptive;
+            this.limit = this.maxLimit;
+        }
+
+        /**
+         * Returns the current (effective) concurrency limit.
+         *
+         * @return the current concurrency limit
+         */
+        int limit() {
+            lock.lock();
+            try {
+                return (int) limit;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Returns the number of active permits.
+         *
+         * @return the number of active permits
+         */
+        int active() {
+            lock.lock();
+            try {
+                return active;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Acquires a permit, waiting in queue if needed. New calls
+         * are not admitted ahead of already queued calls.
+         *
+         * @param timeout        the maximum queue time (in millis)
+         *
+         * @throws AdmissionException if the queue was full, the queue
+         *             time was exceeded or the thread was interrupted
+         */
+        void acquire(long timeout) throws AdmissionException {
+            lock.lock();
+            try {
+                if (active < (int) limit && waiting == 0) {
+                    active++;
+                    return;
+                } else if (waiting >= maxQueue) {
+                    throw reject("queue full (" + waiting + " waiting)");
+                }
+                waiting++;
+                try {
+                    long nanos = TimeUnit.MILLISECONDS.toNanos(timeout);
+                    while (active >= (int) limit) {
+                        if (nanos <= 0L) {
+                            throw reject("queue timeout after " + timeout + " ms");
+                        }
+                        nanos = available.awaitNanos(nanos);
+                    }
+                    active++;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw reject("interrupted while queued");
+                } finally {
+                    waiting--;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Releases a permit. If the limit is adaptive, it is also
+         * adjusted according to the call latency.
+         *
+         * @param latency        the call latency (in millis), or
+         *                       negative if unknown
+         */
+        void release(long latency) {
+            lock.lock();
+            try {
+                int prev = (int) limit;
+                if (adaptive && latency >= 0) {
+                    adapt(latency);
+                }
+                active--;
+                available.signal();
+                if ((int) limit > prev) {
+                    available.signal();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Adjusts the concurrency limit based on the latency gradient.
+         * The limit is only increased when it is at least half used.
+         *
+         * @param latency        the call latency (in millis)
+         */
+        private void adapt(long latency) {
+            double rtt = Math.max(1.0, latency);
+            if (minLatency <= 0.0 || rtt < minLatency) {
+                minLatency = rtt;
+            } else {
+                minLatency += (rtt - minLatency) * DRIFT;
+            }
+            double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * minLatency / rtt));
+            if (gradient < 1.0 || active >= limit / 2) {
+                double target = limit * gradient + Math.sqrt(limit);
+                double next = limit * (1.0 - SMOOTHING) + target * SMOOTHING;
+                limit = Math.max(1.0, Math.min(maxLimit, next));
+            }
+        }
+
+        /**
+         * Creates a rejection exception for this limiter.
+         *
+         * @param message        the detailed error message
+         *
+         * @return the new exception
+         */
+        private AdmissionException reject(String message) {
+            double secs = minLatency * (waiting + 1) / Math.max(1.0, limit) / 1000.0;
+            return new AdmissionException(scope, id, message, Math.max(1, (int) Math.ceil(secs)));
+        }
+    }
+}
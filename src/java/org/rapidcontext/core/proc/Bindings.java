@@ -15,8 +15,10 @@
 package org.rapidcontext.core.proc;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.function.Supplier;
+import java.util.stream.IntStream;
 
 import org.apache.commons.lang3.Strings;
 import org.rapidcontext.core.data.Array;
@@ -35,7 +37,10 @@ import org.rapidcontext.util.ValueUtil;
  * hierarchy, which is used when redefining binding values (such as
  * when binding call argument values). The bindings can also be
  * sealed, thereby protecting the particular bindings instance from
- * further modifications (it can still be inherited, though).
+ * further modifications (it can still be inherited, though). Sealed
+ * bindings are compiled into a flat layout with names mapped to slot
+ * indices, so that child bindings (e.g. call bindings) only need to
+ * store an array of bound values.
  *
  * @author Per Cederberg
  */
@@ -71,10 +76,42 @@ public class Bindings {
     private Bindings parent = null;
 
     /**
-     * The bindings array.
+     * The local bindings array. For compiled bindings, this only
+     * contains additional bindings not in the compiled layout (or
+     * null if sealed).
      */
     private Array data;
 
+    /**
+     * The compiled bindings layout, or null if not compiled. The
+     * layout is shared by sealed bindings and their direct children.
+     */
+    private Layout layout = null;
+
+    /**
+     * The local binding values for each layout slot, or null if
+     * sealed (i.e. using only the layout values).
+     */
+    private Object[] values = null;
+
+    /**
+     * The local binding flags for each layout slot, or null if
+     * sealed.
+     */
+    private boolean[] local = null;
+
+    /**
+     * The local binding types for each layout slot, or null if not
+     * modified (i.e. using the layout types).
+     */
+    private int[] types = null;
+
+    /**
+     * The local binding descriptions for each layout slot, or null
+     * if not modified (i.e. using the layout descriptions).
+     */
+    private String[] descs = null;
+
     /**
      * Returns the type name corresponding to a binding type constant.
      *
@@ -93,6 +130,24 @@ public class Bindings {
         };
     }
 
+    /**
+     * Returns the binding type constant corresponding to a type name.
+     *
+     * @param typeName       the binding type name
+     *
+     * @return the corresponding binding type, or
+     *         zero (0) if unknown
+     */
+    private static int toType(String typeName) {
+        return switch (String.valueOf(typeName)) {
+            case "data" -> DATA;
+            case "procedure" -> PROCEDURE;
+            case "connection" -> CONNECTION;
+            case "argument" -> ARGUMENT;
+            default -> 0;
+        };
+    }
+
     /**
      * Creates a new empty bindings container.
      */
@@ -101,7 +156,9 @@ public class Bindings {
     }
 
     /**
-     * Creates a new empty child bindings container.
+     * Creates a new empty child bindings container. If the parent
+     * bindings are sealed, the child bindings will reuse the compiled
+     * layout and only store the bound values.
      *
      * @param parent         the parent bindings container
      */
@@ -118,6 +175,34 @@ public class Bindings {
     public Bindings(Bindings parent, Array arr) {
         this.parent = parent;
         this.data = (arr == null) ? new Array() : arr;
+        if (parent != null && parent.isSealed() && arr == null) {
+            this.layout = parent.layout;
+            this.values = new Object[layout.names.length];
+            this.local = new boolean[layout.names.length];
+        }
+    }
+
+    /**
+     * Checks if these bindings have been sealed.
+     *
+     * @return true if the bindings are sealed, or
+     *         false otherwise
+     */
+    public boolean isSealed() {
+        return layout != null && values == null;
+    }
+
+    /**
+     * Returns the compiled layout slot for a binding name.
+     *
+     * @param name           the binding name
+     *
+     * @return the layout slot index, or
+     *         -1 if not found (or not compiled)
+     */
+    private int slot(String name) {
+        Integer slot = (layout == null) ? null : layout.slots.get(name);
+        return (slot == null) ? -1 : slot.intValue();
     }
 
     /**
@@ -129,8 +214,14 @@ public class Bindings {
      *         false otherwise
      */
     public boolean hasName(String name) {
-        return findLocal(name) >= 0 ||
-               (parent != null && parent.hasName(name));
+        if (slot(name) >= 0) {
+            return true;
+        } else if (layout != null) {
+            return data != null && findLocal(name) >= 0;
+        } else {
+            return findLocal(name) >= 0 ||
+                   (parent != null && parent.hasName(name));
+        }
     }
 
     /**
@@ -140,9 +231,7 @@ public class Bindings {
      * @return an array with all binding names
      */
     public String[] getNames() {
-        LinkedHashSet<String> set = getNames(new LinkedHashSet<>(), -1);
-        String[] res = new String[set.size()];
-        return set.toArray(res);
+        return getNames(-1);
     }
 
     /**
@@ -154,6 +243,10 @@ public class Bindings {
      * @return an array with all matching binding names
      */
     public String[] getNames(int type) {
+        boolean isPlain = layout != null && types == null && (data == null || data.size() == 0);
+        if (isPlain) {
+            return layout.names(type).clone();
+        }
         LinkedHashSet<String> set = getNames(new LinkedHashSet<>(), type);
         String[] res = new String[set.size()];
         return set.toArray(res);
@@ -169,12 +262,18 @@ public class Bindings {
      * @return the input name set
      */
     private LinkedHashSet<String> getNames(LinkedHashSet<String> set, int type) {
-        if (parent != null) {
+        if (layout != null) {
+            for (int i = 0; i < layout.names.length; i++) {
+                if (toTypeName(type) == null || type == type(i)) {
+                    set.add(layout.names[i]);
+                }
+            }
+        } else if (parent != null) {
             parent.getNames(set, type);
         }
         String typeName = toTypeName(type);
-        for (Object o : data) {
-            Dict bind = (Dict) o;
+        for (int i = 0; data != null && i < data.size(); i++) {
+            Dict bind = data.getDict(i);
             if (typeName == null || typeName.equals(bind.get("type", String.class))) {
                 set.add(bind.get("name", String.class));
             }
@@ -182,6 +281,18 @@ public class Bindings {
         return set;
     }
 
+    /**
+     * Returns the binding type for a layout slot.
+     *
+     * @param slot           the layout slot index
+     *
+     * @return the binding type, or
+     *         zero (0) if unknown
+     */
+    private int type(int slot) {
+        return (types == null) ? layout.types[slot] : types[slot];
+    }
+
     /**
      * Finds the type for a binding.
      *
@@ -192,18 +303,27 @@ public class Bindings {
      * @throws ProcedureException if the binding name wasn't found
      */
     public int getType(String name) throws ProcedureException {
-        String type = find(name).get("type", String.class);
+        int slot = slot(name);
+        String type;
+        if (slot >= 0 && type(slot) > 0) {
+            return type(slot);
+        } else if (slot >= 0) {
+            type = getRawTypeName(name);
+        } else {
+            Dict bind = findLocalDict(name);
+            if (bind == null && parent != null && layout == null) {
+                return parent.getType(name);
+            } else if (bind == null) {
+                throw new ProcedureException("no binding for '" + name + "' found");
+            }
+            type = bind.get("type", String.class);
+        }
         if (type == null) {
             throw new ProcedureException("no binding type for '" + name + "' found");
         }
-        if (type.equals(toTypeName(DATA))) {
-            return DATA;
-        } else if (type.equals(toTypeName(PROCEDURE))) {
-            return PROCEDURE;
-        } else if (type.equals(toTypeName(CONNECTION))) {
-            return CONNECTION;
-        } else if (type.equals(toTypeName(ARGUMENT))) {
-            return ARGUMENT;
+        int res = toType(type);
+        if (res > 0) {
+            return res;
         } else {
             throw new ProcedureException("invalid binding type for '" + name + "': " + type);
         }
@@ -235,7 +355,7 @@ public class Bindings {
      *             if the value was null
      */
     public Object getValue(String name) throws ProcedureException {
-        Object value = find(name).get("value");
+        Object value = getValue(name, null);
         if (value == null) {
             throw new ProcedureException("no binding value for '" + name + "' found");
         }
@@ -255,7 +375,21 @@ public class Bindings {
     public Object getValue(String name, Object defaultValue)
         throws ProcedureException {
 
-        Object value = find(name).get("value");
+        int slot = slot(name);
+        Object value;
+        if (slot < 0) {
+            Dict bind = findLocalDict(name);
+            if (bind == null && parent != null && layout == null) {
+                return parent.getValue(name, defaultValue);
+            } else if (bind == null) {
+                throw new ProcedureException("no binding for '" + name + "' found");
+            }
+            value = bind.get("value");
+        } else if (values != null && local[slot]) {
+            value = values[slot];
+        } else {
+            value = layout.values[slot];
+        }
         return (value == null) ? defaultValue : value;
     }
 
@@ -270,8 +404,19 @@ public class Bindings {
      * @throws ProcedureException if the binding name wasn't found
      */
     public String getDescription(String name) throws ProcedureException {
-        String desc = find(name).get("description", String.class, "");
-        if (desc.isBlank() && parent != null && parent.hasName(name)) {
+        int slot = slot(name);
+        if (slot >= 0) {
+            String desc = (descs == null) ? null : descs[slot];
+            return (desc == null || desc.isBlank()) ? layout.descs[slot] : desc;
+        }
+        Dict bind = findLocalDict(name);
+        if (bind == null && parent != null && layout == null) {
+            return parent.getDescription(name);
+        } else if (bind == null) {
+            throw new ProcedureException("no binding for '" + name + "' found");
+        }
+        String desc = bind.get("description", String.class, "");
+        if (desc.isBlank() && parent != null && layout == null && parent.hasName(name)) {
             return parent.getDescription(name);
         } else if (desc.isBlank() && getType(name) == ARGUMENT) {
             // TODO: remove this hack once all serialized add-on procedures
@@ -317,53 +462,118 @@ public class Bindings {
     public void set(String name, int type, Object value, String description)
         throws ProcedureException {
 
-        try {
-            int index = findLocal(name);
-            Dict bind = (index < 0) ? new Dict() : data.getDict(index);
-            bind.set("name", name);
-            bind.set("type", toTypeName(type));
-            bind.set("value", value);
-            bind.set("description", description);
-            if (index < 0) {
-                data.add(bind);
-            }
-        } catch (UnsupportedOperationException e) {
+        int slot = slot(name);
+        if (isSealed()) {
             throw new ProcedureException("cannot modify binding in sealed object");
+        } else if (slot >= 0) {
+            values[slot] = value;
+            local[slot] = true;
+            if (type != type(slot)) {
+                types = (types == null) ? layout.types.clone() : types;
+                types[slot] = type;
+            }
+            if (description != null) {
+                descs = (descs == null) ? new String[values.length] : descs;
+                descs[slot] = description;
+            }
+        } else {
+            try {
+                int index = findLocal(name);
+                Dict bind = (index < 0) ? new Dict() : data.getDict(index);
+                bind.set("name", name);
+                bind.set("type", toTypeName(type));
+                bind.set("value", value);
+                bind.set("description", description);
+                if (index < 0) {
+                    data.add(bind);
+                }
+            } catch (UnsupportedOperationException e) {
+                throw new ProcedureException("cannot modify binding in sealed object");
+            }
         }
     }
 
     /**
      * Seals these bindings and prevents future modification. This
      * method is used by built-in procedures once they have created
-     * their default (read-only) binding objects.
+     * their default (read-only) binding objects. The bindings
+     * (including parent bindings) are also compiled into a flat
+     * layout, so that later lookups and child bindings are cheap.
      */
     public void seal() {
-        data.seal(true);
+        if (!isSealed()) {
+            if (data != null) {
+                data.seal(true);
+            }
+            Layout res = new Layout(this);
+            layout = res;
+            parent = null;
+            data = null;
+            values = null;
+            local = null;
+            types = null;
+            descs = null;
+        }
     }
 
     /**
-     * Searches for a binding with the specified name. The search
-     * will recurse through the parent binding object if no binding
-     * was found.
+     * Returns the stored type name for a binding. Unlike
+     * getTypeName(), this method doesn't validate the type name.
      *
      * @param name           the binding name
      *
-     * @return the binding data object
+     * @return the stored binding type name, or
+     *         null if not found
+     */
+    private String getRawTypeName(String name) {
+        int slot = slot(name);
+        if (slot >= 0 && (types == null || types[slot] == layout.types[slot])) {
+            return layout.typeNames[slot];
+        } else if (slot >= 0) {
+            return toTypeName(types[slot]);
+        }
+        Dict bind = findLocalDict(name);
+        if (bind != null) {
+            return bind.get("type", String.class);
+        } else if (parent != null && layout == null) {
+            return parent.getRawTypeName(name);
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Checks if a binding is set locally (i.e. not inherited from a
+     * parent).
+     *
+     * @param name           the binding name
      *
-     * @throws ProcedureException if the binding name wasn't found
-     *             in the hierarchy
+     * @return true if the binding is local, or
+     *         false otherwise
      */
-    private Dict find(String name) throws ProcedureException {
-        int index = findLocal(name);
-        if (index >= 0) {
-            return data.getDict(index);
-        } else if (parent != null) {
-            return parent.find(name);
+    private boolean isLocal(String name) {
+        int slot = slot(name);
+        if (slot >= 0) {
+            return (values == null) ? layout.local[slot] : local[slot];
         } else {
-            throw new ProcedureException("no binding for '" + name + "' found");
+            return data != null && findLocal(name) >= 0;
         }
     }
 
+    /**
+     * Searches for a local binding with the specified name. Compiled
+     * layout slots are not searched.
+     *
+     * @param name           the binding name
+     *
+     * @return the local binding data object, or
+     *         null if not found
+     */
+    private Dict findLocalDict(String name) {
+        int index = (data == null) ? -1 : findLocal(name);
+        return (index < 0) ? null : data.getDict(index);
+    }
+
     /**
      * Searches for a local binding with the specified name.
      *
@@ -393,25 +603,48 @@ public class Bindings {
      * @return the processed template string
      */
     public String processTemplate(String tpl, TextEncoding encoding) {
-        for (Object o : data) {
-            Dict bind = (Dict) o;
-            String key = bind.get("name", String.class);
+        for (int i = 0; layout != null && i < layout.names.length; i++) {
+            boolean isLocal = (values == null) ? layout.local[i] : local[i];
+            if (isLocal && type(i) == ARGUMENT) {
+                Object val = (values == null) ? layout.values[i] : values[i];
+                tpl = processTemplate(tpl, encoding, layout.names[i], val);
+            }
+        }
+        for (int i = 0; data != null && i < data.size(); i++) {
+            Dict bind = data.getDict(i);
             String type = bind.get("type", String.class, "");
             if (type.equals("4") || type.equals("argument")) {
-                Object val = bind.get("value");
-                if (Strings.CS.contains(tpl, "@" + key)) {
-                    String str = encodeValue(val, TextEncoding.NONE);
-                    tpl = Strings.CS.replace(tpl, "@" + key, str);
-                }
-                if (Strings.CS.contains(tpl, ":" + key)) {
-                    String str = encodeValue(val, encoding);
-                    tpl = Strings.CS.replace(tpl, ":" + key, str);
-                }
+                String key = bind.get("name", String.class);
+                tpl = processTemplate(tpl, encoding, key, bind.get("value"));
             }
         }
         return tpl;
     }
 
+    /**
+     * Replaces template variables for a single argument value. This
+     * method supports both raw (e.g. "@key") and encoded (e.g.
+     * ":key") template variables.
+     *
+     * @param tpl            the template string to process
+     * @param encoding       the text encoding for values
+     * @param key            the argument name
+     * @param val            the argument value
+     *
+     * @return the processed template string
+     */
+    private String processTemplate(String tpl, TextEncoding encoding, String key, Object val) {
+        if (Strings.CS.contains(tpl, "@" + key)) {
+            String str = encodeValue(val, TextEncoding.NONE);
+            tpl = Strings.CS.replace(tpl, "@" + key, str);
+        }
+        if (Strings.CS.contains(tpl, ":" + key)) {
+            String str = encodeValue(val, encoding);
+            tpl = Strings.CS.replace(tpl, ":" + key, str);
+        }
+        return tpl;
+    }
+
     /**
      * Encodes a value with the specified text encoding. Also supports
      * JSON encoding of Dict and Array values, as well as URL encoding
@@ -442,4 +675,115 @@ public class Bindings {
             return asString.get();
         }
     }
+
+
+    /**
+     * A compiled bindings layout. Contains a flattened copy of all
+     * bindings in a hierarchy, with the names mapped to slot indices
+     * and the type names parsed. The layout is immutable once
+     * created.
+     */
+    private static final class Layout {
+
+        /**
+         * The map of binding names to slot indices.
+         */
+        final HashMap<String,Integer> slots = new HashMap<>();
+
+        /**
+         * The binding names (in order).
+         */
+        final String[] names;
+
+        /**
+         * The binding types, or zero (0) for unknown types.
+         */
+        final int[] types;
+
+        /**
+         * The binding type names (as stored).
+         */
+        final String[] typeNames;
+
+        /**
+         * The binding values.
+         */
+        final Object[] values;
+
+        /**
+         * The binding descriptions (resolved via parent bindings).
+         */
+        final String[] descs;
+
+        /**
+         * The local binding flags (i.e. not inherited from a parent).
+         */
+        final boolean[] local;
+
+        /**
+         * The binding names for each binding type (indexed by type).
+         */
+        final String[][] typed = new String[ARGUMENT + 1][];
+
+        /**
+         * Creates a new compiled layout from a bindings hierarchy.
+         *
+         * @param bindings       the bindings to compile
+         */
+        Layout(Bindings bindings) {
+            names = bindings.getNames();
+            types = new int[names.length];
+            typeNames = new String[names.length];
+            values = new Object[names.length];
+            descs = new String[names.length];
+            local = new boolean[names.length];
+            for (int i = 0; i < names.length; i++) {
+                String name = names[i];
+                slots.put(name, i);
+                typeNames[i] = bindings.getRawTypeName(name);
+                types[i] = toType(typeNames[i]);
+                local[i] = bindings.isLocal(name);
+                try {
+                    values[i] = sealed(bindings.getValue(name, null));
+                    descs[i] = bindings.getDescription(name);
+                } catch (ProcedureException e) {
+                    descs[i] = "";
+                }
+            }
+            for (int type = DATA; type <= ARGUMENT; type++) {
+                int match = type;
+                typed[type] = IntStream.range(0, names.length)
+                    .filter(i -> types[i] == match)
+                    .mapToObj(i -> names[i])
+                    .toArray(String[]::new);
+            }
+        }
+
+        /**
+         * Recursively seals a binding value (if a dictionary or array).
+         *
+         * @param value          the binding value
+         *
+         * @return the same binding value
+         */
+        private static Object sealed(Object value) {
+            if (value instanceof Dict d) {
+                d.seal(true);
+            } else if (value instanceof Array a) {
+                a.seal(true);
+            }
+            return value;
+        }
+
+        /**
+         * Returns the binding names of a specified type.
+         *
+         * @param type           the binding type (or -1 for any)
+         *
+         * @return the matching binding names (not to be modified)
+         */
+        String[] names(int type) {
+            return (toTypeName(type) == null) ? names : typed[type];
+        }
+    }
 }
@@ -0,0 +1,392 @@
+/*
+ * RapidContext <https://www.rapidcontext.com/>
+ * Copyright (c) 2007-2026 Per Cederberg. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the BSD license.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the RapidContext LICENSE for more details.
+ */
+
+package org.rapidcontext.core.proc;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Logger;
+
+import org.rapidcontext.core.data.Array;
+import org.rapidcontext.core.data.Dict;
+import org.rapidcontext.core.data.JsonSerializer;
+import org.rapidcontext.core.type.Procedure;
+import org.rapidcontext.core.type.User;
+
+/**
+ * A procedure result cache interceptor. Procedures opt into result
+ * caching with a 'cache' section in their definition, specifying the
+ * time-to-live (in seconds), the maximum number of cached entries and
+ * if the cache key should include the current user. Each cache key
+ * consists of the procedure identifier, the normalized call arguments
+ * and the optional user identifier.
+ *
+ * Cache hits are returned as copies, so callers may modify results
+ * freely. Errors are never cached. Top-level calls to procedures with
+ * a cache configuration use lazy connection reservation, so that
+ * cache hits never reserve any connection channels.
+ *
+ * @author Per Cederberg
+ */
+public class CacheInterceptor extends CallInterceptor {
+
+    /**
+     * The class logger.
+     */
+    private static final Logger LOG =
+        Logger.getLogger(CacheInterceptor.class.getName());
+
+    /**
+     * The cache configuration key for the time-to-live (in seconds).
+     */
+    public static final String KEY_TTL = "ttl";
+
+    /**
+     * The cache configuration key for the maximum number of entries.
+     */
+    public static final String KEY_MAX_ENTRIES = "maxEntries";
+
+    /**
+     * The cache configuration key for the per-user cache flag.
+     */
+    public static final String KEY_USER = "user";
+
+    /**
+     * The default time-to-live (in seconds).
+     */
+    public static final int DEFAULT_TTL = 60;
+
+    /**
+     * The default maximum number of entries.
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 100;
+
+    /**
+     * The metrics key suffix for cache hit metrics.
+     */
+    public static final String METRICS_CACHE = ":cache";
+
+    /**
+     * The cached value placeholder for null results.
+     */
+    private static final Object NULL = new Object();
+
+    /**
+     * The result caches, indexed by procedure identifier. The caches
+     * are shared between interceptor instances, so that they survive
+     * interceptor reloads.
+     */
+    private static ConcurrentHashMap<String, ResultCache> caches = new ConcurrentHashMap<>();
+
+    /**
+     * Removes all cached results for a procedure.
+     *
+     * @param id             the procedure identifier
+     *
+     * @return true if a cache was removed, or
+     *         false otherwise
+     */
+    public static boolean invalidate(String id) {
+        ResultCache cache = caches.remove(id);
+        if (cache != null) {
+            LOG.fine("invalidated result cache for procedure " + id);
+        }
+        return cache != null;
+    }
+
+    /**
+     * Removes all cached results for all procedures.
+     */
+    public static void invalidateAll() {
+        caches.clear();
+    }
+
+    /**
+     * Returns the number of procedures with cached results.
+     *
+     * @return the number of procedure result caches
+     */
+    public static int cacheCount() {
+        return caches.size();
+    }
+
+    /**
+     * Returns the total number of cached results (including expired).
+     *
+     * @return the number of cached results
+     */
+    public static long entryCount() {
+        long total = 0;
+        for (ResultCache cache : caches.values()) {
+            total += cache.size();
+        }
+        return total;
+    }
+
+    /**
+     * Creates a cache key from the call arguments. The arguments are
+     * normalized, so that dictionary key order doesn't matter.
+     *
+     * @param proc           the procedure definition
+     * @param scope          the optional key scope (e.g. user id), or
+     *                       null for none
+     * @param args           the call arguments
+     *
+     * @return the cache key string
+     */
+    static String key(Procedure proc, String scope, Object[] args) {
+        StringBuilder buffer = new StringBuilder();
+        buffer.append(proc.id());
+        if (scope != null) {
+            buffer.append('@').append(scope);
+        }
+        for (Object arg : args) {
+            buffer.append('\u0000');
+            appendKey(buffer, arg);
+        }
+        return buffer.toString();
+    }
+
+    /**
+     * Appends a normalized value to a cache key.
+     *
+     * @param buffer         the cache key buffer
+     * @param obj            the value to append
+     */
+    private static void appendKey(StringBuilder buffer, Object obj) {
+        if (obj instanceof Dict dict) {
+            String[] keys = dict.keys();
+            Arrays.sort(keys);
+            buffer.append('{');
+            for (String k : keys) {
+                buffer.append(JsonSerializer.serialize(k, false)).append(':');
+                appendKey(buffer, dict.get(k));
+                buffer.append(',');
+            }
+            buffer.append('}');
+        } else if (obj instanceof Array arr) {
+            buffer.append('[');
+            for (Object o : arr) {
+                appendKey(buffer, o);
+                buffer.append(',');
+            }
+            buffer.append(']');
+        } else {
+            buffer.append(JsonSerializer.serialize(obj, false));
+        }
+    }
+
+    /**
+     * Returns a copy of a cached value, so that the cached value
+     * cannot be modified by callers.
+     *
+     * @param obj            the value to copy
+     *
+     * @return the copied value
+     */
+    static Object copy(Object obj) {
+        if (obj instanceof Dict d) {
+            return d.copy();
+        } else if (obj instanceof Array a) {
+            return a.copy();
+        } else {
+            return obj;
+        }
+    }
+
+    /**
+     * Creates a new call interceptor from a serialized representation.
+     *
+     * @param id             the object identifier
+     * @param type           the object type name
+     * @param dict           the serialized representation
+     */
+    public CacheInterceptor(String id, String type, Dict dict) {
+        super(id, type, dict);
+    }
+
+    /**
+     * Calls a procedure with the specified bindings. If the procedure
+     * has a cache configuration, a cached result may be returned
+     * instead.
+     *
+     * @param cx             the procedure context
+     * @param proc           the procedure definition
+     * @param bindings       the procedure call bindings
+     *
+     * @return the result of the call, or
+     *         null if the call produced no result
+     *
+     * @throws ProcedureException if the call execution caused an error
+     */
+    @Override
+    public Object call(CallContext cx, Procedure proc, Bindings bindings)
+        throws ProcedureException {
+
+        Dict conf = proc.cache();
+        if (conf == null) {
+            return super.call(cx, proc, bindings);
+        }
+        User user = conf.get(KEY_USER, Boolean.class, false) ? cx.user() : null;
+        String key = key(proc, (user == null) ? null : user.id(), bindings.getArgs());
+        ResultCache cache = caches.compute(proc.id(), (k, v) -> {
+            return (v != null && v.proc == proc) ? v : new ResultCache(proc, conf);
+        });
+        long now = System.currentTimeMillis();
+        Object res = cache.get(key, now);
+        if (res != null) {
+            if (cx.isLogging()) {
+                cx.log("cache hit for " + proc.id());
+            }
+            if (cx.storage() != null) {
+                Procedure.metrics(cx.storage()).report(proc.id() + METRICS_CACHE, now, 1, 0, true, null);
+            }
+            return (res == NULL) ? null : copy(res);
+        }
+        res = super.call(cx, proc, bindings);
+        cache.put(key, (res == null) ? NULL : copy(res), now);
+        return res;
+    }
+
+
+    /**
+     * A bounded result cache for a single procedure. Entries are
+     * evicted in least-recently-used order when the cache is full.
+     */
+    static final class ResultCache {
+
+        /**
+         * The procedure definition. Used to discard the cache when
+         * the procedure definition is modified.
+         */
+        final Procedure proc;
+
+        /**
+         * The time-to-live (in millis).
+         */
+        private final long ttl;
+
+        /**
+         * The cache lock.
+         */
+        private final ReentrantLock lock = new ReentrantLock();
+
+        /**
+         * The cached entries, in access order.
+         */
+        private final LinkedHashMap<String, Entry> entries;
+
+        /**
+         * Creates a new result cache.
+         *
+         * @param proc           the procedure definition
+         * @param conf           the cache configuration
+         */
+        ResultCache(Procedure proc, Dict conf) {
+            this.proc = proc;
+            this.ttl = conf.get(KEY_TTL, Integer.class, DEFAULT_TTL) * 1000L;
+            int max = Math.max(1, conf.get(KEY_MAX_ENTRIES, Integer.class, DEFAULT_MAX_ENTRIES));
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                    return size() > max;
+                }
+            };
+        }
+
+        /**
+         * Returns a cached value (if not expired).
+         *
+         * @param key            the cache key
+         * @param now            the current time (in millis)
+         *
+         * @return the cached value, or
+         *         null if not found or expired
+         */
+        Object get(String key, long now) {
+            lock.lock();
+            try {
+                Entry e = entries.get(key);
+                if (e != null && e.expires <= now) {
+                    entries.remove(key);
+                    e = null;
+                }
+                return (e == null) ? null : e.value;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Stores a value in the cache.
+         *
+         * @param key            the cache key
+         * @param value          the value to store
+         * @param now            the current time (in millis)
+         */
+        void put(String key, Object value, long now) {
+            lock.lock();
+            try {
+                entries.put(key, new Entry(value, now + ttl));
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Returns the number of cached entries (including expired).
+         *
+         * @return the number of cached entries
+         */
+        int size() {
+            lock.lock();
+            try {
+                return entries.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+
+    /**
+     * A cached result entry.
+     */
+    private static final class Entry {
+
+        /**
+         * The cached value.
+         */
+        final Object value;
+
+        /**
+         * The expiry time (in millis).
+         */
+        final long expires;
+
+        /**
+         * Creates a new cache entry.
+         *
+         * @param value          the cached value
+         * @param expires        the expiry time (in millis)
+         */
+        Entry(Object value, long expires) {
+            this.value = value;
+            this.expires = expires;
+        }
+    }
+}
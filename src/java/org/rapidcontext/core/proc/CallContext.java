@@ -56,10 +56,18 @@ public class CallContext extends ThreadContext {
      * The connections context attribute. This contains a map of
      * reserved connection channels, indexed by connection id.
      * Before executing a procedure tree, all the required
-     * connection channels are reserved and stored here.
+     * connection channels are reserved and stored here (unless
+     * lazy reservation is used).
      */
     public static final String CX_CONNECTIONS = "connections";
 
+    /**
+     * The lazy reservation attribute. If set in the top context,
+     * connection channels are only reserved on first use, instead of
+     * before executing the procedure tree.
+     */
+    public static final String CX_LAZY = "lazy";
+
     /**
      * The call interrupted attribute.
      */
@@ -253,6 +261,20 @@ public class CallContext extends ThreadContext {
         }
     }
 
+    /**
+     * Checks if connection channels are reserved lazily in this call
+     * chain. In lazy mode, connection bindings are bound to the
+     * connection identifier until a channel has been reserved. The
+     * channel is reserved on first use (via connectionReserve()) and
+     * kept until all channels are released.
+     *
+     * @return true if connection channels are reserved on first use, or
+     *         false if they are reserved before the call
+     */
+    public boolean isLazy() {
+        return (parent instanceof CallContext p) ? p.isLazy() : has(CX_LAZY);
+    }
+
     /**
      * Checks if the call chain has been interrupted. Active threads
      * may continue until completion, but any additional calls will
@@ -308,11 +330,33 @@ public class CallContext extends ThreadContext {
      *             reserved
      */
     protected void reserveImpl() throws ProcedureException {
+        reserveImpl(false);
+    }
+
+    /**
+     * Recursively reserves all connections needed for executing the
+     * call context procedure (and dependencies). In lazy mode, the
+     * connections are only checked for existence and access, and
+     * channels will be reserved on first use instead.
+     *
+     * @param lazy           the lazy reservation flag
+     *
+     * @throws ProcedureException if the connections couldn't be
+     *             reserved
+     */
+    protected void reserveImpl(boolean lazy) throws ProcedureException {
         Procedure proc = procedure();
         Bindings bindings = proc.getBindings();
+        if (lazy) {
+            top().set(CX_LAZY, true);
+        }
         for (String name : bindings.getNames(Bindings.CONNECTION)) {
             String value = (String) bindings.getValue(name, null);
-            connectionReserve(value);
+            if (!lazy) {
+                connectionReserve(value);
+            } else if (value != null && !value.isBlank()) {
+                connectionFind(value);
+            }
         }
         for (String name : bindings.getNames(Bindings.PROCEDURE)) {
             String id = (String) bindings.getValue(name);
@@ -397,6 +441,8 @@ public class CallContext extends ThreadContext {
                     callBindings.set(name, Bindings.CONNECTION, null, null);
                 } else if (cxns.containsKey(id)) {
                     callBindings.set(name, Bindings.CONNECTION, cxns.get(id), null);
+                } else if (isLazy()) {
+                    callBindings.set(name, Bindings.CONNECTION, id, null);
                 } else {
                     String msg = "referenced connection '" + name + "' not reserved";
                     throw new ProcedureException(msg);
@@ -449,6 +495,32 @@ public class CallContext extends ThreadContext {
         }
     }
 
+    /**
+     * Finds a connection for reservation. The read access to the
+     * connection will be checked, and the connection environment
+     * will be searched before the global connections.
+     *
+     * @param id             the connection identifier
+     *
+     * @return the connection found
+     *
+     * @throws ProcedureException if the connection wasn't found
+     */
+    private Connection connectionFind(String id) throws ProcedureException {
+        requireReadAccess("connection/" + id);
+        Connection con = Optional.ofNullable(environment())
+            .map(env -> env.findConnection(storage(), id))
+            .orElseGet(() -> Connection.find(storage(), id));
+        if (con == null) {
+            String msg = "failed to reserve connection channel: " +
+                         "no connection '" + id + "' found";
+            logError(msg);
+            LOG.warning(msg);
+            throw new ProcedureException(msg);
+        }
+        return con;
+    }
+
     /**
      * Reserves a connection channel. The reserved channel will be
      * stored in this context until all channels are released. Note
@@ -473,18 +545,8 @@ public class CallContext extends ThreadContext {
         }
         HashMap<String,Channel> cxns = connections();
         if (!cxns.containsKey(id)) {
-            requireReadAccess("connection/" + id);
+            Connection con = connectionFind(id);
             logTrace("... Reserving connection channel on '" + id + "'");
-            Connection con = Optional.ofNullable(environment())
-                .map(env -> env.findConnection(storage(), id))
-                .orElseGet(() -> Connection.find(storage(), id));
-            if (con == null) {
-                String msg = "failed to reserve connection channel: " +
-                             "no connection '" + id + "' found";
-                logError(msg);
-                LOG.warning(msg);
-                throw new ProcedureException(msg);
-            }
             try {
                 cxns.put(id, con.reserve());
             } catch (ConnectionException e) {
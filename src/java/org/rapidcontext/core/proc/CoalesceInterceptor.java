@@ -0,0 +1,215 @@
+/*
+ * RapidContext <https://www.rapidcontext.com/>
+ * Copyright (c) 2007-2026 Per Cederberg. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the BSD license.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the RapidContext LICENSE for more details.
+ */
+
+package org.rapidcontext.core.proc;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.rapidcontext.core.data.Dict;
+import org.rapidcontext.core.type.Procedure;
+import org.rapidcontext.core.type.User;
+
+/**
+ * A procedure call coalescing interceptor. Concurrent calls to a
+ * procedure with a 'coalesce' scope in its definition share a single
+ * in-flight execution, if the call arguments and access scope are
+ * identical. The first call executes the procedure, and any
+ * concurrent calls with an equal key wait for (and receive a copy of)
+ * the same result or error.
+ *
+ * The access scope is either the sorted list of user roles ("roles")
+ * or the user identifier ("user"). Procedure and connection access
+ * checks are still performed for each caller when the call context
+ * is created and reserved. Only top-level calls are coalesced, since
+ * nested calls waiting for each other could otherwise deadlock.
+ * Waiting calls give up after the configured timeout, or as soon as
+ * their own call context is interrupted.
+ *
+ * @author Per Cederberg
+ */
+public class CoalesceInterceptor extends CallInterceptor {
+
+    /**
+     * The coalescing scope for calls by the same user only.
+     */
+    public static final String SCOPE_USER = "user";
+
+    /**
+     * The dictionary key for the maximum wait time (in millis).
+     */
+    public static final String KEY_TIMEOUT = "timeout";
+
+    /**
+     * The metrics key suffix for coalesced call metrics.
+     */
+    public static final String METRICS_COALESCED = ":coalesced";
+
+    /**
+     * The default maximum wait time (in millis).
+     */
+    public static final int DEFAULT_TIMEOUT = 300000;
+
+    /**
+     * The wait interval between call context interrupt checks (in
+     * millis).
+     */
+    private static final long WAIT_INTERVAL = 250;
+
+    /**
+     * The in-flight calls, indexed by call key.
+     */
+    private static ConcurrentHashMap<String, CompletableFuture<Object>> inflight =
+        new ConcurrentHashMap<>();
+
+    /**
+     * Returns the access scope key for a user.
+     *
+     * @param user           the user, or null for anonymous
+     * @param scope          the coalescing scope
+     *
+     * @return the access scope key
+     */
+    static String scope(User user, String scope) {
+        if (user == null) {
+            return "";
+        } else if (SCOPE_USER.equals(scope)) {
+            return "user:" + user.id();
+        } else {
+            String[] roles = user.roles().clone();
+            Arrays.sort(roles);
+            return "roles:" + String.join(",", roles);
+        }
+    }
+
+    /**
+     * Creates a new call interceptor from a serialized representation.
+     *
+     * @param id             the object identifier
+     * @param type           the object type name
+     * @param dict           the serialized representation
+     */
+    public CoalesceInterceptor(String id, String type, Dict dict) {
+        super(id, type, dict);
+    }
+
+    /**
+     * Returns the maximum wait time for an in-flight call.
+     *
+     * @return the maximum wait time (in millis)
+     */
+    public int timeout() {
+        return dict.get(KEY_TIMEOUT, Integer.class, DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * Calls a procedure with the specified bindings. If the procedure
+     * has a coalescing scope and an identical call is in progress, the
+     * result of that call is awaited and returned instead.
+     *
+     * @param cx             the procedure context
+     * @param proc           the procedure definition
+     * @param bindings       the procedure call bindings
+     *
+     * @return the result of the call, or
+     *         null if the call produced no result
+     *
+     * @throws ProcedureException if the call execution caused an error
+     */
+    @Override
+    public Object call(CallContext cx, Procedure proc, Bindings bindings)
+        throws ProcedureException {
+
+        String scope = proc.coalesce();
+        if (scope == null || !cx.isTop()) {
+            return super.call(cx, proc, bindings);
+        }
+        String key = CacheInterceptor.key(proc, scope(cx.user(), scope), bindings.getArgs());
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> active = inflight.putIfAbsent(key, future);
+        if (active != null) {
+            return await(cx, proc, active);
+        }
+        try {
+            Object res = super.call(cx, proc, bindings);
+            future.complete(CacheInterceptor.copy(res));
+            return res;
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inflight.remove(key, future);
+        }
+    }
+
+    /**
+     * Waits for the result of an in-flight call.
+     *
+     * @param cx             the procedure context
+     * @param proc           the procedure definition
+     * @param active         the in-flight call result
+     *
+     * @return a copy of the in-flight call result
+     *
+     * @throws ProcedureException if the in-flight call failed, the
+     *             wait timed out or the thread was interrupted
+     */
+    private Object await(CallContext cx, Procedure proc, CompletableFuture<Object> active)
+    throws ProcedureException {
+
+        long start = System.currentTimeMillis();
+        if (cx.isLogging()) {
+            cx.log("coalesced with in-flight call to " + proc.id());
+        }
+        boolean success = false;
+        try {
+            long deadline = start + timeout();
+            while (true) {
+                long wait = Math.min(deadline - System.currentTimeMillis(), WAIT_INTERVAL);
+                if (cx.isInterrupted()) {
+                    throw new ProcedureException(proc, "call interrupted while waiting for coalesced call");
+                } else if (wait <= 0) {
+                    throw new ProcedureException(proc, "timeout waiting for coalesced call");
+                }
+                try {
+                    Object res = CacheInterceptor.copy(active.get(wait, TimeUnit.MILLISECONDS));
+                    success = true;
+                    return res;
+                } catch (TimeoutException ignore) {
+                    // Check interrupt flag and deadline again
+                }
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof ProcedureException pe) {
+                throw new ProcedureException(pe.getMessage());
+            } else {
+                throw new ProcedureException(proc, cause);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ProcedureException(proc, "interrupted while waiting for coalesced call");
+        } finally {
+            if (cx.storage() != null) {
+                long now = System.currentTimeMillis();
+                Procedure.metrics(cx.storage())
+                    .report(proc.id() + METRICS_COALESCED, now, 1, now - start, success, null);
+            }
+        }
+    }
+}
@@ -32,6 +32,13 @@ import org.rapidcontext.core.type.Procedure;
  */
 public class ReserveInterceptor extends Interceptor {
 
+    /**
+     * The dictionary key for the lazy connection reservation flag.
+     * If set, connection channels are reserved on first use instead
+     * of before executing the procedure call.
+     */
+    public static final String KEY_LAZY = "lazy";
+
     /**
      * Returns the top-level reserve interceptor.
      *
@@ -52,9 +59,24 @@ public class ReserveInterceptor extends Interceptor {
         super(id, type, dict);
     }
 
+    /**
+     * Checks if connection channels should be reserved lazily. This
+     * flag is only used by the default (end-of-chain) interceptor.
+     *
+     * @return true if channels are reserved on first use, or
+     *         false if they are reserved before the call
+     */
+    public boolean isLazy() {
+        return dict.get(KEY_LAZY, Boolean.class, false);
+    }
+
     /**
      * Reserves all resources needed for executing a procedure. All
-     * resources needed by sub-procedures will also be reserved.
+     * resources needed by sub-procedures will also be reserved. The
+     * default action uses lazy reservation for top-level calls to
+     * procedures with a result cache or call coalescing, so that
+     * cache hits and coalesced calls never reserve any connection
+     * channels.
      *
      * @param cx             the procedure context
      * @param proc           the procedure definition
@@ -67,7 +89,8 @@ public class ReserveInterceptor extends Interceptor {
         if (next() instanceof ReserveInterceptor i) {
             i.reserve(cx, proc);
         } else {
-            cx.reserveImpl();
+            boolean shared = proc.cache() != null || proc.coalesce() != null;
+            cx.reserveImpl(isLazy() || (cx.isTop() && shared));
         }
     }
 
@@ -0,0 +1,152 @@
+/*
+ * RapidContext <https://www.rapidcontext.com/>
+ * Copyright (c) 2007-2026 Per Cederberg. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the BSD license.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the RapidContext LICENSE for more details.
+ */
+
+package org.rapidcontext.core.security;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.rapidcontext.core.type.Role;
+import org.rapidcontext.core.type.User;
+
+/**
+ * The effective access permissions for a user. Contains the roles
+ * matching the user (including automatic roles), so that access
+ * checks don't have to test role membership. Access decisions that
+ * don't depend on the current context (i.e. no via patterns are
+ * involved) are also memoized. Instances are created by the
+ * security context and are never modified once created (except for
+ * the memoized decisions).
+ *
+ * @author Per Cederberg
+ */
+public final class Permissions {
+
+    /**
+     * The maximum number of memoized access decisions.
+     */
+    private static final int MAX_DECISIONS = 4096;
+
+    /**
+     * The user for these permissions, or null for anonymous.
+     */
+    private final User user;
+
+    /**
+     * The roles matching the user.
+     */
+    private final Role[] roles;
+
+    /**
+     * The via pattern flag. Set if any role has via patterns.
+     */
+    private final boolean hasVia;
+
+    /**
+     * The memoized access decisions, indexed by permission, via and
+     * path.
+     */
+    private final ConcurrentHashMap<String,Boolean> decisions = new ConcurrentHashMap<>();
+
+    /**
+     * Creates the effective permissions for a user.
+     *
+     * @param user           the user, or null for anonymous
+     * @param roles          all the available roles
+     */
+    Permissions(User user, Role[] roles) {
+        this.user = user;
+        this.roles = Arrays.stream(roles).filter(r -> r.hasUser(user)).toArray(Role[]::new);
+        boolean via = false;
+        for (Role r : this.roles) {
+            via |= r.hasVia();
+        }
+        this.hasVia = via;
+    }
+
+    /**
+     * Checks if these permissions were created for a user instance.
+     *
+     * @param other          the user to check, or null
+     *
+     * @return true if the user instance is identical, or
+     *         false otherwise
+     */
+    boolean isFor(User other) {
+        return user == other;
+    }
+
+    /**
+     * Returns the identifiers of the roles matching the user. This
+     * includes any automatic roles.
+     *
+     * @return the array of role identifiers
+     */
+    public String[] roles() {
+        String[] res = new String[roles.length];
+        for (int i = 0; i < roles.length; i++) {
+            res[i] = roles[i].id();
+        }
+        return res;
+    }
+
+    /**
+     * Checks if the user has access permission for a storage path.
+     *
+     * @param path           the normalized object storage path (no
+     *                       leading '/' character)
+     * @param via            the caller path, or null to use context
+     * @param permission     the normalized (lower-case) permission
+     *
+     * @return true if the user has access, or
+     *         false otherwise
+     *
+     * @see Role#hasAccess(String, String, String)
+     */
+    public boolean hasAccess(String path, String via, String permission) {
+        if (hasVia && via == null) {
+            return check(path, null, permission);
+        }
+        String key = permission + ":" + ((via == null) ? "" : via) + ":" + path;
+        Boolean res = decisions.get(key);
+        if (res == null) {
+            res = check(path, via, permission);
+            if (decisions.size() >= MAX_DECISIONS) {
+                decisions.clear();
+            }
+            decisions.put(key, res);
+        }
+        return res;
+    }
+
+    /**
+     * Checks if any of the roles has access permission for a storage
+     * path.
+     *
+     * @param path           the normalized object storage path
+     * @param via            the caller path, or null to use context
+     * @param permission     the normalized (lower-case) permission
+     *
+     * @return true if the user has access, or
+     *         false otherwise
+     */
+    private boolean check(String path, String via, String permission) {
+        for (Role role : roles) {
+            if (role.hasAccess(path, via, permission)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -14,20 +14,22 @@
 
 package org.rapidcontext.core.security;
 
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Logger;
 
 import org.apache.commons.lang3.Strings;
 import org.apache.commons.lang3.time.DateUtils;
+import org.rapidcontext.core.storage.RootStorage;
 import org.rapidcontext.core.storage.Storage;
 import org.rapidcontext.core.storage.StorageException;
 import org.rapidcontext.core.type.Role;
 import org.rapidcontext.core.type.User;
 
 /**
- * The application security context. Manages the role cache for
- * access control checks and provides nonce generation for
- * authentication challenges. Must be initialized via init() before
- * use.
+ * The application security context. Manages the role cache and
+ * the effective user permissions for access control checks, and
+ * provides nonce generation for authentication challenges. Must be
+ * initialized via init() before use.
  *
  * @author Per Cederberg
  */
@@ -39,13 +41,41 @@ public final class SecurityContext {
     private static final Logger LOG =
         Logger.getLogger(SecurityContext.class.getName());
 
+    /**
+     * The data storage used, or null if not initialized.
+     */
+    private static Storage storage = null;
+
     /**
      * The cache of all user roles available. This array will be reset
-     * on each call to init(), i.e. only when the system is reset.
+     * on each call to init() and whenever a role is modified in the
+     * storage.
      *
      * @see #init(Storage)
      */
-    private static Role[] roleCache = null;
+    private static volatile Role[] roleCache = new Role[0];
+
+    /**
+     * The effective permissions cache, indexed by user id. Cleared
+     * whenever a role or user is modified in the storage.
+     */
+    private static final ConcurrentHashMap<String,Permissions> userCache =
+        new ConcurrentHashMap<>();
+
+    /**
+     * The effective permissions for anonymous users.
+     */
+    private static volatile Permissions anonymous = new Permissions(null, roleCache);
+
+    /**
+     * The role storage modification counter at last refresh.
+     */
+    private static volatile long roleModCount = -1L;
+
+    /**
+     * The user storage modification counter at last refresh.
+     */
+    private static volatile long userModCount = -1L;
 
     /**
      * Initializes the security context. It can be called multiple
@@ -68,7 +98,73 @@ public final class SecurityContext {
             user.setRoles(new String[] { "admin" });
             User.store(storage, user);
         }
+        synchronized (SecurityContext.class) {
+            SecurityContext.storage = storage;
+            reload(storage);
+        }
+    }
+
+    /**
+     * Reloads the role cache and clears all effective permissions.
+     * Must be called while holding the class lock.
+     *
+     * @param storage        the data storage to use
+     */
+    private static void reload(Storage storage) {
+        if (storage instanceof RootStorage rs) {
+            roleModCount = rs.modCount(Role.PATH);
+            userModCount = rs.modCount(User.PATH);
+        }
         roleCache = Role.all(storage).toArray(Role[]::new);
+        anonymous = new Permissions(null, roleCache);
+        userCache.clear();
+    }
+
+    /**
+     * Checks for role or user modifications in the storage. Modified
+     * roles are reloaded and any effective permissions are cleared.
+     */
+    private static void refresh() {
+        if (storage instanceof RootStorage rs) {
+            long roleCount = rs.modCount(Role.PATH);
+            long userCount = rs.modCount(User.PATH);
+            if (roleCount != roleModCount || userCount != userModCount) {
+                synchronized (SecurityContext.class) {
+                    if (rs.modCount(Role.PATH) != roleModCount) {
+                        LOG.fine("reloading modified roles");
+                        reload(rs);
+                    } else if (rs.modCount(User.PATH) != userModCount) {
+                        userModCount = rs.modCount(User.PATH);
+                        userCache.clear();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the effective permissions for a user. The permissions
+     * are created on first use and cached until the user or any role
+     * is modified.
+     *
+     * @param user           the user to check, or null for anonymous
+     *
+     * @return the effective user permissions
+     */
+    public static Permissions permissions(User user) {
+        refresh();
+        if (user == null) {
+            return anonymous;
+        }
+        Permissions perms = userCache.get(user.id());
+        if (perms == null || !perms.isFor(user)) {
+            Role[] roles = roleCache;
+            perms = new Permissions(user, roles);
+            if (roles == roleCache) {
+                userCache.put(user.id(), perms);
+            }
+        }
+        return perms;
     }
 
     /**
@@ -88,12 +184,7 @@ public final class SecurityContext {
     public static boolean hasAccess(User user, String path, String via, String permission) {
         path = Strings.CS.removeStart(path, "/");
         permission = permission.toLowerCase().trim();
-        for (Role role : roleCache) {
-            if (role.hasUser(user) && role.hasAccess(path, via, permission)) {
-                return true;
-            }
-        }
-        return false;
+        return permissions(user).hasAccess(path, via, permission);
     }
 
     /**
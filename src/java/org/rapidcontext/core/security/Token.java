@@ -16,7 +16,10 @@ package org.rapidcontext.core.security;
 
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.rapidcontext.core.data.Dict;
 import org.rapidcontext.core.data.JsonSerializer;
@@ -24,11 +27,35 @@ import org.rapidcontext.util.BinaryUtil;
 
 /**
  * A set of utility methods for handling authenticated tokens.
+ * Successfully validated JWT tokens are kept in a bounded cache,
+ * indexed by the token digest. Cached tokens are only accepted for
+ * the same secret (compared in constant time) and until they expire.
  *
  * @author Per Cederberg
  */
 public final class Token {
 
+    /**
+     * The maximum number of verified tokens in the cache.
+     */
+    private static final int CACHE_MAX_SIZE = 4096;
+
+    /**
+     * The verified token cache, indexed by token digest.
+     */
+    private static final ConcurrentHashMap<String,Verified> CACHE =
+        new ConcurrentHashMap<>();
+
+    /**
+     * The number of token validations served from the cache.
+     */
+    private static final LongAdder HITS = new LongAdder();
+
+    /**
+     * The number of token validations not served from the cache.
+     */
+    private static final LongAdder MISSES = new LongAdder();
+
     /**
      * Creates a JWT (JSON Web Token) with the specified payload.
      *
@@ -68,6 +95,10 @@ public final class Token {
      * @return the token payload, or an empty dictionary on error
      */
     public static Dict decodeJwt(String token) {
+        Verified verified = (token == null) ? null : CACHE.get(digest(token));
+        if (verified != null) {
+            return verified.payload().copy();
+        }
         try {
             String[] parts = Objects.requireNonNullElse(token, "").split("\\.");
             byte[] data = BinaryUtil.decodeBase64((parts.length == 3) ? parts[1] : "");
@@ -92,6 +123,41 @@ public final class Token {
      * @throws SecurityException if the token is invalid or expired
      */
     public static Dict validateJwt(String secret, String token) {
+        Objects.requireNonNull(secret);
+        String key = digest(Objects.requireNonNullElse(token, ""));
+        byte[] secretHash = digestBytes(secret);
+        Verified verified = CACHE.get(key);
+        if (verified != null && verified.expiry() >= System.currentTimeMillis() &&
+            MessageDigest.isEqual(verified.secret(), secretHash)) {
+            HITS.increment();
+            return verified.payload().copy();
+        }
+        MISSES.increment();
+        Dict payload = validateJwtUncached(secret, token);
+        if (CACHE.size() >= CACHE_MAX_SIZE) {
+            long now = System.currentTimeMillis();
+            CACHE.values().removeIf(v -> v.expiry() < now);
+            if (CACHE.size() >= CACHE_MAX_SIZE) {
+                CACHE.clear();
+            }
+        }
+        long exp = payload.get("exp", Long.class, 0L) * 1000L;
+        CACHE.put(key, new Verified(secretHash, payload.copy(), exp));
+        return payload;
+    }
+
+    /**
+     * Validates a JWT (JSON Web Token) and returns the payload. This
+     * method always verifies the signature.
+     *
+     * @param secret         the secret key to verify with
+     * @param token          the JWT string
+     *
+     * @return the payload dictionary
+     *
+     * @throws SecurityException if the token is invalid or expired
+     */
+    private static Dict validateJwtUncached(String secret, String token) {
         String[] parts = Objects.requireNonNullElse(token, "").split("\\.");
         if (parts.length != 3) {
             throw new SecurityException("invalid JWT format");
@@ -116,6 +182,61 @@ public final class Token {
         return payload;
     }
 
+    /**
+     * Removes all cached tokens verified with the specified secret.
+     * This should be called whenever a secret is changed or revoked.
+     *
+     * @param secret         the secret key to invalidate
+     */
+    public static void invalidate(String secret) {
+        if (secret != null && !secret.isBlank()) {
+            byte[] secretHash = digestBytes(secret);
+            CACHE.values().removeIf(v -> MessageDigest.isEqual(v.secret(), secretHash));
+        }
+    }
+
+    /**
+     * Returns the verified token cache statistics.
+     *
+     * @return the dictionary with cache size, hits, misses and
+     *         hit ratio
+     */
+    public static Dict cacheStats() {
+        long hits = HITS.sum();
+        long misses = MISSES.sum();
+        return new Dict()
+            .set("size", CACHE.size())
+            .set("hits", hits)
+            .set("misses", misses)
+            .set("ratio", (hits + misses > 0) ? (double) hits / (hits + misses) : 0.0);
+    }
+
+    /**
+     * Returns the hex-encoded SHA-256 digest of a string.
+     *
+     * @param str            the string to digest
+     *
+     * @return the hex-encoded digest
+     */
+    private static String digest(String str) {
+        return BinaryUtil.encodeHexString(digestBytes(str));
+    }
+
+    /**
+     * Returns the SHA-256 digest of a string.
+     *
+     * @param str            the string to digest
+     *
+     * @return the digest bytes
+     */
+    private static byte[] digestBytes(String str) {
+        try {
+            return BinaryUtil.hashBytes(BinaryUtil.Hash.SHA2, str.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new SecurityException("failed to digest token: " + e.getMessage());
+        }
+    }
+
     /**
      * Compares two strings for equality in a constant time.
      *
@@ -133,4 +254,14 @@ public final class Token {
 
     // No instances
     private Token() {}
+
+
+    /**
+     * A verified token cache entry.
+     *
+     * @param secret         the secret key digest
+     * @param payload        the token payload
+     * @param expiry         the token expiry timestamp (in millis)
+     */
+    private record Verified(byte[] secret, Dict payload, long expiry) {}
 }
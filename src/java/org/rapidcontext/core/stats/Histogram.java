@@ -0,0 +1,286 @@
+/*
+ * RapidContext <https://www.rapidcontext.com/>
+ * Copyright (c) 2007-2026 Per Cederberg. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the BSD license.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the RapidContext LICENSE for more details.
+ */
+
+package org.rapidcontext.core.stats;
+
+import java.util.Arrays;
+
+import org.rapidcontext.core.data.Array;
+
+/**
+ * A fixed-size log-bucketed histogram of non-negative values. Small
+ * values (below 8) are counted exactly, while larger values are
+ * counted in 8 linear sub-buckets per power of two. This gives a
+ * maximum relative error of 12.5% for any value, using a fixed
+ * number of buckets. Values larger than MAX_VALUE are counted in the
+ * last bucket.
+ *
+ * Adding values never allocates memory, and histograms with the same
+ * layout can be merged by adding the bucket counts. Bucket counts
+ * saturate at Integer.MAX_VALUE.
+ *
+ * @author Per Cederberg
+ */
+public class Histogram {
+
+    /**
+     * The number of bits used for sub-buckets.
+     */
+    private static final int SUB_BITS = 3;
+
+    /**
+     * The number of sub-buckets for each power of two.
+     */
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+
+    /**
+     * The number of bits in the largest value tracked.
+     */
+    private static final int MAX_BITS = 32;
+
+    /**
+     * The largest value tracked (about 49 days in millis).
+     */
+    public static final long MAX_VALUE = (1L << MAX_BITS) - 1;
+
+    /**
+     * The total number of buckets.
+     */
+    public static final int BUCKETS = index(MAX_VALUE) + 1;
+
+    /**
+     * Returns the bucket index for a value.
+     *
+     * @param value          the value to check
+     *
+     * @return the bucket index
+     */
+    static int index(long value) {
+        long v = Math.clamp(value, 0L, MAX_VALUE);
+        if (v < SUB_COUNT) {
+            return (int) v;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(v) - SUB_BITS;
+        return (shift << SUB_BITS) + (int) (v >>> shift);
+    }
+
+    /**
+     * Returns the highest value counted in a bucket.
+     *
+     * @param index          the bucket index
+     *
+     * @return the highest value in the bucket
+     */
+    static long highest(int index) {
+        if (index < SUB_COUNT) {
+            return index;
+        }
+        int shift = (index >>> SUB_BITS) - 1;
+        long sub = (index & (SUB_COUNT - 1)) + SUB_COUNT;
+        return ((sub + 1) << shift) - 1;
+    }
+
+    /**
+     * The bucket counts.
+     */
+    private final int[] counts = new int[BUCKETS];
+
+    /**
+     * Initializes a new empty histogram.
+     */
+    public Histogram() {
+        // Nothing to do here
+    }
+
+    /**
+     * Initializes a histogram from a serialized array.
+     *
+     * @param arr            the serialized array of bucket index and
+     *                       count pairs
+     */
+    public Histogram(Array arr) {
+        for (int i = 0; i + 1 < arr.size(); i += 2) {
+            int idx = arr.get(i, Integer.class, -1);
+            if (idx >= 0 && idx < BUCKETS) {
+                counts[idx] = arr.get(i + 1, Integer.class, 0);
+            }
+        }
+    }
+
+    /**
+     * Returns a compact array with the non-empty buckets. Each bucket
+     * is represented by an index and count pair.
+     *
+     * @return the serialized array of integer values
+     */
+    public Array serialize() {
+        Array arr = new Array();
+        for (int i = 0; i < BUCKETS; i++) {
+            if (counts[i] > 0) {
+                arr.add(i);
+                arr.add(counts[i]);
+            }
+        }
+        return arr;
+    }
+
+    /**
+     * Checks if this histogram is empty.
+     *
+     * @return true if no values have been counted, or
+     *         false otherwise
+     */
+    public boolean isEmpty() {
+        for (int c : counts) {
+            if (c > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the total number of values counted.
+     *
+     * @return the total number of values
+     */
+    public long count() {
+        long total = 0;
+        for (int c : counts) {
+            total += c;
+        }
+        return total;
+    }
+
+    /**
+     * Returns the count for a bucket.
+     *
+     * @param index          the bucket index
+     *
+     * @return the bucket count
+     */
+    int count(int index) {
+        return counts[index];
+    }
+
+    /**
+     * Adds a value to the histogram.
+     *
+     * @param value          the value to add
+     */
+    public void add(long value) {
+        int idx = index(value);
+        if (counts[idx] < Integer.MAX_VALUE) {
+            counts[idx]++;
+        }
+    }
+
+    /**
+     * Adds all the bucket counts from another histogram.
+     *
+     * @param other          the histogram to merge
+     */
+    public void merge(Histogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = (int) Math.min(Integer.MAX_VALUE, (long) counts[i] + other.counts[i]);
+        }
+    }
+
+    /**
+     * Removes all counted values.
+     */
+    public void clear() {
+        Arrays.fill(counts, 0);
+    }
+
+    /**
+     * Returns the approximate value at a specified percentile. The
+     * returned value is the highest value in the matching bucket.
+     *
+     * @param percentile     the percentile (0.0 - 1.0)
+     *
+     * @return the approximate value at the percentile, or
+     *         zero (0) if the histogram is empty
+     */
+    public long valueAt(double percentile) {
+        return valueAt(this, 1.0, null, 0.0, percentile);
+    }
+
+    /**
+     * Returns the approximate value at a specified percentile for
+     * the weighted combination of two histograms. No memory is
+     * allocated for the combined histogram.
+     *
+     * @param first          the first histogram
+     * @param firstWeight    the first histogram weight
+     * @param second         the second histogram, or null for none
+     * @param secondWeight   the second histogram weight
+     * @param percentile     the percentile (0.0 - 1.0)
+     *
+     * @return the approximate value at the percentile, or
+     *         zero (0) if the histograms are empty
+     */
+    static long valueAt(Histogram first,
+                        double firstWeight,
+                        Histogram second,
+                        double secondWeight,
+                        double percentile) {
+
+        double total = 0.0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += weight(first, firstWeight, second, secondWeight, i);
+        }
+        if (total <= 0.0) {
+            return 0L;
+        }
+        double target = Math.clamp(percentile, 0.0, 1.0) * total;
+        double sum = 0.0;
+        int last = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            double w = weight(first, firstWeight, second, secondWeight, i);
+            if (w > 0.0) {
+                sum += w;
+                last = i;
+                if (sum >= target) {
+                    return highest(i);
+                }
+            }
+        }
+        return highest(last);
+    }
+
+    /**
+     * Returns the combined weighted count for a bucket.
+     *
+     * @param first          the first histogram
+     * @param firstWeight    the first histogram weight
+     * @param second         the second histogram, or null for none
+     * @param secondWeight   the second histogram weight
+     * @param index          the bucket index
+     *
+     * @return the weighted bucket count
+     */
+    private static double weight(Histogram first,
+                                 double firstWeight,
+                                 Histogram second,
+                                 double secondWeight,
+                                 int index) {
+
+        double w = first.counts[index] * firstWeight;
+        if (second != null) {
+            w += second.counts[index] * secondWeight;
+        }
+        return w;
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * RapidContext <https://www.rapidcontext.com/>
+ * Copyright (c) 2007-2026 Per Cederberg. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the BSD license.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the RapidContext LICENSE for more details.
+ */
+
+package org.rapidcontext.core.stats;
+
+import org.rapidcontext.core.data.Array;
+import org.rapidcontext.core.data.Dict;
+import org.rapidcontext.core.stats.MovingSum.Interval;
+
+/**
+ * A set of approximate moving histograms for the predefined time
+ * intervals in MovingSum. For each interval, both the current
+ * (running) and previous histograms are stored. Percentiles for the
+ * whole interval are approximated by weighting the previous
+ * histogram depending on current time, just as for the moving sums.
+ *
+ * @author Per Cederberg
+ */
+public class MovingHistogram {
+
+    // The timestamp for the last update
+    private long time;
+
+    // The current histograms for each interval
+    private Histogram h0, h1, d0, d1, m0, m1;
+
+    /**
+     * Initializes a new set of moving histograms.
+     *
+     * @param now            the current time (in millis)
+     */
+    public MovingHistogram(long now) {
+        time = now;
+        h0 = new Histogram();
+        h1 = new Histogram();
+        d0 = new Histogram();
+        d1 = new Histogram();
+        m0 = new Histogram();
+        m1 = new Histogram();
+    }
+
+    /**
+     * Initializes a new set of moving histograms from a serialized
+     * array.
+     *
+     * @param now            the serialization time (in millis)
+     * @param arr            the serialized array of histogram arrays
+     */
+    public MovingHistogram(long now, Array arr) {
+        time = now;
+        h0 = histogram(arr, 0);
+        h1 = histogram(arr, 1);
+        d0 = histogram(arr, 2);
+        d1 = histogram(arr, 3);
+        m0 = histogram(arr, 4);
+        m1 = histogram(arr, 5);
+    }
+
+    /**
+     * Returns a histogram from a serialized array.
+     *
+     * @param arr            the serialized array of histogram arrays
+     * @param index          the histogram index
+     *
+     * @return the histogram found, or a new empty histogram
+     */
+    private static Histogram histogram(Array arr, int index) {
+        Array data = arr.getArray(index);
+        return (data == null) ? new Histogram() : new Histogram(data);
+    }
+
+    /**
+     * Returns an array with the histograms for each of the intervals
+     * (hour to month). Two histograms are provided for each interval.
+     *
+     * @return the serialized array of histogram arrays
+     */
+    public Array serialize() {
+        return Array.of(
+            h0.serialize(),
+            h1.serialize(),
+            d0.serialize(),
+            d1.serialize(),
+            m0.serialize(),
+            m1.serialize()
+        );
+    }
+
+    /**
+     * Returns the timestamp (in millis) for the most recent move.
+     *
+     * @return the current interval timestamp (in millis)
+     */
+    public long time() {
+        return time;
+    }
+
+    /**
+     * Returns a dictionary with the approximate percentile values
+     * for each of the intervals.
+     *
+     * @param percentile     the percentile (0.0 - 1.0)
+     *
+     * @return a dictionary with percentile values for each interval
+     */
+    public Dict values(double percentile) {
+        return new Dict()
+            .set("hour", valueFor(Interval.HOUR, percentile))
+            .set("day", valueFor(Interval.DAY, percentile))
+            .set("month", valueFor(Interval.MONTH, percentile));
+    }
+
+    /**
+     * Returns the approximate percentile value for the specified
+     * interval. The current time is used to determine the weight
+     * of the previous histogram.
+     *
+     * @param interval       the interval to fetch
+     * @param percentile     the percentile (0.0 - 1.0)
+     *
+     * @return the approximate percentile value, or
+     *         zero (0) if no values are available
+     */
+    public long valueFor(Interval interval, double percentile) {
+        double ratio = 1 - (time % interval.millis) / (double) interval.millis;
+        return switch (interval) {
+            case HOUR -> Histogram.valueAt(h0, 1.0, h1, ratio, percentile);
+            case DAY -> Histogram.valueAt(d0, 1.0, d1, ratio, percentile);
+            case MONTH -> Histogram.valueAt(m0, 1.0, m1, ratio, percentile);
+            default -> 0L;
+        };
+    }
+
+    /**
+     * Checks if all the histograms are empty.
+     *
+     * @return true if no values are counted, or
+     *         false otherwise
+     */
+    public boolean isEmpty() {
+        return m0.isEmpty() && m1.isEmpty();
+    }
+
+    /**
+     * Adds a value to the moving histograms (for all intervals).
+     *
+     * @param value          the value to add
+     */
+    public void add(long value) {
+        h0.add(value);
+        d0.add(value);
+        m0.add(value);
+    }
+
+    /**
+     * Moves the current time forward. If needed, one or more of the
+     * histograms will be rolled over. No new histograms are created,
+     * as the previous histogram is reused for the new current one.
+     *
+     * @param now            the current time (in millis)
+     */
+    public void moveTo(long now) {
+        long prev = time;
+        time = Math.max(time, now);
+        long diff = time / Interval.HOUR.millis - prev / Interval.HOUR.millis;
+        if (diff > 0) {
+            Histogram tmp = h1;
+            h1 = h0;
+            h0 = tmp;
+            h0.clear();
+            if (diff > 1) {
+                h1.clear();
+            }
+            diff = time / Interval.DAY.millis - prev / Interval.DAY.millis;
+            if (diff > 0) {
+                tmp = d1;
+                d1 = d0;
+                d0 = tmp;
+                d0.clear();
+                if (diff > 1) {
+                    d1.clear();
+                }
+                diff = time / Interval.MONTH.millis - prev / Interval.MONTH.millis;
+                if (diff > 0) {
+                    tmp = m1;
+                    m1 = m0;
+                    m0 = tmp;
+                    m0.clear();
+                    if (diff > 1) {
+                        m1.clear();
+                    }
+                }
+            }
+        }
+    }
+}
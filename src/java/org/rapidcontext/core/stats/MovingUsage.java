@@ -18,13 +18,18 @@ import org.apache.commons.lang3.StringUtils;
 import org.rapidcontext.core.data.Dict;
 
 /**
- * A combined usage metric with moving counters, average durations
- * and recent errors.
+ * A combined usage metric with moving counters, average durations,
+ * duration percentiles and recent errors.
  *
  * @author Per Cederberg
  */
 public class MovingUsage {
 
+    /**
+     * The duration percentiles reported.
+     */
+    private static final double[] PERCENTILES = { 0.50, 0.95, 0.99 };
+
     /**
      * The usage counters.
      */
@@ -35,6 +40,11 @@ public class MovingUsage {
      */
     private MovingAverage durations = null;
 
+    /**
+     * The duration histograms (in millis).
+     */
+    private MovingHistogram latencies = null;
+
     /**
      * The error counters.
      */
@@ -65,6 +75,9 @@ public class MovingUsage {
         if (dict.containsKey("d")) {
             durations = new MovingAverage(dict.getArray("d"));
         }
+        if (dict.containsKey("h")) {
+            latencies = new MovingHistogram(now, dict.getArray("h"));
+        }
         if (dict.containsKey("e")) {
             errors = new MovingSum(now, dict.getArray("e"));
         }
@@ -84,6 +97,9 @@ public class MovingUsage {
         if (durations != null) {
             dict.set("d", durations.serialize());
         }
+        if (latencies != null) {
+            dict.set("h", latencies.serialize());
+        }
         if (errors != null) {
             dict.set("e", errors.serialize());
         }
@@ -102,6 +118,45 @@ public class MovingUsage {
         return counts.time();
     }
 
+    /**
+     * Returns the usage counters.
+     *
+     * @return the usage counters
+     */
+    public MovingSum counts() {
+        return counts;
+    }
+
+    /**
+     * Returns the average durations (in millis).
+     *
+     * @return the average durations, or
+     *         null if no durations have been reported
+     */
+    public MovingAverage durations() {
+        return durations;
+    }
+
+    /**
+     * Returns the duration histograms (in millis).
+     *
+     * @return the duration histograms, or
+     *         null if no durations have been reported recently
+     */
+    public MovingHistogram latencies() {
+        return latencies;
+    }
+
+    /**
+     * Returns the error counters.
+     *
+     * @return the error counters, or
+     *         null if no errors have been reported recently
+     */
+    public MovingSum errors() {
+        return errors;
+    }
+
     /**
      * Returns a dictionary with the current counters and other
      * metrics.
@@ -114,6 +169,11 @@ public class MovingUsage {
         if (durations != null) {
             dict.set("avg", durations.values());
         }
+        if (latencies != null) {
+            for (double p : PERCENTILES) {
+                dict.set("p" + Math.round(p * 100), latencies.values(p));
+            }
+        }
         if (errors != null) {
             dict.set("error", errors.values());
             if (errorMsg != null) {
@@ -139,6 +199,10 @@ public class MovingUsage {
             } else {
                 durations.add(duration);
             }
+            if (latencies == null) {
+                latencies = new MovingHistogram(counts.time());
+            }
+            latencies.add(duration);
         }
         if (!success) {
             if (errors == null) {
@@ -159,6 +223,12 @@ public class MovingUsage {
      */
     public void move(long now) {
         counts.moveTo(now);
+        if (latencies != null) {
+            latencies.moveTo(now);
+            if (latencies.isEmpty()) {
+                latencies = null;
+            }
+        }
         if (errors != null) {
             errors.moveTo(now);
             if (errors.valueFor(MovingSum.Interval.MONTH) <= 0.0) {
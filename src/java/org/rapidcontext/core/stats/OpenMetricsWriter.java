@@ -0,0 +1,257 @@
+/*
+ * RapidContext <https://www.rapidcontext.com/>
+ * Copyright (c) 2007-2026 Per Cederberg. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the BSD license.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the RapidContext LICENSE for more details.
+ */
+
+package org.rapidcontext.core.stats;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map.Entry;
+
+import org.apache.commons.lang3.Strings;
+import org.rapidcontext.core.stats.MovingAverage.Window;
+import org.rapidcontext.core.stats.MovingSum.Interval;
+
+/**
+ * A metrics text writer for the OpenMetrics or Prometheus text
+ * exposition formats. Metric families and samples are appended
+ * directly to a string buffer, so no intermediate data structures
+ * are created. Durations are converted from millis to seconds.
+ *
+ * @author Per Cederberg
+ */
+public class OpenMetricsWriter {
+
+    /**
+     * The OpenMetrics text format MIME type.
+     */
+    public static final String MIME_OPENMETRICS =
+        "application/openmetrics-text; version=1.0.0; charset=utf-8";
+
+    /**
+     * The Prometheus text format MIME type.
+     */
+    public static final String MIME_PROMETHEUS =
+        "text/plain; version=0.0.4; charset=utf-8";
+
+    /**
+     * The metric type for counters (monotonic values).
+     */
+    public static final String COUNTER = "counter";
+
+    /**
+     * The metric type for gauges.
+     */
+    public static final String GAUGE = "gauge";
+
+    /**
+     * The duration percentiles written for usage metrics.
+     */
+    private static final double[] PERCENTILES = { 0.50, 0.95, 0.99 };
+
+    /**
+     * The output buffer.
+     */
+    private final StringBuilder buffer;
+
+    /**
+     * The OpenMetrics format flag. Otherwise Prometheus text format.
+     */
+    private final boolean isOpenMetrics;
+
+    /**
+     * Creates a new metrics writer.
+     *
+     * @param buffer         the output buffer
+     * @param isOpenMetrics  the OpenMetrics format flag (otherwise
+     *                       the Prometheus text format is used)
+     */
+    public OpenMetricsWriter(StringBuilder buffer, boolean isOpenMetrics) {
+        this.buffer = buffer;
+        this.isOpenMetrics = isOpenMetrics;
+    }
+
+    /**
+     * Returns the MIME type for the output format.
+     *
+     * @return the MIME type for the output format
+     */
+    public String mimeType() {
+        return isOpenMetrics ? MIME_OPENMETRICS : MIME_PROMETHEUS;
+    }
+
+    /**
+     * Writes a metric family header. All samples for a family must
+     * follow directly after the header. Counter family names should
+     * not include the "_total" suffix (added to samples and to the
+     * Prometheus family name automatically).
+     *
+     * @param name           the metric family name
+     * @param type           the metric type
+     * @param help           the metric help text
+     *
+     * @return this writer
+     */
+    public OpenMetricsWriter family(String name, String type, String help) {
+        boolean isTotal = COUNTER.equals(type) && !isOpenMetrics;
+        String full = isTotal ? name + "_total" : name;
+        buffer.append("# TYPE ").append(full).append(' ').append(type).append('\n');
+        buffer.append("# HELP ").append(full).append(' ');
+        escape(help, false);
+        buffer.append('\n');
+        return this;
+    }
+
+    /**
+     * Writes a metric sample.
+     *
+     * @param name           the metric sample name
+     * @param value          the sample value
+     * @param labels         the label name and value pairs
+     *
+     * @return this writer
+     */
+    public OpenMetricsWriter sample(String name, double value, String... labels) {
+        buffer.append(name);
+        if (labels.length > 0) {
+            buffer.append('{');
+            for (int i = 0; i + 1 < labels.length; i += 2) {
+                if (i > 0) {
+                    buffer.append(',');
+                }
+                buffer.append(labels[i]).append("=\"");
+                escape(labels[i + 1], true);
+                buffer.append('"');
+            }
+            buffer.append('}');
+        }
+        buffer.append(' ');
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            buffer.append((long) value);
+        } else {
+            buffer.append(value);
+        }
+        buffer.append('\n');
+        return this;
+    }
+
+    /**
+     * Writes the usage metric families for a set of keys. Four
+     * families are written, with usage counts, error counts, average
+     * durations and duration percentiles. An optional key suffix is
+     * removed from each key before using it as a label value.
+     *
+     * @param prefix         the metric family name prefix
+     * @param label          the label name for the key
+     * @param suffix         the key suffix to remove, or null
+     * @param entries        the usage metrics entries
+     *
+     * @return this writer
+     */
+    public OpenMetricsWriter usage(String prefix,
+                                   String label,
+                                   String suffix,
+                                   List<Entry<String, MovingUsage>> entries) {
+
+        if (entries.isEmpty()) {
+            return this;
+        }
+        family(prefix + "_usage", GAUGE, "Approximate usage count per interval.");
+        for (Entry<String, MovingUsage> e : entries) {
+            String id = Strings.CS.removeEnd(e.getKey(), suffix);
+            sums(prefix + "_usage", label, id, e.getValue().counts());
+        }
+        family(prefix + "_errors", GAUGE, "Approximate error count per interval.");
+        for (Entry<String, MovingUsage> e : entries) {
+            String id = Strings.CS.removeEnd(e.getKey(), suffix);
+            MovingSum errors = e.getValue().errors();
+            if (errors != null) {
+                sums(prefix + "_errors", label, id, errors);
+            }
+        }
+        String name = prefix + "_duration_avg_seconds";
+        family(name, GAUGE, "Moving average duration (in seconds).");
+        for (Entry<String, MovingUsage> e : entries) {
+            String id = Strings.CS.removeEnd(e.getKey(), suffix);
+            MovingAverage avg = e.getValue().durations();
+            if (avg != null) {
+                for (Window w : Window.values()) {
+                    String window = w.name().toLowerCase(Locale.ROOT);
+                    sample(name, avg.valueFor(w) / 1000.0, label, id, "window", window);
+                }
+            }
+        }
+        name = prefix + "_duration_seconds";
+        family(name, GAUGE, "Approximate duration percentile per interval (in seconds).");
+        for (Entry<String, MovingUsage> e : entries) {
+            String id = Strings.CS.removeEnd(e.getKey(), suffix);
+            MovingHistogram hist = e.getValue().latencies();
+            if (hist != null) {
+                for (Interval i : Interval.values()) {
+                    String window = i.name().toLowerCase(Locale.ROOT);
+                    for (double p : PERCENTILES) {
+                        double value = hist.valueFor(i, p) / 1000.0;
+                        sample(name, value, label, id, "window", window, "quantile", String.valueOf(p));
+                    }
+                }
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Writes the samples for a set of moving sums, one for each
+     * interval.
+     *
+     * @param name           the metric sample name
+     * @param label          the label name for the key
+     * @param id             the label value for the key
+     * @param sums           the moving sums
+     */
+    private void sums(String name, String label, String id, MovingSum sums) {
+        for (Interval i : Interval.values()) {
+            String window = i.name().toLowerCase(Locale.ROOT);
+            sample(name, Math.round(sums.valueFor(i)), label, id, "window", window);
+        }
+    }
+
+    /**
+     * Writes the end of the output (if required by the format).
+     */
+    public void end() {
+        if (isOpenMetrics) {
+            buffer.append("# EOF\n");
+        }
+    }
+
+    /**
+     * Appends an escaped text to the buffer.
+     *
+     * @param text           the text to append
+     * @param isLabel        the label value flag (also escapes quotes)
+     */
+    private void escape(String text, boolean isLabel) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\\') {
+                buffer.append("\\\\");
+            } else if (c == '\n') {
+                buffer.append("\\n");
+            } else if (c == '"' && isLabel) {
+                buffer.append("\\\"");
+            } else {
+                buffer.append(c);
+            }
+        }
+    }
+}
@@ -0,0 +1,481 @@
+/*
+ * RapidContext <https://www.rapidcontext.com/>
+ * Copyright (c) 2007-2026 Per Cederberg. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the BSD license.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the RapidContext LICENSE for more details.
+ */
+
+package org.rapidcontext.core.stats;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+import org.rapidcontext.core.data.Array;
+import org.rapidcontext.core.data.Dict;
+import org.rapidcontext.util.FileUtil;
+
+/**
+ * An append-only journal for usage metrics. Each batch of modified
+ * entries is appended to the current segment file as a compact binary
+ * record with a checksum. New segments are started when the current
+ * segment grows too large, and the journal is compacted by writing
+ * a full snapshot batch to a new segment and removing older ones.
+ * On load, all segments are replayed in order, so the most recent
+ * entry for each key wins. Any truncated or corrupt record at the end
+ * of a segment (e.g. from a crash) is skipped.
+ *
+ * @author Per Cederberg
+ */
+public class UsageJournal {
+
+    /**
+     * The class logger.
+     */
+    private static final Logger LOG = Logger.getLogger(UsageJournal.class.getName());
+
+    /**
+     * The record header magic number ("RMJ1").
+     */
+    private static final int MAGIC = 0x524d4a31;
+
+    /**
+     * The maximum segment size (in bytes) before a new segment is
+     * started.
+     */
+    public static final long SEGMENT_SIZE = 4L * 1024L * 1024L;
+
+    /**
+     * The maximum number of segments before compaction is needed.
+     */
+    public static final int MAX_SEGMENTS = 4;
+
+    /**
+     * The segment file name prefix.
+     */
+    private static final String SEGMENT_PREFIX = "segment-";
+
+    /**
+     * The segment file name suffix.
+     */
+    private static final String SEGMENT_SUFFIX = ".bin";
+
+    /**
+     * The value type tags for the binary encoding.
+     */
+    private static final byte NULL = 0, LONG = 1, DOUBLE = 2, STRING = 3,
+                              ARRAY = 4, DICT = 5, TRUE = 6, FALSE = 7;
+
+    /**
+     * The journal directory.
+     */
+    private final File dir;
+
+    /**
+     * The current (last) segment number.
+     */
+    private int segment = 0;
+
+    /**
+     * The first segment number.
+     */
+    private int first = 0;
+
+    /**
+     * The current segment size (in bytes).
+     */
+    private long segmentSize = 0L;
+
+    /**
+     * Creates a new usage journal. Call load() to replay any existing
+     * data before appending new entries.
+     *
+     * @param dir            the journal directory
+     */
+    public UsageJournal(File dir) {
+        this.dir = dir;
+    }
+
+    /**
+     * Returns the journal directory.
+     *
+     * @return the journal directory
+     */
+    public File dir() {
+        return dir;
+    }
+
+    /**
+     * Returns the number of segment files in the journal.
+     *
+     * @return the number of segment files
+     */
+    public int segments() {
+        return (segment == 0) ? 0 : segment - first + 1;
+    }
+
+    /**
+     * Checks if the journal should be compacted.
+     *
+     * @return true if compaction is recommended, or
+     *         false otherwise
+     */
+    public boolean needsCompaction() {
+        return segments() > MAX_SEGMENTS;
+    }
+
+    /**
+     * Replays all journal segments in order. The handler is called
+     * once for each journal entry, with the batch timestamp.
+     *
+     * @param handler        the journal entry handler
+     *
+     * @throws IOException if the journal directory couldn't be read
+     */
+    public void load(Handler handler) throws IOException {
+        int[] nums = segmentNumbers();
+        boolean corrupt = false;
+        for (int num : nums) {
+            File file = segmentFile(num);
+            corrupt = false;
+            try (DataInputStream is = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                while (readBatch(is, handler)) {
+                    // Continue until end of segment
+                }
+            } catch (IOException e) {
+                LOG.warning("skipping corrupt journal data in " + file + ": " + e.getMessage());
+                corrupt = true;
+            }
+        }
+        first = (nums.length > 0) ? nums[0] : 0;
+        segment = (nums.length > 0) ? nums[nums.length - 1] : 0;
+        segmentSize = (segment > 0) ? segmentFile(segment).length() : 0L;
+        if (corrupt) {
+            // Never append after corrupt data, start a new segment
+            segmentSize = SEGMENT_SIZE;
+        }
+    }
+
+    /**
+     * Appends a batch of entries to the journal.
+     *
+     * @param time           the batch timestamp (in millis)
+     * @param entries        the serialized entries, indexed by key
+     *
+     * @throws IOException if the journal couldn't be written
+     */
+    public void append(long time, Map<String, Dict> entries) throws IOException {
+        if (entries.isEmpty()) {
+            return;
+        }
+        if (segment == 0 || segmentSize >= SEGMENT_SIZE) {
+            segment++;
+            first = (first == 0) ? segment : first;
+            segmentSize = 0L;
+        }
+        byte[] data = encodeBatch(time, entries);
+        dir.mkdirs();
+        try (FileOutputStream os = new FileOutputStream(segmentFile(segment), true)) {
+            os.write(data);
+            os.getFD().sync();
+        }
+        segmentSize += data.length;
+    }
+
+    /**
+     * Compacts the journal by writing a full snapshot to a new segment
+     * and removing all older segments.
+     *
+     * @param time           the snapshot timestamp (in millis)
+     * @param entries        all serialized entries, indexed by key
+     *
+     * @throws IOException if the journal couldn't be written
+     */
+    public void compact(long time, Map<String, Dict> entries) throws IOException {
+        int num = segment + 1;
+        File tmp = new File(dir, SEGMENT_PREFIX + num + ".tmp");
+        byte[] data = encodeBatch(time, entries);
+        dir.mkdirs();
+        try (FileOutputStream os = new FileOutputStream(tmp)) {
+            os.write(data);
+            os.getFD().sync();
+        }
+        FileUtil.move(tmp, segmentFile(num));
+        for (int old : segmentNumbers()) {
+            if (old < num) {
+                FileUtil.delete(segmentFile(old));
+            }
+        }
+        first = segment = num;
+        segmentSize = data.length;
+    }
+
+    /**
+     * Returns the sorted segment numbers found in the journal
+     * directory.
+     *
+     * @return the sorted array of segment numbers
+     */
+    private int[] segmentNumbers() {
+        String[] names = dir.list();
+        if (names == null) {
+            return new int[0];
+        }
+        return Arrays.stream(names)
+            .filter(s -> s.startsWith(SEGMENT_PREFIX) && s.endsWith(SEGMENT_SUFFIX))
+            .map(s -> s.substring(SEGMENT_PREFIX.length(), s.length() - SEGMENT_SUFFIX.length()))
+            .filter(s -> !s.isEmpty() && s.chars().allMatch(Character::isDigit))
+            .mapToInt(Integer::parseInt)
+            .sorted()
+            .toArray();
+    }
+
+    /**
+     * Returns the segment file for a segment number.
+     *
+     * @param num            the segment number
+     *
+     * @return the segment file
+     */
+    private File segmentFile(int num) {
+        return new File(dir, SEGMENT_PREFIX + num + SEGMENT_SUFFIX);
+    }
+
+    /**
+     * Encodes a batch record. The record consists of a header (magic,
+     * length and checksum), followed by the batch timestamp, entry
+     * count and the entries.
+     *
+     * @param time           the batch timestamp (in millis)
+     * @param entries        the serialized entries, indexed by key
+     *
+     * @return the encoded batch record
+     *
+     * @throws IOException if the data couldn't be encoded
+     */
+    static byte[] encodeBatch(long time, Map<String, Dict> entries) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        DataOutputStream os = new DataOutputStream(body);
+        os.writeLong(time);
+        writeVarLong(os, entries.size());
+        for (Entry<String, Dict> e : entries.entrySet()) {
+            os.writeUTF(e.getKey());
+            writeValue(os, e.getValue());
+        }
+        os.flush();
+        CRC32 crc = new CRC32();
+        crc.update(body.toByteArray());
+        ByteArrayOutputStream res = new ByteArrayOutputStream(body.size() + 16);
+        DataOutputStream out = new DataOutputStream(res);
+        out.writeInt(MAGIC);
+        out.writeInt(body.size());
+        out.writeLong(crc.getValue());
+        body.writeTo(out);
+        out.flush();
+        return res.toByteArray();
+    }
+
+    /**
+     * Reads and replays a batch record.
+     *
+     * @param is             the input stream
+     * @param handler        the journal entry handler
+     *
+     * @return true if a batch was read, or
+     *         false on end of stream
+     *
+     * @throws IOException if the record was truncated or corrupt
+     */
+    private static boolean readBatch(DataInputStream is, Handler handler) throws IOException {
+        int magic;
+        try {
+            magic = is.readInt();
+        } catch (EOFException e) {
+            return false;
+        }
+        int len = is.readInt();
+        long checksum = is.readLong();
+        if (magic != MAGIC || len < 0) {
+            throw new IOException("invalid record header");
+        }
+        byte[] body = is.readNBytes(len);
+        if (body.length < len) {
+            throw new IOException("truncated record");
+        }
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        if (crc.getValue() != checksum) {
+            throw new IOException("record checksum mismatch");
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(body))) {
+            long time = in.readLong();
+            long count = readVarLong(in);
+            for (long i = 0; i < count; i++) {
+                String key = in.readUTF();
+                Object value = readValue(in);
+                if (value instanceof Dict dict) {
+                    handler.entry(time, key, dict);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Writes a value in the compact binary encoding. Supports null,
+     * numbers, strings, booleans, arrays and dictionaries.
+     *
+     * @param os             the output stream
+     * @param value          the value to write
+     *
+     * @throws IOException if the value couldn't be written
+     */
+    private static void writeValue(DataOutputStream os, Object value) throws IOException {
+        if (value == null) {
+            os.writeByte(NULL);
+        } else if (value instanceof Integer || value instanceof Long) {
+            os.writeByte(LONG);
+            writeVarLong(os, ((Number) value).longValue());
+        } else if (value instanceof Number n) {
+            os.writeByte(DOUBLE);
+            os.writeDouble(n.doubleValue());
+        } else if (value instanceof Boolean b) {
+            os.writeByte(b ? TRUE : FALSE);
+        } else if (value instanceof Array arr) {
+            os.writeByte(ARRAY);
+            writeVarLong(os, arr.size());
+            for (Object o : arr) {
+                writeValue(os, o);
+            }
+        } else if (value instanceof Dict dict) {
+            os.writeByte(DICT);
+            writeVarLong(os, dict.size());
+            for (String key : dict.keys()) {
+                os.writeUTF(key);
+                writeValue(os, dict.get(key));
+            }
+        } else {
+            os.writeByte(STRING);
+            os.writeUTF(value.toString());
+        }
+    }
+
+    /**
+     * Reads a value in the compact binary encoding.
+     *
+     * @param is             the input stream
+     *
+     * @return the value read
+     *
+     * @throws IOException if the value couldn't be read
+     */
+    private static Object readValue(DataInputStream is) throws IOException {
+        byte tag = is.readByte();
+        switch (tag) {
+        case NULL:
+            return null;
+        case LONG:
+            long l = readVarLong(is);
+            return (l == (int) l) ? Integer.valueOf((int) l) : Long.valueOf(l);
+        case DOUBLE:
+            return is.readDouble();
+        case STRING:
+            return is.readUTF();
+        case TRUE:
+            return Boolean.TRUE;
+        case FALSE:
+            return Boolean.FALSE;
+        case ARRAY:
+            long size = readVarLong(is);
+            Array arr = new Array();
+            for (long i = 0; i < size; i++) {
+                arr.add(readValue(is));
+            }
+            return arr;
+        case DICT:
+            long count = readVarLong(is);
+            Dict dict = new Dict();
+            for (long i = 0; i < count; i++) {
+                String key = is.readUTF();
+                dict.set(key, readValue(is));
+            }
+            return dict;
+        default:
+            throw new IOException("invalid value tag " + tag);
+        }
+    }
+
+    /**
+     * Writes a variable-length (zig-zag encoded) long value.
+     *
+     * @param os             the output stream
+     * @param value          the value to write
+     *
+     * @throws IOException if the value couldn't be written
+     */
+    private static void writeVarLong(DataOutputStream os, long value) throws IOException {
+        long v = (value << 1) ^ (value >> 63);
+        while ((v & ~0x7FL) != 0) {
+            os.writeByte((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        os.writeByte((int) v);
+    }
+
+    /**
+     * Reads a variable-length (zig-zag encoded) long value.
+     *
+     * @param is             the input stream
+     *
+     * @return the value read
+     *
+     * @throws IOException if the value couldn't be read
+     */
+    private static long readVarLong(DataInputStream is) throws IOException {
+        long v = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = is.readUnsignedByte();
+            v |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return (v >>> 1) ^ -(v & 1);
+            }
+        }
+        throw new IOException("invalid variable-length value");
+    }
+
+
+    /**
+     * A journal entry handler. Called for each entry replayed when
+     * loading the journal.
+     */
+    public interface Handler {
+
+        /**
+         * Handles a journal entry.
+         *
+         * @param time           the batch timestamp (in millis)
+         * @param key            the entry key
+         * @param data           the serialized entry data
+         */
+        void entry(long time, String key, Dict data);
+    }
+}
@@ -0,0 +1,297 @@
+/*
+ * RapidContext <https://www.rapidcontext.com/>
+ * Copyright (c) 2007-2026 Per Cederberg. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the BSD license.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the RapidContext LICENSE for more details.
+ */
+
+package org.rapidcontext.core.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+import org.rapidcontext.core.data.Array;
+import org.rapidcontext.core.data.Dict;
+import org.rapidcontext.util.FileUtil;
+
+/**
+ * A persistent image of parsed storage catalog objects. The image
+ * maps storage file names to their parsed (unexpanded) dictionary
+ * data in a compact binary encoding, so that the text formats don't
+ * have to be reparsed on each startup. Each image contains a source
+ * fingerprint and a trailing checksum. An image with a different
+ * fingerprint or an invalid checksum is ignored.
+ *
+ * @author Per Cederberg
+ */
+public final class CatalogImage {
+
+    /**
+     * The class logger.
+     */
+    private static final Logger LOG = Logger.getLogger(CatalogImage.class.getName());
+
+    /**
+     * The image file magic number ("RCI1").
+     */
+    private static final int MAGIC = 0x52434931;
+
+    /**
+     * The value type tags for the binary encoding.
+     */
+    private static final byte NULL = 0, INT = 1, LONG = 2, DOUBLE = 3, STRING = 4,
+                              ARRAY = 5, DICT = 6, TRUE = 7, FALSE = 8, DATE = 9;
+
+    /**
+     * Reads an image file. If the file is missing, corrupt or has a
+     * different source fingerprint, null is returned.
+     *
+     * @param file           the image file
+     * @param fingerprint    the expected source fingerprint
+     *
+     * @return the unmodifiable map of file names to parsed data, or
+     *         null if no valid image was found
+     */
+    public static Map<String,Dict> read(File file, String fingerprint) {
+        if (!file.isFile()) {
+            return null;
+        }
+        try {
+            byte[] data = Files.readAllBytes(file.toPath());
+            if (data.length < 12) {
+                throw new IOException("truncated image");
+            }
+            CRC32 crc = new CRC32();
+            crc.update(data, 0, data.length - 8);
+            if (crc.getValue() != ByteBuffer.wrap(data, data.length - 8, 8).getLong()) {
+                throw new IOException("checksum mismatch");
+            }
+            ByteArrayInputStream buffer = new ByteArrayInputStream(data, 0, data.length - 8);
+            DataInputStream is = new DataInputStream(buffer);
+            if (is.readInt() != MAGIC) {
+                throw new IOException("invalid file header");
+            } else if (!is.readUTF().equals(fingerprint)) {
+                LOG.fine("ignoring outdated catalog image " + file);
+                return null;
+            }
+            long count = readVarLong(is);
+            HashMap<String,Dict> res = new HashMap<>();
+            for (long i = 0; i < count; i++) {
+                String name = is.readUTF();
+                if (readValue(is) instanceof Dict dict) {
+                    res.put(name, dict);
+                }
+            }
+            return Collections.unmodifiableMap(res);
+        } catch (IOException | RuntimeException e) {
+            LOG.warning("ignoring invalid catalog image " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Writes an image file. The file is first written to a temporary
+     * file, which then replaces any previous image. Entries with
+     * unsupported value types are omitted.
+     *
+     * @param file           the image file
+     * @param fingerprint    the source fingerprint
+     * @param entries        the map of file names to parsed data
+     *
+     * @throws IOException if the image couldn't be written
+     */
+    public static void write(File file, String fingerprint, Map<String,Dict> entries)
+    throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(64 * 1024);
+        ByteArrayOutputStream entry = new ByteArrayOutputStream(4096);
+        DataOutputStream es = new DataOutputStream(entry);
+        int count = 0;
+        for (Entry<String,Dict> e : entries.entrySet()) {
+            entry.reset();
+            try {
+                es.writeUTF(e.getKey());
+                writeValue(es, e.getValue());
+                entry.writeTo(body);
+                count++;
+            } catch (IOException ex) {
+                LOG.fine("omitting " + e.getKey() + " from catalog image: " + ex.getMessage());
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.size() + 256);
+        DataOutputStream os = new DataOutputStream(out);
+        os.writeInt(MAGIC);
+        os.writeUTF(fingerprint);
+        writeVarLong(os, count);
+        body.writeTo(os);
+        CRC32 crc = new CRC32();
+        crc.update(out.toByteArray());
+        os.writeLong(crc.getValue());
+        file.getParentFile().mkdirs();
+        File tmp = new File(file.getParentFile(), file.getName() + ".tmp");
+        Files.write(tmp.toPath(), out.toByteArray());
+        FileUtil.move(tmp, file);
+    }
+
+    /**
+     * Writes a value in the compact binary encoding. Supports null,
+     * integer and floating-point numbers, strings, booleans, dates,
+     * arrays and dictionaries.
+     *
+     * @param os             the output stream
+     * @param value          the value to write
+     *
+     * @throws IOException if the value couldn't be written or had an
+     *             unsupported type
+     */
+    private static void writeValue(DataOutputStream os, Object value) throws IOException {
+        if (value == null) {
+            os.writeByte(NULL);
+        } else if (value instanceof Integer i) {
+            os.writeByte(INT);
+            writeVarLong(os, i);
+        } else if (value instanceof Long l) {
+            os.writeByte(LONG);
+            writeVarLong(os, l);
+        } else if (value instanceof Double d) {
+            os.writeByte(DOUBLE);
+            os.writeDouble(d);
+        } else if (value instanceof String s) {
+            byte[] data = s.getBytes(StandardCharsets.UTF_8);
+            os.writeByte(STRING);
+            writeVarLong(os, data.length);
+            os.write(data);
+        } else if (value instanceof Boolean b) {
+            os.writeByte(b ? TRUE : FALSE);
+        } else if (value instanceof Date dttm) {
+            os.writeByte(DATE);
+            writeVarLong(os, dttm.getTime());
+        } else if (value instanceof Array arr) {
+            os.writeByte(ARRAY);
+            writeVarLong(os, arr.size());
+            for (Object o : arr) {
+                writeValue(os, o);
+            }
+        } else if (value instanceof Dict dict) {
+            os.writeByte(DICT);
+            writeVarLong(os, dict.size());
+            for (String key : dict.keys()) {
+                os.writeUTF(key);
+                writeValue(os, dict.get(key));
+            }
+        } else {
+            throw new IOException("unsupported value type " + value.getClass().getName());
+        }
+    }
+
+    /**
+     * Reads a value in the compact binary encoding.
+     *
+     * @param is             the input stream
+     *
+     * @return the value read
+     *
+     * @throws IOException if the value couldn't be read
+     */
+    private static Object readValue(DataInputStream is) throws IOException {
+        byte tag = is.readByte();
+        switch (tag) {
+        case NULL:
+            return null;
+        case INT:
+            return Integer.valueOf((int) readVarLong(is));
+        case LONG:
+            return Long.valueOf(readVarLong(is));
+        case DOUBLE:
+            return is.readDouble();
+        case STRING:
+            byte[] data = new byte[Math.toIntExact(readVarLong(is))];
+            is.readFully(data);
+            return new String(data, StandardCharsets.UTF_8);
+        case TRUE:
+            return Boolean.TRUE;
+        case FALSE:
+            return Boolean.FALSE;
+        case DATE:
+            return new Date(readVarLong(is));
+        case ARRAY:
+            long size = readVarLong(is);
+            Array arr = new Array();
+            for (long i = 0; i < size; i++) {
+                arr.add(readValue(is));
+            }
+            return arr;
+        case DICT:
+            long count = readVarLong(is);
+            Dict dict = new Dict();
+            for (long i = 0; i < count; i++) {
+                String key = is.readUTF();
+                dict.set(key, readValue(is));
+            }
+            return dict;
+        default:
+            throw new IOException("invalid value tag " + tag);
+        }
+    }
+
+    /**
+     * Writes a variable-length (zig-zag encoded) long value.
+     *
+     * @param os             the output stream
+     * @param value          the value to write
+     *
+     * @throws IOException if the value couldn't be written
+     */
+    private static void writeVarLong(DataOutputStream os, long value) throws IOException {
+        long v = (value << 1) ^ (value >> 63);
+        while ((v & ~0x7FL) != 0) {
+            os.writeByte((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        os.writeByte((int) v);
+    }
+
+    /**
+     * Reads a variable-length (zig-zag encoded) long value.
+     *
+     * @param is             the input stream
+     *
+     * @return the value read
+     *
+     * @throws IOException if the value couldn't be read
+     */
+    private static long readVarLong(DataInputStream is) throws IOException {
+        long v = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = is.readUnsignedByte();
+            v |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return (v >>> 1) ^ -(v & 1);
+            }
+        }
+        throw new IOException("invalid variable-length value");
+    }
+
+    // No instances
+    private CatalogImage() {}
+}
@@ -71,6 +71,30 @@ public class DirStorage extends Storage {
         return dict.get(KEY_DIR, File.class);
     }
 
+    /**
+     * Returns the file system location for a storage path. The file
+     * or directory returned may not exist.
+     *
+     * @param path           the storage location
+     *
+     * @return the file or directory for the path
+     */
+    public File toFile(Path path) {
+        File dir = locateDir(path);
+        return path.isIndex() ? dir : FileUtil.resolve(dir, path.name());
+    }
+
+    /**
+     * Checks if this storage supports concurrent loads and lookups.
+     * File system reads are stateless, so this is always true.
+     *
+     * @return true, concurrent reads are always supported
+     */
+    @Override
+    public boolean isConcurrent() {
+        return true;
+    }
+
     /**
      * Searches for an object at the specified location and returns
      * metadata about the object if found. The path may locate either
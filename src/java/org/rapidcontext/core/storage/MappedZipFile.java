@@ -0,0 +1,560 @@
+/*
+ * RapidContext <https://www.rapidcontext.com/>
+ * Copyright (c) 2007-2026 Per Cederberg. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the BSD license.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the RapidContext LICENSE for more details.
+ */
+
+package org.rapidcontext.core.storage;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * A read-only memory-mapped ZIP file. The central directory is parsed
+ * once into compact arrays sorted by (lower-case) entry name, so that
+ * entries and directory ranges can be located with binary searches.
+ * Entry data is read directly from the mapped buffer, without copying
+ * for stored (uncompressed) entries. All methods are thread-safe.
+ *
+ * @author Per Cederberg
+ */
+class MappedZipFile {
+
+    /**
+     * The end of central directory record signature.
+     */
+    private static final int SIG_EOCD = 0x06054b50;
+
+    /**
+     * The ZIP64 end of central directory locator signature.
+     */
+    private static final int SIG_EOCD64_LOCATOR = 0x07064b50;
+
+    /**
+     * The central directory file header signature.
+     */
+    private static final int SIG_CENTRAL = 0x02014b50;
+
+    /**
+     * The local file header signature.
+     */
+    private static final int SIG_LOCAL = 0x04034b50;
+
+    /**
+     * The stored (uncompressed) compression method.
+     */
+    public static final int STORED = 0;
+
+    /**
+     * The deflated compression method.
+     */
+    public static final int DEFLATED = 8;
+
+    /**
+     * The memory-mapped file buffer (little-endian).
+     */
+    private ByteBuffer buf;
+
+    /**
+     * The entry names, sorted by lower-case name.
+     */
+    private String[] names;
+
+    /**
+     * The lower-case entry names, sorted.
+     */
+    private String[] keys;
+
+    /**
+     * The entry last modified times.
+     */
+    private long[] times;
+
+    /**
+     * The entry compression methods.
+     */
+    private int[] methods;
+
+    /**
+     * The entry compressed sizes.
+     */
+    private long[] csizes;
+
+    /**
+     * The entry uncompressed sizes.
+     */
+    private long[] sizes;
+
+    /**
+     * The entry local header offsets.
+     */
+    private long[] offsets;
+
+    /**
+     * The empty ZIP file, used to release the memory mapping of a
+     * closed ZIP file.
+     */
+    static final MappedZipFile EMPTY = new MappedZipFile();
+
+    /**
+     * Creates a new empty ZIP file (without any mapping).
+     */
+    private MappedZipFile() {
+        buf = ByteBuffer.allocate(0);
+        names = keys = new String[0];
+        times = csizes = sizes = offsets = new long[0];
+        methods = new int[0];
+    }
+
+    /**
+     * Creates a new memory-mapped ZIP file. The central directory is
+     * parsed immediately.
+     *
+     * @param file           the ZIP file to map
+     *
+     * @throws IOException if the file couldn't be mapped or parsed
+     */
+    MappedZipFile(File file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (ch.size() > Integer.MAX_VALUE) {
+                throw new ZipException("ZIP file too large for mapping: " + file);
+            }
+            buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            buf.order(ByteOrder.LITTLE_ENDIAN);
+        }
+        try {
+            parse();
+        } catch (IndexOutOfBoundsException e) {
+            throw new ZipException("invalid ZIP file: " + file);
+        }
+    }
+
+    /**
+     * Parses the central directory into the entry arrays.
+     *
+     * @throws ZipException if the ZIP file was malformed
+     */
+    private void parse() throws ZipException {
+        int eocd = -1;
+        for (int pos = buf.limit() - 22; pos >= Math.max(0, buf.limit() - 22 - 0xFFFF); pos--) {
+            if (buf.getInt(pos) == SIG_EOCD) {
+                eocd = pos;
+                break;
+            }
+        }
+        if (eocd < 0) {
+            throw new ZipException("missing end of central directory");
+        }
+        long count = u16(eocd + 10);
+        long pos = u32(eocd + 16);
+        if (count == 0xFFFF || pos == 0xFFFFFFFFL) {
+            int loc = eocd - 20;
+            if (loc < 0 || buf.getInt(loc) != SIG_EOCD64_LOCATOR) {
+                throw new ZipException("missing ZIP64 end of central directory");
+            }
+            int eocd64 = checkedInt(buf.getLong(loc + 8));
+            count = buf.getLong(eocd64 + 32);
+            pos = buf.getLong(eocd64 + 48);
+        }
+        int size = checkedInt(count);
+        String[] entryNames = new String[size];
+        long[] entryTimes = new long[size];
+        int[] entryMethods = new int[size];
+        long[] entryCsizes = new long[size];
+        long[] entrySizes = new long[size];
+        long[] entryOffsets = new long[size];
+        int off = checkedInt(pos);
+        for (int i = 0; i < size; i++) {
+            if (buf.getInt(off) != SIG_CENTRAL) {
+                throw new ZipException("invalid central directory header");
+            }
+            int nameLen = u16(off + 28);
+            int extraLen = u16(off + 30);
+            int commentLen = u16(off + 32);
+            byte[] name = new byte[nameLen];
+            buf.get(off + 46, name);
+            entryNames[i] = new String(name, StandardCharsets.UTF_8);
+            entryMethods[i] = u16(off + 10);
+            entryTimes[i] = dosTime(u16(off + 14), u16(off + 12));
+            entryCsizes[i] = u32(off + 20);
+            entrySizes[i] = u32(off + 24);
+            entryOffsets[i] = u32(off + 42);
+            parseZip64(off + 46 + nameLen, extraLen, i, entrySizes, entryCsizes, entryOffsets);
+            off += 46 + nameLen + extraLen + commentLen;
+        }
+        Integer[] order = new Integer[size];
+        String[] lower = new String[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+            lower[i] = entryNames[i].toLowerCase();
+        }
+        Arrays.sort(order, Comparator.comparing(i -> lower[i]));
+        names = new String[size];
+        keys = new String[size];
+        times = new long[size];
+        methods = new int[size];
+        csizes = new long[size];
+        sizes = new long[size];
+        offsets = new long[size];
+        for (int i = 0; i < size; i++) {
+            int src = order[i];
+            names[i] = entryNames[src];
+            keys[i] = lower[src];
+            times[i] = entryTimes[src];
+            methods[i] = entryMethods[src];
+            csizes[i] = entryCsizes[src];
+            sizes[i] = entrySizes[src];
+            offsets[i] = entryOffsets[src];
+        }
+    }
+
+    /**
+     * Parses a ZIP64 extended information extra field (if present).
+     * Any size or offset value that overflowed will be replaced.
+     *
+     * @param pos            the extra field start position
+     * @param len            the extra field length
+     * @param i              the entry index
+     * @param entrySizes     the uncompressed sizes array
+     * @param entryCsizes    the compressed sizes array
+     * @param entryOffsets   the local header offsets array
+     */
+    private void parseZip64(int pos, int len, int i,
+                            long[] entrySizes, long[] entryCsizes, long[] entryOffsets) {
+        int end = pos + len;
+        while (pos + 4 <= end) {
+            int id = u16(pos);
+            int size = u16(pos + 2);
+            if (id == 0x0001) {
+                int p = pos + 4;
+                if (entrySizes[i] == 0xFFFFFFFFL) {
+                    entrySizes[i] = buf.getLong(p);
+                    p += 8;
+                }
+                if (entryCsizes[i] == 0xFFFFFFFFL) {
+                    entryCsizes[i] = buf.getLong(p);
+                    p += 8;
+                }
+                if (entryOffsets[i] == 0xFFFFFFFFL) {
+                    entryOffsets[i] = buf.getLong(p);
+                }
+                return;
+            }
+            pos += 4 + size;
+        }
+    }
+
+    /**
+     * Returns the number of entries in the ZIP file.
+     *
+     * @return the number of entries
+     */
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * Finds an entry by name (case-insensitive).
+     *
+     * @param name           the entry name
+     *
+     * @return the entry index, or
+     *         a negative value if not found
+     */
+    public int find(String name) {
+        int idx = Arrays.binarySearch(keys, name.toLowerCase());
+        return (idx >= 0) ? idx : -1;
+    }
+
+    /**
+     * Returns the first entry index with a name at or after the
+     * specified prefix (case-insensitive). All entries with the
+     * prefix are found in sequence from this position.
+     *
+     * @param prefix         the entry name prefix
+     *
+     * @return the first entry index at or after the prefix
+     */
+    public int first(String prefix) {
+        int idx = Arrays.binarySearch(keys, prefix.toLowerCase());
+        return (idx >= 0) ? idx : -(idx + 1);
+    }
+
+    /**
+     * Checks if an entry name starts with a prefix (case-insensitive).
+     *
+     * @param idx            the entry index
+     * @param prefix         the lower-case prefix
+     *
+     * @return true if the entry starts with the prefix, or
+     *         false otherwise
+     */
+    public boolean startsWith(int idx, String prefix) {
+        return idx < keys.length && keys[idx].startsWith(prefix);
+    }
+
+    /**
+     * Returns the entry name.
+     *
+     * @param idx            the entry index
+     *
+     * @return the entry name
+     */
+    public String name(int idx) {
+        return names[idx];
+    }
+
+    /**
+     * Returns the entry last modified time.
+     *
+     * @param idx            the entry index
+     *
+     * @return the last modified time (in milliseconds)
+     */
+    public long time(int idx) {
+        return times[idx];
+    }
+
+    /**
+     * Returns the entry uncompressed size.
+     *
+     * @param idx            the entry index
+     *
+     * @return the uncompressed size (in bytes)
+     */
+    public long size(int idx) {
+        return sizes[idx];
+    }
+
+    /**
+     * Returns the entry compression method.
+     *
+     * @param idx            the entry index
+     *
+     * @return the compression method
+     */
+    public int method(int idx) {
+        return methods[idx];
+    }
+
+    /**
+     * Returns a read-only slice of the (possibly compressed) entry
+     * data. No data is copied.
+     *
+     * @param idx            the entry index
+     *
+     * @return the raw entry data buffer
+     *
+     * @throws ZipException if the local header was invalid
+     */
+    public ByteBuffer data(int idx) throws ZipException {
+        int off = checkedInt(offsets[idx]);
+        if (buf.getInt(off) != SIG_LOCAL) {
+            throw new ZipException("invalid local header for " + names[idx]);
+        }
+        int start = off + 30 + u16(off + 26) + u16(off + 28);
+        return buf.slice(start, checkedInt(csizes[idx])).asReadOnlyBuffer();
+    }
+
+    /**
+     * Opens an input stream for the uncompressed entry data. Stored
+     * entries are read directly from the mapped buffer.
+     *
+     * @param idx            the entry index
+     *
+     * @return the entry input stream
+     *
+     * @throws IOException if the entry couldn't be read
+     */
+    public InputStream open(int idx) throws IOException {
+        InputStream is = new BufferInputStream(data(idx));
+        if (methods[idx] == STORED) {
+            return is;
+        } else if (methods[idx] == DEFLATED) {
+            int size = (int) Math.max(512, Math.min(sizes[idx], 8192));
+            return new EntryInflaterInputStream(is, size);
+        } else {
+            throw new ZipException("unsupported compression method for " + names[idx]);
+        }
+    }
+
+    /**
+     * Reads an unsigned 16-bit value.
+     *
+     * @param pos            the buffer position
+     *
+     * @return the value read
+     */
+    private int u16(int pos) {
+        return buf.getShort(pos) & 0xFFFF;
+    }
+
+    /**
+     * Reads an unsigned 32-bit value.
+     *
+     * @param pos            the buffer position
+     *
+     * @return the value read
+     */
+    private long u32(int pos) {
+        return buf.getInt(pos) & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Converts a buffer position to an int (checking for overflow).
+     *
+     * @param value          the position or size value
+     *
+     * @return the int value
+     *
+     * @throws ZipException if the value was out of range
+     */
+    private int checkedInt(long value) throws ZipException {
+        if (value < 0 || value > buf.limit()) {
+            throw new ZipException("invalid ZIP position or size: " + value);
+        }
+        return (int) value;
+    }
+
+    /**
+     * Converts an MS-DOS date and time to a Java timestamp (in the
+     * local time zone, same as ZipEntry).
+     *
+     * @param date           the MS-DOS date value
+     * @param time           the MS-DOS time value
+     *
+     * @return the timestamp in milliseconds, or
+     *         zero (0) if invalid
+     */
+    private static long dosTime(int date, int time) {
+        try {
+            LocalDateTime dt = LocalDateTime.of(
+                1980 + ((date >> 9) & 0x7f),
+                (date >> 5) & 0x0f,
+                date & 0x1f,
+                (time >> 11) & 0x1f,
+                (time >> 5) & 0x3f,
+                (time & 0x1f) * 2
+            );
+            return dt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        } catch (Exception e) {
+            return 0L;
+        }
+    }
+
+
+    /**
+     * An input stream reading from a byte buffer.
+     */
+    private static class BufferInputStream extends InputStream {
+
+        /**
+         * The byte buffer to read from.
+         */
+        private ByteBuffer data;
+
+        /**
+         * Creates a new buffer input stream.
+         *
+         * @param data           the byte buffer to read
+         */
+        BufferInputStream(ByteBuffer data) {
+            this.data = data;
+        }
+
+        @Override
+        public int read() {
+            return data.hasRemaining() ? (data.get() & 0xFF) : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            } else if (!data.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(len, data.remaining());
+            data.get(b, off, count);
+            return count;
+        }
+
+        @Override
+        public long skip(long n) {
+            int count = (int) Math.max(0, Math.min(n, data.remaining()));
+            data.position(data.position() + count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return data.remaining();
+        }
+    }
+
+
+    /**
+     * An inflater input stream for raw ZIP entry data. Supplies the
+     * extra dummy byte needed by the inflater at the end of input,
+     * and releases the inflater on close.
+     */
+    private static class EntryInflaterInputStream extends InflaterInputStream {
+
+        /**
+         * The end of input flag.
+         */
+        private boolean eof = false;
+
+        /**
+         * Creates a new entry inflater input stream.
+         *
+         * @param is             the raw data input stream
+         * @param size           the buffer size
+         */
+        EntryInflaterInputStream(InputStream is, int size) {
+            super(is, new Inflater(true), size);
+        }
+
+        @Override
+        protected void fill() throws IOException {
+            if (eof) {
+                throw new EOFException("unexpected end of ZIP entry data");
+            }
+            len = in.read(buf, 0, buf.length);
+            if (len == -1) {
+                buf[0] = 0;
+                len = 1;
+                eof = true;
+            }
+            inf.setInput(buf, 0, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            super.close();
+            inf.end();
+        }
+    }
+}
@@ -16,6 +16,7 @@ package org.rapidcontext.core.storage;
 
 import java.util.LinkedHashMap;
 import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Logger;
 
 import org.apache.commons.lang3.ObjectUtils;
@@ -40,6 +41,13 @@ public class MemoryStorage extends Storage {
     private static final Logger LOG =
         Logger.getLogger(MemoryStorage.class.getName());
 
+    /**
+     * The storage lock. This is used instead of synchronized methods
+     * to avoid pinning virtual threads to their carrier threads, and
+     * is shared with subclasses that need to extend the locking.
+     */
+    protected final ReentrantLock lock = new ReentrantLock();
+
     /**
      * The data storage map. Indexed by the storage path. It also contains all
      * parent indices, all the way back to the root index.
@@ -94,11 +102,16 @@ public class MemoryStorage extends Storage {
      * will NOT be destroyed by this method.
      */
     @Override
-    public synchronized void destroy() {
-        objects.clear();
-        meta.clear();
-        objects = null;
-        meta = null;
+    public void destroy() {
+        lock.lock();
+        try {
+            objects.clear();
+            meta.clear();
+            objects = null;
+            meta = null;
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -112,11 +125,16 @@ public class MemoryStorage extends Storage {
      *         null if not found
      */
     @Override
-    public synchronized Metadata lookup(Path path) {
-        if (storageInfo && PATH_STORAGEINFO.equals(path)) {
-            return new Metadata(Dict.class, PATH_STORAGEINFO, path(), mountTime());
+    public Metadata lookup(Path path) {
+        lock.lock();
+        try {
+            if (storageInfo && PATH_STORAGEINFO.equals(path)) {
+                return new Metadata(Dict.class, PATH_STORAGEINFO, path(), mountTime());
+            }
+            return meta.get(path);
+        } finally {
+            lock.unlock();
         }
-        return meta.get(path);
     }
 
     /**
@@ -131,12 +149,17 @@ public class MemoryStorage extends Storage {
      *         null if not found
      */
     @Override
-    public synchronized Object load(Path path) {
-        if (storageInfo && PATH_STORAGEINFO.equals(path)) {
-            return serialize();
+    public Object load(Path path) {
+        lock.lock();
+        try {
+            if (storageInfo && PATH_STORAGEINFO.equals(path)) {
+                return serialize();
+            }
+            Object obj = objects.get(path);
+            return obj instanceof Index i ? new Index(i, false) : obj;
+        } finally {
+            lock.unlock();
         }
-        Object obj = objects.get(path);
-        return obj instanceof Index i ? new Index(i, false) : obj;
     }
 
     /**
@@ -151,35 +174,40 @@ public class MemoryStorage extends Storage {
      * @throws StorageException if the data couldn't be written
      */
     @Override
-    public synchronized void store(Path path, Object data) throws StorageException {
-        if (path.isIndex()) {
-            String msg = "cannot write to index " + path;
-            LOG.warning(msg);
-            throw new StorageException(msg);
-        } else if (data == null) {
-            String msg = "cannot store null data, use remove() instead: " + path;
-            LOG.warning(msg);
-            throw new StorageException(msg);
-        } else if (!isReadWrite()) {
-            String msg = "cannot store to read-only storage at " + path();
-            LOG.warning(msg);
-            throw new StorageException(msg);
-        } else if (!isStorable(data)) {
-            String msg = "cannot store unsupported data type at " + path() + ": " +
-                         data.getClass().getName();
-            LOG.warning(msg);
-            throw new StorageException(msg);
-        } else if (storageInfo && PATH_STORAGEINFO.equals(path)) {
-            String msg = "storage info is read-only: " + path;
-            LOG.warning(msg);
-            throw new StorageException(msg);
-        }
-        if (objects.containsKey(path)) {
-            remove(path);
+    public void store(Path path, Object data) throws StorageException {
+        lock.lock();
+        try {
+            if (path.isIndex()) {
+                String msg = "cannot write to index " + path;
+                LOG.warning(msg);
+                throw new StorageException(msg);
+            } else if (data == null) {
+                String msg = "cannot store null data, use remove() instead: " + path;
+                LOG.warning(msg);
+                throw new StorageException(msg);
+            } else if (!isReadWrite()) {
+                String msg = "cannot store to read-only storage at " + path();
+                LOG.warning(msg);
+                throw new StorageException(msg);
+            } else if (!isStorable(data)) {
+                String msg = "cannot store unsupported data type at " + path() + ": " +
+                             data.getClass().getName();
+                LOG.warning(msg);
+                throw new StorageException(msg);
+            } else if (storageInfo && PATH_STORAGEINFO.equals(path)) {
+                String msg = "storage info is read-only: " + path;
+                LOG.warning(msg);
+                throw new StorageException(msg);
+            }
+            if (objects.containsKey(path)) {
+                remove(path);
+            }
+            objects.put(path, data);
+            meta.put(path, new Metadata(data.getClass(), path, path(), null));
+            indexInsert(path);
+        } finally {
+            lock.unlock();
         }
-        objects.put(path, data);
-        meta.put(path, new Metadata(data.getClass(), path, path(), null));
-        indexInsert(path);
     }
 
     /**
@@ -192,14 +220,19 @@ public class MemoryStorage extends Storage {
      * @throws StorageException if the data couldn't be removed
      */
     @Override
-    public synchronized void remove(Path path) throws StorageException {
-        if (!isReadWrite()) {
-            String msg = "cannot remove from read-only storage at " + path();
-            LOG.warning(msg);
-            throw new StorageException(msg);
-        }
-        if (!storageInfo || !PATH_STORAGEINFO.equals(path)) {
-            remove(path, true);
+    public void remove(Path path) throws StorageException {
+        lock.lock();
+        try {
+            if (!isReadWrite()) {
+                String msg = "cannot remove from read-only storage at " + path();
+                LOG.warning(msg);
+                throw new StorageException(msg);
+            }
+            if (!storageInfo || !PATH_STORAGEINFO.equals(path)) {
+                remove(path, true);
+            }
+        } finally {
+            lock.unlock();
         }
     }
 
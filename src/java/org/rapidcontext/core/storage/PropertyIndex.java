@@ -0,0 +1,302 @@
+/*
+ * RapidContext <https://www.rapidcontext.com/>
+ * Copyright (c) 2007-2026 Per Cederberg. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the BSD license.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the RapidContext LICENSE for more details.
+ */
+
+package org.rapidcontext.core.storage;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map.Entry;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Logger;
+
+import org.rapidcontext.core.data.Dict;
+
+/**
+ * A secondary storage index for a single object property. The index
+ * maps normalized property values to the object paths containing
+ * them, for all objects under a base path. It is built lazily on the
+ * first lookup (by scanning the base path) and is then kept in sync
+ * by the root storage on each store and remove.<p>
+ *
+ * Property values are normalized to lower-case strings, so all
+ * lookups are case-insensitive.
+ *
+ * @author Per Cederberg
+ */
+class PropertyIndex {
+
+    /**
+     * The class logger.
+     */
+    private static final Logger LOG =
+        Logger.getLogger(PropertyIndex.class.getName());
+
+    /**
+     * The index lock (used instead of synchronized to avoid pinning
+     * virtual threads).
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * The base path for indexed objects.
+     */
+    private Path base;
+
+    /**
+     * The property key indexed.
+     */
+    private String key;
+
+    /**
+     * The map of normalized values to object paths. Set to null if
+     * the index hasn't been built yet.
+     */
+    private HashMap<String,HashSet<Path>> values = null;
+
+    /**
+     * The map of object paths to normalized values.
+     */
+    private HashMap<Path,String> paths = new HashMap<>();
+
+    /**
+     * The modification counter. Used to detect concurrent changes
+     * while building the index.
+     */
+    private long generation = 0L;
+
+    /**
+     * Returns the normalized property value for an object.
+     *
+     * @param obj            the object (or dictionary) to check
+     * @param key            the property key
+     *
+     * @return the normalized property value, or
+     *         null if not set
+     */
+    static String value(Object obj, String key) {
+        Object val = null;
+        if (obj instanceof StorableObject o) {
+            val = o.dict.get(key);
+        } else if (obj instanceof Dict d) {
+            val = d.get(key);
+        }
+        return (val == null) ? null : val.toString().toLowerCase();
+    }
+
+    /**
+     * Creates a new (unbuilt) property index.
+     *
+     * @param base           the base path for indexed objects
+     * @param key            the property key to index
+     */
+    PropertyIndex(Path base, String key) {
+        this.base = base;
+        this.key = key;
+    }
+
+    /**
+     * Returns the base path for indexed objects.
+     *
+     * @return the base path for indexed objects
+     */
+    public Path base() {
+        return base;
+    }
+
+    /**
+     * Returns the property key indexed.
+     *
+     * @return the property key indexed
+     */
+    public String key() {
+        return key;
+    }
+
+    /**
+     * Checks if this index can be used for a query.
+     *
+     * @param queryBase      the query base path
+     * @param queryKey       the query property key
+     *
+     * @return true if this index covers the query, or
+     *         false otherwise
+     */
+    public boolean covers(Path queryBase, String queryKey) {
+        return key.equals(queryKey) && queryBase.startsWith(base);
+    }
+
+    /**
+     * Finds all object paths with a matching property value. The
+     * index will be built by loading all objects under the base path
+     * if needed. The build is performed without holding the index
+     * lock (to avoid lock ordering issues with the storage), and is
+     * discarded if the index was modified concurrently.
+     *
+     * @param storage        the storage to build the index from
+     * @param value          the normalized value (or prefix) to match
+     * @param prefix         the prefix match flag
+     *
+     * @return the list of matching object paths
+     */
+    public ArrayList<Path> find(Storage storage, String value, boolean prefix) {
+        long gen;
+        lock.lock();
+        try {
+            if (values != null) {
+                return find(values, value, prefix);
+            }
+            gen = generation;
+        } finally {
+            lock.unlock();
+        }
+        LOG.fine("building index on " + base + " for '" + key + "'");
+        HashMap<String,HashSet<Path>> built = new HashMap<>();
+        HashMap<Path,String> builtPaths = new HashMap<>();
+        new Query(storage, base).filterShowHidden(true).paths().forEach(p -> {
+            String v = value(storage.load(p), key);
+            if (v != null) {
+                built.computeIfAbsent(v, k -> new HashSet<>()).add(p);
+                builtPaths.put(p, v);
+            }
+        });
+        lock.lock();
+        try {
+            if (values == null && generation == gen) {
+                values = built;
+                paths = builtPaths;
+            }
+            return find(built, value, prefix);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Finds all object paths with a matching property value.
+     *
+     * @param map            the value to paths map to search
+     * @param value          the normalized value (or prefix) to match
+     * @param prefix         the prefix match flag
+     *
+     * @return the list of matching object paths
+     */
+    private static ArrayList<Path> find(HashMap<String,HashSet<Path>> map,
+                                        String value,
+                                        boolean prefix) {
+        ArrayList<Path> res = new ArrayList<>();
+        if (prefix) {
+            for (Entry<String,HashSet<Path>> e : map.entrySet()) {
+                if (e.getKey().startsWith(value)) {
+                    res.addAll(e.getValue());
+                }
+            }
+        } else if (map.containsKey(value)) {
+            res.addAll(map.get(value));
+        }
+        return res;
+    }
+
+    /**
+     * Updates the index for a stored object. The index will not be
+     * modified if not yet built.
+     *
+     * @param path           the object path
+     * @param data           the object stored
+     */
+    public void update(Path path, Object data) {
+        lock.lock();
+        try {
+            if (path.startsWith(base)) {
+                generation++;
+                if (values != null) {
+                    path = Storage.objectPath(path);
+                    removeObject(path);
+                    add(path, value(data, key));
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes an object or an index from this index. The index will
+     * not be modified if not yet built.
+     *
+     * @param path           the object or index path
+     */
+    public void remove(Path path) {
+        lock.lock();
+        try {
+            if (path.startsWith(base) || base.startsWith(path)) {
+                generation++;
+            }
+            if (values != null && path.isIndex()) {
+                for (Path p : paths.keySet().toArray(Path[]::new)) {
+                    if (p.startsWith(path)) {
+                        removeObject(p);
+                    }
+                }
+            } else if (values != null) {
+                removeObject(Storage.objectPath(path));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Clears this index, forcing a rebuild on the next lookup.
+     */
+    public void clear() {
+        lock.lock();
+        try {
+            generation++;
+            values = null;
+            paths.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adds an object path to the index.
+     *
+     * @param path           the object path
+     * @param value          the normalized value, or null for none
+     */
+    private void add(Path path, String value) {
+        if (value != null) {
+            values.computeIfAbsent(value, k -> new HashSet<>()).add(path);
+            paths.put(path, value);
+        }
+    }
+
+    /**
+     * Removes an object path from the index.
+     *
+     * @param path           the object path
+     */
+    private void removeObject(Path path) {
+        String value = paths.remove(path);
+        HashSet<Path> set = (value == null) ? null : values.get(value);
+        if (set != null) {
+            set.remove(path);
+            if (set.isEmpty()) {
+                values.remove(value);
+            }
+        }
+    }
+}
@@ -14,17 +14,32 @@
 
 package org.rapidcontext.core.storage;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.rapidcontext.core.ctx.ThreadContext;
 
 /**
  * A storage query for streaming metadata or data results. Searches
  * are performed depth-first and will only returns objects (or their
- * metadata), omitting indices.
+ * metadata), omitting indices.<p>
+ *
+ * Object property filters are pushed down to any matching property
+ * index in the root storage. Otherwise, objects will be loaded and
+ * compared one by one. In both cases, the results are returned in
+ * the same depth-first order (sub-indices before objects, each in
+ * name order).<p>
+ *
+ * Queries may optionally return parallel streams. The index tree
+ * traversal is then split by sub-index and all stream operations
+ * (including object loads) may run concurrently.
  *
  * @author Per Cederberg
  */
@@ -50,11 +65,21 @@ public class Query {
      */
     private int maxDepth = Integer.MAX_VALUE;
 
+    /**
+     * The parallel stream flag.
+     */
+    private boolean parallel = false;
+
     /**
      * The path predicate filters to apply.
      */
     private ArrayList<Predicate<Path>> filters = new ArrayList<>();
 
+    /**
+     * The object property filters to apply.
+     */
+    private ArrayList<PropertyFilter> propFilters = new ArrayList<>();
+
     /**
      * Creates a new query for the specified storage.
      *
@@ -99,6 +124,19 @@ public class Query {
         return this;
     }
 
+    /**
+     * Toggle parallel result streams (defaults to false). Note that
+     * any operations on a parallel stream must be thread-safe.
+     *
+     * @param parallel       return parallel streams
+     *
+     * @return this query instance
+     */
+    public Query parallel(boolean parallel) {
+        this.parallel = parallel;
+        return this;
+    }
+
     /**
      * Adds a path depth filter to all results. A depth of zero (0)
      * will only match child paths directly on the base path.
@@ -123,6 +161,37 @@ public class Query {
         return filter(path -> path.name().toLowerCase().endsWith(ext));
     }
 
+    /**
+     * Adds an object property value filter to all results. Property
+     * values are compared case-insensitively as strings. If a
+     * property index matches, it will be used to find the results.
+     *
+     * @param key            the object property key
+     * @param value          the property value to match
+     *
+     * @return this query instance
+     */
+    public Query filterProperty(String key, String value) {
+        propFilters.add(new PropertyFilter(key, value, false));
+        return this;
+    }
+
+    /**
+     * Adds an object property prefix filter to all results. Property
+     * values are compared case-insensitively as strings. An empty
+     * prefix matches any object with the property set. If a property
+     * index matches, it will be used to find the results.
+     *
+     * @param key            the object property key
+     * @param prefix         the property value prefix to match
+     *
+     * @return this query instance
+     */
+    public Query filterPropertyPrefix(String key, String prefix) {
+        propFilters.add(new PropertyFilter(key, prefix, true));
+        return this;
+    }
+
     /**
      * Adds an access filter (for current user) to all results.
      *
@@ -136,29 +205,58 @@ public class Query {
     }
 
     /**
-     * Returns an unfiltered stream of object paths.
+     * Returns a stream of object paths from a property index. The
+     * paths will be filtered to match the base path, depth and hidden
+     * flag, and sorted in traversal order. Any remaining property
+     * filters are returned.
      *
-     * @param parent         the parent path (must be an index)
+     * @param root           the root storage with property indices
+     * @param remaining      the list of non-indexed property filters
      *
-     * @return the stream of object paths found
+     * @return the stream of object paths found, or
+     *         null if no property index matched
      */
-    private Stream<Path> allPaths(Path parent) {
-        if (parent == null || !parent.isIndex()) {
-            return Stream.ofNullable(parent);
+    private Stream<Path> indexPaths(RootStorage root, ArrayList<PropertyFilter> remaining) {
+        for (PropertyFilter f : propFilters) {
+            PropertyIndex idx = root.findPropertyIndex(this.base, f.key);
+            if (idx != null) {
+                remaining.remove(f);
+                List<Path> paths = idx.find(this.storage, f.value, f.prefix);
+                return (this.parallel ? paths.parallelStream() : paths.stream())
+                    .filter(path -> path.startsWith(this.base))
+                    .filter(path -> path.depth() <= this.maxDepth)
+                    .filter(path -> this.hidden || !path.removePrefix(this.base).isHidden())
+                    .sorted(Query::compareTraversal);
+            }
         }
-        Index idx = (Index) this.storage.load(parent);
-        if (idx == null) {
-            return Stream.empty();
-        } else {
-            boolean isMaxDepth = parent.depth() >= this.maxDepth;
-            return idx.paths(parent, this.hidden).flatMap(path -> {
-                if (path.isIndex()) {
-                    return isMaxDepth ? Stream.empty() : allPaths(path);
-                } else {
-                    return Stream.of(path);
-                }
-            });
+        return null;
+    }
+
+    /**
+     * Compares two object paths by depth-first traversal order. At
+     * each level, sub-indices are traversed before objects and each
+     * in name order (same as an index).
+     *
+     * @param a              the first object path
+     * @param b              the second object path
+     *
+     * @return a negative number, zero or a positive number if the
+     *         first path is before, equal to or after the second
+     */
+    private static int compareTraversal(Path a, Path b) {
+        int len = Math.min(a.length(), b.length());
+        for (int i = 0; i < len; i++) {
+            boolean aIndex = i + 1 < a.length() || a.isIndex();
+            boolean bIndex = i + 1 < b.length() || b.isIndex();
+            if (aIndex != bIndex) {
+                return aIndex ? -1 : 1;
+            }
+            int cmp = a.name(i).compareTo(b.name(i));
+            if (cmp != 0) {
+                return cmp;
+            }
         }
+        return Integer.compare(a.length(), b.length());
     }
 
     /**
@@ -167,10 +265,20 @@ public class Query {
      * @return the stream of matching object paths
      */
     public Stream<Path> paths() {
-        Stream<Path> stream = allPaths(this.base);
+        ArrayList<PropertyFilter> remaining = new ArrayList<>(propFilters);
+        Stream<Path> stream = null;
+        if (this.storage instanceof RootStorage root && this.base.isIndex()) {
+            stream = indexPaths(root, remaining);
+        }
+        if (stream == null) {
+            stream = StreamSupport.stream(new PathSpliterator(this.base), this.parallel);
+        }
         for (Predicate<Path> pred : filters) {
             stream = stream.filter(pred);
         }
+        for (PropertyFilter f : remaining) {
+            stream = stream.filter(path -> f.test(this.storage.load(path)));
+        }
         return stream;
     }
 
@@ -205,7 +313,12 @@ public class Query {
     }
 
     /**
-     * Returns the stream of objects found of a specified type.
+     * Returns the stream of objects found of a specified type. Note
+     * that the type filter isn't pushed down to any property index,
+     * since the object class depends on both the type and the
+     * optional class name property. All matching objects are loaded
+     * and then filtered by class. Use filterProperty() on the object
+     * type key to limit the objects loaded via an index.
      *
      * @param <T>            the type to cast objects to
      * @param clazz          the class required for objects
@@ -215,4 +328,152 @@ public class Query {
     public <T> Stream<T> objects(Class<T> clazz) {
         return objects().filter(clazz::isInstance).map(clazz::cast);
     }
+
+
+    /**
+     * An object property filter.
+     */
+    private static class PropertyFilter {
+
+        /**
+         * The object property key.
+         */
+        private String key;
+
+        /**
+         * The normalized property value (or prefix).
+         */
+        private String value;
+
+        /**
+         * The prefix match flag.
+         */
+        private boolean prefix;
+
+        /**
+         * Creates a new object property filter.
+         *
+         * @param key            the object property key
+         * @param value          the value (or prefix) to match
+         * @param prefix         the prefix match flag
+         */
+        PropertyFilter(String key, String value, boolean prefix) {
+            this.key = key;
+            this.value = (value == null) ? "" : value.toLowerCase();
+            this.prefix = prefix;
+        }
+
+        /**
+         * Checks if an object matches this filter.
+         *
+         * @param obj            the object to check
+         *
+         * @return true if the object matches, or false otherwise
+         */
+        public boolean test(Object obj) {
+            String str = PropertyIndex.value(obj, key);
+            return str != null && (prefix ? str.startsWith(value) : str.equals(value));
+        }
+    }
+
+    /**
+     * A depth-first object path spliterator. Indices are expanded on
+     * demand, so that only the index tree needs to be traversed. When
+     * split, the pending paths (normally sub-indices) are divided
+     * into two halves.
+     */
+    private class PathSpliterator implements Spliterator<Path> {
+
+        /**
+         * The pending object and index paths, in traversal order.
+         */
+        private ArrayDeque<Path> pending = new ArrayDeque<>();
+
+        /**
+         * Creates a new path spliterator for a single path.
+         *
+         * @param path           the index or object path
+         */
+        PathSpliterator(Path path) {
+            if (path != null) {
+                pending.add(path);
+            }
+        }
+
+        /**
+         * Creates a new path spliterator for a list of paths.
+         *
+         * @param paths          the index or object paths
+         */
+        PathSpliterator(List<Path> paths) {
+            pending.addAll(paths);
+        }
+
+        /**
+         * Expands the first pending path, if it is an index. The
+         * index contents will be inserted first in the pending queue.
+         *
+         * @return true if an index was expanded, or false otherwise
+         */
+        private boolean expand() {
+            Path parent = pending.peekFirst();
+            if (parent == null || !parent.isIndex()) {
+                return false;
+            }
+            pending.removeFirst();
+            Index idx = (Index) storage.load(parent);
+            if (idx != null) {
+                boolean isMaxDepth = parent.depth() >= maxDepth;
+                Path[] paths = idx.paths(parent, hidden)
+                    .filter(path -> !(isMaxDepth && path.isIndex()))
+                    .toArray(Path[]::new);
+                for (int i = paths.length - 1; i >= 0; i--) {
+                    pending.addFirst(paths[i]);
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Path> action) {
+            while (expand()) {
+                // Expand indices until an object is found
+            }
+            Path path = pending.pollFirst();
+            if (path != null) {
+                action.accept(path);
+            }
+            return path != null;
+        }
+
+        @Override
+        public Spliterator<Path> trySplit() {
+            if (pending.size() == 1) {
+                expand();
+            }
+            int size = pending.size() / 2;
+            if (size <= 0) {
+                return null;
+            }
+            ArrayList<Path> prefix = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                prefix.add(pending.removeFirst());
+            }
+            return new PathSpliterator(prefix);
+        }
+
+        @Override
+        public long estimateSize() {
+            long size = 0;
+            for (Path path : pending) {
+                size += path.isIndex() ? 64 : 1;
+            }
+            return size;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | DISTINCT | NONNULL;
+        }
+    }
 }
@@ -16,6 +16,9 @@ package org.rapidcontext.core.storage;
 
 import java.io.File;
 import java.lang.reflect.Constructor;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Stream;
@@ -84,6 +87,24 @@ public class RootStorage extends MemoryStorage {
      */
     private Caches caches = new Caches();
 
+    /**
+     * The secondary property indices declared.
+     */
+    private CopyOnWriteArrayList<PropertyIndex> propertyIndices = new CopyOnWriteArrayList<>();
+
+    /**
+     * The modification counters for top-level paths. Indexed by the
+     * lower-case name of the top-level path element, with an empty
+     * name for the root path counter (increased on all changes).
+     */
+    private ConcurrentHashMap<String,AtomicLong> modCounts = new ConcurrentHashMap<>();
+
+    /**
+     * The modification counter for mount changes. Also increased for
+     * any direct modification of a mounted storage.
+     */
+    private AtomicLong mountCount = new AtomicLong();
+
     /**
      * Checks if a path corresponds to a known binary file path.
      *
@@ -149,6 +170,35 @@ public class RootStorage extends MemoryStorage {
             .filter(storage -> storage.path().startsWith(path));
     }
 
+    /**
+     * Returns the local file system location for a path. The location
+     * is only available if the first writable storage for the path
+     * (i.e. where new data would be stored) is a directory storage.
+     *
+     * @param path           the storage location
+     *
+     * @return the local file or directory for the path, or
+     *         null if not stored in a directory storage
+     */
+    public File localFile(Path path) {
+        lock.lock();
+        try {
+            for (Object o : mountedStorages) {
+                Storage storage = (Storage) o;
+                Path overlay = storage.mountOverlayPath();
+                if (overlay != null && path.startsWith(overlay) && storage.isReadWrite()) {
+                    if (storage instanceof DirStorage ds) {
+                        return ds.toFile(path.removePrefix(overlay));
+                    }
+                    return null;
+                }
+            }
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
     /**
      * Returns the mounted storage with the exact storage path.
      *
@@ -163,6 +213,104 @@ public class RootStorage extends MemoryStorage {
             .orElse(null);
     }
 
+    /**
+     * Declares a secondary property index for objects under a base
+     * path. The index is built on first use and is then kept in sync
+     * on each store and remove. Storage queries filtering on the
+     * property will use the index instead of scanning all objects.
+     *
+     * @param base           the base path for indexed objects
+     * @param key            the object property key to index
+     *
+     * @see Query#filterProperty(String, String)
+     */
+    public void addPropertyIndex(Path base, String key) {
+        lock.lock();
+        try {
+            boolean exists = propertyIndices.stream()
+                .anyMatch(idx -> idx.base().equals(base) && idx.key().equals(key));
+            if (!exists) {
+                LOG.fine("adding property index on " + base + " for '" + key + "'");
+                propertyIndices.add(new PropertyIndex(base, key));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns a property index matching a query.
+     *
+     * @param base           the query base path
+     * @param key            the object property key
+     *
+     * @return the property index found, or null if not found
+     */
+    PropertyIndex findPropertyIndex(Path base, String key) {
+        for (PropertyIndex idx : propertyIndices) {
+            if (idx.covers(base, key)) {
+                return idx;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Clears all property indices, forcing rebuilds on next use.
+     * This is called whenever the set of mounted storages change.
+     */
+    private void propertyIndexClear() {
+        propertyIndices.forEach(PropertyIndex::clear);
+    }
+
+    /**
+     * Returns the modification counter for a top-level path. The
+     * counter is increased on each store or remove below the
+     * top-level path element (e.g. "/files/"), and on all storage
+     * mount changes. The counter for the root path spans all
+     * top-level paths, and is increased on any store or remove. This
+     * can be used to invalidate data derived from storage contents,
+     * without having to subscribe to any storage events.
+     *
+     * @param path           the storage path to check
+     *
+     * @return the current modification counter value
+     */
+    public long modCount(Path path) {
+        AtomicLong counter = modCounts.get(topName(path));
+        return mountCount.get() + ((counter == null) ? 0L : counter.get());
+    }
+
+    /**
+     * Increases the modification counter for a path.
+     *
+     * @param path           the storage path modified
+     */
+    private void modified(Path path) {
+        if (path.startsWith(PATH_STORAGE)) {
+            mountCount.incrementAndGet();
+        } else {
+            String name = topName(path);
+            modCounts.computeIfAbsent(name, k -> new AtomicLong()).incrementAndGet();
+            if (!name.isEmpty()) {
+                modCounts.computeIfAbsent("", k -> new AtomicLong()).incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Returns the normalized name of the top-level path element.
+     *
+     * @param path           the storage path
+     *
+     * @return the lower-case top-level path element name
+     */
+    private static String topName(Path path) {
+        String ident = path.toIdent(0);
+        int pos = ident.indexOf('/');
+        return ((pos < 0) ? ident : ident.substring(0, pos)).toLowerCase();
+    }
+
     /**
      * Mounts a storage to a unique path. The path may not collide
      * with a previously mounted storage, such that it would hide or
@@ -176,27 +324,34 @@ public class RootStorage extends MemoryStorage {
      *
      * @throws StorageException if the storage couldn't be mounted
      */
-    public synchronized void mount(Storage storage, Path path)
+    public void mount(Storage storage, Path path)
     throws StorageException {
 
-        if (!path.isIndex()) {
-            String msg = "cannot mount storage to a non-index path: " + path;
-            LOG.warning(msg);
-            throw new StorageException(msg);
-        } else if (!path.startsWith(PATH_STORAGE)) {
-            String msg = "cannot mount storage to a non-storage path: " + path;
-            LOG.warning(msg);
-            throw new StorageException(msg);
-        } else if (super.lookup(path) != null) {
-            String msg = "storage mount path conflicts with another mount: " + path;
-            LOG.warning(msg);
-            throw new StorageException(msg);
+        lock.lock();
+        try {
+            if (!path.isIndex()) {
+                String msg = "cannot mount storage to a non-index path: " + path;
+                LOG.warning(msg);
+                throw new StorageException(msg);
+            } else if (!path.startsWith(PATH_STORAGE)) {
+                String msg = "cannot mount storage to a non-storage path: " + path;
+                LOG.warning(msg);
+                throw new StorageException(msg);
+            } else if (super.lookup(path) != null) {
+                String msg = "storage mount path conflicts with another mount: " + path;
+                LOG.warning(msg);
+                throw new StorageException(msg);
+            }
+            LOG.fine("mounting " + storage);
+            storage.setMountInfo(path, false, null, 0);
+            mountedStorages.add(storage);
+            mountedStorages.sort();
+            metadataMount(path);
+            propertyIndexClear();
+            mountCount.incrementAndGet();
+        } finally {
+            lock.unlock();
         }
-        LOG.fine("mounting " + storage);
-        storage.setMountInfo(path, false, null, 0);
-        mountedStorages.add(storage);
-        mountedStorages.sort();
-        metadataMount(path);
     }
 
     /**
@@ -213,25 +368,32 @@ public class RootStorage extends MemoryStorage {
      *
      * @throws StorageException if the storage couldn't be remounted
      */
-    public synchronized void remount(Path path,
-                                     boolean readWrite,
-                                     Path cache,
-                                     Path overlay,
-                                     int prio)
+    public void remount(Path path,
+                        boolean readWrite,
+                        Path cache,
+                        Path overlay,
+                        int prio)
     throws StorageException {
 
-        Storage storage = getMountedStorage(path);
-        if (storage == null) {
-            String msg = "no mounted storage found matching path: " + path;
-            LOG.warning(msg);
-            throw new StorageException(msg);
+        lock.lock();
+        try {
+            Storage storage = getMountedStorage(path);
+            if (storage == null) {
+                String msg = "no mounted storage found matching path: " + path;
+                LOG.warning(msg);
+                throw new StorageException(msg);
+            }
+            LOG.fine("remounting " + storage);
+            metadataUnmount(storage.mountOverlayPath());
+            storage.setMountInfo(storage.path(), readWrite, overlay, prio);
+            mountedStorages.sort();
+            metadataMount(storage.mountOverlayPath());
+            cacheRemount(storage.path(), cache);
+            propertyIndexClear();
+            mountCount.incrementAndGet();
+        } finally {
+            lock.unlock();
         }
-        LOG.fine("remounting " + storage);
-        metadataUnmount(storage.mountOverlayPath());
-        storage.setMountInfo(storage.path(), readWrite, overlay, prio);
-        mountedStorages.sort();
-        metadataMount(storage.mountOverlayPath());
-        cacheRemount(storage.path(), cache);
     }
 
     /**
@@ -243,34 +405,46 @@ public class RootStorage extends MemoryStorage {
      *
      * @throws StorageException if the storage couldn't be unmounted
      */
-    public synchronized void unmount(Path path) throws StorageException {
-        Storage storage = getMountedStorage(path);
-        if (storage == null) {
-            String msg = "no mounted storage found matching path: " + path;
-            LOG.warning(msg);
-            throw new StorageException(msg);
+    public void unmount(Path path) throws StorageException {
+        lock.lock();
+        try {
+            Storage storage = getMountedStorage(path);
+            if (storage == null) {
+                String msg = "no mounted storage found matching path: " + path;
+                LOG.warning(msg);
+                throw new StorageException(msg);
+            }
+            LOG.fine("unmounting " + storage);
+            mountedStorages.remove(storage);
+            metadataUnmount(storage.path());
+            metadataUnmount(storage.mountOverlayPath());
+            storage.setMountInfo(storage.path(), storage.isReadWrite(), null, 0);
+            cacheRemount(storage.path(), null);
+            propertyIndexClear();
+            mountCount.incrementAndGet();
+            storage.destroy();
+        } finally {
+            lock.unlock();
         }
-        LOG.fine("unmounting " + storage);
-        mountedStorages.remove(storage);
-        metadataUnmount(storage.path());
-        metadataUnmount(storage.mountOverlayPath());
-        storage.setMountInfo(storage.path(), storage.isReadWrite(), null, 0);
-        cacheRemount(storage.path(), null);
-        storage.destroy();
     }
 
     /**
      * Unmounts and destroys all mounted storages.
      */
-    public synchronized void unmountAll() {
-        while (mountedStorages.size() > 0) {
-            Storage storage = mountedStorages.get(-1, Storage.class);
-            try {
-                unmount(storage.path());
-            } catch (Exception e) {
-                String msg = "failed to unmount storage at " + storage.path();
-                LOG.log(Level.WARNING, msg, e);
+    public void unmountAll() {
+        lock.lock();
+        try {
+            while (mountedStorages.size() > 0) {
+                Storage storage = mountedStorages.get(-1, Storage.class);
+                try {
+                    unmount(storage.path());
+                } catch (Exception e) {
+                    String msg = "failed to unmount storage at " + storage.path();
+                    LOG.log(Level.WARNING, msg, e);
+                }
             }
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -330,24 +504,29 @@ public class RootStorage extends MemoryStorage {
      * @return the metadata for the object, or null if not found
      */
     @Override
-    public synchronized Metadata lookup(Path path) {
-        if (path.startsWith(PATH_STORAGE)) {
-            Metadata meta = caches.lookup(null, path);
-            for (Object o : mountedStorages) {
-                Storage storage = (Storage) o;
-                if (meta == null && path.startsWith(storage.path())) {
-                    meta = storage.lookup(storage.localPath(path));
+    public Metadata lookup(Path path) {
+        lock.lock();
+        try {
+            if (path.startsWith(PATH_STORAGE)) {
+                Metadata meta = caches.lookup(null, path);
+                for (Object o : mountedStorages) {
+                    Storage storage = (Storage) o;
+                    if (meta == null && path.startsWith(storage.path())) {
+                        meta = storage.lookup(storage.localPath(path));
+                    }
                 }
+                return (meta == null) ? super.lookup(path) : new Metadata(path, meta);
+            } else {
+                boolean managed = path.isIndex() || path.equals(PATH_STORAGEINFO);
+                Metadata meta = managed ? super.lookup(path) : null;
+                for (Object o : mountedStorages) {
+                    meta = Metadata.merge(meta, lookupOverlay((Storage) o, path));
+                }
+                LOG.fine("metadata lookup on " + path + ": " + meta);
+                return meta;
             }
-            return (meta == null) ? super.lookup(path) : new Metadata(path, meta);
-        } else {
-            boolean managed = path.isIndex() || path.equals(PATH_STORAGEINFO);
-            Metadata meta = managed ? super.lookup(path) : null;
-            for (Object o : mountedStorages) {
-                meta = Metadata.merge(meta, lookupOverlay((Storage) o, path));
-            }
-            LOG.fine("metadata lookup on " + path + ": " + meta);
-            return meta;
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -385,7 +564,11 @@ public class RootStorage extends MemoryStorage {
      * Loads an object from the specified location. The path may
      * locate either an index or a specific object. In case of an
      * index, the data returned is an index dictionary listing of
-     * all objects in it.
+     * all objects in it.<p>
+     *
+     * Objects in overlay storages supporting concurrent reads will
+     * be read and unserialized without holding the storage lock, so
+     * that such loads may proceed in parallel.
      *
      * @param path           the storage location
      *
@@ -393,35 +576,61 @@ public class RootStorage extends MemoryStorage {
      *         null if not found
      */
     @Override
-    public synchronized Object load(Path path) {
-        if (path.startsWith(PATH_STORAGE)) {
-            Object res = caches.load(null, path);
+    public Object load(Path path) {
+        if (path.startsWith(PATH_STORAGE) || path.equals(PATH_STORAGEINFO) || path.isIndex()) {
+            return loadLocked(path);
+        }
+        Storage[] storages;
+        lock.lock();
+        try {
+            storages = mountedStorages.stream(Storage.class).toArray(Storage[]::new);
+        } finally {
+            lock.unlock();
+        }
+        for (Storage storage : storages) {
+            Object res = loadOverlayObject(storage, path);
             if (res != null) {
                 return res;
             }
-            for (Object o : mountedStorages) {
-                Storage storage = (Storage) o;
-                if (path.startsWith(storage.path())) {
-                    return storage.load(storage.localPath(path));
-                }
-            }
-            return super.load(path);
-        } else if (path.equals(PATH_STORAGEINFO)) {
-            return StorableObject.sterilize(super.load(path), true, true, true);
-        } else if (path.isIndex()) {
-            Index idx = (Index) super.load(path);
-            for (Object o : mountedStorages) {
-                idx = Index.merge(idx, loadOverlayIndex((Storage) o, path));
-            }
-            return idx;
-        } else {
-            for (Object o : mountedStorages) {
-                Object res = loadOverlayObject((Storage) o, path);
+        }
+        return null;
+    }
+
+    /**
+     * Loads an index or a storage object from the specified location.
+     * This method holds the storage lock during the whole operation.
+     *
+     * @param path           the storage location
+     *
+     * @return the data read, or
+     *         null if not found
+     */
+    private Object loadLocked(Path path) {
+        lock.lock();
+        try {
+            if (path.startsWith(PATH_STORAGE)) {
+                Object res = caches.load(null, path);
                 if (res != null) {
                     return res;
                 }
+                for (Object o : mountedStorages) {
+                    Storage storage = (Storage) o;
+                    if (path.startsWith(storage.path())) {
+                        return storage.load(storage.localPath(path));
+                    }
+                }
+                return super.load(path);
+            } else if (path.equals(PATH_STORAGEINFO)) {
+                return StorableObject.sterilize(super.load(path), true, true, true);
+            } else {
+                Index idx = (Index) super.load(path);
+                for (Object o : mountedStorages) {
+                    idx = Index.merge(idx, loadOverlayIndex((Storage) o, path));
+                }
+                return idx;
             }
-            return null;
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -455,7 +664,12 @@ public class RootStorage extends MemoryStorage {
      * Loads an object from an overlay storage. The storage cache
      * will be used primarily, if it exists. If an object is found in
      * the storage that can be cached, it will be initialized and
-     * cached.
+     * cached. For storages supporting concurrent reads, the data is
+     * read outside of the storage lock. Such data is only cached if
+     * the path modification counter is unchanged once the lock has
+     * been re-acquired. Otherwise the data is re-read with the lock
+     * held, so that a concurrent store or remove isn't overwritten
+     * by a stale cache entry.
      *
      * @param storage        the storage to load from
      * @param path           the storage location
@@ -467,24 +681,69 @@ public class RootStorage extends MemoryStorage {
         Path overlay = storage.mountOverlayPath();
         if (overlay == null || !path.startsWith(overlay)) {
             return null;
-        } else {
-            Path storagePath = storage.path();
-            Path queryPath = path.removePrefix(overlay);
-            Object res = caches.load(storagePath, queryPath);
-            if (res instanceof StorableObject) {
+        }
+        Path storagePath = storage.path();
+        Path queryPath = path.removePrefix(overlay);
+        long mod;
+        lock.lock();
+        try {
+            Object cached = caches.load(storagePath, queryPath);
+            if (cached instanceof StorableObject) {
                 LOG.fine("loaded cached object " + queryPath + " from " + storagePath);
-                return res;
-            }
-            res = storage.load(queryPath);
-            if (res instanceof Dict d && isObjectPath(queryPath) && isCached(storagePath)) {
-                res = initObject(queryPath.toIdent(1), queryPath.name(0), d);
-                caches.store(storagePath, queryPath, res);
+                return cached;
+            } else if (!storage.isConcurrent()) {
+                return initOverlayObject(storagePath, queryPath, storage.load(queryPath));
             }
+            mod = modCount(path);
+        } finally {
+            lock.unlock();
+        }
+        Object res = storage.load(queryPath);
+        if (!(res instanceof Dict)) {
             if (res != null) {
                 LOG.fine("loaded " + queryPath + " from " + storagePath + ": " + res);
             }
             return res;
         }
+        lock.lock();
+        try {
+            Object cached = caches.load(storagePath, queryPath);
+            if (cached instanceof StorableObject) {
+                LOG.fine("loaded cached object " + queryPath + " from " + storagePath);
+                return cached;
+            } else if (modCount(path) != mod) {
+                LOG.fine("modified during read, reloading " + queryPath + " from " + storagePath);
+                res = storage.load(queryPath);
+            }
+            return initOverlayObject(storagePath, queryPath, res);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Initializes and caches an object loaded from an overlay storage.
+     * Only dictionary objects on object paths in cached storages are
+     * initialized, other objects are returned as-is. This method must
+     * be called with the storage lock held.
+     *
+     * @param storagePath    the storage path
+     * @param queryPath      the local storage path
+     * @param data           the data loaded
+     *
+     * @return the initialized object, or
+     *         the data object if not initialized
+     */
+    private Object initOverlayObject(Path storagePath, Path queryPath, Object data) {
+        Object res = data;
+        if (data instanceof Dict d && isObjectPath(queryPath) && isCached(storagePath)) {
+            res = initObject(queryPath.toIdent(1), queryPath.name(0), d);
+            caches.store(storagePath, queryPath, res);
+        }
+        if (res != null) {
+            LOG.fine("loaded " + queryPath + " from " + storagePath + ": " + res);
+        }
+        return res;
     }
 
     /**
@@ -539,47 +798,57 @@ public class RootStorage extends MemoryStorage {
      * @throws StorageException if the data couldn't be written
      */
     @Override
-    public synchronized void store(Path path, Object data) throws StorageException {
-        boolean isBinary = data instanceof Binary || data instanceof File;
-        if (!isBinary && !path.name().contains(".")) {
-            Metadata meta = lookup(path);
-            path = serializedPath(path, (meta == null) ? null : meta.mimeType());
-        }
-        if (path.startsWith(PATH_STORAGE)) {
-            if (caches.store(null, path, data)) {
-                return;
+    public void store(Path path, Object data) throws StorageException {
+        lock.lock();
+        try {
+            boolean isBinary = data instanceof Binary || data instanceof File;
+            if (!isBinary && !path.name().contains(".")) {
+                Metadata meta = lookup(path);
+                path = serializedPath(path, (meta == null) ? null : meta.mimeType());
             }
-            for (Object o : mountedStorages) {
-                Storage storage = (Storage) o;
-                if (path.startsWith(storage.path())) {
-                    Path localPath = storage.localPath(path);
-                    caches.store(storage.path(), localPath, data);
-                    storage.store(localPath, data);
+            modified(path);
+            if (path.startsWith(PATH_STORAGE)) {
+                propertyIndexClear();
+                if (caches.store(null, path, data)) {
                     return;
                 }
-            }
-            throw new StorageException("no mounted storage found for " + path);
-        } else {
-            boolean stored = false;
-            for (Object o : mountedStorages) {
-                Storage storage = (Storage) o;
-                Path overlay = storage.mountOverlayPath();
-                if (overlay != null && path.startsWith(overlay)) {
-                    Path localPath = path.removePrefix(overlay);
-                    if (storage.isReadWrite() && !stored) {
+                for (Object o : mountedStorages) {
+                    Storage storage = (Storage) o;
+                    if (path.startsWith(storage.path())) {
+                        Path localPath = storage.localPath(path);
                         caches.store(storage.path(), localPath, data);
                         storage.store(localPath, data);
-                        stored = true;
-                    } else {
-                        caches.remove(storage.path(), localPath, true);
+                        return;
                     }
                 }
-            }
-            if (stored) {
-                LOG.fine("stored " + path);
+                throw new StorageException("no mounted storage found for " + path);
             } else {
-                throw new StorageException("no writable storage found for " + path);
+                boolean stored = false;
+                for (Object o : mountedStorages) {
+                    Storage storage = (Storage) o;
+                    Path overlay = storage.mountOverlayPath();
+                    if (overlay != null && path.startsWith(overlay)) {
+                        Path localPath = path.removePrefix(overlay);
+                        if (storage.isReadWrite() && !stored) {
+                            caches.store(storage.path(), localPath, data);
+                            storage.store(localPath, data);
+                            stored = true;
+                        } else {
+                            caches.remove(storage.path(), localPath, true);
+                        }
+                    }
+                }
+                if (stored) {
+                    LOG.fine("stored " + path);
+                    for (PropertyIndex idx : propertyIndices) {
+                        idx.update(path, data);
+                    }
+                } else {
+                    throw new StorageException("no writable storage found for " + path);
+                }
             }
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -593,34 +862,44 @@ public class RootStorage extends MemoryStorage {
      * @throws StorageException if the data couldn't be removed
      */
     @Override
-    public synchronized void remove(Path path) throws StorageException {
-        if (path.startsWith(PATH_STORAGE)) {
-            if (caches.remove(null, path, true)) {
-                return;
-            }
-            for (Object o : mountedStorages) {
-                Storage storage = (Storage) o;
-                if (path.startsWith(storage.path())) {
-                    Path localPath = storage.localPath(path);
-                    caches.remove(storage.path(), localPath, true);
-                    storage.remove(localPath);
+    public void remove(Path path) throws StorageException {
+        lock.lock();
+        try {
+            modified(path);
+            if (path.startsWith(PATH_STORAGE)) {
+                propertyIndexClear();
+                if (caches.remove(null, path, true)) {
                     return;
                 }
-            }
-            throw new StorageException("no mounted storage found for " + path);
-        } else {
-            for (Object o : mountedStorages) {
-                Storage storage = (Storage) o;
-                Path overlay = storage.mountOverlayPath();
-                if (overlay != null && path.startsWith(overlay)) {
-                    Path localPath = path.removePrefix(overlay);
-                    caches.remove(storage.path(), localPath, true);
-                    if (storage.isReadWrite()) {
+                for (Object o : mountedStorages) {
+                    Storage storage = (Storage) o;
+                    if (path.startsWith(storage.path())) {
+                        Path localPath = storage.localPath(path);
+                        caches.remove(storage.path(), localPath, true);
                         storage.remove(localPath);
+                        return;
                     }
                 }
+                throw new StorageException("no mounted storage found for " + path);
+            } else {
+                for (Object o : mountedStorages) {
+                    Storage storage = (Storage) o;
+                    Path overlay = storage.mountOverlayPath();
+                    if (overlay != null && path.startsWith(overlay)) {
+                        Path localPath = path.removePrefix(overlay);
+                        caches.remove(storage.path(), localPath, true);
+                        if (storage.isReadWrite()) {
+                            storage.remove(localPath);
+                        }
+                    }
+                }
+                for (PropertyIndex idx : propertyIndices) {
+                    idx.remove(path);
+                }
+                LOG.fine("removed " + path);
             }
-            LOG.fine("removed " + path);
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -210,6 +210,23 @@ public abstract class Storage extends StorableObject implements Comparable<Stora
         if (Vault.canExpand(path)) {
             text = Vault.expand(text);
         }
+        return unserialize(filename, text);
+    }
+
+    /**
+     * Unserializes a text into a data object. No variable expansion
+     * is performed.
+     *
+     * @param filename       the filename (to choose format)
+     * @param text           the text to parse
+     *
+     * @return the object read, or null if not supported
+     *
+     * @throws IOException if the unserialization failed
+     */
+    protected static Object unserialize(String filename, String text)
+    throws IOException {
+
         if (Strings.CI.endsWith(filename, EXT_PROPERTIES)) {
             return PropertiesSerializer.unserialize(text);
         } else if (Strings.CI.endsWith(filename, EXT_JSON)) {
@@ -298,6 +315,19 @@ public abstract class Storage extends StorableObject implements Comparable<Stora
         return dict.get(KEY_READWRITE, Boolean.class, false);
     }
 
+    /**
+     * Checks if this storage supports concurrent loads and lookups.
+     * A storage returning true here must be safe to read from several
+     * threads at once, without any external locking. The default
+     * implementation returns false.
+     *
+     * @return true if concurrent reads are supported, or
+     *         false otherwise
+     */
+    public boolean isConcurrent() {
+        return false;
+    }
+
     /**
      * Returns the storage mount time.
      *
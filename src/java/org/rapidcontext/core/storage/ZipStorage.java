@@ -14,25 +14,28 @@
 
 package org.rapidcontext.core.storage;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.security.NoSuchAlgorithmException;
 import java.util.Date;
-import java.util.Enumeration;
 import java.util.HashMap;
-import java.util.Objects;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.stream.Stream;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipFile;
 
 import org.apache.commons.lang3.Strings;
 import org.rapidcontext.core.data.Binary;
 import org.rapidcontext.core.data.Dict;
+import org.rapidcontext.core.type.Vault;
 import org.rapidcontext.core.web.Mime;
 import org.rapidcontext.util.BinaryUtil;
+import org.rapidcontext.util.FileUtil;
 
 /**
  * A persistent data storage and retrieval handler based on a ZIP
@@ -40,8 +43,20 @@ import org.rapidcontext.util.BinaryUtil;
  * files depending on the file extension. The property files are
  * converted to dictionary object on retrieval.<p>
  *
+ * The ZIP file is memory-mapped and the central directory is kept
+ * as compact sorted arrays. Index objects are created lazily on the
+ * first lookup. Stored (uncompressed) entries are read directly from
+ * the mapped file, while small compressed entries and the parsed
+ * dictionaries are kept in a small LRU cache.<p>
+ *
  * Note: This storage is read-only. Unpack the ZIP file and use a
- * DirStorage for read-write access.
+ * DirStorage for read-write access.<p>
+ *
+ * Note: The memory mapping cannot be released explicitly. It is only
+ * unmapped once the mapped buffer (and any entry data or streams read
+ * from it) has been garbage collected, although all references are
+ * dropped when the storage is destroyed. On Windows, the ZIP file
+ * cannot be overwritten or deleted in place until then.
  *
  * @author Per Cederberg
  */
@@ -60,22 +75,55 @@ public class ZipStorage extends Storage {
     public static final String KEY_FILE = "file";
 
     /**
-     * The ZIP file used for locating resources.
+     * The maximum size (in bytes) of an inflated entry to cache.
+     */
+    private static final int CACHE_MAX_ENTRY = 64 * 1024;
+
+    /**
+     * The maximum total size (in bytes) of the cached entries.
+     */
+    private static final int CACHE_MAX_BYTES = 4 * 1024 * 1024;
+
+    /**
+     * The ZIP entry name prefixes included in the catalog image.
+     */
+    private static final String[] CATALOG_PREFIXES = {
+        "type/", "role/", "procedure/", "webservice/"
+    };
+
+    /**
+     * The memory-mapped ZIP file used for locating resources. Replaced
+     * by an empty ZIP file once destroyed.
+     */
+    private volatile MappedZipFile zip;
+
+    /**
+     * The lazily created index objects. Indexed by storage path.
+     */
+    private ConcurrentHashMap<Path,Index> indices = new ConcurrentHashMap<>();
+
+    /**
+     * The relocated entries. Maps the storage paths to the actual
+     * ZIP entry paths.
+     */
+    private HashMap<Path,Path> relocated = new HashMap<>();
+
+    /**
+     * The cache of inflated entry data and parsed dictionaries.
+     * Indexed by ZIP entry index (negative for dictionaries).
      */
-    protected ZipFile zip;
+    private EntryCache cache = new EntryCache(CACHE_MAX_BYTES);
 
     /**
-     * The ZIP storage paths (identity) map. This is used to normalize paths
-     * for case-insensitive matching. HashMap objects don't allow fast access
-     * to hash keys or entries (only values), so a separate map is required.
+     * The cache of SHA-256 hashes. Indexed by ZIP entry index.
      */
-    protected HashMap<Path,Path> paths = new HashMap<>();
+    private ConcurrentHashMap<Integer,String> hashes = new ConcurrentHashMap<>();
 
     /**
-     * The ZIP entries and index map. Indexed by the storage path and
-     * linked to either the Index or the ZipEntry objects.
+     * The parsed catalog objects from the catalog image, or null if
+     * not available. Indexed by ZIP entry name.
      */
-    protected HashMap<Path,Object> entries = new HashMap<>();
+    private volatile Map<String,Dict> catalog = null;
 
     /**
      * Creates a new read-only ZIP file storage.
@@ -87,57 +135,83 @@ public class ZipStorage extends Storage {
     public ZipStorage(File zipFile) throws IOException {
         super(Strings.CS.removeEnd(zipFile.getName(), ".zip"), "zip", false);
         dict.set(KEY_FILE, zipFile);
-        this.zip = new ZipFile(zipFile);
-        init();
+        this.zip = new MappedZipFile(zipFile);
     }
 
     /**
-     * Initializes this object. This method locates all the ZIP file
-     * entries and creates all the index objects.
+     * Destroys this object. This method is used to free any
+     * resources used when this object is no longer used.
+     *
+     * @throws StorageException if the destruction failed
      */
     @Override
-    public final void init() {
-        Index root = new Index(new Date(file().lastModified()));
-        root.addObject(PATH_STORAGEINFO.name());
-        paths.put(Path.ROOT, Path.ROOT);
-        entries.put(Path.ROOT, root);
-        Enumeration<? extends ZipEntry> e = zip.entries();
-        while (e.hasMoreElements()) {
-            ZipEntry entry = e.nextElement();
-            String name = entry.getName();
-            if (entry.isDirectory() && !name.endsWith("/")) {
-                name += "/";
+    public void destroy() throws StorageException {
+        zip = MappedZipFile.EMPTY;
+        indices.clear();
+        cache.clear();
+        hashes.clear();
+        catalog = null;
+    }
+
+    /**
+     * Loads the parsed catalog objects from an image file. If the
+     * image file is missing or outdated (i.e. the ZIP file has been
+     * modified), all the catalog objects are parsed and a new image
+     * file is written. Objects found in the catalog image are never
+     * reparsed, unless they allow variable expansion. Any errors are
+     * logged and the storage falls back to parsing each object on
+     * load.
+     *
+     * @param imageFile      the catalog image file to use
+     */
+    public void loadCatalog(File imageFile) {
+        File file = file();
+        String fingerprint = file.getName() + ":" + file.length() + ":" +
+                             file.lastModified() + ":" + zip.size();
+        Map<String,Dict> res = CatalogImage.read(imageFile, fingerprint);
+        if (res == null) {
+            TreeMap<String,Dict> parsed = new TreeMap<>();
+            for (String prefix : CATALOG_PREFIXES) {
+                for (int i = zip.first(prefix); zip.startsWith(i, prefix); i++) {
+                    String name = zip.name(i);
+                    if (isCatalogFile(name)) {
+                        try (InputStream is = zip.open(i)) {
+                            if (unserialize(name, FileUtil.readText(is)) instanceof Dict d) {
+                                parsed.put(name, d);
+                            }
+                        } catch (Exception e) {
+                            LOG.fine("failed to parse " + file + ":" + name + ": " + e.getMessage());
+                        }
+                    }
+                }
             }
-            Path path = Path.from(name);
-            Index idx = (Index) entries.get(path.parent());
-            if (path.isIndex()) {
-                idx.addIndex(path.name());
-                idx = new Index(new Date(entry.getTime()));
-                paths.put(path, path);
-                entries.put(path, idx);
-            } else {
-                idx.addObject(path.name());
-                paths.put(path, path);
-                entries.put(path, entry);
+            try {
+                CatalogImage.write(imageFile, fingerprint, parsed);
+                LOG.fine("wrote catalog image " + imageFile + " with " + parsed.size() + " objects");
+            } catch (IOException e) {
+                LOG.warning("failed to write catalog image " + imageFile + ": " + e.getMessage());
             }
+            res = parsed;
         }
+        catalog = res;
     }
 
     /**
-     * Destroys this object. This method is used to free any
-     * resources used when this object is no longer used.
+     * Checks if a ZIP entry name is a storage data file (and not a
+     * directory or binary file).
      *
-     * @throws StorageException if the destruction failed
+     * @param name           the ZIP entry name
+     *
+     * @return true if the entry is a data file, or
+     *         false otherwise
      */
-    @Override
-    public void destroy() throws StorageException {
-        try {
-            paths.clear();
-            entries.clear();
-            zip.close();
-        } catch (Exception e) {
-            LOG.log(Level.WARNING, "failed to close zip file: " + file(), e);
+    private static boolean isCatalogFile(String name) {
+        for (String ext : EXT_ALL) {
+            if (Strings.CI.endsWith(name, ext)) {
+                return true;
+            }
         }
+        return false;
     }
 
     /**
@@ -149,6 +223,19 @@ public class ZipStorage extends Storage {
         return dict.get(KEY_FILE, File.class);
     }
 
+    /**
+     * Checks if this storage supports concurrent loads and lookups.
+     * The entry arrays are never modified after initialization and
+     * the mapped ZIP file supports concurrent reads, so this is
+     * always true.
+     *
+     * @return true, concurrent reads are always supported
+     */
+    @Override
+    public boolean isConcurrent() {
+        return true;
+    }
+
     /**
      * Searches for an object at the specified location and returns
      * metadata about the object if found. The path may locate either
@@ -163,18 +250,19 @@ public class ZipStorage extends Storage {
     public Metadata lookup(Path path) {
         if (PATH_STORAGEINFO.equals(path)) {
             return new Metadata(Dict.class, PATH_STORAGEINFO, path(), mountTime());
+        } else if (path.isIndex()) {
+            Index idx = index(path);
+            return (idx == null) ? null : new Metadata(Index.class, path, path(), idx.modified());
         }
         Path match = locatePath(path);
-        Object obj = (match == null) ? null : entries.get(match);
-        if (obj instanceof Index idx) {
-            return new Metadata(Index.class, match, path(), idx.modified());
-        } else if (obj instanceof ZipEntry entry) {
-            Date modified = new Date(entry.getTime());
+        int entry = (match == null) ? -1 : entry(match);
+        if (entry >= 0) {
+            Date modified = new Date(zip.time(entry));
             Metadata m = path.equals(match) ?
                 new Metadata(Binary.class, match, path(), modified) :
                 new Metadata(Dict.class, objectPath(match), path(), modified);
-            m.mimeType(Mime.type(entry.getName()));
-            m.size(entry.getSize());
+            m.mimeType(Mime.type(match.name()));
+            m.size(zip.size(entry));
             return m;
         } else {
             return null;
@@ -196,24 +284,31 @@ public class ZipStorage extends Storage {
     public Object load(Path path) {
         if (PATH_STORAGEINFO.equals(path)) {
             return dict;
+        } else if (path.isIndex()) {
+            return index(path);
         }
         Path match = locatePath(path);
-        Object obj = (match == null) ? null : entries.get(match);
-        if (obj instanceof Index) {
-            return obj;
-        } else if (obj instanceof ZipEntry entry) {
-            if (!path.equals(match)) {
-                try (InputStream is = zip.getInputStream(entry)) {
-                    return unserialize(path, entry.getName(), is);
-                } catch (IOException e) {
-                    String msg = "failed to read ZIP file " + zip + ":" + entry;
-                    LOG.log(Level.SEVERE, msg, e);
-                    return null;
-                }
-            } else {
-                return new ZipBinary(entry);
+        int entry = (match == null) ? -1 : entry(match);
+        if (entry < 0) {
+            return null;
+        } else if (path.equals(match)) {
+            return new ZipBinary(entry, match.name());
+        } else if (cache.get(-entry - 1) instanceof Dict d) {
+            return d.copy();
+        }
+        Map<String,Dict> image = catalog;
+        if (image != null && image.get(zip.name(entry)) instanceof Dict d && !Vault.canExpand(path)) {
+            return d.copy();
+        }
+        try (InputStream is = open(entry)) {
+            Object data = unserialize(path, match.name(), is);
+            if (data instanceof Dict d && !Vault.canExpand(path)) {
+                cache.put(-entry - 1, d.copy(), zip.size(entry));
             }
-        } else {
+            return data;
+        } catch (IOException e) {
+            String msg = "failed to read ZIP file " + file() + ":" + zip.name(entry);
+            LOG.log(Level.SEVERE, msg, e);
             return null;
         }
     }
@@ -263,9 +358,251 @@ public class ZipStorage extends Storage {
      *         null if no match was found
      */
     protected Path locatePath(Path path) {
-        Stream<Path> alternatives = Stream.of(EXT_ALL).map(ext -> path.sibling(path.name() + ext));
-        Stream<Path> mapped = Stream.concat(Stream.of(path), alternatives).map(p -> paths.get(p));
-        return mapped.filter(Objects::nonNull).findFirst().orElse(null);
+        if (entry(path) >= 0) {
+            return actualPath(path);
+        }
+        for (String ext : EXT_ALL) {
+            Path p = path.sibling(path.name() + ext);
+            if (entry(p) >= 0) {
+                return actualPath(p);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Relocates a ZIP file entry to another storage path. The entry
+     * will no longer be available at the original path. This method
+     * should only be called from subclass constructors, before the
+     * storage is used.
+     *
+     * @param from           the existing entry path
+     * @param to             the new storage path
+     */
+    protected void relocate(Path from, Path to) {
+        Path src = relocated.getOrDefault(from, from);
+        relocated.put(from, null);
+        relocated.put(to, src);
+        indices.clear();
+    }
+
+    /**
+     * Returns the ZIP entry index for a storage path. Relocated
+     * entries are resolved to the actual ZIP entry.
+     *
+     * @param path           the storage (object) path
+     *
+     * @return the ZIP entry index, or
+     *         -1 if not found
+     */
+    private int entry(Path path) {
+        if (relocated.containsKey(path)) {
+            path = relocated.get(path);
+            if (path == null) {
+                return -1;
+            }
+        }
+        return zip.find(path.toIdent(0));
+    }
+
+    /**
+     * Returns the storage path with the case used in the ZIP file.
+     * Relocated entry paths are returned as-is.
+     *
+     * @param path           the existing storage path
+     *
+     * @return the normalized storage path
+     */
+    private Path actualPath(Path path) {
+        return relocated.containsKey(path) ? path : Path.from(zip.name(entry(path)));
+    }
+
+    /**
+     * Returns the index for a storage path. The index is created on
+     * the first request by scanning the sorted ZIP entry names.
+     *
+     * @param path           the storage index path
+     *
+     * @return the index found, or
+     *         null if not found
+     */
+    private Index index(Path path) {
+        Index idx = indices.get(path);
+        if (idx == null) {
+            idx = createIndex(path);
+            if (idx != null) {
+                indices.putIfAbsent(path, idx);
+            }
+        }
+        return idx;
+    }
+
+    /**
+     * Creates a new index by scanning the ZIP entries with a
+     * matching prefix. Entries in sub-directories are skipped over
+     * with a single binary search per sub-directory.
+     *
+     * @param path           the storage index path
+     *
+     * @return the new index, or
+     *         null if not found
+     */
+    private Index createIndex(Path path) {
+        String prefix = path.toIdent(0).toLowerCase();
+        long modified = path.isRoot() ? file().lastModified() : 0L;
+        boolean found = path.isRoot();
+        Index idx = new Index(new Date(modified));
+        if (path.isRoot()) {
+            idx.addObject(PATH_STORAGEINFO.name());
+        }
+        int pos = zip.first(prefix);
+        while (zip.startsWith(pos, prefix)) {
+            String name = zip.name(pos);
+            String rest = name.substring(prefix.length());
+            int sep = rest.indexOf('/');
+            found = true;
+            if (rest.isEmpty()) {
+                modified = zip.time(pos);
+                pos++;
+            } else if (sep >= 0) {
+                idx.addIndex(rest.substring(0, sep));
+                pos = zip.first(name.substring(0, prefix.length() + sep) + "0");
+            } else {
+                idx.addObject(rest);
+                pos++;
+            }
+        }
+        for (Map.Entry<Path,Path> e : relocated.entrySet()) {
+            Path p = e.getKey();
+            if (p.parent().equals(path)) {
+                found = true;
+                if (e.getValue() == null) {
+                    idx.removeObject(p.name());
+                } else {
+                    idx.addObject(p.name());
+                }
+            } else if (e.getValue() != null && p.startsWith(path)) {
+                found = true;
+                idx.addIndex(p.removePrefix(path).toIdent(0).split("/")[0]);
+            }
+        }
+        if (!found) {
+            return null;
+        }
+        idx.setModified(new Date((modified > 0) ? modified : file().lastModified()));
+        return idx;
+    }
+
+    /**
+     * Opens an input stream for a ZIP entry. Small compressed
+     * entries are inflated in full and cached.
+     *
+     * @param entry          the ZIP entry index
+     *
+     * @return the entry input stream
+     *
+     * @throws IOException if the entry couldn't be read
+     */
+    private InputStream open(int entry) throws IOException {
+        if (zip.method(entry) == MappedZipFile.STORED || zip.size(entry) > CACHE_MAX_ENTRY) {
+            return zip.open(entry);
+        } else if (cache.get(entry) instanceof byte[] data) {
+            return new ByteArrayInputStream(data);
+        }
+        try (InputStream is = zip.open(entry)) {
+            byte[] data = is.readAllBytes();
+            cache.put(entry, data, data.length);
+            return new ByteArrayInputStream(data);
+        }
+    }
+
+
+    /**
+     * A byte-size limited LRU cache for entry data. All methods are
+     * synchronized.
+     */
+    private static class EntryCache extends LinkedHashMap<Integer,Object> {
+
+        /**
+         * The maximum total size (in bytes).
+         */
+        private long maxBytes;
+
+        /**
+         * The current total size (in bytes).
+         */
+        private long bytes = 0L;
+
+        /**
+         * The entry sizes (in bytes).
+         */
+        private HashMap<Integer,Long> sizes = new HashMap<>();
+
+        /**
+         * Creates a new entry cache.
+         *
+         * @param maxBytes       the maximum total size (in bytes)
+         */
+        EntryCache(long maxBytes) {
+            super(16, 0.75f, true);
+            this.maxBytes = maxBytes;
+        }
+
+        /**
+         * Returns a cached value.
+         *
+         * @param key            the cache key
+         *
+         * @return the cached value, or
+         *         null if not found
+         */
+        public synchronized Object get(int key) {
+            return super.get(key);
+        }
+
+        /**
+         * Adds a value to the cache. The least recently used values
+         * are evicted until the total size is within limits.
+         *
+         * @param key            the cache key
+         * @param value          the value to cache
+         * @param size           the (approximate) value size in bytes
+         */
+        public synchronized void put(int key, Object value, long size) {
+            if (size <= maxBytes) {
+                Long prev = sizes.put(key, size);
+                bytes += size - ((prev == null) ? 0L : prev);
+                super.put(key, value);
+            }
+        }
+
+        /**
+         * Clears the cache.
+         */
+        @Override
+        public synchronized void clear() {
+            super.clear();
+            sizes.clear();
+            bytes = 0L;
+        }
+
+        /**
+         * Checks if the eldest entry should be evicted.
+         *
+         * @param eldest         the least recently used entry
+         *
+         * @return always false, since eviction is performed here
+         */
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer,Object> eldest) {
+            Iterator<Map.Entry<Integer,Object>> it = entrySet().iterator();
+            while (bytes > maxBytes && it.hasNext()) {
+                Integer key = it.next().getKey();
+                it.remove();
+                bytes -= sizes.remove(key);
+            }
+            return false;
+        }
     }
 
 
@@ -275,17 +612,24 @@ public class ZipStorage extends Storage {
     private class ZipBinary implements Binary {
 
         /**
-         * The encapsulated ZIP file entry.
+         * The ZIP entry index.
          */
-        private ZipEntry entry;
+        private int entry;
+
+        /**
+         * The ZIP entry file name.
+         */
+        private String name;
 
         /**
          * Creates a new ZIP binary data object.
          *
-         * @param entry          the zip file entry
+         * @param entry          the ZIP entry index
+         * @param name           the ZIP entry file name
          */
-        public ZipBinary(ZipEntry entry) {
+        public ZipBinary(int entry, String name) {
             this.entry = entry;
+            this.name = name;
         }
 
         /**
@@ -296,7 +640,7 @@ public class ZipStorage extends Storage {
          */
         @Override
         public long size() {
-            return entry.getSize();
+            return zip.size(entry);
         }
 
         /**
@@ -307,7 +651,7 @@ public class ZipStorage extends Storage {
          */
         @Override
         public long lastModified() {
-            return entry.getTime();
+            return zip.time(entry);
         }
 
         /**
@@ -319,22 +663,28 @@ public class ZipStorage extends Storage {
          */
         @Override
         public String mimeType() {
-            return Mime.type(entry.getName());
+            return Mime.type(name);
         }
 
         /**
-         * The SHA-256 of the binary data, if known.
+         * The SHA-256 of the binary data, if known. The hash is
+         * only calculated once per ZIP entry.
          *
          * @return the hexadecimal string with the SHA-256 hash, or
          *         null if not available
          */
         @Override
         public String sha256() {
-            try (InputStream input = openStream()) {
-                return BinaryUtil.hashSHA256(input);
-            } catch (NoSuchAlgorithmException | IOException e) {
-                return null;
+            String hash = hashes.get(entry);
+            if (hash == null) {
+                try (InputStream input = openStream()) {
+                    hash = BinaryUtil.hashSHA256(input);
+                    hashes.put(entry, hash);
+                } catch (NoSuchAlgorithmException | IOException e) {
+                    return null;
+                }
             }
+            return hash;
         }
 
         /**
@@ -347,7 +697,7 @@ public class ZipStorage extends Storage {
          */
         @Override
         public InputStream openStream() throws IOException {
-            return zip.getInputStream(entry);
+            return open(entry);
         }
     }
 }
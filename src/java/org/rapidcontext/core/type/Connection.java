@@ -15,12 +15,19 @@
 package org.rapidcontext.core.type;
 
 import java.time.Duration;
+import java.time.Instant;
 import java.util.Date;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.apache.commons.pool2.PooledObject;
 import org.apache.commons.pool2.PooledObjectFactory;
+import org.apache.commons.pool2.PooledObjectState;
 import org.apache.commons.pool2.impl.DefaultPooledObject;
 import org.apache.commons.pool2.impl.GenericObjectPool;
 import org.rapidcontext.core.data.Dict;
@@ -46,9 +53,10 @@ import org.rapidcontext.core.storage.StorageException;
  *   <li><strong>Connection Sharing</strong> -- Communication channel
  *       sharing (multiple tasks sharing the same channel) is also
  *       built-in and easily enabled.
- *   <li><strong>Validation &amp; Keep-Alive</strong> -- All pooled
- *       channels are validated after usage and kept-alive with regular
- *       validation requests when pooled for reuse.
+ *   <li><strong>Validation &amp; Keep-Alive</strong> -- Pooled
+ *       channels are validated when reused after being idle for a
+ *       while, after usage errors, and optionally kept-alive with
+ *       regular background validation requests.
  * </ul>
  *
  * @author Per Cederberg
@@ -71,6 +79,25 @@ public abstract class Connection extends StorableObject {
      */
     public static final String KEY_MAX_IDLE_SECS = "maxIdleSecs";
 
+    /**
+     * The dictionary key for the idle time (in seconds) before a
+     * pooled channel is validated on reuse.
+     */
+    public static final String KEY_VALIDATE_IDLE_SECS = "validateIdleSecs";
+
+    /**
+     * The dictionary key for the background keep-alive interval (in
+     * seconds) for pooled channels.
+     */
+    public static final String KEY_KEEP_ALIVE_SECS = "keepAliveSecs";
+
+    /**
+     * The metrics key suffix for channel validations. Validation
+     * counts and durations are reported separately from the normal
+     * connection usage.
+     */
+    public static final String METRICS_VALIDATE = ":validate";
+
     /**
      * The connection object storage path.
      */
@@ -86,6 +113,12 @@ public abstract class Connection extends StorableObject {
      */
     private static Metrics metrics = null;
 
+    /**
+     * The shared scheduler for background keep-alive validation.
+     * Created on first use.
+     */
+    private static ScheduledExecutorService scheduler = null;
+
     /**
      * The connection channel pool used for managing objects. The
      * pool will be used to create all objects, but only ones
@@ -93,6 +126,22 @@ public abstract class Connection extends StorableObject {
      */
     private GenericObjectPool<Channel> channelPool = null;
 
+    /**
+     * The idle time (in milliseconds) before a pooled channel is
+     * validated on reuse.
+     */
+    private long validateIdleMillis = 0L;
+
+    /**
+     * The scheduled background keep-alive task, or null if disabled.
+     */
+    private ScheduledFuture<?> keepAliveTask = null;
+
+    /**
+     * The peak number of concurrently reserved channels.
+     */
+    private AtomicInteger peakChannels = new AtomicInteger();
+
     /**
      * The timestamp (in milliseconds) of the last usage time. This
      * will be updated on each connection reservation or release. It
@@ -135,6 +184,22 @@ public abstract class Connection extends StorableObject {
         return metrics;
     }
 
+    /**
+     * Returns the shared background scheduler. The scheduler uses
+     * virtual threads for running the tasks, since these mostly
+     * consist of waiting for network responses.
+     *
+     * @return the shared background scheduler
+     */
+    private static synchronized ScheduledExecutorService scheduler() {
+        if (scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofVirtual().name("rapidcontext-keepalive-", 0).factory()
+            );
+        }
+        return scheduler;
+    }
+
     /**
      * Creates a new connection from a serialized representation.
      *
@@ -174,9 +239,14 @@ public abstract class Connection extends StorableObject {
     protected void init() throws StorageException {
         int open = maxOpen();
         int idle = maxIdleSeconds();
+        int validateIdle = validateIdleSeconds();
+        int keepAlive = keepAliveSeconds();
 
         dict.set(PREFIX_COMPUTED + KEY_MAX_OPEN, open);
         dict.set(PREFIX_COMPUTED + KEY_MAX_IDLE_SECS, idle);
+        dict.set(PREFIX_COMPUTED + KEY_VALIDATE_IDLE_SECS, validateIdle);
+        dict.set(PREFIX_COMPUTED + KEY_KEEP_ALIVE_SECS, keepAlive);
+        validateIdleMillis = validateIdle * 1000L;
         channelPool = new GenericObjectPool<>(new ChannelFactory());
         channelPool.setMaxTotal(open);
         channelPool.setMaxIdle(open);
@@ -185,10 +255,16 @@ public abstract class Connection extends StorableObject {
         channelPool.setMinEvictableIdleDuration(Duration.ofSeconds(idle));
         channelPool.setLifo(false);
         channelPool.setTestOnCreate(false);
-        channelPool.setTestOnBorrow(false);
-        channelPool.setTestOnReturn(true);
+        channelPool.setTestOnBorrow(true);
+        channelPool.setTestOnReturn(false);
         channelPool.setTestWhileIdle(true);
+        channelPool.setNumTestsPerEvictionRun(-1);
         channelPool.setBlockWhenExhausted(true);
+        if (keepAlive > 0) {
+            keepAliveTask = scheduler().scheduleWithFixedDelay(
+                this::keepAlive, keepAlive, keepAlive, TimeUnit.SECONDS
+            );
+        }
     }
 
     /**
@@ -199,6 +275,10 @@ public abstract class Connection extends StorableObject {
      */
     @Override
     protected void destroy() {
+        if (keepAliveTask != null) {
+            keepAliveTask.cancel(false);
+            keepAliveTask = null;
+        }
         try {
             LOG.fine("closing all connections in " + this);
             channelPool.close();
@@ -225,6 +305,23 @@ public abstract class Connection extends StorableObject {
         }
     }
 
+    /**
+     * Validates all idle channels in the pool. This method is called
+     * regularly from the background scheduler if keep-alive has been
+     * enabled. Expired channels will also be evicted.
+     */
+    protected void keepAlive() {
+        if (channelPool.getNumIdle() > 0) {
+            try {
+                LOG.fine("starting keep-alive on " + this);
+                channelPool.evict();
+                LOG.fine("done keep-alive on " + this);
+            } catch (Exception e) {
+                LOG.log(Level.WARNING, "failed keep-alive in " + this, e);
+            }
+        }
+    }
+
     /**
      * Returns the maximum number of open channels. If the config
      * parameter hasn't been set, a default value of four (4) will be
@@ -260,6 +357,43 @@ public abstract class Connection extends StorableObject {
         }
     }
 
+    /**
+     * Returns the number of seconds a channel may be idle in the pool
+     * before it is validated on reuse. If the configuration parameter
+     * hasn't been set, a default value of 30 seconds will be returned.
+     * A zero (0) value validates channels on every reuse.
+     *
+     * @return the number of idle seconds before validation
+     */
+    public int validateIdleSeconds() {
+        try {
+            return Math.max(0, dict.get(KEY_VALIDATE_IDLE_SECS, Integer.class, 30));
+        } catch (NumberFormatException e) {
+            String msg = this + ": invalid config " + KEY_VALIDATE_IDLE_SECS + ": " + e;
+            LOG.warning(msg);
+            return 30;
+        }
+    }
+
+    /**
+     * Returns the number of seconds between background keep-alive
+     * validations of idle pooled channels. If the configuration
+     * parameter hasn't been set, a default value of zero (0) will be
+     * returned, meaning that keep-alive is disabled.
+     *
+     * @return the keep-alive interval in seconds, or
+     *         zero (0) if disabled
+     */
+    public int keepAliveSeconds() {
+        try {
+            return Math.max(0, dict.get(KEY_KEEP_ALIVE_SECS, Integer.class, 0));
+        } catch (NumberFormatException e) {
+            String msg = this + ": invalid config " + KEY_KEEP_ALIVE_SECS + ": " + e;
+            LOG.warning(msg);
+            return 0;
+        }
+    }
+
     /**
      * Returns the total number of open channels. This is the number
      * of reserved channels plus any idle channels in the pool (if
@@ -281,6 +415,16 @@ public abstract class Connection extends StorableObject {
         return channelPool.getNumActive();
     }
 
+    /**
+     * Returns the peak number of channels in use (reserved) at the
+     * same time since the connection was initialized.
+     *
+     * @return the peak number of channels in use
+     */
+    public int peakChannels() {
+        return peakChannels.get();
+    }
+
     /**
      * Returns the timestamp of the last connection usage. This will
      * be updated on each connection reservation or release. It is
@@ -320,6 +464,7 @@ public abstract class Connection extends StorableObject {
         LOG.fine(msg);
         try {
             Channel channel = channelPool.borrowObject();
+            peakChannels.accumulateAndGet(channelPool.getNumActive(), Math::max);
             LOG.fine("done " + msg);
             return channel;
         } catch (ConnectionException e) {
@@ -349,6 +494,10 @@ public abstract class Connection extends StorableObject {
             // TODO: handle shared channels
             msg = "returning pooled connection in " + this;
             LOG.fine(msg);
+            if (channel.isValid() && channel.isPoolable() && channel.errors > 0) {
+                // Validate channels after usage errors
+                validateChannel(channel);
+            }
             if (channel.isValid() && channel.isPoolable()) {
                 channelPool.returnObject(channel);
             } else {
@@ -361,6 +510,19 @@ public abstract class Connection extends StorableObject {
         }
     }
 
+    /**
+     * Validates a channel and reports the validation result and
+     * duration to the connection metrics.
+     *
+     * @param channel        the channel to validate
+     */
+    protected void validateChannel(Channel channel) {
+        long start = System.currentTimeMillis();
+        channel.validate();
+        boolean valid = channel.isValid();
+        reportValidation(start, valid, valid ? null : "channel validation failed");
+    }
+
     /**
      * Destroys and removes references to a channel. No errors are
      * logged, so this method should only be used after other errors
@@ -423,6 +585,22 @@ public abstract class Connection extends StorableObject {
         }
     }
 
+    /**
+     * Reports channel validation metrics. These are reported with a
+     * separate metrics key, so that validations are not mixed with
+     * normal connection usage.
+     *
+     * @param start          the validation start time (in millis)
+     * @param success        the success flag
+     * @param error          the optional error message
+     */
+    protected void reportValidation(long start, boolean success, String error) {
+        if (metrics != null) {
+            long now = System.currentTimeMillis();
+            metrics.report(id() + METRICS_VALIDATE, now, 1, now - start, success, error);
+        }
+    }
+
     /**
      * Returns a serialized representation of this object. Used when
      * persisting to permanent storage or when accessing the object
@@ -436,6 +614,7 @@ public abstract class Connection extends StorableObject {
         Dict copy = super.serialize();
         copy.set(PREFIX_COMPUTED + "openChannels", openChannels());
         copy.set(PREFIX_COMPUTED + "usedChannels", usedChannels());
+        copy.set(PREFIX_COMPUTED + "peakChannels", peakChannels());
         copy.set(PREFIX_COMPUTED + "lastUsedTime", lastUsed());
         copy.set(PREFIX_COMPUTED + "lastError", lastError());
         return copy;
@@ -481,7 +660,9 @@ public abstract class Connection extends StorableObject {
         }
 
         /**
-         * Validates a channel.
+         * Validates a channel. When called on borrow, newly created
+         * channels and channels that were recently returned to the
+         * pool are not validated. Idle channels are always validated.
          *
          * @param obj            the pooled channel to validate
          *
@@ -491,7 +672,17 @@ public abstract class Connection extends StorableObject {
         @Override
         public boolean validateObject(PooledObject<Channel> obj) {
             Channel channel = obj.getObject();
-            channel.validate();
+            if (obj.getState() == PooledObjectState.ALLOCATED) {
+                if (obj.getBorrowedCount() <= 1) {
+                    return channel.isValid();
+                }
+                Instant last = obj.getLastReturnInstant();
+                long idleMillis = Duration.between(last, Instant.now()).toMillis();
+                if (idleMillis < validateIdleMillis) {
+                    return channel.isValid();
+                }
+            }
+            validateChannel(channel);
             return channel.isValid();
         }
 
@@ -14,22 +14,33 @@
 
 package org.rapidcontext.core.type;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Stream;
 
 import org.rapidcontext.core.data.Dict;
 import org.rapidcontext.core.stats.MovingUsage;
+import org.rapidcontext.core.stats.UsageJournal;
 import org.rapidcontext.core.storage.Path;
+import org.rapidcontext.core.storage.RootStorage;
 import org.rapidcontext.core.storage.StorableObject;
 import org.rapidcontext.core.storage.Storage;
 import org.rapidcontext.core.storage.StorageException;
 
 /**
- * A metrics set for tracking resource usage.
+ * A metrics set for tracking resource usage. If the metrics set is
+ * stored in a local directory, the data points are persisted in an
+ * append-only usage journal (next to the metrics object) instead of
+ * inline in the object. Only modified data points are written to the
+ * journal, which is periodically compacted.
  *
  * @author Per Cederberg
  */
@@ -55,6 +66,11 @@ public class Metrics extends StorableObject {
      */
     public static final String KEY_DATA = "data";
 
+    /**
+     * The journal directory name suffix (appended to the object id).
+     */
+    public static final String JOURNAL_SUFFIX = ".journal";
+
     /**
      * Finds or creates a metrics set in the storage.
      *
@@ -75,6 +91,9 @@ public class Metrics extends StorableObject {
                 LOG.log(Level.WARNING, "failed to store metrics for " + id, e);
             }
         }
+        if (storage instanceof RootStorage rs) {
+            obj.openJournal(rs.localFile(PATH.child(id + JOURNAL_SUFFIX, true)));
+        }
         return obj;
     }
 
@@ -86,12 +105,41 @@ public class Metrics extends StorableObject {
     /**
      * The map of data points.
      */
-    private HashMap<String, MovingUsage> points = new HashMap<>();
+    private ConcurrentHashMap<String, MovingUsage> points = new ConcurrentHashMap<>();
+
+    /**
+     * The modified data flag. Only used when no journal is available,
+     * or when the whole object must be rewritten.
+     */
+    private volatile boolean modified = false;
+
+    /**
+     * The inline data points flag. Set if the data points were loaded
+     * from the object (instead of the journal).
+     */
+    private boolean inline = false;
+
+    /**
+     * The usage journal, or null if not available.
+     */
+    private volatile UsageJournal journal = null;
 
     /**
-     * The modified data flag.
+     * The data point keys modified since the last journal write.
      */
-    private boolean modified = false;
+    private HashSet<String> dirty = new HashSet<>();
+
+    /**
+     * The journal write lock. Held during journal I/O, so that data
+     * point updates aren't blocked.
+     */
+    private final ReentrantLock journalLock = new ReentrantLock();
+
+    /**
+     * The data point update lock. Used instead of synchronized
+     * blocks, in order to avoid pinning virtual threads.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
 
     /**
      * Creates a new metrics set from a serialized representation.
@@ -114,6 +162,7 @@ public class Metrics extends StorableObject {
         for (String key : data.keys()) {
             points.put(key, new MovingUsage(updated, data.getDict(key)));
         }
+        inline = data.size() > 0;
         dict.remove(KEY_UPDATED);
         dict.remove(KEY_DATA);
     }
@@ -144,11 +193,106 @@ public class Metrics extends StorableObject {
     }
 
     /**
-     * Discards the modified flag for this object.
+     * Discards the modified flag for this object. Also writes any
+     * modified data points to the journal (if available).
      */
     @Override
     protected void passivate() {
         modified = false;
+        if (journal != null) {
+            flush();
+        }
+    }
+
+    /**
+     * Opens the usage journal and replays any journal data. Any inline
+     * data points are migrated to the journal and the object will be
+     * rewritten without them. If the journal cannot be read, the data
+     * points remain stored inline in the object.
+     *
+     * @param dir            the journal directory, or null for none
+     */
+    void openJournal(File dir) {
+        if (dir == null || journal != null) {
+            return;
+        }
+        UsageJournal j = new UsageJournal(dir);
+        journalLock.lock();
+        lock.lock();
+        try {
+            j.load((time, key, data) -> {
+                points.put(key, new MovingUsage(time, data));
+                updated = Math.max(updated, time);
+            });
+            if (inline) {
+                j.compact(updated, snapshot(points.keySet()));
+                modified = true;
+                inline = false;
+            }
+            journal = j;
+            dirty.clear();
+        } catch (IOException e) {
+            LOG.log(Level.WARNING, "failed to open metrics journal " + dir, e);
+        } finally {
+            lock.unlock();
+            journalLock.unlock();
+        }
+    }
+
+    /**
+     * Writes all modified data points to the journal. The journal is
+     * compacted (with all data points) if needed. On journal write
+     * errors, the journal is closed and the whole object will be
+     * rewritten instead.
+     */
+    private void flush() {
+        journalLock.lock();
+        try {
+            UsageJournal j = journal;
+            boolean compact = j.needsCompaction();
+            long time;
+            HashMap<String, Dict> batch;
+            lock.lock();
+            try {
+                time = updated;
+                batch = snapshot(compact ? points.keySet() : dirty);
+                dirty.clear();
+            } finally {
+                lock.unlock();
+            }
+            if (compact) {
+                LOG.fine("compacting metrics journal for " + id());
+                j.compact(time, batch);
+            } else {
+                j.append(time, batch);
+            }
+        } catch (IOException e) {
+            LOG.log(Level.WARNING, "failed to write metrics journal for " + id(), e);
+            journal = null;
+            modified = true;
+        } finally {
+            journalLock.unlock();
+        }
+    }
+
+    /**
+     * Serializes a set of data points (moved to the last updated
+     * time). The data point lock must be held by the caller.
+     *
+     * @param keys           the data point keys to include
+     *
+     * @return the serialized data points, indexed by key
+     */
+    private HashMap<String, Dict> snapshot(Iterable<String> keys) {
+        HashMap<String, Dict> res = new HashMap<>();
+        for (String key : keys) {
+            MovingUsage usage = points.get(key);
+            if (usage != null) {
+                usage.move(updated);
+                res.put(key, usage.serialize());
+            }
+        }
+        return res;
     }
 
     /**
@@ -177,36 +321,42 @@ public class Metrics extends StorableObject {
                        boolean success,
                        String error) {
 
-        MovingUsage usage = points.get(key);
-        if (usage == null) {
-            synchronized (points) {
+        lock.lock();
+        try {
+            MovingUsage usage = points.get(key);
+            if (usage == null) {
                 usage = new MovingUsage(now);
                 points.put(key, usage);
             }
+            usage.move(now);
+            usage.add(value, duration, success, error);
+            updated = Math.max(updated, now);
+            if (journal != null) {
+                dirty.add(key);
+            } else {
+                modified = true;
+            }
+        } finally {
+            lock.unlock();
         }
-        usage.move(now);
-        usage.add(value, duration, success, error);
-        updated = Math.max(updated, now);
-        modified = true;
     }
 
-    /**
-     * Returns a serialized representation of this object. Used when
-     * persisting to permanent storage or when accessing the object
-     * from outside pure Java. Returns a shallow copy of the contained
-     * dictionary.
-     *
-     * @return the serialized representation of this object
-     */
     @Override
     public Dict serialize() {
         Dict copy = super.serialize();
-        copy.set(KEY_UPDATED, new Date(updated));
         Dict data = new Dict();
-        for (Entry<String, MovingUsage> e : points.entrySet()) {
-            MovingUsage usage = e.getValue();
-            usage.move(updated);
-            data.set(e.getKey(), usage.serialize());
+        lock.lock();
+        try {
+            copy.set(KEY_UPDATED, new Date(updated));
+            if (journal == null) {
+                for (Entry<String, MovingUsage> e : points.entrySet()) {
+                    MovingUsage usage = e.getValue();
+                    usage.move(updated);
+                    data.set(e.getKey(), usage.serialize());
+                }
+            }
+        } finally {
+            lock.unlock();
         }
         copy.set(KEY_DATA, data);
         return copy;
@@ -68,6 +68,16 @@ public abstract class Procedure extends StorableObject {
      */
     public static final String KEY_BINDING = "binding";
 
+    /**
+     * The dictionary key for the optional result cache configuration.
+     */
+    public static final String KEY_CACHE = "cache";
+
+    /**
+     * The dictionary key for the optional call coalescing scope.
+     */
+    public static final String KEY_COALESCE = "coalesce";
+
     /**
      * The procedure object storage path.
      */
@@ -88,6 +98,13 @@ public abstract class Procedure extends StorableObject {
      */
     private static Metrics metrics = null;
 
+    /**
+     * The compiled (sealed) procedure bindings. Created on first use
+     * and safely published via the volatile field, since procedures
+     * are shared between threads.
+     */
+    private volatile Bindings bindings = null;
+
     /**
      * Returns a stream of all procedures found in the storage.
      *
@@ -119,14 +136,16 @@ public abstract class Procedure extends StorableObject {
     /**
      * Updates the cached procedure aliases by loading all procedures
      * from storage and inspecting them. This method is safe to call
-     * repeatedly (after each plug-in load), but is potentially slow.
+     * repeatedly (after each plug-in load). Only procedures with an
+     * alias are loaded (if a property index is available). If an
+     * alias is used by several procedures, the first one found in
+     * storage traversal order is used.
      *
      * @param storage        the storage to load from
      */
     public static void refreshAliases(Storage storage) {
-        // FIXME: This is slow if many procedures are found...
         aliases.clear();
-        all(storage).forEach(p -> {
+        storage.query(PATH).filterPropertyPrefix(KEY_ALIAS, "").objects(Procedure.class).forEach(p -> {
             String alias = Objects.requireNonNullElse(p.alias(), "");
             if (!alias.isBlank() && !aliases.containsKey(alias)) {
                 aliases.put(alias, p.id());
@@ -234,16 +253,49 @@ public abstract class Procedure extends StorableObject {
         return dict.get(KEY_DEPRECATED, String.class);
     }
 
+    /**
+     * Returns the optional result cache configuration. Procedures with
+     * a cache configuration have their results cached by the result
+     * cache interceptor (if enabled).
+     *
+     * @return the result cache configuration, or null for none
+     */
+    public Dict cache() {
+        return dict.get(KEY_CACHE, Dict.class);
+    }
+
+    /**
+     * Returns the optional call coalescing scope. Concurrent calls to
+     * procedures with a coalescing scope share a single execution if
+     * the arguments and scope are identical. The scope is either
+     * "roles" (or "true") for sharing between users with identical
+     * roles, or "user" for sharing only between calls by the same
+     * user.
+     *
+     * @return the call coalescing scope, or null for none
+     */
+    public String coalesce() {
+        String scope = dict.get(KEY_COALESCE, String.class);
+        return (scope == null || scope.isBlank() || scope.equals("false")) ? null : scope;
+    }
+
     /**
      * Returns the bindings for this procedure. If this procedure
      * requires any special data, adapter connection or input
      * argument binding, those bindings should be set (but possibly
-     * to null or blank values).
+     * to null or blank values). The returned bindings are sealed and
+     * shared between calls.
      *
      * @return the bindings for this procedure
      */
     public Bindings getBindings() {
-        return new Bindings(null, dict.getArray(KEY_BINDING));
+        Bindings res = bindings;
+        if (res == null) {
+            res = new Bindings(null, dict.getArray(KEY_BINDING));
+            res.seal();
+            bindings = res;
+        }
+        return res;
     }
 
     /**
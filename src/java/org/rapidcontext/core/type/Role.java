@@ -362,6 +362,23 @@ public class Role extends StorableObject {
         }
     }
 
+    /**
+     * Checks if any access rule in this role has a via pattern. The
+     * access results for such roles may depend on the current
+     * context chain.
+     *
+     * @return true if a via pattern is present, or
+     *         false otherwise
+     */
+    public boolean hasVia() {
+        for (Object o : dict.getArray(KEY_ACCESS)) {
+            if (o instanceof Dict dict && dict.containsKey(PREFIX_COMPUTED + ACCESS_VIA)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Checks if the role has access permission for a storage path.
      * The access list is processed from top to bottom to find a
@@ -17,10 +17,12 @@ package org.rapidcontext.core.type;
 import java.io.File;
 import java.util.Date;
 import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.apache.commons.lang3.time.DateUtils;
 import org.rapidcontext.core.data.Dict;
 import org.rapidcontext.core.security.Random;
+import org.rapidcontext.core.security.Token;
 import org.rapidcontext.core.storage.Path;
 import org.rapidcontext.core.storage.StorableObject;
 import org.rapidcontext.core.storage.Storage;
@@ -102,6 +104,12 @@ public class Session extends StorableObject {
      */
     public static final long ACTIVE_MILLIS = 5L * DateUtils.MILLIS_PER_MINUTE;
 
+    /**
+     * The number of stored sessions found in the most recent expiry
+     * check.
+     */
+    private static volatile long storedCount = 0L;
+
     /**
      * The initial creation flag.
      */
@@ -125,6 +133,16 @@ public class Session extends StorableObject {
         return storage.load(Path.resolve(PATH, id), Session.class);
     }
 
+    /**
+     * Returns the number of stored sessions. This value is updated
+     * on each expiry check, to avoid repeated storage queries.
+     *
+     * @return the number of stored sessions (approximate)
+     */
+    public static long storedCount() {
+        return storedCount;
+    }
+
    /**
      * Checks for expired sessions in the provided storage. Any
      * sessions modified recently (but not too recently) will be
@@ -138,9 +156,12 @@ public class Session extends StorableObject {
         Date start = new Date(now - EXPIRY_ANON_MILLIS * 2L);
         Date end = new Date(now - EXPIRY_ANON_MILLIS);
         Date expired = new Date(now - EXPIRY_AUTH_MILLIS);
+        LongAdder count = new LongAdder();
         storage.query(PATH)
+            .parallel(true)
             .metadatas()
             .filter(m -> {
+                count.increment();
                 Date t = m.modified();
                 return (t.after(start) && t.before(end)) || t.before(expired);
             })
@@ -148,6 +169,7 @@ public class Session extends StorableObject {
                 // Load into cache, eviction will delete stale ones
                 storage.load(m.path());
             });
+        storedCount = count.sum();
     }
 
     /**
@@ -438,6 +460,26 @@ public class Session extends StorableObject {
         return files().get(id, File.class);
     }
 
+    /**
+     * Returns the total size of all session files. Any file with the
+     * specified id is excluded, so that replacing a file can be
+     * checked against a quota.
+     *
+     * @param excludeId      the file id to exclude, or null for none
+     *
+     * @return the total size of the session files (in bytes)
+     */
+    public long filesSize(String excludeId) {
+        long res = 0;
+        for (String id : files().keys()) {
+            File file = file(id);
+            if (file != null && !id.equals(excludeId)) {
+                res += file.length();
+            }
+        }
+        return res;
+    }
+
     /**
      * Adds a file to the session. The file will be automatically
      * deleted when the session expires or is removed from in-memory
@@ -496,9 +538,11 @@ public class Session extends StorableObject {
     /**
      * Invalidates this session by marking it as expired. This
      * operation is irreversible and will eventually cause the
-     * removal of the session in the storage.
+     * removal of the session in the storage. Any cached procedure
+     * call tokens for the session are also invalidated.
      */
     public void invalidate() {
+        Token.invalidate(dict.get(PREFIX_HIDDEN + KEY_SECRET, String.class));
         setDestroyTime(new Date(System.currentTimeMillis() - 10));
     }
 
@@ -111,7 +111,12 @@ public class Type extends StorableObject {
         if (res != null) {
             return res;
         } else {
-            return all(storage).filter(t -> t.alias().equals(id)).findFirst().orElse(null);
+            return storage.query(PATH)
+                .filterProperty(KEY_ALIAS, id)
+                .objects(Type.class)
+                .filter(t -> t.alias().equals(id))
+                .findFirst()
+                .orElse(null);
         }
     }
 
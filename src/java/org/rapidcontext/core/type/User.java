@@ -21,6 +21,7 @@ import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.time.DateUtils;
 import org.rapidcontext.core.data.Array;
 import org.rapidcontext.core.data.Dict;
+import org.rapidcontext.core.security.Token;
 import org.rapidcontext.core.storage.Path;
 import org.rapidcontext.core.storage.StorableObject;
 import org.rapidcontext.core.storage.Storage;
@@ -362,13 +363,15 @@ public class User extends StorableObject {
      * Sets the user password MD5 hash. The password hash should be
      * created from the string "id:realm:password" and converted to a
      * lower-case hexadecimal string before being sent to this
-     * method.
+     * method. Any cached login tokens for the previous password are
+     * invalidated.
      *
      * @param passwordHash   the new user password MD5 hash
      *
      * @see #setPassword(String)
      */
     public void setPasswordHash(String passwordHash) {
+        Token.invalidate(passwordHash());
         dict.set(PREFIX_HIDDEN + KEY_PASSWORD, passwordHash.toLowerCase());
         dict.set(KEY_AUTHORIZED_TIME, new Date());
     }
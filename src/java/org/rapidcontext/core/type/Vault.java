@@ -16,12 +16,14 @@ package org.rapidcontext.core.type;
 
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
-import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 import java.util.logging.Logger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.apache.commons.lang3.Strings;
+import org.rapidcontext.core.data.Array;
 import org.rapidcontext.core.data.Dict;
 import org.rapidcontext.core.storage.Path;
 import org.rapidcontext.core.storage.StorableObject;
@@ -71,34 +73,87 @@ public abstract class Vault extends StorableObject {
     );
 
     /**
-     * The list of path glob patterns allowed for expansion.
+     * The key lookup cache time-to-live (in millis).
      */
-    private static final ArrayList<Pattern> PATHS = new ArrayList<>();
+    private static final long LOOKUP_TTL_MILLIS = 60_000L;
 
     /**
-     * The cached vaults, indexed by their id.
+     * The maximum number of memoized path expansion results.
+     */
+    private static final int MAX_PATH_RESULTS = 10_000;
+
+    /**
+     * The compiled path pattern allowed for expansion (all glob
+     * patterns combined), or null if no paths allow expansion.
+     */
+    private static volatile Pattern paths = null;
+
+    /**
+     * The memoized path expansion results, indexed by path ident.
+     */
+    private static final ConcurrentHashMap<String,Boolean> PATH_RESULTS =
+        new ConcurrentHashMap<>();
+
+    /**
+     * The cached vaults, indexed by their id. Access must be
+     * synchronized on the map itself.
      */
     private static final LinkedHashMap<String,Vault> CACHE = new LinkedHashMap<>();
 
+    /**
+     * The memoized key lookups for this vault (see cached()).
+     */
+    private final ConcurrentHashMap<String,Memo> memos = new ConcurrentHashMap<>();
+
     /**
      * Loads all vaults found in the storage to the cache.
      *
      * @param storage        the storage to search
      */
     public static void loadAll(Storage storage) {
-        PATHS.clear();
         Dict config = storage.load(PATH_CONFIG, Dict.class);
-        for (Object o : config.getArray("expand")) {
+        compilePaths(config.getArray("expand"));
+        var list = storage.query(PATH).parallel(true).objects(Vault.class).toList();
+        synchronized (CACHE) {
+            CACHE.clear();
+            list.forEach(v -> CACHE.put(v.id(), v));
+        }
+        invalidate();
+    }
+
+    /**
+     * Compiles the path glob patterns allowed for expansion into a
+     * single regex pattern. Invalid glob patterns are logged and
+     * ignored.
+     *
+     * @param globs          the array of path glob patterns
+     */
+    static void compilePaths(Array globs) {
+        ArrayList<String> res = new ArrayList<>();
+        for (Object o : globs) {
             try {
-                String glob = Strings.CS.removeStart(o.toString(), "/");
-                String re = "^" + RegexUtil.fromGlob(glob) + "$";
-                PATHS.add(Pattern.compile(re, Pattern.CASE_INSENSITIVE));
+                String re = RegexUtil.fromGlob(Strings.CS.removeStart(o.toString(), "/"));
+                Pattern.compile(re);
+                res.add(re);
             } catch (Exception e) {
                 LOG.warning("invalid path pattern in vault configuration: " + o);
             }
         }
-        CACHE.clear();
-        storage.query(PATH).objects(Vault.class).forEach(v -> CACHE.put(v.id(), v));
+        String re = "^(?:" + String.join("|", res) + ")$";
+        paths = res.isEmpty() ? null : Pattern.compile(re, Pattern.CASE_INSENSITIVE);
+        PATH_RESULTS.clear();
+    }
+
+    /**
+     * Clears all memoized path checks and key lookups. Called when
+     * the vault configuration or a vault object is loaded or
+     * removed.
+     */
+    public static void invalidate() {
+        PATH_RESULTS.clear();
+        synchronized (CACHE) {
+            CACHE.values().forEach(v -> v.memos.clear());
+        }
     }
 
     /**
@@ -123,8 +178,20 @@ public abstract class Vault extends StorableObject {
      *         false otherwise
      */
     public static boolean canExpand(Path path) {
+        Pattern re = paths;
+        if (re == null) {
+            return false;
+        }
         String ident = path.toIdent(0);
-        return PATHS.stream().anyMatch(p -> p.matcher(ident).find());
+        Boolean res = PATH_RESULTS.get(ident);
+        if (res == null) {
+            res = re.matcher(ident).matches();
+            if (PATH_RESULTS.size() >= MAX_PATH_RESULTS) {
+                PATH_RESULTS.clear();
+            }
+            PATH_RESULTS.put(ident, res);
+        }
+        return res;
     }
 
     /**
@@ -136,30 +203,40 @@ public abstract class Vault extends StorableObject {
      *         false otherwise
      */
     public static boolean canExpand(String text) {
-        return RE_EXPANSION.matcher(text).find();
+        return text.contains("${{") && RE_EXPANSION.matcher(text).find();
     }
 
     /**
      * Expands variable references in a string with the values found
-     * in the loaded vaults.
+     * in the loaded vaults. The text is processed in a single pass,
+     * so expanded values are never scanned for further references.
      *
      * @param text           the text to process
      *
      * @return the text with all variable references replaced
      */
     public static String expand(String text) {
-        String res = text;
+        if (!text.contains("${{")) {
+            return text;
+        }
         Matcher m = RE_EXPANSION.matcher(text);
-        while (m != null && m.find()) {
+        StringBuilder buffer = null;
+        int pos = 0;
+        while (m.find()) {
             String id = Strings.CS.removeEnd(m.group(1), "!");
-            String key = m.group(2);
-            String val = Objects.requireNonNullElseGet(lookup(id, key), () -> {
-                String def = Strings.CS.removeStart(m.group(3), ":");
-                return Objects.requireNonNullElse(def, m.group());
-            });
-            res = res.replace(m.group(), val);
+            String val = lookup(id, m.group(2));
+            if (val == null && m.group(3) != null) {
+                val = m.group(3).substring(1);
+            }
+            if (val != null) {
+                if (buffer == null) {
+                    buffer = new StringBuilder(text.length() + 64);
+                }
+                buffer.append(text, pos, m.start()).append(val);
+                pos = m.end();
+            }
         }
-        return res;
+        return (buffer == null) ? text : buffer.append(text, pos, text.length()).toString();
     }
 
     /**
@@ -173,10 +250,17 @@ public abstract class Vault extends StorableObject {
      */
     public static String lookup(String id, String key) {
         if (id != null && !id.isBlank()) {
-            Vault vault = CACHE.get(id);
+            Vault vault;
+            synchronized (CACHE) {
+                vault = CACHE.get(id);
+            }
             return (vault == null) ? null : vault.lookup(key);
         } else {
-            for (Vault vault : CACHE.values()) {
+            Vault[] vaults;
+            synchronized (CACHE) {
+                vaults = CACHE.values().toArray(new Vault[0]);
+            }
+            for (Vault vault : vaults) {
                 if (vault.global() && vault.lookup(key) instanceof String s) {
                     return s;
                 }
@@ -196,6 +280,28 @@ public abstract class Vault extends StorableObject {
         super(id, type, dict);
     }
 
+    /**
+     * Initializes this vault after loading it from a storage. The
+     * vault replaces any previous version in the vault cache and all
+     * memoized lookups are cleared.
+     */
+    @Override
+    protected void init() {
+        synchronized (CACHE) {
+            CACHE.put(id(), this);
+        }
+        invalidate();
+    }
+
+    /**
+     * Destroys this vault. All memoized lookups are cleared, so that
+     * updated vault data will be used.
+     */
+    @Override
+    protected void destroy() {
+        invalidate();
+    }
+
     /**
      * Returns the vault description.
      *
@@ -223,4 +329,39 @@ public abstract class Vault extends StorableObject {
      *         null if the key cannot be found
      */
     public abstract String lookup(String key);
+
+    /**
+     * Returns a memoized key lookup value. If no recent value is
+     * available, the source function is called and the result
+     * (including null) is memoized for a limited time. Subclasses
+     * with slow or frequently repeated lookups can use this method
+     * from their lookup() implementation.
+     *
+     * @param key            the key identifier
+     * @param source         the source lookup function
+     *
+     * @return the vault value corresponding to the key, or
+     *         null if the key cannot be found
+     */
+    protected String cached(String key, Function<String,String> source) {
+        if (key == null || key.isEmpty()) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        Memo memo = memos.get(key);
+        if (memo == null || memo.expires < now) {
+            memo = new Memo(source.apply(key), now + LOOKUP_TTL_MILLIS);
+            memos.put(key, memo);
+        }
+        return memo.value;
+    }
+
+
+    /**
+     * A memoized key lookup value.
+     *
+     * @param value          the value found, or null
+     * @param expires        the expiry time (in millis)
+     */
+    private record Memo(String value, long expires) {}
 }
@@ -362,6 +362,20 @@ public abstract class WebService extends StorableObject implements HttpUtil {
         request.sendError(Status.METHOD_NOT_ALLOWED);
     }
 
+    /**
+     * Sends an HTTP 413 request entity too large error.
+     *
+     * @param request        the request to process
+     * @param message        the additional error message
+     */
+    protected void errorTooLarge(Request request, String message) {
+        LOG.info("[" + request.getRemoteAddr() + "] request too large for " +
+                 request.getUrl() + ": " + message);
+        request.sendError(Status.REQUEST_ENTITY_TOO_LARGE,
+                          Mime.TEXT[0],
+                          "HTTP 413 Request Entity Too Large: " + message);
+    }
+
     /**
      * Sends an HTTP 500 internal server error.
      *
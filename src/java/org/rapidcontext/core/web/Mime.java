@@ -72,6 +72,15 @@ public final class Mime {
         "text/x-javascript"
     };
 
+    /**
+     * The MIME types commonly used for newline-delimited JSON.
+     */
+    public static final String[] NDJSON = {
+        "application/x-ndjson",
+        "application/ndjson",
+        "application/jsonl"
+    };
+
     /**
      * The MIME types commonly used for Java Properties.
      */
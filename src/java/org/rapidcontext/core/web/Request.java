@@ -15,6 +15,7 @@
 package org.rapidcontext.core.web;
 
 import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -39,6 +40,7 @@ import org.apache.commons.lang3.Strings;
 import org.rapidcontext.core.data.Binary;
 import org.rapidcontext.core.data.Dict;
 import org.rapidcontext.core.type.Session;
+import org.rapidcontext.util.BinaryUtil;
 import org.rapidcontext.util.FileUtil;
 import org.rapidcontext.util.HttpUtil;
 import org.rapidcontext.util.RegexUtil;
@@ -103,6 +105,14 @@ public class Request implements HttpUtil {
      */
     private static final int ERROR_RESPONSE = 5;
 
+    /**
+     * The streamed data response type. This type is used when the
+     * response data is written incrementally by a stream writer. The
+     * response data contains the StreamWriter object when this type
+     * is set.
+     */
+    private static final int STREAM_RESPONSE = 6;
+
     /**
      * The regular expression for extracting header values.
      */
@@ -181,6 +191,17 @@ public class Request implements HttpUtil {
      */
     private boolean responseHeadersOnly = false;
 
+    /**
+     * The conditional response flag. If set, the text response will
+     * include an ETag header and respect any If-None-Match header.
+     */
+    private boolean responseConditional = false;
+
+    /**
+     * The response ETag, or null to compute from the text data.
+     */
+    private String responseETag = null;
+
     /**
      * The multi-part request iterator.
      */
@@ -683,6 +704,38 @@ public class Request implements HttpUtil {
         return request.getInputStream();
     }
 
+    /**
+     * Returns the size limited request input stream. If the request
+     * content length header exceeds the limit, an exception is thrown
+     * immediately without reading any data. Otherwise, the returned
+     * stream throws an exception once more data than the limit has
+     * been read (e.g. for chunked requests).
+     *
+     * @param maxSize        the maximum data size (in bytes)
+     *
+     * @return the size limited request input stream
+     *
+     * @throws RequestSizeException if the content length exceeds
+     *             the limit
+     * @throws IOException if the input stream couldn't be read
+     */
+    public InputStream getInputStream(long maxSize) throws IOException {
+        if (getContentLength() > maxSize) {
+            throw new RequestSizeException(maxSize);
+        }
+        return new LimitedInputStream(request.getInputStream(), maxSize);
+    }
+
+    /**
+     * Returns the request content length (from the HTTP header).
+     *
+     * @return the request content length (in bytes), or
+     *         -1 if not known
+     */
+    public long getContentLength() {
+        return request.getContentLengthLong();
+    }
+
     /**
      * Clears any previously sent but non-committed response. Note
      * that this method DOES NOT clear any response headers or
@@ -694,6 +747,8 @@ public class Request implements HttpUtil {
         responseMimeType = null;
         responseData = null;
         responseHeadersOnly = false;
+        responseConditional = false;
+        responseETag = null;
     }
 
     /**
@@ -749,6 +804,69 @@ public class Request implements HttpUtil {
         responseData = text;
     }
 
+    /**
+     * Sends the specified text data as a conditional request
+     * response. The response will contain an ETag header, either
+     * with the specified value or a fast hash of the text data. If
+     * the request If-None-Match header matches, a 304 Not Modified
+     * response is sent instead. Any previous response will be
+     * cleared.
+     *
+     * @param mimeType       the optional MIME type, null for default
+     * @param text           the text data to send
+     * @param etag           the entity tag, or null to compute
+     *
+     * @see #sendClear()
+     * @see #sendNotModified(String)
+     */
+    public void sendText(String mimeType, String text, String etag) {
+        sendText(Status.OK, mimeType, text);
+        responseConditional = true;
+        responseETag = etag;
+    }
+
+    /**
+     * Sends a 304 Not Modified request response. This should only be
+     * used if isNotModified() has returned true for the same entity
+     * tag. Any previous response will be cleared.
+     *
+     * @param etag           the entity tag for the current data
+     *
+     * @see #sendClear()
+     * @see #isNotModified(String)
+     */
+    public void sendNotModified(String etag) {
+        sendClear();
+        responseType = TEXT_RESPONSE;
+        responseCode = Status.NOT_MODIFIED;
+        responseConditional = true;
+        responseETag = etag;
+    }
+
+    /**
+     * Checks if the request If-None-Match header matches an entity
+     * tag. Both weak and strong tag comparisons are accepted (as
+     * specified for GET and HEAD requests).
+     *
+     * @param etag           the entity tag for the current data
+     *
+     * @return true if the client has a matching version, or
+     *         false otherwise
+     */
+    public boolean isNotModified(String etag) {
+        String header = getHeader(Header.IF_NONE_MATCH);
+        if (etag == null || header == null) {
+            return false;
+        }
+        for (String tag : header.split(",")) {
+            tag = Strings.CS.removeStart(tag.trim(), "W/");
+            if (tag.equals("*") || StringUtils.strip(tag, "\"").equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Sends the contents of a file as the request response. The file
      * name extension will be used for determining the MIME type for
@@ -766,6 +884,25 @@ public class Request implements HttpUtil {
         responseData = data;
     }
 
+    /**
+     * Sends a streamed response. The stream writer is called when the
+     * response is committed, and may flush the output stream to send
+     * partial data to the client. Any previous response will be
+     * cleared.
+     *
+     * @param mimeType       the MIME type of the response data
+     * @param writer         the response data stream writer
+     *
+     * @see #sendClear()
+     */
+    public void sendStream(String mimeType, StreamWriter writer) {
+        sendClear();
+        responseType = STREAM_RESPONSE;
+        responseCode = Status.OK;
+        responseMimeType = mimeType;
+        responseData = writer;
+    }
+
     /**
      * Redirects this request by sending a temporary redirection URL
      * to the browser. The location specified may be either an
@@ -909,6 +1046,9 @@ public class Request implements HttpUtil {
                 commitText();
             }
             break;
+        case STREAM_RESPONSE:
+            commitStream();
+            break;
         default:
             throw new ServletException("No request response available: " +
                                        getUrl());
@@ -918,7 +1058,8 @@ public class Request implements HttpUtil {
     /**
      * Sets the HTTP cache-control and last modified headers. If the
      * last modified time is zero (0) or negative, the current system
-     * time will be used instead.
+     * time will be used instead. Non-cacheable responses with an
+     * ETag may be stored, but must always be revalidated.
      *
      * @param cache          the cache permission flag
      * @param modified       the last modification time, or -1 for now
@@ -929,6 +1070,8 @@ public class Request implements HttpUtil {
             if (cache) {
                 // FIXME: allow caching for more than 24h without revalidation?
                 response.setHeader(Header.CACHE_CONTROL, "private, max-age=86400, must-revalidate");
+            } else if (etag != null) {
+                response.setHeader(Header.CACHE_CONTROL, "private, no-cache");
             } else {
                 response.setHeader(Header.CACHE_CONTROL, "no-cache, no-store");
             }
@@ -947,13 +1090,24 @@ public class Request implements HttpUtil {
      * object.
      */
     private void commitText() {
-        response.setStatus(responseCode);
-        commitHeaders(false, 0, null);
-        response.setContentType(responseMimeType);
         byte[] data = ArrayUtils.EMPTY_BYTE_ARRAY;
         if (responseData instanceof String s) {
             data = s.getBytes(StandardCharsets.UTF_8);
         }
+        String etag = null;
+        if (responseConditional) {
+            etag = (responseETag == null) ? BinaryUtil.hashFnv64(data) : responseETag;
+            if (responseCode == Status.OK && isNotModified(etag)) {
+                responseCode = Status.NOT_MODIFIED;
+            }
+        }
+        response.setStatus(responseCode);
+        commitHeaders(false, 0, etag);
+        if (responseCode == Status.NOT_MODIFIED) {
+            logResponse();
+            return;
+        }
+        response.setContentType(responseMimeType);
         response.setContentLength(data.length);
         logResponse();
         if (data.length > 0) {
@@ -974,7 +1128,7 @@ public class Request implements HttpUtil {
         Binary data = (Binary) responseData;
         long modified = data.lastModified();
         String etag = data.sha256();
-        if (etag != null && etag.equals(StringUtils.strip(getHeader(Header.IF_NONE_MATCH), "\""))) {
+        if (etag != null && isNotModified(etag)) {
             response.setStatus(Status.NOT_MODIFIED);
             logResponse();
             return;
@@ -1002,6 +1156,22 @@ public class Request implements HttpUtil {
         }
     }
 
+    /**
+     * Sends the streamed data response to the underlying HTTP
+     * response object.
+     */
+    private void commitStream() {
+        response.setStatus(responseCode);
+        commitHeaders(false, 0, null);
+        response.setContentType(responseMimeType);
+        logResponse();
+        try (OutputStream os = response.getOutputStream()) {
+            ((StreamWriter) responseData).write(os);
+        } catch (IOException e) {
+            LOG.log(Level.FINE, "IO error processing " + toString(), e);
+        }
+    }
+
     /**
      * Logs the request for debugging purposes.
      */
@@ -1044,6 +1214,8 @@ public class Request implements HttpUtil {
                 buffer.append("Type: Redirect\n");
             } else if (responseType == ERROR_RESPONSE) {
                 buffer.append("Type: Error\n");
+            } else if (responseType == STREAM_RESPONSE) {
+                buffer.append("Type: Streamed Data\n");
             }
             if (responseHeadersOnly) {
                 buffer.append("Only HTTP headers in response.\n");
@@ -1055,4 +1227,90 @@ public class Request implements HttpUtil {
             LOG.fine(buffer.toString());
         }
     }
+
+
+    /**
+     * A response data stream writer. Used for responses that are
+     * written incrementally.
+     */
+    public interface StreamWriter {
+
+        /**
+         * Writes the response data to an output stream.
+         *
+         * @param os             the response output stream
+         *
+         * @throws IOException if the data couldn't be written
+         */
+        void write(OutputStream os) throws IOException;
+    }
+
+
+    /**
+     * An input stream that fails when reading beyond a size limit.
+     */
+    private static class LimitedInputStream extends FilterInputStream {
+
+        /**
+         * The size limit (in bytes).
+         */
+        private final long limit;
+
+        /**
+         * The number of bytes remaining until the limit.
+         */
+        private long remaining;
+
+        /**
+         * Creates a new size limited input stream.
+         *
+         * @param is             the input stream to wrap
+         * @param limit          the size limit (in bytes)
+         */
+        LimitedInputStream(InputStream is, long limit) {
+            super(is);
+            this.limit = limit;
+            this.remaining = limit;
+        }
+
+        /**
+         * Reads the next byte of data from the input stream.
+         *
+         * @return the next byte of data, or
+         *         -1 if the end of the stream is reached
+         *
+         * @throws IOException if the data couldn't be read or if the
+         *             size limit was exceeded
+         */
+        @Override
+        public int read() throws IOException {
+            int res = super.read();
+            if (res >= 0 && --remaining < 0) {
+                throw new RequestSizeException(limit);
+            }
+            return res;
+        }
+
+        /**
+         * Reads up to len bytes of data from the input stream.
+         *
+         * @param buf            the buffer to read into
+         * @param off            the buffer start offset
+         * @param len            the maximum number of bytes to read
+         *
+         * @return the number of bytes read, or
+         *         -1 if the end of the stream is reached
+         *
+         * @throws IOException if the data couldn't be read or if the
+         *             size limit was exceeded
+         */
+        @Override
+        public int read(byte[] buf, int off, int len) throws IOException {
+            int res = super.read(buf, off, (remaining < len) ? (int) remaining + 1 : len);
+            if (res > 0 && (remaining -= res) < 0) {
+                throw new RequestSizeException(limit);
+            }
+            return res;
+        }
+    }
 }
@@ -0,0 +1,36 @@
+/*
+ * RapidContext <https://www.rapidcontext.com/>
+ * Copyright (c) 2007-2026 Per Cederberg. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the BSD license.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the RapidContext LICENSE for more details.
+ */
+
+package org.rapidcontext.core.web;
+
+import java.io.IOException;
+
+/**
+ * A request size exception. This is thrown when the request data
+ * exceeds a configured size limit, and should normally result in an
+ * HTTP 413 response.
+ *
+ * @author Per Cederberg
+ */
+public class RequestSizeException extends IOException {
+
+    /**
+     * Creates a new request size exception.
+     *
+     * @param limit          the size limit (in bytes)
+     */
+    public RequestSizeException(long limit) {
+        super("request data exceeds size limit of " + limit + " bytes");
+    }
+}
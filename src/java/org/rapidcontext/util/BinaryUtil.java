@@ -174,6 +174,24 @@ public final class BinaryUtil {
         return digest.digest();
     }
 
+    /**
+     * Calculates a fast non-cryptographic 64-bit FNV-1a hash of the
+     * data. This is suitable for content versioning (e.g. ETags), but
+     * not for any security purpose.
+     *
+     * @param data           the data to hash
+     *
+     * @return the hexadecimal string with the 64-bit hash value
+     */
+    public static String hashFnv64(byte[] data) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : data) {
+            hash ^= (b & 0xFF);
+            hash *= 0x100000001b3L;
+        }
+        return String.format("%016x", hash);
+    }
+
     /**
      * Calculates a digest hash on the data from an input stream.
      *
@@ -272,10 +272,11 @@ public final class FileUtil {
     /**
      * Sets the temporary directory to use.
      *
-     * @param dir            the new temporary directory
+     * @param dir            the new temporary directory, or null for
+     *                       the default temporary directory
      */
     public static void setTempDir(File dir) {
-        tempDir = canonical(dir);
+        tempDir = (dir == null) ? null : canonical(dir);
     }
 
     /**
@@ -146,6 +146,8 @@ public interface HttpUtil {
         public static final int REQUESTED_RANGE_NOT_SATISFIABLE = 416;
         /** <code>417 Expectation Failed</code> (HTTP/1.1 - RFC 2616) */
         public static final int EXPECTATION_FAILED = 417;
+        /** <code>429 Too Many Requests</code> (RFC 6585) */
+        public static final int TOO_MANY_REQUESTS = 429;
 
         // 5xx Server Error
 
@@ -19,6 +19,7 @@ import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.UnsupportedEncodingException;
 import java.io.Writer;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.ErrorManager;
 import java.util.logging.Level;
 import java.util.logging.LogManager;
@@ -56,6 +57,12 @@ public class ConsoleHandler extends StreamHandler {
      */
     private Writer err = null;
 
+    /**
+     * The output lock. Used instead of synchronized methods, in order
+     * to avoid pinning virtual threads to their carrier threads.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
     /**
      * Creates a new log console handler using LogManager configuration
      * properties.
@@ -99,23 +106,33 @@ public class ConsoleHandler extends StreamHandler {
      * @throws SecurityException if logging control permission is missing
      */
     @Override
-    public synchronized void close() throws SecurityException {
-        flush();
-        err = null;
+    public void close() throws SecurityException {
+        lock.lock();
+        try {
+            flush();
+            err = null;
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
      * Flushes any buffered output.
      */
     @Override
-    public synchronized void flush() {
-        super.flush();
+    public void flush() {
+        lock.lock();
         try {
-            if (err != null) {
-                err.flush();
+            super.flush();
+            try {
+                if (err != null) {
+                    err.flush();
+                }
+            } catch (IOException e) {
+                reportError(null, e, ErrorManager.FLUSH_FAILURE);
             }
-        } catch (IOException e) {
-            reportError(null, e, ErrorManager.FLUSH_FAILURE);
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -127,22 +144,27 @@ public class ConsoleHandler extends StreamHandler {
      * @throws SecurityException if the log stream couldn't be modified
      */
     @Override
-    public synchronized void publish(LogRecord record) {
-        if (isLoggable(record)) {
-            if (record.getLevel().intValue() >= errorLevel.intValue()) {
-                try {
-                    if (err == null) {
-                        err = createWriter(System.err);
+    public void publish(LogRecord record) {
+        lock.lock();
+        try {
+            if (isLoggable(record)) {
+                if (record.getLevel().intValue() >= errorLevel.intValue()) {
+                    try {
+                        if (err == null) {
+                            err = createWriter(System.err);
+                        }
+                        err.write(getFormatter().format(record));
+                        err.flush();
+                    } catch (Exception e) {
+                        reportError(null, e, ErrorManager.WRITE_FAILURE);
                     }
-                    err.write(getFormatter().format(record));
-                    err.flush();
-                } catch (Exception e) {
-                    reportError(null, e, ErrorManager.WRITE_FAILURE);
+                } else {
+                    super.publish(record);
+                    super.flush();
                 }
-            } else {
-                super.publish(record);
-                super.flush();
             }
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -170,7 +192,12 @@ public class ConsoleHandler extends StreamHandler {
      *
      * @param err            the output stream
      */
-    protected synchronized void setErrorStream(OutputStream err) {
-        this.err = createWriter(err == null ? System.err : err);
+    protected void setErrorStream(OutputStream err) {
+        lock.lock();
+        try {
+            this.err = createWriter(err == null ? System.err : err);
+        } finally {
+            lock.unlock();
+        }
     }
 }
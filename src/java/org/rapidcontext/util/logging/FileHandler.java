@@ -17,11 +17,18 @@ package org.rapidcontext.util.logging;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.util.Date;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.ErrorManager;
+import java.util.logging.Filter;
 import java.util.logging.Level;
 import java.util.logging.LogManager;
 import java.util.logging.LogRecord;
@@ -49,8 +56,32 @@ import org.rapidcontext.util.ValueUtil;
  * <li><code>[class-name].pattern</code> -- a log file name pattern,
  *     including the file path ("%t/rapidcontext-%d{yyyy-MM-dd}.log")
  * <li><code>[class-name].append</code> -- a log append flag (true)
+ * <li><code>[class-name].queueSize</code> -- the async queue size, or
+ *     zero (0) for synchronous writes (0)
+ * <li><code>[class-name].overflow</code> -- the async queue overflow
+ *     policy, one of "block", "drop", "drop-below-warning" or "sample"
+ *     (block)
+ * <li><code>[class-name].sampleRate</code> -- the async queue overflow
+ *     sample rate, i.e. one (1) in N overflowing records are kept with
+ *     the "sample" policy (10)
+ * <li><code>[class-name].flushMillis</code> -- the maximum async flush
+ *     delay in milliseconds (1000)
  * </ul>
  *
+ * <p>In asynchronous mode, log records are added to a bounded
+ * lock-free queue and written in batches by a background thread. The
+ * output stream is flushed when the queue is drained, after every 256
+ * records, or at the latest after the flush delay. The writer thread
+ * sleeps while the queue is empty and is woken by the next published
+ * record. If the queue is full, the overflow policy decides if the
+ * logging thread should block until space is available ("block"), if
+ * the record should be dropped ("drop"), if only records below
+ * WARNING level should be dropped ("drop-below-warning"), or if only
+ * one in N overflowing records should be kept ("sample"). The kept
+ * records block until space is available. The number of dropped
+ * records is logged once the queue has space again.
+ * Closing the handler drains the queue.</p>
+ *
  * <p>A log file pattern may contain the following special character
  * sequences:</p>
  * <ul>
@@ -91,6 +122,53 @@ public final class FileHandler extends StreamHandler {
     // The currently open log file name
     private String openFile = null;
 
+    // The currently open log file writer
+    private Writer out = null;
+
+    // The log file header written flag
+    private boolean doneHeader = false;
+
+    // The async overflow policy
+    private String overflow;
+
+    // The async overflow sample rate (1 in N records kept)
+    private long sampleRate;
+
+    // The async flush delay (in milliseconds)
+    private long flushMillis;
+
+    // The output lock (instead of synchronized, to not pin virtual threads)
+    // Note: The output stream is managed here, since the StreamHandler
+    //       methods synchronize on this object when subclassed.
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // The async record queue, or null for synchronous writes
+    private RingBuffer<LogRecord> queue = null;
+
+    // The async writer thread
+    private Thread writer = null;
+
+    // The async closed flag
+    private volatile boolean closed = false;
+
+    // The async writer idle flag (set while waiting for an empty queue)
+    private volatile boolean idle = false;
+
+    // The number of dropped log records (since last report)
+    private AtomicLong dropped = new AtomicLong();
+
+    // The number of overflowing log records (for sampling)
+    private AtomicLong overflowed = new AtomicLong();
+
+    // The number of records written since the last flush
+    private int unflushed = 0;
+
+    // The async output flush size (in records)
+    private static final int FLUSH_RECORDS = 256;
+
+    // The async overflow block wait time (in nanoseconds)
+    private static final long BLOCK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
     /**
      * Creates a new log file handler using LogManager configuration
      * properties.
@@ -113,6 +191,25 @@ public final class FileHandler extends StreamHandler {
      */
     @SuppressWarnings("this-escape")
     public FileHandler(String pattern, boolean append)
+    throws SecurityException, IOException {
+        this(pattern, append, -1, null);
+    }
+
+    /**
+     * Creates a new log file handler.
+     *
+     * @param pattern        the log file pattern
+     * @param append         the append existing file flag
+     * @param queueSize      the async queue size, zero (0) for synchronous
+     *                       writes, or negative for LogManager value
+     * @param overflow       the async overflow policy, or null for
+     *                       LogManager value
+     *
+     * @throws SecurityException if logging control permission is missing
+     * @throws IOException if the configured log file couldn't be created
+     */
+    @SuppressWarnings("this-escape")
+    public FileHandler(String pattern, boolean append, int queueSize, String overflow)
     throws SecurityException, IOException {
         // Sets .level, .filter, .encoding and .formatter from LogManager props
         super();
@@ -126,6 +223,19 @@ public final class FileHandler extends StreamHandler {
             .filter(s -> !s.isBlank())
             .orElse("%t/rapidcontext-%d{yyyy-MM-dd}.log");
         this.append = ValueUtil.bool(manager.getProperty(cname + ".append"), append);
+        if (queueSize < 0) {
+            String str = Objects.requireNonNullElse(manager.getProperty(cname + ".queueSize"), "0");
+            queueSize = Integer.parseInt(str.trim());
+        }
+        this.overflow = Optional.ofNullable(overflow)
+            .or(() -> Optional.ofNullable(manager.getProperty(cname + ".overflow")))
+            .map(s -> s.trim().toLowerCase())
+            .filter(s -> s.equals("drop") || s.equals("drop-below-warning") || s.equals("sample"))
+            .orElse("block");
+        String rate = manager.getProperty(cname + ".sampleRate");
+        this.sampleRate = Math.max(1, (rate == null) ? 10 : Long.parseLong(rate.trim()));
+        String millis = manager.getProperty(cname + ".flushMillis");
+        this.flushMillis = (millis == null) ? 1000 : Long.parseLong(millis.trim());
 
         // Set custom defaults
         String val = manager.getProperty(cname + ".level");
@@ -139,6 +249,25 @@ public final class FileHandler extends StreamHandler {
         // Create log file
         analyzePattern();
         open(System.currentTimeMillis());
+
+        // Start async writer
+        if (queueSize > 0) {
+            this.queue = new RingBuffer<>(queueSize);
+            this.writer = Thread.ofPlatform()
+                .name("rapidcontext-log-writer")
+                .daemon(true)
+                .start(this::writeLoop);
+        }
+    }
+
+    /**
+     * Checks if this handler uses asynchronous writes.
+     *
+     * @return true if log records are written asynchronously, or
+     *         false otherwise
+     */
+    public boolean isAsync() {
+        return queue != null;
     }
 
     /**
@@ -184,41 +313,292 @@ public final class FileHandler extends StreamHandler {
      * @throws SecurityException if the log stream couldn't be modified
      * @throws IOException if the new log file couldn't be opened
      */
-    @SuppressWarnings("resource")
     protected void open(long now) throws SecurityException, IOException {
-        rotation = now / interval;
-        String fileName = generateFileName();
-        if (!Objects.equals(openFile, fileName)) {
-            if (openFile != null) {
-                close();
-            }
-            openFile = fileName;
-            File parent = new File(openFile).getParentFile();
-            if (parent != null) {
-                parent.mkdirs();
+        lock.lock();
+        try {
+            rotation = now / interval;
+            String fileName = generateFileName();
+            if (!Objects.equals(openFile, fileName)) {
+                closeOutput();
+                openFile = fileName;
+                File parent = new File(openFile).getParentFile();
+                if (parent != null) {
+                    parent.mkdirs();
+                }
+                FileOutputStream os = new FileOutputStream(openFile, append);
+                String enc = getEncoding();
+                out = (enc == null) ? new OutputStreamWriter(os) : new OutputStreamWriter(os, enc);
+                doneHeader = false;
             }
-            setOutputStream(new FileOutputStream(openFile, append));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Checks if a log record would be logged by this handler. This
+     * checks the log level and filter, but not the output stream
+     * (which is managed by this class).
+     *
+     * @param entry          the log entry to check
+     *
+     * @return true if the log record would be logged, or
+     *         false otherwise
+     */
+    @Override
+    public boolean isLoggable(LogRecord entry) {
+        int level = getLevel().intValue();
+        if (entry == null || level == Level.OFF.intValue() || entry.getLevel().intValue() < level) {
+            return false;
         }
+        Filter filter = getFilter();
+        return filter == null || filter.isLoggable(entry);
     }
 
     /**
-     * Formats and publishes a log record.
+     * Formats and publishes a log record. In asynchronous mode, the
+     * record is only added to the queue (or dropped if full) and the
+     * writer thread is woken if idle. In synchronous mode, the record
+     * is formatted before acquiring the output lock.
      *
      * @param entry          the log entry to publish
      */
     @Override
-    public synchronized void publish(LogRecord entry) {
-        if (isLoggable(entry)) {
-            long now = System.currentTimeMillis();
-            if (now / interval > rotation) {
+    public void publish(LogRecord entry) {
+        if (queue == null && isLoggable(entry)) {
+            String msg = format(entry);
+            lock.lock();
+            try {
+                write(msg);
+                flushOutput();
+            } finally {
+                lock.unlock();
+            }
+        } else if (queue != null && isLoggable(entry)) {
+            entry.getSourceClassName(); // Infer caller before handoff
+            if (!queue.offer(entry)) {
+                boolean keep = keepOverflow(entry);
+                while (!queue.offer(entry)) {
+                    if (!keep || closed) {
+                        dropped.incrementAndGet();
+                        return;
+                    }
+                    LockSupport.unpark(writer);
+                    LockSupport.parkNanos(BLOCK_NANOS);
+                }
+            }
+            if (idle) {
+                LockSupport.unpark(writer);
+            }
+        }
+    }
+
+    /**
+     * Checks if a log record should be kept when the queue is full,
+     * according to the overflow policy. Kept records will block
+     * until queue space is available.
+     *
+     * @param entry          the overflowing log entry
+     *
+     * @return true if the log record should be kept, or
+     *         false if it should be dropped
+     */
+    private boolean keepOverflow(LogRecord entry) {
+        return switch (overflow) {
+            case "block" -> true;
+            case "drop-below-warning" -> entry.getLevel().intValue() >= Level.WARNING.intValue();
+            case "sample" -> overflowed.incrementAndGet() % sampleRate == 0;
+            default -> false;
+        };
+    }
+
+    /**
+     * Formats a log record.
+     *
+     * @param entry          the log entry to format
+     *
+     * @return the formatted log entry, or
+     *         null if formatting failed
+     */
+    private String format(LogRecord entry) {
+        try {
+            return getFormatter().format(entry);
+        } catch (Exception e) {
+            reportError(null, e, ErrorManager.FORMAT_FAILURE);
+            return null;
+        }
+    }
+
+    /**
+     * Writes a formatted log record to the output stream, rotating
+     * the log file if needed. The stream is not flushed. This method
+     * must be called with the output lock held.
+     *
+     * @param msg            the formatted log entry, or null
+     */
+    private void write(String msg) {
+        long now = System.currentTimeMillis();
+        if (now / interval > rotation) {
+            try {
+                open(now);
+            } catch (Exception e) {
+                reportError("Failed to rotate log file", e, ErrorManager.GENERIC_FAILURE);
+            }
+        }
+        if (msg != null && out != null) {
+            try {
+                if (!doneHeader) {
+                    out.write(getFormatter().getHead(this));
+                    doneHeader = true;
+                }
+                out.write(msg);
+                unflushed++;
+            } catch (Exception e) {
+                reportError(null, e, ErrorManager.WRITE_FAILURE);
+            }
+        }
+    }
+
+    /**
+     * Flushes the output stream. This method must be called with the
+     * output lock held.
+     */
+    private void flushOutput() {
+        if (out != null) {
+            try {
+                out.flush();
+            } catch (Exception e) {
+                reportError(null, e, ErrorManager.FLUSH_FAILURE);
+            }
+        }
+        unflushed = 0;
+    }
+
+    /**
+     * Writes the log file tail and closes the output stream. This
+     * method must be called with the output lock held.
+     */
+    private void closeOutput() {
+        if (out != null) {
+            try {
+                if (!doneHeader) {
+                    out.write(getFormatter().getHead(this));
+                    doneHeader = true;
+                }
+                out.write(getFormatter().getTail(this));
+                out.close();
+            } catch (Exception e) {
+                reportError(null, e, ErrorManager.CLOSE_FAILURE);
+            }
+            out = null;
+        }
+    }
+
+    /**
+     * Writes all queued log records to the output stream. Any dropped
+     * records are reported after the queued ones.
+     *
+     * @return the number of log records written
+     */
+    private int drain() {
+        lock.lock();
+        try {
+            int count = 0;
+            for (LogRecord entry = queue.poll(); entry != null; entry = queue.poll()) {
+                write(format(entry));
+                count++;
+                if (unflushed >= FLUSH_RECORDS) {
+                    flushOutput();
+                }
+            }
+            long lost = dropped.getAndSet(0);
+            if (lost > 0) {
+                String msg = "dropped " + lost + " log record(s) due to full log queue";
+                write(format(new LogRecord(Level.WARNING, msg)));
+            }
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The async writer thread loop. Writes queued records in batches
+     * and flushes when the queue is empty or after the flush delay.
+     * Once the queue is drained and flushed, the thread parks until
+     * unparked by a publish (or close).
+     */
+    private void writeLoop() {
+        long lastFlush = System.nanoTime();
+        long flushNanos = TimeUnit.MILLISECONDS.toNanos(flushMillis);
+        while (!closed) {
+            int count = drain();
+            long now = System.nanoTime();
+            if (count == 0 || now - lastFlush >= flushNanos) {
+                lock.lock();
                 try {
-                    open(now);
-                } catch (Exception e) {
-                    reportError("Failed to rotate log file", e, ErrorManager.GENERIC_FAILURE);
+                    if (unflushed > 0) {
+                        flushOutput();
+                    }
+                } finally {
+                    lock.unlock();
                 }
+                lastFlush = now;
+            }
+            if (count == 0) {
+                // Note: The idle flag is set before re-checking the queue,
+                //       so a concurrent publish either sees the flag or
+                //       its record is seen here.
+                idle = true;
+                if (queue.isEmpty() && !closed) {
+                    LockSupport.park(this);
+                }
+                idle = false;
+            }
+        }
+    }
+
+    /**
+     * Flushes any buffered output. In asynchronous mode, all queued
+     * log records are first written.
+     */
+    @Override
+    public void flush() {
+        lock.lock();
+        try {
+            if (queue != null) {
+                drain();
+            }
+            flushOutput();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Closes the handler and the current output stream. In
+     * asynchronous mode, the writer thread is stopped and all queued
+     * log records are written before closing.
+     */
+    @Override
+    public void close() {
+        if (queue != null && !closed) {
+            closed = true;
+            LockSupport.unpark(writer);
+            try {
+                writer.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        lock.lock();
+        try {
+            if (queue != null) {
+                drain();
             }
-            super.publish(entry);
-            flush();
+            closeOutput();
+        } finally {
+            lock.unlock();
         }
     }
 }
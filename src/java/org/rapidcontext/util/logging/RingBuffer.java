@@ -0,0 +1,136 @@
+/*
+ * RapidContext <https://www.rapidcontext.com/>
+ * Copyright (c) 2007-2026 Per Cederberg. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the BSD license.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the RapidContext LICENSE for more details.
+ */
+
+package org.rapidcontext.util.logging;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A bounded lock-free multi-producer multi-consumer queue. Each slot
+ * in the ring has a sequence number, used by producers and consumers
+ * to claim slots with a single compare-and-set operation. The
+ * capacity is always rounded up to a power of two.
+ *
+ * @param <T>            the queue element type
+ *
+ * @author Per Cederberg
+ */
+final class RingBuffer<T> {
+
+    // The ring buffer slots
+    private final Object[] items;
+
+    // The slot sequence numbers
+    private final AtomicLongArray seqs;
+
+    // The slot index mask
+    private final int mask;
+
+    // The next enqueue position
+    private final AtomicLong head = new AtomicLong();
+
+    // The next dequeue position
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * Creates a new ring buffer.
+     *
+     * @param capacity       the minimum capacity (rounded up)
+     */
+    RingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.items = new Object[size];
+        this.seqs = new AtomicLongArray(size);
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            seqs.set(i, i);
+        }
+    }
+
+    /**
+     * Returns the buffer capacity.
+     *
+     * @return the buffer capacity
+     */
+    public int capacity() {
+        return items.length;
+    }
+
+    /**
+     * Returns the approximate number of elements in the buffer.
+     *
+     * @return the approximate number of elements
+     */
+    public int size() {
+        return (int) Math.max(0, Math.min(head.get() - tail.get(), items.length));
+    }
+
+    /**
+     * Checks if the buffer is (approximately) empty.
+     *
+     * @return true if the buffer is empty, or false otherwise
+     */
+    public boolean isEmpty() {
+        return head.get() == tail.get();
+    }
+
+    /**
+     * Adds an element to the buffer (if not full).
+     *
+     * @param item           the element to add
+     *
+     * @return true if the element was added, or
+     *         false if the buffer was full
+     */
+    public boolean offer(T item) {
+        long pos = head.get();
+        while (true) {
+            int idx = (int) (pos & mask);
+            long diff = seqs.get(idx) - pos;
+            if (diff == 0 && head.compareAndSet(pos, pos + 1)) {
+                items[idx] = item;
+                seqs.set(idx, pos + 1);
+                return true;
+            } else if (diff < 0) {
+                return false;
+            }
+            pos = head.get();
+        }
+    }
+
+    /**
+     * Removes the first element from the buffer (if not empty).
+     *
+     * @return the element removed, or
+     *         null if the buffer was empty
+     */
+    @SuppressWarnings("unchecked")
+    public T poll() {
+        long pos = tail.get();
+        while (true) {
+            int idx = (int) (pos & mask);
+            long diff = seqs.get(idx) - (pos + 1);
+            if (diff == 0 && tail.compareAndSet(pos, pos + 1)) {
+                T item = (T) items[idx];
+                items[idx] = null;
+                seqs.set(idx, pos + mask + 1);
+                return item;
+            } else if (diff < 0) {
+                return null;
+            }
+            pos = tail.get();
+        }
+    }
+}
@@ -15,6 +15,7 @@
 package org.rapidcontext.app.plugin.http;
 
 import java.util.Date;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Logger;
 
 import org.rapidcontext.core.data.Dict;
@@ -70,6 +71,11 @@ public class HttpConnection extends Connection {
      */
     public static final String AUTH_EXPIRES = "expires";
 
+    /**
+     * The authorization refresh lock.
+     */
+    private final ReentrantLock authLock = new ReentrantLock();
+
     /**
      * Normalizes an HTTP connection data object if needed. This method
      * will modify legacy data into the proper keys and values.
@@ -165,45 +171,55 @@ public class HttpConnection extends Connection {
     }
 
     /**
-     * Returns or computes an authorization header if configured.
+     * Returns or computes an authorization header if configured. Only a
+     * single thread at a time will compute a new header, while others
+     * wait for the result (without pinning any virtual threads).
      *
      * @return the computed authorization header, or
      *         null if not configured
      *
      * @throws ConnectionException if the authentication wasn't successful
      */
-    protected synchronized String authRefresh() throws ConnectionException {
-        long now = System.currentTimeMillis();
-        if (!dict.containsKey(dictKey(HTTP_AUTH))) {
-            return null;
-        } else if (authActive(now) instanceof String res) {
+    protected String authRefresh() throws ConnectionException {
+        if (authActive(System.currentTimeMillis()) instanceof String res) {
             return res;
-        } else {
-            try {
-                Dict conf = dict.getDict(dictKey(HTTP_AUTH));
-                Object val = CallContext.execute("http/auth", conf);
-                if (val instanceof Dict d) {
-                    String header = d.getElse(AUTH_HEADER, String.class, () -> {
-                        String token = d.get("access_token", String.class);
-                        return (token == null) ? null : "Bearer " + token;
-                    });
-                    Date expires = d.getElse(AUTH_EXPIRES, Date.class, () -> {
-                        long expIn = d.get("expires_in", Long.class, 0L);
-                        return (expIn > 0L) ? new Date(now + expIn * 1000L) : null;
-                    });
-                    if (header != null && expires != null) {
-                        Dict act = new Dict()
-                            .set(AUTH_HEADER, header)
-                            .set(AUTH_EXPIRES, expires);
-                        dict.set(PREFIX_COMPUTED + HTTP_AUTH, act);
+        }
+        authLock.lock();
+        try {
+            long now = System.currentTimeMillis();
+            if (!dict.containsKey(dictKey(HTTP_AUTH))) {
+                return null;
+            } else if (authActive(now) instanceof String res) {
+                return res;
+            } else {
+                try {
+                    Dict conf = dict.getDict(dictKey(HTTP_AUTH));
+                    Object val = CallContext.execute("http/auth", conf);
+                    if (val instanceof Dict d) {
+                        String header = d.getElse(AUTH_HEADER, String.class, () -> {
+                            String token = d.get("access_token", String.class);
+                            return (token == null) ? null : "Bearer " + token;
+                        });
+                        Date expires = d.getElse(AUTH_EXPIRES, Date.class, () -> {
+                            long expIn = d.get("expires_in", Long.class, 0L);
+                            return (expIn > 0L) ? new Date(now + expIn * 1000L) : null;
+                        });
+                        if (header != null && expires != null) {
+                            Dict act = new Dict()
+                                .set(AUTH_HEADER, header)
+                                .set(AUTH_EXPIRES, expires);
+                            dict.set(PREFIX_COMPUTED + HTTP_AUTH, act);
+                        }
+                        return header;
+                    } else {
+                        return ValueUtil.convert(val, String.class);
                     }
-                    return header;
-                } else {
-                    return ValueUtil.convert(val, String.class);
+                } catch (Exception e) {
+                    throw new ConnectionException("auth error: " + e.getMessage(), e);
                 }
-            } catch (Exception e) {
-                throw new ConnectionException("auth error: " + e.getMessage(), e);
             }
+        } finally {
+            authLock.unlock();
         }
     }
 
@@ -24,6 +24,7 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
 import java.sql.Types;
 import java.util.ArrayList;
 import java.util.Properties;
@@ -77,6 +78,13 @@ public class JdbcChannel extends Channel {
      */
     protected String sqlPing;
 
+    /**
+     * The driver validation flag. If set, the JDBC driver validation
+     * is used instead of the SQL ping query. Cleared if the driver
+     * doesn't support validation.
+     */
+    protected boolean driverPing;
+
     /**
      * The SQL connection and query timeout.
      */
@@ -103,6 +111,7 @@ public class JdbcChannel extends Channel {
         this.prefix = "[JDBC:" + (++counter) + "] ";
         this.sqlInit = parent.sqlInit();
         this.sqlPing = parent.ping();
+        this.driverPing = parent.isDriverPing();
         this.timeout = parent.timeout();
         try {
             LOG.fine(prefix + "creating connection for " + parent.url());
@@ -173,13 +182,31 @@ public class JdbcChannel extends Channel {
      * is called before using a channel and regularly when it is idle
      * in the pool. It can be used to trigger a "ping" for a channel.
      * This method can only mark a valid channel as invalid, never
-     * the other way around.
+     * the other way around. The JDBC driver validation is used when
+     * no SQL ping query has been configured (and the driver supports
+     * it), since it avoids a full query round-trip for most drivers.
      *
      * @see #isValid()
      * @see #invalidate()
      */
     @Override
     public void validate() {
+        if (driverPing) {
+            try {
+                if (!con.isValid(timeout)) {
+                    LOG.warning(prefix + "validation failure: connection no longer valid");
+                    invalidate();
+                }
+                return;
+            } catch (SQLFeatureNotSupportedException | AbstractMethodError e) {
+                LOG.fine(prefix + "driver validation not supported, using SQL ping");
+                driverPing = false;
+            } catch (SQLException e) {
+                LOG.log(Level.WARNING, prefix + "validation failure", e);
+                invalidate();
+                return;
+            }
+        }
         if (sqlPing != null && !sqlPing.isBlank()) {
             reset();
             startTime = 0;
@@ -580,6 +607,8 @@ public class JdbcChannel extends Channel {
         boolean flagSingleRow = hasFlag(flags, "single-row", false);
         try {
             int colCount = meta.getColumnCount();
+            Dict.Schema schema = flagColumnNames ? createRowSchema(meta) : null;
+            String[] keys = flagColumnNames ? schema.keys() : null;
             while (rs.next()) {
                 if (flagSingleColumn) {
                     if (colCount != 1) {
@@ -589,10 +618,10 @@ public class JdbcChannel extends Channel {
                     }
                     rows.add(createValue(meta, rs, 1, flagNativeTypes, flagBinaryData));
                 } else if (flagColumnNames) {
-                    Dict rowDict = new Dict();
+                    Dict rowDict = new Dict(schema);
                     for (int i = 0; i < colCount; i++) {
                         Object value = createValue(meta, rs, i + 1, flagNativeTypes, flagBinaryData);
-                        rowDict.add(meta.getColumnLabel(i + 1).toLowerCase(), value);
+                        rowDict.set(keys[i], value);
                     }
                     rows.add(rowDict);
                 } else {
@@ -625,6 +654,28 @@ public class JdbcChannel extends Channel {
         return rows;
     }
 
+    /**
+     * Creates a shared key schema for the row data objects. The
+     * column labels are converted to lower-case, and any duplicates
+     * are made unique with a numeric suffix.
+     *
+     * @param meta           the result set meta-data
+     *
+     * @return the row key schema
+     *
+     * @throws SQLException if the result meta-data couldn't be read
+     */
+    protected Dict.Schema createRowSchema(ResultSetMetaData meta)
+    throws SQLException {
+
+        int colCount = meta.getColumnCount();
+        Dict names = new Dict(colCount);
+        for (int i = 0; i < colCount; i++) {
+            names.add(meta.getColumnLabel(i + 1).toLowerCase(), Boolean.TRUE);
+        }
+        return new Dict.Schema(names.keys());
+    }
+
     /**
      * Converts a specific row column value to a scriptable object. Normally
      * this means returning a simple string containing the value. If the native
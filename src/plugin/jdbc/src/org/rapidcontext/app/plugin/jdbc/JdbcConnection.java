@@ -69,7 +69,7 @@ public class JdbcConnection extends Connection {
 
     /**
      * The JDBC SQL ping configuration parameter name (optional,
-     * defaults to 'SELECT 1').
+     * defaults to JDBC driver validation or 'SELECT 1').
      */
     protected static final String JDBC_PING = "sqlping";
 
@@ -233,6 +233,18 @@ public class JdbcConnection extends Connection {
         return dict.get(dictKey(JDBC_PING), String.class);
     }
 
+    /**
+     * Checks if the JDBC driver validation should be used instead of
+     * the SQL ping query. This is the case when no SQL ping query has
+     * been explicitly configured.
+     *
+     * @return true if driver validation should be used, or
+     *         false otherwise
+     */
+    public boolean isDriverPing() {
+        return dict.get(JDBC_PING, String.class, "").isBlank();
+    }
+
     /**
      * Returns the auto-commit (after each SQL) flag.
      *
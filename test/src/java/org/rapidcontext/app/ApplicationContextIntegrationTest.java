@@ -0,0 +1,95 @@
+/*
+ * RapidContext <https://www.rapidcontext.com/>
+ * Copyright (c) 2007-2026 Per Cederberg. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the BSD license.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the RapidContext LICENSE for more details.
+ */
+
+package org.rapidcontext.app;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.Objects;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.rapidcontext.core.data.Dict;
+import org.rapidcontext.core.proc.CallInterceptor;
+import org.rapidcontext.core.proc.ReserveInterceptor;
+import org.rapidcontext.core.security.SecurityContext;
+import org.rapidcontext.core.storage.Path;
+import org.rapidcontext.core.storage.StorableObject;
+import org.rapidcontext.core.storage.Storage;
+import org.rapidcontext.core.type.Environment;
+import org.rapidcontext.core.type.Interceptor;
+import org.rapidcontext.core.type.Metrics;
+import org.rapidcontext.core.type.Role;
+import org.rapidcontext.core.type.User;
+import org.rapidcontext.core.type.Vault;
+
+@SuppressWarnings("javadoc")
+public class ApplicationContextIntegrationTest {
+
+    private static final Path[] PATHS = {
+        Interceptor.PATH, Environment.PATH, Role.PATH, User.PATH, Vault.PATH, Metrics.PATH
+    };
+
+    @BeforeClass
+    public static void setup() throws Exception {
+        String dir = Objects.requireNonNullElse(System.getenv("LOCAL_DIR"), "tmp/integration");
+        ApplicationContext.init(new File("."), new File(dir), true);
+    }
+
+    @AfterClass
+    public static void teardown() throws Exception {
+        ApplicationContext.destroy();
+    }
+
+    private static String id(StorableObject obj) {
+        return (obj == null) ? null : obj.id();
+    }
+
+    private static Dict snapshot(ApplicationContext ctx) {
+        Storage storage = ctx.storage();
+        Dict objects = new Dict();
+        for (Path base : PATHS) {
+            storage.query(base).paths().sorted().forEach(p -> {
+                Object obj = storage.load(p);
+                objects.set(p.toString(), (obj == null) ? null : obj.getClass().getName());
+            });
+        }
+        User admin = User.find(storage, "test-admin");
+        return new Dict()
+            .set("objects", objects)
+            .set("environment", id(ctx.environment()))
+            .set("call", id(CallInterceptor.get()))
+            .set("reserve", id(ReserveInterceptor.get()))
+            .set("anonymous", SecurityContext.hasAccess(null, "procedure/system/status", null, "read"))
+            .set("admin", SecurityContext.hasAccess(admin, "procedure/system/reset", null, "read"));
+    }
+
+    @Test
+    public void testInitCaches() throws Exception {
+        ApplicationContext ctx = ApplicationContext.active();
+        Dict parallel = snapshot(ctx);
+        assertTrue(parallel.getDict("objects").size() > 0);
+        assertEquals(Boolean.TRUE, parallel.get("admin"));
+        ctx.initCaches(false);
+        assertEquals(parallel, snapshot(ctx));
+        ctx.initCaches(true);
+        assertEquals(parallel, snapshot(ctx));
+        Dict startup = ctx.startupTimes();
+        for (String step : new String[] { "vaults", "interceptors", "environment", "security", "metrics" }) {
+            assertTrue(step, startup.containsKey(step));
+        }
+    }
+}
@@ -35,6 +35,10 @@ import org.rapidcontext.core.data.Array;
 import org.rapidcontext.core.data.Dict;
 import org.rapidcontext.core.data.JsonSerializer;
 import org.rapidcontext.core.proc.CallContext;
+import org.rapidcontext.core.proc.ReserveInterceptor;
+import org.rapidcontext.core.storage.Path;
+import org.rapidcontext.core.type.Connection;
+import org.rapidcontext.core.type.Interceptor;
 
 @SuppressWarnings("javadoc")
 public class JsProcedureIntegrationTest {
@@ -192,6 +196,38 @@ public class JsProcedureIntegrationTest {
         assertValidProps("connection prototypeProperties", res.getDict("prototypeProperties"));
     }
 
+    @Test
+    public void testLazyConnection() throws Exception {
+        Path path = Path.from("/interceptor/reserve/default");
+        Dict dict = new Dict()
+            .set("id", "reserve/default")
+            .set("type", "interceptor/reserve")
+            .set("description", "Lazy test interceptor.")
+            .set("prio", 100)
+            .set(ReserveInterceptor.KEY_LAZY, true);
+        cx.storage().store(path, dict);
+        Interceptor.init(cx.storage());
+        try {
+            ReserveInterceptor last = ReserveInterceptor.get();
+            while (last.next(ReserveInterceptor.class) != null) {
+                last = last.next(ReserveInterceptor.class);
+            }
+            assertTrue(last.isLazy());
+            Connection con = Connection.find(cx.storage(), "test/httpbin");
+            Date lastUsed = con.lastUsed();
+            assertNull(CallContext.execute("test/javascript/ad-hoc/lazy-connection", false));
+            assertEquals(lastUsed, con.lastUsed());
+            Array res = (Array) CallContext.execute("test/javascript/ad-hoc/lazy-connection", true);
+            assertTrue(res.containsValue("commit"));
+            assertNotEquals(lastUsed, con.lastUsed());
+            assertEquals(0, con.usedChannels());
+            assertTrue(con.peakChannels() >= 1);
+        } finally {
+            cx.storage().remove(path);
+            Interceptor.init(cx.storage());
+        }
+    }
+
     @Test
     public void testConsole() throws Exception {
         Dict res = (Dict) CallContext.execute("test/javascript/console");
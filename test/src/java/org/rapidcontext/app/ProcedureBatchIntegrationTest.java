@@ -0,0 +1,171 @@
+/*
+ * RapidContext <https://www.rapidcontext.com/>
+ * Copyright (c) 2007-2026 Per Cederberg. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the BSD license.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the RapidContext LICENSE for more details.
+ */
+
+package org.rapidcontext.app;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.HashSet;
+import java.util.Objects;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.rapidcontext.core.data.Array;
+import org.rapidcontext.core.data.Dict;
+import org.rapidcontext.core.data.JsonSerializer;
+
+@SuppressWarnings("javadoc")
+public class ProcedureBatchIntegrationTest {
+
+    private static final String BATCH = """
+        [
+            { "procedure": "system/status" },
+            { "procedure": "system/storage/read", "args": { "path": "/type/procedure" } },
+            { "procedure": "system/missing" },
+            { "procedure": "system/storage/read", "args": ["/type/role"] },
+            "invalid"
+        ]""";
+
+    private static ServerApplication app;
+    private static HttpClient client;
+
+    @BeforeClass
+    public static void setup() throws Exception {
+        app = new ServerApplication();
+        String dir = Objects.requireNonNullElse(System.getenv("LOCAL_DIR"), "tmp/integration");
+        app.localDir = new File(dir);
+        app.port = freePort();
+        app.init();
+        app.start();
+        client = HttpClient.newHttpClient();
+    }
+
+    @AfterClass
+    public static void teardown() throws Exception {
+        if (client != null) {
+            client.close();
+        }
+        if (app != null) {
+            app.stop();
+        }
+        ApplicationContext.destroy();
+    }
+
+    private static int freePort() throws Exception {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static HttpResponse<String> post(String body, String accept) throws Exception {
+        URI uri = URI.create("http://localhost:" + app.port + "/rapidcontext/procedure/");
+        HttpRequest req = HttpRequest.newBuilder(uri)
+            .header("Content-Type", "application/json")
+            .header("Accept", accept)
+            .POST(HttpRequest.BodyPublishers.ofString(body))
+            .build();
+        return client.send(req, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static void assertResult(Dict res) {
+        int idx = res.get("index", Integer.class);
+        switch (idx) {
+        case 0:
+            assertEquals("system/status", res.get("procedure"));
+            assertNotNull(res.get("data", Dict.class));
+            assertFalse(res.containsKey("error"));
+            break;
+        case 1:
+            assertEquals("procedure", res.getDict("data").get("id"));
+            break;
+        case 2:
+            assertFalse(res.containsKey("data"));
+            assertTrue(res.get("error", String.class).contains("system/missing"));
+            break;
+        case 3:
+            assertEquals("role", res.getDict("data").get("id"));
+            break;
+        case 4:
+            assertTrue(res.get("error", String.class).contains("invalid batch call"));
+            break;
+        default:
+            fail("unexpected batch index " + idx);
+        }
+        assertTrue(res.containsKey("execTime"));
+    }
+
+    @Test
+    public void testJsonResults() throws Exception {
+        for (String param : new String[] { "", "?system:sequential=true" }) {
+            URI uri = URI.create("http://localhost:" + app.port + "/rapidcontext/procedure/" + param);
+            HttpRequest req = HttpRequest.newBuilder(uri)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(BATCH))
+                .build();
+            HttpResponse<String> resp = client.send(req, HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, resp.statusCode());
+            Array arr = (Array) JsonSerializer.unserialize(resp.body());
+            assertEquals(5, arr.size());
+            for (int i = 0; i < arr.size(); i++) {
+                Dict res = arr.getDict(i);
+                assertEquals(Integer.valueOf(i), res.get("index", Integer.class));
+                assertResult(res);
+            }
+        }
+    }
+
+    @Test
+    public void testNdjsonResults() throws Exception {
+        HttpResponse<String> resp = post(BATCH, "application/x-ndjson");
+        assertEquals(200, resp.statusCode());
+        assertTrue(resp.headers().firstValue("Content-Type").orElse("").startsWith("application/x-ndjson"));
+        String[] lines = resp.body().split("\n");
+        assertEquals(5, lines.length);
+        HashSet<Integer> seen = new HashSet<>();
+        for (String line : lines) {
+            Dict res = (Dict) JsonSerializer.unserialize(line);
+            assertTrue(seen.add(res.get("index", Integer.class)));
+            assertResult(res);
+        }
+        assertEquals(5, seen.size());
+    }
+
+    @Test
+    public void testEmptyBatch() throws Exception {
+        HttpResponse<String> resp = post("[]", "application/json");
+        assertEquals(200, resp.statusCode());
+        assertEquals(0, ((Array) JsonSerializer.unserialize(resp.body())).size());
+    }
+
+    @Test
+    public void testMalformedInput() throws Exception {
+        assertEquals(400, post("[{ \"procedure\": ", "application/json").statusCode());
+        assertEquals(400, post("{ \"procedure\": \"system/status\" }", "application/json").statusCode());
+        assertEquals(400, post("\"system/status\"", "application/json").statusCode());
+        StringBuilder buffer = new StringBuilder("[");
+        for (int i = 0; i <= 100; i++) {
+            buffer.append(i > 0 ? "," : "").append("{ \"procedure\": \"system/status\" }");
+        }
+        HttpResponse<String> resp = post(buffer.append("]").toString(), "application/json");
+        assertEquals(400, resp.statusCode());
+        assertTrue(resp.body().contains("batch exceeds 100 calls"));
+    }
+}
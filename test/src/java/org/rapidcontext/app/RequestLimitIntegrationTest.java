@@ -0,0 +1,176 @@
+/*
+ * RapidContext <https://www.rapidcontext.com/>
+ * Copyright (c) 2007-2026 Per Cederberg. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the BSD license.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the RapidContext LICENSE for more details.
+ */
+
+package org.rapidcontext.app;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.net.CookieManager;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.Objects;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.rapidcontext.util.BinaryUtil;
+
+/**
+ * Integration tests for request size limits, using the "test/limits"
+ * web service (with a 1 KiB input size and upload quota).
+ */
+@SuppressWarnings("javadoc")
+public class RequestLimitIntegrationTest {
+
+    private static final String BOUNDARY = "----rapidcontext-test-boundary";
+
+    private static ServerApplication app;
+    private static HttpClient client;
+
+    @BeforeClass
+    public static void setup() throws Exception {
+        app = new ServerApplication();
+        String dir = Objects.requireNonNullElse(System.getenv("LOCAL_DIR"), "tmp/integration");
+        app.localDir = new File(dir);
+        app.port = freePort();
+        app.init();
+        app.start();
+        client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .cookieHandler(new CookieManager())
+            .build();
+        HttpResponse<String> resp = client.send(
+            HttpRequest.newBuilder(uri("procedure/system/status?system:session=true")).GET().build(),
+            HttpResponse.BodyHandlers.ofString()
+        );
+        assertEquals(200, resp.statusCode());
+    }
+
+    @AfterClass
+    public static void teardown() throws Exception {
+        if (client != null) {
+            client.close();
+        }
+        if (app != null) {
+            app.stop();
+        }
+        ApplicationContext.destroy();
+    }
+
+    private static int freePort() throws Exception {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static URI uri(String path) {
+        return URI.create("http://localhost:" + app.port + "/test/limits/rapidcontext/" + path);
+    }
+
+    private static String batch(int size) {
+        StringBuilder buffer = new StringBuilder("[");
+        while (buffer.length() < size) {
+            buffer.append(buffer.length() > 1 ? "," : "").append("{\"procedure\":\"system/status\"}");
+        }
+        return buffer.append("]").toString();
+    }
+
+    private static HttpResponse<String> postJson(String path, HttpRequest.BodyPublisher body) throws Exception {
+        HttpRequest req = HttpRequest.newBuilder(uri(path))
+            .header("Content-Type", "application/json")
+            .POST(body)
+            .build();
+        return client.send(req, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static HttpResponse<String> upload(String path, String name, byte[] data) throws Exception {
+        String head = "--" + BOUNDARY + "\r\n" +
+            "Content-Disposition: form-data; name=\"file\"; filename=\"" + name + "\"\r\n" +
+            "Content-Type: application/octet-stream\r\n\r\n";
+        String tail = "\r\n--" + BOUNDARY + "--\r\n";
+        HttpRequest req = HttpRequest.newBuilder(uri(path))
+            .header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+            .POST(HttpRequest.BodyPublishers.concat(
+                HttpRequest.BodyPublishers.ofString(head),
+                HttpRequest.BodyPublishers.ofByteArray(data),
+                HttpRequest.BodyPublishers.ofString(tail)
+            ))
+            .build();
+        return client.send(req, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static byte[] data(int size, char ch) {
+        return String.valueOf(ch).repeat(size).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testInputSize() throws Exception {
+        HttpResponse<String> resp = postJson("procedure/", HttpRequest.BodyPublishers.ofString(batch(500)));
+        assertEquals(200, resp.statusCode());
+        resp = postJson("procedure/", HttpRequest.BodyPublishers.ofString(batch(2000)));
+        assertEquals(413, resp.statusCode());
+        resp = postJson("procedure/system/status", HttpRequest.BodyPublishers.ofString(batch(2000)));
+        assertEquals(413, resp.statusCode());
+    }
+
+    @Test
+    public void testChunkedInputSize() throws Exception {
+        byte[] small = batch(500).getBytes(StandardCharsets.UTF_8);
+        HttpResponse<String> resp = postJson("procedure/", HttpRequest.BodyPublishers.ofInputStream(
+            () -> new ByteArrayInputStream(small)
+        ));
+        assertEquals(200, resp.statusCode());
+        byte[] large = batch(2000).getBytes(StandardCharsets.UTF_8);
+        resp = postJson("procedure/", HttpRequest.BodyPublishers.ofInputStream(
+            () -> new ByteArrayInputStream(large)
+        ));
+        assertEquals(413, resp.statusCode());
+        assertTrue(resp.body().contains("1024 bytes"));
+    }
+
+    @Test
+    public void testUploadQuota() throws Exception {
+        assertEquals(200, upload("upload/quota-a", "a.txt", data(600, 'a')).statusCode());
+        HttpResponse<String> resp = upload("upload/quota-b", "b.txt", data(600, 'b'));
+        assertEquals(413, resp.statusCode());
+        assertTrue(resp.body().contains("session quota"));
+        assertEquals(200, upload("upload/quota-a", "a.txt", data(700, 'a')).statusCode());
+        assertEquals(413, upload("upload/quota-c", "c.txt", data(2000, 'c')).statusCode());
+        assertEquals(200, upload("upload/quota-a", "a.txt", data(1, 'a')).statusCode());
+    }
+
+    @Test
+    public void testUploadDigest() throws Exception {
+        byte[] data = data(100, 'd');
+        byte[] hash = MessageDigest.getInstance("SHA-256").digest(data);
+        String hex = BinaryUtil.encodeHexString(hash);
+        HttpResponse<String> resp = upload("upload/digest?sha256=" + hex.toUpperCase(), "d.txt", data);
+        assertEquals(200, resp.statusCode());
+        String expected = "sha-256=:" + Base64.getEncoder().encodeToString(hash) + ":";
+        assertEquals(expected, resp.headers().firstValue("Repr-Digest").orElse(null));
+        resp = upload("upload/digest?sha256=" + "0".repeat(64), "d.txt", data);
+        assertEquals(400, resp.statusCode());
+        assertTrue(resp.body().contains("checksum mismatch"));
+        assertTrue(resp.body().contains(hex));
+        assertFalse(resp.headers().firstValue("Repr-Digest").isPresent());
+    }
+}
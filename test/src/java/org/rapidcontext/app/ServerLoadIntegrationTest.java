@@ -0,0 +1,195 @@
+/*
+ * RapidContext <https://www.rapidcontext.com/>
+ * Copyright (c) 2007-2026 Per Cederberg. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the BSD license.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the RapidContext LICENSE for more details.
+ */
+
+package org.rapidcontext.app;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.security.KeyStore;
+import java.util.ArrayList;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.logging.Logger;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManagerFactory;
+
+import org.junit.AfterClass;
+import org.junit.Test;
+import org.rapidcontext.core.data.Dict;
+import org.rapidcontext.util.FileUtil;
+
+/**
+ * A local load-test harness for the stand-alone server. Runs the same
+ * request load against a number of connector configurations and logs
+ * the throughput for each. The number of requests can be increased
+ * with the "rapidcontext.loadtest.requests" system property.
+ */
+@SuppressWarnings("javadoc")
+public class ServerLoadIntegrationTest {
+
+    private static final Logger LOG = Logger.getLogger(ServerLoadIntegrationTest.class.getName());
+
+    private static final int REQUESTS = Integer.getInteger("rapidcontext.loadtest.requests", 200);
+    private static final int CONCURRENCY = 16;
+    private static final String PASSWORD = "changeit";
+
+    @AfterClass
+    public static void teardown() throws Exception {
+        ApplicationContext.destroy();
+    }
+
+    @Test
+    public void testThroughput() throws Exception {
+        Dict[] configs = {
+            new Dict(),
+            new Dict()
+                .set("acceptors", 1)
+                .set("selectors", 2)
+                .set("idleTimeout", 60000)
+                .set("outputBufferSize", 65536)
+                .set("outputAggregationSize", 16384),
+            new Dict()
+                .set("outputBufferSize", 8192)
+                .set("outputAggregationSize", 2048)
+                .set("requestHeaderSize", 16384)
+        };
+        for (Dict config : configs) {
+            double rate = run(config, client(HttpClient.Version.HTTP_1_1), false, HttpClient.Version.HTTP_1_1);
+            assertTrue(config + " throughput", rate > 0);
+            LOG.info(String.format("server load %s: %.1f req/s", config, rate));
+        }
+    }
+
+    @Test
+    public void testHttp2() throws Exception {
+        Dict config = new Dict().set("http2", true);
+        double rate = run(config, client(HttpClient.Version.HTTP_2), false, HttpClient.Version.HTTP_2);
+        assertTrue("h2c throughput", rate > 0);
+        LOG.info(String.format("server load h2c: %.1f req/s", rate));
+        rate = run(config, client(HttpClient.Version.HTTP_1_1), false, HttpClient.Version.HTTP_1_1);
+        assertTrue("h2c fallback throughput", rate > 0);
+    }
+
+    @Test
+    public void testHttp2Tls() throws Exception {
+        File dir = Files.createTempDirectory("rapidcontext-tls-").toFile();
+        try {
+            File keyStore = new File(dir, "keystore.p12");
+            SSLContext ssl = createKeyStore(keyStore);
+            Dict config = new Dict()
+                .set("tlsPort", freePort())
+                .set("keyStore", keyStore.getAbsolutePath())
+                .set("keyStorePassword", PASSWORD);
+            HttpClient client = HttpClient.newBuilder().sslContext(ssl).version(HttpClient.Version.HTTP_2).build();
+            double rate = run(config, client, true, HttpClient.Version.HTTP_1_1);
+            assertTrue("https throughput", rate > 0);
+            LOG.info(String.format("server load https: %.1f req/s", rate));
+            config.set("tlsPort", freePort()).set("http2", true);
+            client = HttpClient.newBuilder().sslContext(ssl).version(HttpClient.Version.HTTP_2).build();
+            rate = run(config, client, true, HttpClient.Version.HTTP_2);
+            assertTrue("h2 throughput", rate > 0);
+            LOG.info(String.format("server load h2: %.1f req/s", rate));
+        } finally {
+            FileUtil.delete(dir);
+        }
+    }
+
+    private static HttpClient client(HttpClient.Version version) {
+        return HttpClient.newBuilder().version(version).build();
+    }
+
+    private double run(Dict config, HttpClient client, boolean tls, HttpClient.Version version)
+    throws Exception {
+        ServerApplication app = new ServerApplication();
+        String dir = Objects.requireNonNullElse(System.getenv("LOCAL_DIR"), "tmp/integration");
+        app.localDir = new File(dir);
+        app.port = freePort();
+        app.config = config;
+        app.init();
+        app.start();
+        try (
+            client;
+            ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        ) {
+            String base = tls ?
+                "https://localhost:" + config.get("tlsPort", Integer.class) :
+                "http://localhost:" + app.port;
+            URI uri = URI.create(base + "/rapidcontext/status");
+            HttpRequest req = HttpRequest.newBuilder(uri).GET().build();
+            assertEquals(200, client.send(req, HttpResponse.BodyHandlers.discarding()).statusCode());
+            Semaphore permits = new Semaphore(CONCURRENCY);
+            ArrayList<Future<HttpResponse<byte[]>>> results = new ArrayList<>(REQUESTS);
+            long start = System.nanoTime();
+            for (int i = 0; i < REQUESTS; i++) {
+                results.add(executor.submit(() -> {
+                    permits.acquire();
+                    try {
+                        return client.send(req, HttpResponse.BodyHandlers.ofByteArray());
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+            for (Future<HttpResponse<byte[]>> f : results) {
+                HttpResponse<byte[]> resp = f.get();
+                assertEquals(200, resp.statusCode());
+                assertEquals(version, resp.version());
+            }
+            long nanos = System.nanoTime() - start;
+            return REQUESTS * 1e9 / nanos;
+        } finally {
+            app.stop();
+        }
+    }
+
+    private static SSLContext createKeyStore(File file) throws Exception {
+        String keytool = System.getProperty("java.home") + "/bin/keytool";
+        Process proc = new ProcessBuilder(
+            keytool, "-genkeypair", "-alias", "test", "-keyalg", "RSA", "-keysize", "2048",
+            "-validity", "1", "-dname", "CN=localhost", "-ext", "SAN=dns:localhost",
+            "-storetype", "PKCS12", "-keystore", file.getPath(),
+            "-storepass", PASSWORD, "-keypass", PASSWORD
+        ).redirectErrorStream(true).start();
+        String output = new String(proc.getInputStream().readAllBytes());
+        assertEquals(output, 0, proc.waitFor());
+        KeyStore ks = KeyStore.getInstance("PKCS12");
+        try (InputStream is = new FileInputStream(file)) {
+            ks.load(is, PASSWORD.toCharArray());
+        }
+        TrustManagerFactory tmf = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        tmf.init(ks);
+        SSLContext ssl = SSLContext.getInstance("TLS");
+        ssl.init(null, tmf.getTrustManagers(), null);
+        return ssl;
+    }
+
+    private static int freePort() throws Exception {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
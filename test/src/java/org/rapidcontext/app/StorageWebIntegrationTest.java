@@ -0,0 +1,182 @@
+/*
+ * RapidContext <https://www.rapidcontext.com/>
+ * Copyright (c) 2007-2026 Per Cederberg. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the BSD license.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the RapidContext LICENSE for more details.
+ */
+
+package org.rapidcontext.app;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Objects;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.rapidcontext.app.model.AuthHelper;
+import org.rapidcontext.app.model.RequestContext;
+import org.rapidcontext.core.data.Array;
+import org.rapidcontext.core.data.Dict;
+import org.rapidcontext.core.proc.CallContext;
+import org.rapidcontext.core.storage.Path;
+import org.rapidcontext.core.storage.RootStorage;
+import org.rapidcontext.core.type.User;
+
+@SuppressWarnings("javadoc")
+public class StorageWebIntegrationTest {
+
+    private static ServerApplication app;
+    private static HttpClient client;
+    private static String token;
+
+    private RequestContext cx;
+
+    @BeforeClass
+    public static void setup() throws Exception {
+        app = new ServerApplication();
+        String dir = Objects.requireNonNullElse(System.getenv("LOCAL_DIR"), "tmp/integration");
+        app.localDir = new File(dir);
+        app.port = freePort();
+        app.init();
+        app.start();
+        client = HttpClient.newHttpClient();
+        User user = User.find(ApplicationContext.active().storage(), "test-admin");
+        token = AuthHelper.createLoginToken(user, System.currentTimeMillis() + 600000L);
+    }
+
+    @AfterClass
+    public static void teardown() throws Exception {
+        if (client != null) {
+            client.close();
+        }
+        if (app != null) {
+            app.stop();
+        }
+        ApplicationContext.destroy();
+    }
+
+    @Before
+    public void setupTest() throws Exception {
+        cx = RequestContext.initLocal("test-admin");
+    }
+
+    @After
+    public void teardownTest() throws Exception {
+        CallContext.execute("system/storage/delete", "etagtest/");
+        CallContext.execute("system/storage/delete", "role/etag-test");
+        CallContext.execute("system/storage/delete", "user/etag-test");
+        if (cx != null) {
+            cx.close();
+        }
+    }
+
+    private static int freePort() throws Exception {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static HttpResponse<String> get(String path, String etag) throws Exception {
+        URI uri = URI.create("http://localhost:" + app.port + "/rapidcontext/storage/" + path);
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri)
+            .header("Authorization", "Token " + token)
+            .GET();
+        if (etag != null) {
+            builder.header("If-None-Match", etag);
+        }
+        return client.send(builder.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static String etag(String path) throws Exception {
+        HttpResponse<String> resp = get(path, null);
+        assertEquals(path, 200, resp.statusCode());
+        String etag = resp.headers().firstValue("ETag").orElse(null);
+        assertNotNull(path + " ETag", etag);
+        HttpResponse<String> cached = get(path, etag);
+        assertEquals(path + " If-None-Match", 304, cached.statusCode());
+        assertEquals("", cached.body());
+        return etag;
+    }
+
+    private static void write(String path, Dict data) throws Exception {
+        assertEquals(Boolean.TRUE, CallContext.execute("system/storage/write", path, data));
+    }
+
+    @Test
+    public void testModCount() throws Exception {
+        RootStorage storage = ApplicationContext.active().appStorage();
+        long root = storage.modCount(Path.ROOT);
+        long other = storage.modCount(Path.from("/user/"));
+        storage.store(Path.from("/etagtest/data"), new Dict().set("a", 1));
+        assertNotEquals(root, storage.modCount(Path.ROOT));
+        assertEquals(other, storage.modCount(Path.from("/user/")));
+    }
+
+    @Test
+    public void testObjectTag() throws Exception {
+        write("etagtest/data.json", new Dict().set("a", 1));
+        String etag = etag("etagtest/data.json");
+        assertEquals(304, get("etagtest/data.json", "W/" + etag).statusCode());
+        write("etagtest/data.json", new Dict().set("a", 2));
+        HttpResponse<String> resp = get("etagtest/data.json", etag);
+        assertEquals(200, resp.statusCode());
+        assertTrue(resp.body().contains("2"));
+        assertNotEquals(etag, etag("etagtest/data.json"));
+    }
+
+    @Test
+    public void testIndexTag() throws Exception {
+        String rootTag = etag("");
+        write("etagtest/data.json", new Dict().set("a", 1));
+        HttpResponse<String> resp = get("", rootTag);
+        assertEquals(200, resp.statusCode());
+        assertTrue(resp.body().contains("etagtest"));
+        String indexTag = etag("etagtest/");
+        write("etagtest/other.json", new Dict().set("b", 2));
+        resp = get("etagtest/", indexTag);
+        assertEquals(200, resp.statusCode());
+        assertTrue(resp.body().contains("other"));
+    }
+
+    @Test
+    public void testAccessTag() throws Exception {
+        write("etagtest/data.json", new Dict().set("a", 1));
+        String etag = etag("etagtest/data.json");
+        Dict role = new Dict()
+            .set("id", "etag-test")
+            .set("type", "role")
+            .set("name", "ETag Test")
+            .set("description", "A temporary integration test role.")
+            .set("access", new Array());
+        write("role/etag-test.yaml", role);
+        String roleTag = etag("etagtest/data.json");
+        assertNotEquals(etag, roleTag);
+        Dict user = new Dict()
+            .set("id", "etag-test")
+            .set("type", "user")
+            .set("name", "ETag Test")
+            .set("email", "")
+            .set("description", "A temporary integration test user.")
+            .set("enabled", false)
+            .set("realm", User.DEFAULT_REALM)
+            .set("role", new Array());
+        write("user/etag-test.yaml", user);
+        assertNotEquals(roleTag, etag("etagtest/data.json"));
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * RapidContext <https://www.rapidcontext.com/>
+ * Copyright (c) 2007-2026 Per Cederberg. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the BSD license.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the RapidContext LICENSE for more details.
+ */
+
+package org.rapidcontext.app;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.Objects;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.rapidcontext.app.model.RequestContext;
+import org.rapidcontext.core.data.Array;
+import org.rapidcontext.core.data.Dict;
+import org.rapidcontext.core.proc.CallContext;
+import org.rapidcontext.core.type.User;
+
+@SuppressWarnings("javadoc")
+public class UserSearchIntegrationTest {
+
+    private RequestContext cx;
+
+    @BeforeClass
+    public static void setup() throws Exception {
+        String dir = Objects.requireNonNullElse(System.getenv("LOCAL_DIR"), "tmp/integration");
+        ApplicationContext.init(new File("."), new File(dir), true);
+    }
+
+    @AfterClass
+    public static void teardown() throws Exception {
+        ApplicationContext.destroy();
+    }
+
+    @Before
+    public void setupTest() throws Exception {
+        cx = RequestContext.initLocal("test-admin");
+        write("search-test", "Search.Test@Example.com");
+        write("search-empty", null);
+    }
+
+    @After
+    public void teardownTest() throws Exception {
+        CallContext.execute("system/storage/delete", "user/search-test");
+        CallContext.execute("system/storage/delete", "user/search-empty");
+        if (cx != null) {
+            cx.close();
+        }
+    }
+
+    private static void write(String id, String email) throws Exception {
+        Dict user = new Dict()
+            .set("id", id)
+            .set("type", "user")
+            .set("name", "Search Test")
+            .set("description", "A temporary integration test user.")
+            .set("enabled", false)
+            .set("realm", User.DEFAULT_REALM)
+            .set("role", new Array());
+        if (email != null) {
+            user.set("email", email);
+        }
+        assertEquals(Boolean.TRUE, CallContext.execute("system/storage/write", "user/" + id + ".yaml", user));
+    }
+
+    private static Dict search(String email) throws Exception {
+        return (Dict) CallContext.execute("system/user/search", email);
+    }
+
+    @Test
+    public void testSearch() throws Exception {
+        Dict res = search("search.test@example.com");
+        assertNotNull(res);
+        assertEquals("search-test", res.get("id"));
+        assertEquals("Search.Test@Example.com", res.get("email"));
+        assertEquals("search-test", search(" SEARCH.TEST@example.com ").get("id"));
+        assertNull(search("search.missing@example.com"));
+    }
+
+    @Test
+    public void testSearchEmpty() throws Exception {
+        // Empty email matches the first user without email (as before indexing)
+        User first = ApplicationContext.active().storage().query(User.PATH)
+            .objects(User.class)
+            .filter(u -> u.email().isEmpty())
+            .findFirst()
+            .orElse(null);
+        assertNotNull(first);
+        Dict res = search("");
+        assertNotNull(res);
+        assertEquals(first.id(), res.get("id"));
+        assertEquals(first.id(), search("  ").get("id"));
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * RapidContext <https://www.rapidcontext.com/>
+ * Copyright (c) 2007-2026 Per Cederberg. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the BSD license.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the RapidContext LICENSE for more details.
+ */
+
+package org.rapidcontext.app;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.junit.Test;
+import org.rapidcontext.core.data.Dict;
+import org.rapidcontext.core.storage.MemoryStorage;
+import org.rapidcontext.core.storage.Metadata;
+import org.rapidcontext.core.storage.Path;
+import org.rapidcontext.core.storage.RootStorage;
+import org.rapidcontext.core.type.Metrics;
+import org.rapidcontext.util.FileUtil;
+import org.rapidcontext.util.logging.FileHandler;
+
+@SuppressWarnings("javadoc")
+public class VirtualThreadPinningTest {
+
+    private static final String EVENT = "jdk.VirtualThreadPinned";
+
+    private static final int THREADS = 64;
+
+    private static final int ITERATIONS = 200;
+
+    private interface Task {
+        void run(int thread, int iteration) throws Exception;
+    }
+
+    private static List<RecordedEvent> record(Task task) throws Exception {
+        java.nio.file.Path file = Files.createTempFile("pinning", ".jfr");
+        try (Recording rec = new Recording()) {
+            rec.enable(EVENT).withThreshold(Duration.ZERO).withStackTrace();
+            rec.start();
+            try (ExecutorService exec = Executors.newVirtualThreadPerTaskExecutor()) {
+                ArrayList<Future<?>> futures = new ArrayList<>();
+                for (int i = 0; i < THREADS; i++) {
+                    int thread = i;
+                    futures.add(exec.submit(() -> {
+                        for (int j = 0; j < ITERATIONS; j++) {
+                            task.run(thread, j);
+                            Thread.yield();
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<?> f : futures) {
+                    f.get();
+                }
+            }
+            rec.stop();
+            rec.dump(file);
+            return RecordingFile.readAllEvents(file);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static String describe(List<RecordedEvent> events) {
+        return events.isEmpty() ? "" : events.size() + " pinned events, first:\n" + events.get(0);
+    }
+
+    @Test
+    public void testHarness() throws Exception {
+        Object monitor = new Object();
+        List<RecordedEvent> events = record((thread, iteration) -> {
+            if (iteration < 2) {
+                synchronized (monitor) {
+                    Thread.sleep(1);
+                }
+            }
+        });
+        assertFalse("pinning not detected", events.isEmpty());
+    }
+
+    @Test
+    public void testStorage() throws Exception {
+        RootStorage root = new RootStorage(true);
+        Path storagePath = Path.from("/.storage/test/");
+        MemoryStorage slow = new MemoryStorage("test", true, false) {
+            @Override
+            public Metadata lookup(Path path) {
+                LockSupport.parkNanos(10_000); // Simulates blocking I/O
+                return super.lookup(path);
+            }
+        };
+        root.mount(slow, storagePath);
+        root.remount(storagePath, true, null, Path.ROOT, 0);
+        List<RecordedEvent> events = record((thread, iteration) -> {
+            Path path = Path.from("/test/" + thread + "/" + (iteration % 10));
+            root.store(path, new Dict().set("value", iteration));
+            root.load(path);
+            root.lookup(Path.from("/test/" + thread + "/"));
+        });
+        assertEquals(describe(events), 0, events.size());
+        root.unmountAll();
+    }
+
+    @Test
+    public void testMetrics() throws Exception {
+        Metrics metrics = new Metrics("test", "metrics/usage", new Dict());
+        List<RecordedEvent> events = record((thread, iteration) -> {
+            long now = System.currentTimeMillis();
+            metrics.report("key" + (iteration % 8), now, 1, 10, true, null);
+            if (iteration % 50 == 0) {
+                metrics.serialize();
+            }
+        });
+        assertEquals(describe(events), 0, events.size());
+    }
+
+    @Test
+    public void testFileHandler() throws Exception {
+        File dir = Files.createTempDirectory("pinning").toFile();
+        FileHandler handler = new FileHandler(dir + "/test.log", false, 0, null);
+        Field field = FileHandler.class.getDeclaredField("out");
+        field.setAccessible(true);
+        field.set(handler, new FilterWriter((Writer) field.get(handler)) {
+            @Override
+            public void write(String str, int off, int len) throws IOException {
+                LockSupport.parkNanos(10_000); // Simulates blocking I/O
+                super.write(str, off, len);
+            }
+
+            @Override
+            public void flush() throws IOException {
+                LockSupport.parkNanos(10_000); // Simulates blocking I/O
+                super.flush();
+            }
+        });
+        try {
+            List<RecordedEvent> events = record((thread, iteration) -> {
+                handler.publish(new LogRecord(Level.INFO, "thread " + thread + ": " + iteration));
+            });
+            assertEquals(describe(events), 0, events.size());
+            String text = FileUtil.readText(new File(dir, "test.log"));
+            assertTrue(text.contains("thread " + (THREADS - 1) + ": " + (ITERATIONS - 1)));
+        } finally {
+            handler.close();
+            FileUtil.delete(dir);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * RapidContext <https://www.rapidcontext.com/>
+ * Copyright (c) 2007-2026 Per Cederberg. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the BSD license.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the RapidContext LICENSE for more details.
+ */
+
+package org.rapidcontext.app.plugin;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.rapidcontext.app.model.AppStorage;
+import org.rapidcontext.core.storage.Path;
+import org.rapidcontext.core.type.Plugin;
+import org.rapidcontext.util.FileUtil;
+
+@SuppressWarnings("javadoc")
+public class PluginManagerTest {
+
+    private File dir;
+    private File jar;
+    private PluginManager manager;
+
+    @Before
+    public void setup() throws Exception {
+        dir = Files.createTempDirectory("plugins-").toFile();
+        new File(dir, PluginManager.SYSTEM_PLUGIN).mkdirs();
+        File lib = new File(dir, PluginManager.LOCAL_PLUGIN + "/lib");
+        lib.mkdirs();
+        jar = new File(lib, "test.jar");
+        write("version 1");
+        manager = new PluginManager(dir, dir, null, new AppStorage());
+        File tmp = new File(dir, "tmp"); // Created after plug-in storages
+        tmp.mkdirs();
+        FileUtil.setTempDir(tmp);
+    }
+
+    @After
+    public void teardown() throws Exception {
+        FileUtil.setTempDir(null);
+        FileUtil.delete(dir);
+    }
+
+    private void write(String text) throws Exception {
+        Files.writeString(jar.toPath(), text, StandardCharsets.UTF_8);
+    }
+
+    private static String read(File file) throws Exception {
+        return Files.readString(file.toPath(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testJarFileReuse() throws Exception {
+        Path path = Path.resolve(Plugin.storagePath(PluginManager.LOCAL_PLUGIN), "lib/test.jar");
+        File first = manager.jarFile(path);
+        assertNotEquals(jar, first);
+        assertEquals("version 1", read(first));
+        long modified = first.lastModified();
+
+        // Unchanged JAR is reused (also after unloading all plug-ins)
+        assertEquals(first, manager.jarFile(path));
+        manager.unloadAll();
+        assertEquals(first, manager.jarFile(path));
+        assertEquals(modified, first.lastModified());
+
+        // Changed JAR gets a new copy
+        write("version 2");
+        File second = manager.jarFile(path);
+        assertNotEquals(first, second);
+        assertEquals("version 2", read(second));
+        assertEquals("version 1", read(first));
+
+        // Restored JAR reuses the previous copy
+        write("version 1");
+        assertEquals(first, manager.jarFile(path));
+
+        // Deleted copy is replaced
+        assertTrue(first.delete());
+        File third = manager.jarFile(path);
+        assertTrue(third.isFile());
+        assertEquals("version 1", read(third));
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * RapidContext <https://www.rapidcontext.com/>
+ * Copyright (c) 2007-2026 Per Cederberg. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the BSD license.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the RapidContext LICENSE for more details.
+ */
+
+package org.rapidcontext.app.web;
+
+import static org.junit.Assert.*;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.rapidcontext.core.data.Binary;
+import org.rapidcontext.core.storage.MemoryStorage;
+import org.rapidcontext.core.storage.Path;
+import org.rapidcontext.core.storage.RootStorage;
+
+@SuppressWarnings("javadoc")
+public class AppBundleTest {
+
+    private RootStorage root;
+
+    @Before
+    public void setup() throws Exception {
+        root = new RootStorage(true);
+        Path storagePath = Path.from("/.storage/test/");
+        MemoryStorage mem = new MemoryStorage("test", true, false) {
+            @Override
+            public boolean isStorable(Object obj) {
+                return obj instanceof Binary || super.isStorable(obj);
+            }
+        };
+        root.mount(mem, storagePath);
+        root.remount(storagePath, true, null, Path.ROOT, 0);
+        root.store(Path.from("/files/css/b.css"), new Binary.BinaryString("b { }"));
+        root.store(Path.from("/files/css/A.css"), new Binary.BinaryString("a { background: url(img/a.png); }"));
+        root.store(Path.from("/files/css/a.txt"), new Binary.BinaryString("ignored"));
+        root.store(Path.from("/files/js/main.js"), new Binary.BinaryString("var x = 1"));
+    }
+
+    private static String read(Binary data) throws Exception {
+        try (InputStream is = data.openStream()) {
+            return new String(is.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    public void testRewriteUrls() {
+        assertEquals("url(../css/x.png)", AppBundle.rewriteUrls("url(x.png)", "css/"));
+        assertEquals("url('../css/../fonts/f.woff?v=1')", AppBundle.rewriteUrls("url('../fonts/f.woff?v=1')", "css/"));
+        assertEquals("url(\"/abs.png\")", AppBundle.rewriteUrls("url(\"/abs.png\")", "css/"));
+        assertEquals("url(https://example.com/x.png)", AppBundle.rewriteUrls("url(https://example.com/x.png)", "css/"));
+        String data = "url(\"data:image/svg+xml,%3csvg xmlns='http://www.w3.org/2000/svg'/%3e\")";
+        assertEquals(data, AppBundle.rewriteUrls(data, "css/"));
+    }
+
+    @Test
+    public void testBuild() throws Exception {
+        AppBundle css = AppBundle.build(root, "css");
+        String text = read(css);
+        assertTrue(text.indexOf("/* css/A.css */") < text.indexOf("/* css/b.css */"));
+        assertTrue(text.contains("url(../css/img/a.png)"));
+        assertFalse(text.contains("ignored"));
+        assertTrue(css.name().matches("[0-9a-f]{20}\\.css"));
+        assertEquals("text/css", css.mimeType());
+        assertEquals(css.size(), text.getBytes(StandardCharsets.UTF_8).length);
+        assertTrue(css.isValid(root));
+        AppBundle js = AppBundle.build(root, "js");
+        assertEquals("/* js/main.js */\nvar x = 1\n;\n", read(js));
+        assertTrue(AppBundle.build(root, "mjs").isEmpty());
+    }
+
+    @Test
+    public void testInvalidation() throws Exception {
+        long modCount = root.modCount(RootStorage.PATH_FILES);
+        AppBundle css = AppBundle.build(root, "css");
+        root.store(Path.from("/data/other"), new Binary.BinaryString("other"));
+        assertEquals(modCount, root.modCount(RootStorage.PATH_FILES));
+        root.store(Path.from("/files/css/b.css"), new Binary.BinaryString("b { color: red; }"));
+        assertNotEquals(modCount, root.modCount(RootStorage.PATH_FILES));
+        assertNotEquals(css.name(), AppBundle.build(root, "css").name());
+    }
+}
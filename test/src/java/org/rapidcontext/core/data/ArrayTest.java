@@ -380,4 +380,72 @@ public class ArrayTest {
         assertEquals(b, arr.getDict(1));
         assertEquals(c, arr.getDict(2));
     }
+
+    @Test
+    public void testNumbers() {
+        Array arr = Array.of(1, 2, 3);
+        arr.add(4).set(0, 0);
+        assertEquals(Array.of(0, 2, 3, 4), arr);
+        assertEquals(Array.of(0, 2, 3, 4).hashCode(), arr.hashCode());
+        assertEquals(Integer.valueOf(3), arr.get(2));
+        assertEquals(2, arr.indexOf(3));
+        arr.remove(Integer.valueOf(2)).sort((a, b) -> ((Integer) b).compareTo((Integer) a));
+        assertEquals(Array.of(4, 3, 0), arr);
+        arr.add(5L);
+        assertEquals(Long.valueOf(5), arr.get(3));
+        assertEquals(Integer.valueOf(4), arr.get(0));
+        Array doubles = Array.of(1.5, -0.0, Double.NaN);
+        assertEquals(Double.valueOf(-0.0), doubles.get(1));
+        assertTrue(Double.isNaN(doubles.get(2, Double.class)));
+        assertEquals(Array.of(1.5, -0.0, Double.NaN), doubles.copy());
+        Array longs = new Array().addAll(Array.of(Long.MAX_VALUE, Long.MIN_VALUE));
+        longs.set(3, 1L);
+        assertEquals(4, longs.size());
+        assertNull(longs.get(2));
+        assertEquals(Long.MIN_VALUE, longs.get(1));
+        Array mixed = Array.of(1).add("two").add(null);
+        assertEquals(Array.of(1, "two", null), mixed);
+    }
+
+    @Test
+    public void testNumberFallback() {
+        Array ints = Array.of(1, 2, 3);
+        ints.add(4.0);
+        assertEquals(Array.of(1, 2, 3, 4.0), ints);
+        assertEquals(Integer.valueOf(1), ints.get(0));
+        assertEquals(Double.valueOf(4.0), ints.get(3));
+        assertFalse(ints.containsValue(4));
+        assertEquals(3, ints.indexOf(4.0));
+
+        Array longs = Array.of(1L, 2L);
+        longs.set(1, null);
+        assertEquals(2, longs.size());
+        assertNull(longs.get(1));
+        assertEquals(Long.valueOf(1), longs.get(0));
+
+        Array padded = Array.of(1, 2);
+        padded.set(4, 5);
+        assertEquals(Array.of(1, 2, null, null, 5), padded);
+
+        Array strings = Array.of(1.5, 2.5);
+        strings.set(0, "one");
+        assertEquals(Array.of("one", 2.5), strings);
+
+        Array mixed = new Array().addAll(Array.of(1, 2));
+        mixed.addAll(Array.of("three", 4L));
+        assertEquals(Array.of(1, 2, "three", 4L), mixed);
+        Array copy = Array.of(3, 1, 2);
+        Array sorted = copy.copy().sort();
+        assertEquals(Array.of(1, 2, 3), sorted);
+        assertEquals(Array.of(3, 1, 2), copy);
+        sorted.add("x");
+        assertEquals(3, copy.size());
+        assertEquals(Array.of(3, 1, 2), copy);
+
+        Array sealed = Array.of(1, 2);
+        sealed.seal(false);
+        assertThrows(UnsupportedOperationException.class, () -> sealed.add("x"));
+        assertThrows(UnsupportedOperationException.class, () -> sealed.set(0, 0));
+        assertEquals(Array.of(1, 2), sealed);
+    }
 }
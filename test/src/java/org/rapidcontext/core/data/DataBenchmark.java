@@ -0,0 +1,124 @@
+/*
+ * RapidContext <https://www.rapidcontext.com/>
+ * Copyright (c) 2007-2026 Per Cederberg. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the BSD license.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the RapidContext LICENSE for more details.
+ */
+
+package org.rapidcontext.core.data;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.function.IntFunction;
+
+/**
+ * A simple heap footprint and throughput benchmark for Dict and
+ * Array. Compares the data objects with plain LinkedHashMap and
+ * ArrayList objects. Not run as a part of the unit tests, use the
+ * main method instead.
+ */
+@SuppressWarnings("javadoc")
+public class DataBenchmark {
+
+    private static final int ROWS = 200_000;
+
+    private static final String[] COLUMNS = {
+        "id", "name", "type", "created", "updated", "owner", "status", "value"
+    };
+
+    public static void main(String[] args) {
+        Dict.Schema schema = new Dict.Schema(COLUMNS);
+        for (int round = 0; round < 3; round++) {
+            System.out.println("--- round " + (round + 1) + " ---");
+            measure("LinkedHashMap rows", i -> {
+                LinkedHashMap<String,Object> map = new LinkedHashMap<>();
+                for (int j = 0; j < COLUMNS.length; j++) {
+                    map.put(COLUMNS[j], i + j);
+                }
+                return map;
+            });
+            measure("Dict rows", i -> {
+                Dict dict = new Dict();
+                for (int j = 0; j < COLUMNS.length; j++) {
+                    dict.set(COLUMNS[j], i + j);
+                }
+                return dict;
+            });
+            measure("Dict schema rows", i -> {
+                Dict dict = new Dict(schema);
+                for (int j = 0; j < COLUMNS.length; j++) {
+                    dict.set(COLUMNS[j], i + j);
+                }
+                return dict;
+            });
+            measure("ArrayList numbers", i -> {
+                ArrayList<Object> list = new ArrayList<>();
+                for (int j = 0; j < 8; j++) {
+                    list.add(i * 1000L + j);
+                }
+                return list;
+            });
+            measure("Array numbers", i -> {
+                Array arr = new Array();
+                for (int j = 0; j < 8; j++) {
+                    arr.add(i * 1000L + j);
+                }
+                return arr;
+            });
+            lookups("LinkedHashMap lookups", new LinkedHashMap<>(), schema);
+            lookups("Dict lookups", new Dict(), schema);
+            lookups("Dict schema lookups", new Dict(schema), schema);
+        }
+    }
+
+    private static void measure(String name, IntFunction<Object> factory) {
+        Object[] objs = new Object[ROWS];
+        long before = usedMemory();
+        long start = System.nanoTime();
+        for (int i = 0; i < ROWS; i++) {
+            objs[i] = factory.apply(i);
+        }
+        long millis = (System.nanoTime() - start) / 1_000_000L;
+        long bytes = usedMemory() - before;
+        System.out.printf("%-24s %6d ms %8d bytes/object%n", name, millis, bytes / ROWS);
+        if (objs[ROWS - 1] == null) {
+            throw new IllegalStateException("unreachable");
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void lookups(String name, Object obj, Dict.Schema schema) {
+        String[] keys = schema.keys();
+        for (String key : keys) {
+            if (obj instanceof Dict d) {
+                d.set(key, key);
+            } else {
+                ((LinkedHashMap<String,Object>) obj).put(key, key);
+            }
+        }
+        long count = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < ROWS * 20; i++) {
+            String key = keys[i % keys.length];
+            Object val = (obj instanceof Dict d) ? d.get(key) : ((LinkedHashMap<String,Object>) obj).get(key);
+            count += (val == null) ? 0 : 1;
+        }
+        long millis = (System.nanoTime() - start) / 1_000_000L;
+        System.out.printf("%-24s %6d ms (%d found)%n", name, millis, count);
+    }
+
+    private static long usedMemory() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
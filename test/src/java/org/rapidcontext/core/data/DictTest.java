@@ -295,4 +295,114 @@ public class DictTest {
         dict.remove("nonexistent");
         assertEquals(1, dict.size());
     }
+
+    @Test
+    public void testLarge() {
+        Dict dict = new Dict();
+        for (int i = 0; i < 100; i++) {
+            dict.set("key" + i, i);
+        }
+        assertEquals(100, dict.size());
+        assertEquals("key0", dict.keys()[0]);
+        assertEquals("key99", dict.keys()[99]);
+        assertEquals(42, dict.get("key42"));
+        Dict copy = dict.copy();
+        assertEquals(dict, copy);
+        assertEquals(dict.hashCode(), copy.hashCode());
+        for (int i = 0; i < 95; i++) {
+            copy.remove("key" + i);
+        }
+        assertEquals(5, copy.size());
+        assertEquals("key95", copy.keys()[0]);
+    }
+
+    @Test
+    public void testSchema() {
+        Dict.Schema schema = new Dict.Schema("id", "name", "value");
+        assertThrows(IllegalArgumentException.class, () -> new Dict.Schema("a", "a"));
+        Dict row1 = new Dict(schema).set("id", 1).set("name", "one");
+        Dict row2 = new Dict(schema).set("id", 2);
+        assertEquals(3, row1.size());
+        assertArrayEquals(new String[] { "id", "name", "value" }, row1.keys());
+        assertTrue(row2.containsKey("value"));
+        assertNull(row2.get("value"));
+        assertEquals(new Dict().set("id", 1).set("name", "one").set("value", null), row1);
+        assertEquals(new Dict().set("id", 1).set("name", "one").set("value", null).hashCode(), row1.hashCode());
+        Dict copy = row1.copy().set("extra", true);
+        row1.remove("name");
+        assertArrayEquals(new String[] { "id", "value" }, row1.keys());
+        assertArrayEquals(new String[] { "id", "name", "value", "extra" }, copy.keys());
+        assertArrayEquals(new String[] { "id", "name", "value" }, row2.keys());
+        assertArrayEquals(new String[] { "id", "name", "value" }, schema.keys());
+    }
+
+    @Test
+    public void testSmallToLarge() {
+        Dict small = new Dict(4);
+        Dict large = new Dict(100);
+        for (int i = 0; i < 12; i++) {
+            small.set("key" + i, i);
+            large.set("key" + i, i);
+        }
+        assertEquals(large, small);
+        assertEquals(large.hashCode(), small.hashCode());
+        assertEquals("key7", small.keyOf(7));
+        assertTrue(small.containsValue(11));
+        small.remove("key3").set("key3", "three");
+        assertEquals(12, small.size());
+        assertEquals("key3", small.keys()[11]);
+        small.set("key12", 12).set("key13", 13);
+        assertEquals(14, small.size());
+        assertEquals("key4", small.keys()[3]);
+        assertEquals("key3", small.keys()[11]);
+        assertEquals("three", small.get("key3"));
+        assertEquals(13, small.get("key13"));
+        small.set("key0", null);
+        assertTrue(small.containsKey("key0"));
+        assertNull(small.get("key0"));
+        assertEquals("key0", small.keys()[0]);
+    }
+
+    @Test
+    public void testSchemaChanges() {
+        String[] keys = new String[14];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = "col" + i;
+        }
+        Dict.Schema schema = new Dict.Schema(keys);
+        assertThrows(IllegalArgumentException.class, () -> new Dict.Schema("a", ""));
+        Dict row = new Dict(schema).set("col5", 5);
+        assertEquals(14, row.size());
+        assertEquals(5, row.get("col5"));
+        assertFalse(row.containsKey("col14"));
+
+        // Adding a key beyond the small size limit
+        Dict large = row.copy().set("extra", true);
+        assertEquals(15, large.size());
+        assertEquals("extra", large.keys()[14]);
+        assertEquals(5, large.get("col5"));
+        assertEquals(14, row.size());
+
+        // Removing a key copies the schema keys
+        Dict removed = row.copy().remove("col0");
+        assertEquals(13, removed.size());
+        assertEquals("col1", removed.keys()[0]);
+        assertEquals(5, removed.get("col5"));
+        removed.set("col0", 0);
+        assertEquals("col0", removed.keys()[13]);
+        assertArrayEquals(keys, schema.keys());
+        assertArrayEquals(keys, new Dict(schema).keys());
+
+        // Copies don't share values
+        Dict copy = row.copy().set("col5", "five");
+        assertEquals(5, row.get("col5"));
+        assertEquals("five", copy.get("col5"));
+        assertNotEquals(row, copy);
+
+        // Sealed schema dictionaries
+        row.seal(false);
+        assertThrows(UnsupportedOperationException.class, () -> row.set("col1", 1));
+        assertThrows(UnsupportedOperationException.class, () -> row.remove("col1"));
+        assertEquals(5, row.get("col5"));
+    }
 }
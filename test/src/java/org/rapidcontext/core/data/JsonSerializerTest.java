@@ -16,13 +16,21 @@ package org.rapidcontext.core.data;
 
 import static org.junit.Assert.*;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.Map;
+import java.util.stream.Stream;
 
 import org.junit.Test;
+import org.mozilla.javascript.Function;
+import org.rapidcontext.core.js.JsRuntime;
 import org.rapidcontext.util.FileUtil;
 import static org.rapidcontext.core.data.JsonSerializer.*;
 
@@ -54,6 +62,103 @@ public class JsonSerializerTest {
         }
     }
 
+    @Test
+    public void testUnserializeValues() throws IOException {
+        assertEquals(Array.of(1, 3000000000L, 1.5, -2, 100, null, true), unserialize("[1,3e9,1.5,-2.0,1E2,null,true]"));
+        assertEquals("a\"\n\u00e5\u20ac", unserialize("\"a\\\"\\n\u00e5\\u20AC\""));
+        assertEquals(new Dict().set("b", 2), unserialize(" { \"\" : 1, \"b\" : 1, \"b\" : 2 } "));
+        assertEquals(new Date(1000), unserialize("\"@1000\""));
+        for (String json : new String[] { "", "[1,]", "{\"a\"}", "01", "1 2", "\"\\x\"", "tru", "[" }) {
+            assertThrows(json, IOException.class, () -> unserialize(json));
+        }
+    }
+
+    @Test
+    public void testUnserializeNumbers() throws IOException {
+        assertEquals(Integer.class, unserialize("2147483647").getClass());
+        assertEquals(Integer.class, unserialize("-2147483648").getClass());
+        assertEquals(Long.class, unserialize("2147483648").getClass());
+        assertEquals(Long.class, unserialize("-2147483649").getClass());
+        assertEquals(Integer.class, unserialize("1.0").getClass());
+        assertEquals(Integer.class, unserialize("1e2").getClass());
+        assertEquals(Integer.valueOf(0), unserialize("-0"));
+        assertEquals(Long.valueOf(9007199254740992L), unserialize("9007199254740993"));
+        assertEquals(Double.valueOf(1e19), unserialize("1e19"));
+        assertEquals(Double.valueOf(0.1), unserialize("0.1"));
+        assertEquals(Double.valueOf(-1.5e-7), unserialize("-1.5E-7"));
+        for (String json : new String[] { "-", "1.", ".5", "1e", "1e+", "+1", "0x10", "NaN", "Infinity" }) {
+            assertThrows(json, IOException.class, () -> unserialize(json));
+        }
+    }
+
+    @Test
+    public void testUnserializeKeys() throws IOException {
+        Dict dict = (Dict) unserialize("{\"a\":1,\"b\":{\"x\":1},\"a\":2,\"b\":[3]}");
+        assertEquals(new Dict().set("a", 2).set("b", Array.of(3)), dict);
+        assertEquals(new Dict(), unserialize("{\"\":1,\" \":2,\"\\t\":3}"));
+        assertEquals(new Dict().set("1", "one").set("a b", 2), unserialize("{\"1\":\"one\",\"a b\":2}"));
+        assertEquals(new Dict().set("\u00e5", 1), unserialize("{\"\\u00e5\":1}"));
+    }
+
+    @Test
+    public void testUnserializeSurrogates() throws IOException {
+        String emoji = new String(Character.toChars(0x1F600));
+        assertEquals(emoji, unserialize("\"\\ud83d\\ude00\""));
+        assertEquals(emoji, unserialize("\"\\uD83D\\uDE00\""));
+        assertEquals(emoji, unserialize("\"" + emoji + "\""));
+        byte[] utf8 = ("[\"" + emoji + "\"]").getBytes(StandardCharsets.UTF_8);
+        assertEquals(Array.of(emoji), unserialize(new ByteArrayInputStream(utf8), 1));
+        assertEquals("\ud800", unserialize("\"\\ud800\""));
+        assertEquals("\udc00x", unserialize("\"\\udc00x\""));
+        assertThrows(IOException.class, () -> unserialize("\"\\ud83d\\u00\""));
+    }
+
+    @Test
+    public void testUnserializeLegacy() throws Exception {
+        String[] samples = {
+            "null", "true", "false", "0", "-0", "1", "-1", "2147483648", "1e19", "1.5", "-2.0", "1E2",
+            "0.1", "123456789012345678901234567890", "\"\"", "\"@0\"", "\"@1700000000000\"", "\"@abc\"",
+            "\"\\ud83d\\ude00\"", "\"\\ud800\"", "\"\\u0000\\b\\f\\n\\r\\t\\/\"", "\"\u00e5\u20ac\"",
+            "[]", "{}", "[[[]]]", "[1,\"a\",null,{},[]]",
+            "{\"\":1,\" \":2,\"a\":3}", "{\"a\":1,\"a\":2}", "{\"1\":1,\"0\":0,\"b\":[1,2]}",
+            " { \"a\" : [ 1 , 2 ] , \"b\" : { \"c\" : null } } \n"
+        };
+        for (String json : samples) {
+            assertEquals(json, unserializeLegacy(json), unserialize(json));
+        }
+        ArrayList<Path> files = new ArrayList<>();
+        for (String dir : new String[] { "src/plugin", "doc", "test/src/java" }) {
+            Path base = Path.of(dir);
+            if (Files.isDirectory(base)) {
+                try (Stream<Path> stream = Files.walk(base)) {
+                    stream.filter(p -> p.toString().endsWith(".json")).forEach(files::add);
+                }
+            }
+        }
+        for (Path file : files) {
+            String json = Files.readString(file, StandardCharsets.UTF_8);
+            assertEquals(file.toString(), unserializeLegacy(json), unserialize(json));
+        }
+    }
+
+    private static Function legacyFunction = null;
+
+    private static Object unserializeLegacy(String json) throws Exception {
+        if (legacyFunction == null) {
+            legacyFunction = JsRuntime.compile("unserialize", new String[] { "val" }, "return JSON.parse(val);");
+        }
+        return JsRuntime.unwrap(JsRuntime.call(legacyFunction, new Object[] { json }));
+    }
+
+    @Test
+    public void testUnserializeStream() throws IOException {
+        byte[] data = "{\"a\":[[1]],\"b\":\"\u00e5\"}".getBytes(StandardCharsets.UTF_8);
+        Dict expected = new Dict().set("a", Array.of(Array.of(1))).set("b", "\u00e5");
+        assertEquals(expected, unserialize(new ByteArrayInputStream(data), 3));
+        IOException e = assertThrows(IOException.class, () -> unserialize(new ByteArrayInputStream(data), 2));
+        assertTrue(e.getMessage().contains("depth"));
+    }
+
     private Dict buildDict() {
         return new Dict()
             .set("id", "jsondata")
@@ -0,0 +1,111 @@
+/*
+ * RapidContext <https://www.rapidcontext.com/>
+ * Copyright (c) 2007-2026 Per Cederberg. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the BSD license.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the RapidContext LICENSE for more details.
+ */
+
+package org.rapidcontext.core.proc;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+import org.rapidcontext.core.data.Dict;
+import org.rapidcontext.core.proc.AdmissionInterceptor.Limiter;
+
+@SuppressWarnings("javadoc")
+public class AdmissionInterceptorTest {
+
+    @Test
+    public void testConfig() {
+        Dict dict = new Dict()
+            .set("procedure", new Dict()
+                .set("limit", 4)
+                .set("queue", 2)
+                .set("override", new Dict().set("test/slow", 1).set("test/free", 0)))
+            .set("connection", new Dict().set("limit", 0));
+        AdmissionInterceptor i = new AdmissionInterceptor("test", "interceptor/reserve", dict);
+        assertEquals(AdmissionInterceptor.DEFAULT_TIMEOUT, i.timeout());
+        assertEquals(4, i.limiter("procedure", "test/other").limit());
+        assertSame(i.limiter("procedure", "test/other"), i.limiter("procedure", "test/other"));
+        assertEquals(1, i.limiter("procedure", "test/slow").limit());
+        assertNull(i.limiter("procedure", "test/free"));
+        assertNull(i.limiter("connection", "test/db"));
+        assertNull(i.limiter("user", "admin"));
+    }
+
+    @Test
+    public void testRejectQueueFull() throws Exception {
+        Limiter limiter = new Limiter("user", "test", 2, 0, false);
+        limiter.acquire(0);
+        limiter.acquire(0);
+        AdmissionException e = assertThrows(AdmissionException.class, () -> limiter.acquire(1000));
+        assertEquals("user", e.scope());
+        assertTrue(e.retryAfter() >= 1);
+        assertTrue(e.getMessage().contains("queue full"));
+        limiter.release(-1);
+        limiter.acquire(0);
+        assertEquals(2, limiter.active());
+    }
+
+    @Test
+    public void testQueue() throws Exception {
+        Limiter limiter = new Limiter("procedure", "test", 1, 1, false);
+        limiter.acquire(0);
+        AdmissionException e = assertThrows(AdmissionException.class, () -> limiter.acquire(10));
+        assertTrue(e.getMessage().contains("queue timeout"));
+        CountDownLatch started = new CountDownLatch(1);
+        try (ExecutorService exec = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<?> queued = exec.submit(() -> {
+                started.countDown();
+                limiter.acquire(5000);
+                return null;
+            });
+            started.await();
+            Thread.sleep(50);
+            assertThrows(AdmissionException.class, () -> limiter.acquire(0));
+            limiter.release(-1);
+            queued.get();
+        }
+        assertEquals(1, limiter.active());
+    }
+
+    @Test
+    public void testAdaptive() throws Exception {
+        Limiter limiter = new Limiter("connection", "test", 20, 0, true);
+        for (int i = 0; i < 20; i++) {
+            limiter.acquire(0);
+            limiter.release(10);
+        }
+        assertEquals(20, limiter.limit());
+        for (int i = 0; i < 50; i++) {
+            limiter.acquire(0);
+            limiter.release(100);
+        }
+        int reduced = limiter.limit();
+        assertTrue("limit " + reduced + " not reduced", reduced < 20);
+        assertTrue("limit " + reduced + " too low", reduced >= 1);
+        for (int i = 0; i < 50; i++) {
+            for (int j = 0; j < limiter.limit(); j++) {
+                limiter.acquire(0);
+            }
+            int active = limiter.active();
+            for (int j = 0; j < active; j++) {
+                limiter.release(10);
+            }
+        }
+        assertTrue("limit not increased", limiter.limit() > reduced);
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * RapidContext <https://www.rapidcontext.com/>
+ * Copyright (c) 2007-2026 Per Cederberg. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the BSD license.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the RapidContext LICENSE for more details.
+ */
+
+package org.rapidcontext.core.proc;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.rapidcontext.core.data.Array;
+import org.rapidcontext.core.data.Dict;
+import org.rapidcontext.core.data.TextEncoding;
+
+@SuppressWarnings("javadoc")
+public class BindingsTest {
+
+    private Bindings sealed;
+
+    @Before
+    public void setup() {
+        Array arr = Array.of(
+            new Dict().set("name", "code").set("type", "data").set("value", "@a :b"),
+            new Dict().set("name", "db").set("type", "connection").set("value", "test/db"),
+            new Dict().set("name", "a").set("type", "argument").set("description", "The A value"),
+            new Dict().set("name", "b").set("type", "argument").set("value", "The B value")
+        );
+        sealed = new Bindings(null, arr);
+        sealed.seal();
+    }
+
+    @Test
+    public void testSealed() throws Exception {
+        assertTrue(sealed.isSealed());
+        assertArrayEquals(new String[] { "code", "db", "a", "b" }, sealed.getNames());
+        assertArrayEquals(new String[] { "a", "b" }, sealed.getNames(Bindings.ARGUMENT));
+        assertArrayEquals(new String[] { "db" }, sealed.getNames(Bindings.CONNECTION));
+        assertEquals(Bindings.CONNECTION, sealed.getType("db"));
+        assertEquals("argument", sealed.getTypeName("a"));
+        assertEquals("test/db", sealed.getValue("db"));
+        assertEquals("x", sealed.getValue("a", "x"));
+        assertEquals("The A value", sealed.getDescription("a"));
+        assertEquals("The B value", sealed.getDescription("b"));
+        assertFalse(sealed.hasName("missing"));
+        assertThrows(ProcedureException.class, () -> sealed.getValue("a"));
+        assertThrows(ProcedureException.class, () -> sealed.getType("missing"));
+        assertThrows(ProcedureException.class, () -> sealed.set("a", Bindings.ARGUMENT, 1, null));
+    }
+
+    @Test
+    public void testChild() throws Exception {
+        Bindings child = new Bindings(sealed);
+        assertFalse(child.isSealed());
+        child.set("a", Bindings.ARGUMENT, 42, null);
+        child.set("extra", Bindings.DATA, "value", "Extra value");
+        assertEquals(42, child.getValue("a"));
+        assertEquals("test/db", child.getValue("db"));
+        assertEquals("The A value", child.getDescription("a"));
+        assertEquals("Extra value", child.getDescription("extra"));
+        assertArrayEquals(new String[] { "code", "db", "a", "b", "extra" }, child.getNames());
+        assertArrayEquals(new Object[] { 42, "The B value" }, child.getArgs());
+        assertEquals("42 :b", child.processTemplate("@a :b", TextEncoding.NONE));
+        child.set("b", Bindings.ARGUMENT, "x&y", null);
+        assertEquals("42 x%26y", child.processTemplate("@a :b", TextEncoding.URL));
+        child.set("db", Bindings.DATA, null, null);
+        assertEquals(Bindings.DATA, child.getType("db"));
+        assertArrayEquals(new String[] { "code", "db", "extra" }, child.getNames(Bindings.DATA));
+        assertNull(child.getValue("db", null));
+        assertNull(sealed.getValue("a", null));
+    }
+
+    @Test
+    public void testNested() throws Exception {
+        Bindings child = new Bindings(sealed);
+        child.set("a", Bindings.ARGUMENT, 1, null);
+        Bindings nested = new Bindings(child, new Array());
+        nested.set("b", Bindings.ARGUMENT, 2, "Override");
+        assertEquals(1, nested.getValue("a"));
+        assertEquals(2, nested.getValue("b"));
+        assertEquals("Override", nested.getDescription("b"));
+        assertEquals("The A value", nested.getDescription("a"));
+        assertEquals("- 2", nested.processTemplate("- @b", TextEncoding.NONE));
+        nested.seal();
+        assertArrayEquals(new Object[] { 1, 2 }, nested.getArgs());
+        assertEquals("@a 2", nested.processTemplate("@a @b", TextEncoding.NONE));
+    }
+
+    @Test
+    public void testSealDeep() throws Exception {
+        Dict conf = new Dict().set("list", Array.of("x"));
+        Array arr = Array.of(
+            new Dict().set("name", "conf").set("type", "data").set("value", conf)
+        );
+        Bindings b = new Bindings(null, arr);
+        b.seal();
+        assertSame(conf, b.getValue("conf"));
+        assertTrue(conf.isSealed());
+        assertTrue(conf.getArray("list").isSealed());
+        assertTrue(arr.isSealed());
+        assertThrows(UnsupportedOperationException.class, () -> conf.set("y", 1));
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * RapidContext <https://www.rapidcontext.com/>
+ * Copyright (c) 2007-2026 Per Cederberg. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the BSD license.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the RapidContext LICENSE for more details.
+ */
+
+package org.rapidcontext.core.proc;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.rapidcontext.core.data.Array;
+import org.rapidcontext.core.data.Dict;
+import org.rapidcontext.core.type.Procedure;
+
+@SuppressWarnings("javadoc")
+public class CacheInterceptorTest {
+
+    private static class TestProcedure extends Procedure {
+
+        AtomicInteger calls = new AtomicInteger();
+
+        TestProcedure(Dict cache) {
+            super("test/cached", "procedure", new Dict()
+                .set(KEY_CACHE, cache)
+                .set(KEY_BINDING, Array.of(
+                    new Dict().set("name", "a").set("type", "argument").set("description", "A")
+                )));
+        }
+
+        @Override
+        public Object call(CallContext cx, Bindings bindings) throws ProcedureException {
+            calls.incrementAndGet();
+            return new Dict().set("a", bindings.getValue("a")).set("n", calls.get());
+        }
+    }
+
+    private static Object call(CacheInterceptor i, Procedure proc, Object arg) throws Exception {
+        CallContext cx = new CallContext(proc.id());
+        cx.set(CallContext.CX_PROCEDURE, proc);
+        Bindings bindings = new Bindings(proc.getBindings());
+        bindings.set("a", Bindings.ARGUMENT, arg, null);
+        return i.call(cx, proc, bindings);
+    }
+
+    @Test
+    public void testKey() {
+        TestProcedure proc = new TestProcedure(new Dict());
+        Dict a = new Dict().set("x", 1).set("y", Array.of("a", "b"));
+        Dict b = new Dict().set("y", Array.of("a", "b")).set("x", 1);
+        assertEquals(CacheInterceptor.key(proc, null, new Object[] { a }), CacheInterceptor.key(proc, null, new Object[] { b }));
+        assertNotEquals(CacheInterceptor.key(proc, null, new Object[] { 1 }), CacheInterceptor.key(proc, null, new Object[] { "1" }));
+        assertNotEquals(CacheInterceptor.key(proc, null, new Object[] { "a", null }), CacheInterceptor.key(proc, null, new Object[] { "a" }));
+    }
+
+    @Test
+    public void testCall() throws Exception {
+        CacheInterceptor i = new CacheInterceptor("test", "interceptor/call", new Dict());
+        TestProcedure proc = new TestProcedure(new Dict().set(CacheInterceptor.KEY_TTL, 60));
+        Dict res = (Dict) call(i, proc, "x");
+        res.set("modified", true);
+        Dict cached = (Dict) call(i, proc, "x");
+        assertEquals(1, cached.get("n"));
+        assertFalse(cached.containsKey("modified"));
+        assertEquals(2, ((Dict) call(i, proc, "y")).get("n"));
+        assertEquals(2, proc.calls.get());
+        assertTrue(CacheInterceptor.invalidate(proc.id()));
+        assertFalse(CacheInterceptor.invalidate(proc.id()));
+        assertEquals(3, ((Dict) call(i, proc, "x")).get("n"));
+        TestProcedure other = new TestProcedure(new Dict());
+        assertEquals(1, ((Dict) call(i, other, "x")).get("n"));
+        CacheInterceptor.invalidateAll();
+    }
+
+    @Test
+    public void testExpiry() {
+        TestProcedure proc = new TestProcedure(new Dict()
+            .set(CacheInterceptor.KEY_TTL, 1)
+            .set(CacheInterceptor.KEY_MAX_ENTRIES, 2));
+        CacheInterceptor.ResultCache cache = new CacheInterceptor.ResultCache(proc, proc.cache());
+        cache.put("a", "A", 0L);
+        cache.put("b", "B", 0L);
+        assertEquals("A", cache.get("a", 500L));
+        cache.put("c", "C", 0L);
+        assertEquals(2, cache.size());
+        assertNull(cache.get("b", 500L));
+        assertEquals("A", cache.get("a", 500L));
+        assertNull(cache.get("a", 1000L));
+        assertEquals(1, cache.size());
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * RapidContext <https://www.rapidcontext.com/>
+ * Copyright (c) 2007-2026 Per Cederberg. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the BSD license.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the RapidContext LICENSE for more details.
+ */
+
+package org.rapidcontext.core.proc;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.rapidcontext.core.data.Array;
+import org.rapidcontext.core.data.Dict;
+import org.rapidcontext.core.type.Procedure;
+
+@SuppressWarnings("javadoc")
+public class CoalesceInterceptorTest {
+
+    private static class TestProcedure extends Procedure {
+
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        TestProcedure(String coalesce) {
+            super("test/coalesced", "procedure", new Dict()
+                .set(KEY_COALESCE, coalesce)
+                .set(KEY_BINDING, Array.of(
+                    new Dict().set("name", "a").set("type", "argument").set("description", "A")
+                )));
+        }
+
+        @Override
+        public Object call(CallContext cx, Bindings bindings) throws ProcedureException {
+            calls.incrementAndGet();
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new ProcedureException(this, e);
+            }
+            Object a = bindings.getValue("a");
+            if ("error".equals(a)) {
+                throw new ProcedureException(this, "test error");
+            } else if ("fatal".equals(a)) {
+                throw new AssertionError("test fatal");
+            }
+            return new Dict().set("a", a);
+        }
+    }
+
+    private static Object call(CoalesceInterceptor i, Procedure proc, Object arg) throws Exception {
+        CallContext cx = new CallContext(proc.id());
+        cx.set(CallContext.CX_PROCEDURE, proc);
+        Bindings bindings = new Bindings(proc.getBindings());
+        bindings.set("a", Bindings.ARGUMENT, arg, null);
+        return i.call(cx, proc, bindings);
+    }
+
+    private static ArrayList<Future<Object>> callAll(TestProcedure proc, Object arg, int count) throws Exception {
+        CoalesceInterceptor i = new CoalesceInterceptor("test", "interceptor/call", new Dict());
+        return callAll(i, proc, arg, count);
+    }
+
+    private static ArrayList<Future<Object>> callAll(CoalesceInterceptor i, TestProcedure proc, Object arg, int count)
+    throws Exception {
+        ArrayList<Future<Object>> res = new ArrayList<>();
+        try (ExecutorService exec = Executors.newVirtualThreadPerTaskExecutor()) {
+            res.add(exec.submit(() -> call(i, proc, arg)));
+            proc.started.await();
+            for (int j = 1; j < count; j++) {
+                res.add(exec.submit(() -> call(i, proc, arg)));
+            }
+            Thread.sleep(100);
+            proc.release.countDown();
+        }
+        return res;
+    }
+
+    @Test
+    public void testCoalesce() throws Exception {
+        TestProcedure proc = new TestProcedure("true");
+        ArrayList<Future<Object>> res = callAll(proc, "x", 5);
+        assertEquals(1, proc.calls.get());
+        for (Future<Object> f : res) {
+            assertEquals("x", ((Dict) f.get()).get("a"));
+        }
+        assertNotSame(res.get(1).get(), res.get(2).get());
+    }
+
+    @Test
+    public void testError() throws Exception {
+        TestProcedure proc = new TestProcedure("user");
+        ArrayList<Future<Object>> res = callAll(proc, "error", 3);
+        assertEquals(1, proc.calls.get());
+        for (Future<Object> f : res) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> f.get());
+            assertTrue(e.getCause() instanceof ProcedureException);
+            assertTrue(e.getCause().getMessage().contains("test error"));
+        }
+    }
+
+    @Test
+    public void testLeaderFatal() throws Exception {
+        TestProcedure proc = new TestProcedure("true");
+        ArrayList<Future<Object>> res = callAll(proc, "fatal", 3);
+        assertEquals(1, proc.calls.get());
+        ExecutionException e = assertThrows(ExecutionException.class, () -> res.get(0).get());
+        assertTrue(e.getCause() instanceof AssertionError);
+        for (Future<Object> f : res.subList(1, res.size())) {
+            e = assertThrows(ExecutionException.class, () -> f.get());
+            assertTrue(e.getCause() instanceof ProcedureException);
+            assertTrue(e.getCause().getMessage().contains("test fatal"));
+        }
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+        TestProcedure proc = new TestProcedure("true");
+        Dict dict = new Dict().set(CoalesceInterceptor.KEY_TIMEOUT, 50);
+        CoalesceInterceptor i = new CoalesceInterceptor("test", "interceptor/call", dict);
+        ArrayList<Future<Object>> res = callAll(i, proc, "x", 2);
+        assertEquals("x", ((Dict) res.get(0).get()).get("a"));
+        ExecutionException e = assertThrows(ExecutionException.class, () -> res.get(1).get());
+        assertTrue(e.getCause() instanceof ProcedureException);
+        assertTrue(e.getCause().getMessage().contains("timeout"));
+    }
+
+    @Test
+    public void testDisabled() throws Exception {
+        TestProcedure proc = new TestProcedure("false");
+        proc.release.countDown();
+        CoalesceInterceptor i = new CoalesceInterceptor("test", "interceptor/call", new Dict());
+        call(i, proc, "x");
+        call(i, proc, "x");
+        assertEquals(2, proc.calls.get());
+    }
+}
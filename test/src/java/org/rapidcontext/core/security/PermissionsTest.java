@@ -0,0 +1,100 @@
+/*
+ * RapidContext <https://www.rapidcontext.com/>
+ * Copyright (c) 2007-2026 Per Cederberg. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the BSD license.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the RapidContext LICENSE for more details.
+ */
+
+package org.rapidcontext.core.security;
+
+import static org.junit.Assert.*;
+import static org.rapidcontext.core.type.Role.ACCESS_PATH;
+import static org.rapidcontext.core.type.Role.ACCESS_PERMISSION;
+import static org.rapidcontext.core.type.Role.ACCESS_VIA;
+import static org.rapidcontext.core.type.Role.KEY_ACCESS;
+import static org.rapidcontext.core.type.Role.KEY_AUTO;
+import static org.rapidcontext.core.type.Role.PERM_READ;
+import static org.rapidcontext.core.type.Role.PERM_WRITE;
+
+import org.junit.Test;
+import org.rapidcontext.core.data.Array;
+import org.rapidcontext.core.data.Dict;
+import org.rapidcontext.core.type.Role;
+import org.rapidcontext.core.type.User;
+
+@SuppressWarnings("javadoc")
+public class PermissionsTest {
+
+    @Test
+    public void testRoles() {
+        Role[] roles = {
+            buildRole("everyone", "all", access("public/**", PERM_READ)),
+            buildRole("member", "auth", access("member/**", PERM_READ)),
+            buildRole("editor", null, access("member/**", PERM_WRITE))
+        };
+        assertArrayEquals(new String[] { "everyone" }, new Permissions(null, roles).roles());
+        User user = new User("test");
+        Permissions perms = new Permissions(user, roles);
+        assertTrue(perms.isFor(user));
+        assertFalse(perms.isFor(new User("test")));
+        assertFalse(perms.isFor(null));
+        assertArrayEquals(new String[] { "everyone", "member" }, perms.roles());
+        user.setRoles(new String[] { "editor" });
+        perms = new Permissions(user, roles);
+        assertArrayEquals(new String[] { "everyone", "member", "editor" }, perms.roles());
+    }
+
+    @Test
+    public void testHasAccess() {
+        Role[] roles = {
+            buildRole("everyone", "all", access("public/**", PERM_READ)),
+            buildRole("editor", null, access("member/**", PERM_WRITE))
+        };
+        Permissions anon = new Permissions(null, roles);
+        assertTrue(anon.hasAccess("public/info", null, PERM_READ));
+        assertTrue(anon.hasAccess("public/info", null, PERM_READ));
+        assertFalse(anon.hasAccess("public/info", null, PERM_WRITE));
+        assertFalse(anon.hasAccess("member/info", null, PERM_WRITE));
+        User user = new User("test");
+        user.setRoles(new String[] { "editor" });
+        Permissions perms = new Permissions(user, roles);
+        assertTrue(perms.hasAccess("public/info", null, PERM_READ));
+        assertTrue(perms.hasAccess("member/info", null, PERM_WRITE));
+        assertTrue(perms.hasAccess("member/info", "-", PERM_WRITE));
+        assertFalse(perms.hasAccess("member/info", null, PERM_READ));
+    }
+
+    @Test
+    public void testHasAccessVia() {
+        Dict via = access("data/**", PERM_READ).set(ACCESS_VIA, "procedure/reports/**");
+        Role[] roles = { buildRole("everyone", "all", via) };
+        Permissions perms = new Permissions(null, roles);
+        assertFalse(perms.hasAccess("data/info", "-", PERM_READ));
+        assertTrue(perms.hasAccess("data/info", "procedure/reports/list", PERM_READ));
+        assertFalse(perms.hasAccess("data/info", "procedure/other", PERM_READ));
+        assertFalse(perms.hasAccess("data/info", null, PERM_READ));
+    }
+
+    private Role buildRole(String id, String auto, Dict... access) {
+        Dict dict = new Dict().set(KEY_ACCESS, Array.of((Object[]) access));
+        if (auto != null) {
+            dict.set(KEY_AUTO, auto);
+        }
+        return new Role(id, "role", dict) {
+            {
+                init();
+            }
+        };
+    }
+
+    private Dict access(String path, String perm) {
+        return new Dict().set(ACCESS_PATH, path).set(ACCESS_PERMISSION, perm);
+    }
+}
@@ -91,4 +91,25 @@ public class TokenTest {
         Dict decoded = validateJwt(secret, token);
         assertEquals("user", decoded.get("u"));
     }
+
+    @Test
+    public void testValidateJwtCached() {
+        String secret = Random.base64(32);
+        long expiry = System.currentTimeMillis() + 60000;
+        String token = createJwt(secret, expiry, new Dict().set("u", "cached"));
+        long hits = cacheStats().get("hits", Long.class);
+        assertEquals("cached", validateJwt(secret, token).get("u"));
+        Dict decoded = validateJwt(secret, token);
+        assertEquals("cached", decoded.get("u"));
+        assertEquals(hits + 1, (long) cacheStats().get("hits", Long.class));
+        decoded.set("u", "modified");
+        assertEquals("cached", validateJwt(secret, token).get("u"));
+        assertEquals("cached", decodeJwt(token).get("u"));
+        assertThrows(SecurityException.class, () -> validateJwt("wrongsecret", token));
+        assertThrows(NullPointerException.class, () -> validateJwt(null, token));
+        invalidate(secret);
+        hits = cacheStats().get("hits", Long.class);
+        assertEquals("cached", validateJwt(secret, token).get("u"));
+        assertEquals(hits, (long) cacheStats().get("hits", Long.class));
+    }
 }
@@ -0,0 +1,67 @@
+/*
+ * RapidContext <https://www.rapidcontext.com/>
+ * Copyright (c) 2007-2026 Per Cederberg. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the BSD license.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the RapidContext LICENSE for more details.
+ */
+
+package org.rapidcontext.core.stats;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+import org.rapidcontext.core.data.Array;
+
+@SuppressWarnings("javadoc")
+public class HistogramTest {
+
+    @Test
+    public void testIndex() {
+        for (long v = 0; v < 100000; v++) {
+            int idx = Histogram.index(v);
+            assertTrue(v <= Histogram.highest(idx));
+            assertTrue(idx == 0 || v > Histogram.highest(idx - 1));
+            assertTrue(Histogram.highest(idx) - v <= v / 8);
+        }
+        assertEquals(0, Histogram.index(-1));
+        assertEquals(Histogram.BUCKETS - 1, Histogram.index(Histogram.MAX_VALUE));
+        assertEquals(Histogram.BUCKETS - 1, Histogram.index(Long.MAX_VALUE));
+        assertEquals(Histogram.MAX_VALUE, Histogram.highest(Histogram.BUCKETS - 1));
+    }
+
+    @Test
+    public void testValueAt() {
+        Histogram h = new Histogram();
+        assertEquals(0, h.valueAt(0.5));
+        for (int i = 1; i <= 1000; i++) {
+            h.add(i);
+        }
+        assertEquals(1000, h.count());
+        assertEquals(500.0, h.valueAt(0.50), 500 / 8.0);
+        assertEquals(950.0, h.valueAt(0.95), 950 / 8.0);
+        assertEquals(990.0, h.valueAt(0.99), 990 / 8.0);
+        assertEquals(1, h.valueAt(0.0));
+        assertEquals(1023, h.valueAt(1.0));
+    }
+
+    @Test
+    public void testSerializeMerge() {
+        Histogram h1 = new Histogram();
+        h1.add(3);
+        h1.add(3);
+        h1.add(20);
+        assertEquals("[ 3, 2, 18, 1 ]", h1.serialize().toString());
+        Histogram h2 = new Histogram(Array.of(3, 1, 5, 4));
+        h2.merge(h1);
+        assertEquals("[ 3, 3, 5, 4, 18, 1 ]", h2.serialize().toString());
+        h2.clear();
+        assertTrue(h2.isEmpty());
+    }
+}
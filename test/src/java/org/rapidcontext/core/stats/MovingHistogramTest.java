@@ -0,0 +1,56 @@
+/*
+ * RapidContext <https://www.rapidcontext.com/>
+ * Copyright (c) 2007-2026 Per Cederberg. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the BSD license.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the RapidContext LICENSE for more details.
+ */
+
+package org.rapidcontext.core.stats;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+import org.rapidcontext.core.stats.MovingSum.Interval;
+
+@SuppressWarnings("javadoc")
+public class MovingHistogramTest {
+
+    @Test
+    public void testMoveTo() {
+        MovingHistogram h = new MovingHistogram(0);
+        for (int i = 0; i < 99; i++) {
+            h.add(10);
+        }
+        h.add(1000);
+        assertEquals(10, h.valueFor(Interval.HOUR, 0.5));
+        assertEquals(1023, h.valueFor(Interval.HOUR, 1.0));
+        h.moveTo(Interval.HOUR.millis);
+        h.add(5);
+        assertEquals(10, h.valueFor(Interval.HOUR, 0.5));
+        h.moveTo(Interval.HOUR.millis * 2 - 1);
+        assertEquals(5, h.valueFor(Interval.HOUR, 0.5));
+        assertEquals(10, h.valueFor(Interval.DAY, 0.5));
+        h.moveTo(Interval.HOUR.millis * 5);
+        assertEquals(0, h.valueFor(Interval.HOUR, 0.5));
+        assertEquals(10, h.valueFor(Interval.MONTH, 0.5));
+        assertFalse(h.isEmpty());
+    }
+
+    @Test
+    public void testSerialize() {
+        MovingHistogram h = new MovingHistogram(0);
+        h.add(3);
+        assertEquals("[ [ 3, 1 ], [], [ 3, 1 ], [], [ 3, 1 ], [] ]", h.serialize().toString());
+        h.moveTo(Interval.HOUR.millis);
+        MovingHistogram copy = new MovingHistogram(Interval.HOUR.millis, h.serialize());
+        assertEquals(3, copy.valueFor(Interval.DAY, 0.99));
+        assertEquals(h.serialize().toString(), copy.serialize().toString());
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * RapidContext <https://www.rapidcontext.com/>
+ * Copyright (c) 2007-2026 Per Cederberg. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the BSD license.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the RapidContext LICENSE for more details.
+ */
+
+package org.rapidcontext.core.stats;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class OpenMetricsWriterTest {
+
+    @Test
+    public void testSample() {
+        StringBuilder buffer = new StringBuilder();
+        OpenMetricsWriter out = new OpenMetricsWriter(buffer, true);
+        out.family("test_calls", OpenMetricsWriter.COUNTER, "Test \\ help.");
+        out.sample("test_calls_total", 12, "id", "a\"b\\c\nd");
+        out.sample("test_calls_total", 0.25);
+        out.end();
+        String expected = """
+            # TYPE test_calls counter
+            # HELP test_calls Test \\\\ help.
+            test_calls_total{id="a\\"b\\\\c\\nd"} 12
+            test_calls_total 0.25
+            # EOF
+            """;
+        assertEquals(expected, buffer.toString());
+        buffer.setLength(0);
+        out = new OpenMetricsWriter(buffer, false);
+        out.family("test_calls", OpenMetricsWriter.COUNTER, "Test.");
+        out.end();
+        assertEquals("# TYPE test_calls_total counter\n# HELP test_calls_total Test.\n", buffer.toString());
+        assertTrue(out.mimeType().startsWith("text/plain"));
+    }
+
+    @Test
+    public void testUsage() {
+        MovingUsage usage = new MovingUsage(0);
+        usage.add(1, 250, false, "error");
+        StringBuilder buffer = new StringBuilder();
+        OpenMetricsWriter out = new OpenMetricsWriter(buffer, true);
+        out.usage("test", "procedure", ":x", List.of(Map.entry("a/b:x", usage)));
+        String text = buffer.toString();
+        assertTrue(text.contains("test_usage{procedure=\"a/b\",window=\"hour\"} 1\n"));
+        assertTrue(text.contains("test_errors{procedure=\"a/b\",window=\"month\"} 1\n"));
+        assertTrue(text.contains("test_duration_avg_seconds{procedure=\"a/b\",window=\"short\"} 0.25\n"));
+        assertTrue(text.contains("test_duration_seconds{procedure=\"a/b\",window=\"day\",quantile=\"0.99\"} 0.255\n"));
+        out.usage("empty", "procedure", null, List.of());
+        assertEquals(text, buffer.toString());
+    }
+}
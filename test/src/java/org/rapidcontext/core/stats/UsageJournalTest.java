@@ -0,0 +1,96 @@
+/*
+ * RapidContext <https://www.rapidcontext.com/>
+ * Copyright (c) 2007-2026 Per Cederberg. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the BSD license.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the RapidContext LICENSE for more details.
+ */
+
+package org.rapidcontext.core.stats;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.rapidcontext.core.data.Array;
+import org.rapidcontext.core.data.Dict;
+import org.rapidcontext.util.FileUtil;
+
+@SuppressWarnings("javadoc")
+public class UsageJournalTest {
+
+    private File dir;
+
+    @Before
+    public void setup() throws Exception {
+        dir = Files.createTempDirectory("journal-").toFile();
+    }
+
+    @After
+    public void teardown() throws Exception {
+        FileUtil.delete(dir);
+    }
+
+    private static HashMap<String, Dict> load(UsageJournal journal) throws Exception {
+        HashMap<String, Dict> res = new HashMap<>();
+        journal.load((time, key, data) -> res.put(key, data.set("time", time)));
+        return res;
+    }
+
+    @Test
+    public void testAppendLoad() throws Exception {
+        UsageJournal journal = new UsageJournal(dir);
+        assertEquals(0, load(journal).size());
+        Dict a = new Dict()
+            .set("c", Array.of(1, -2, 3L << 40, 0.5))
+            .set("msg", "error å")
+            .set("flag", true)
+            .set("none", null);
+        journal.append(100, Map.of("a", a));
+        journal.append(200, Map.of("b", new Dict().set("c", Array.of(7))));
+        journal.append(300, Map.of("a", new Dict().set("c", Array.of(9))));
+        assertEquals(1, journal.segments());
+        HashMap<String, Dict> res = load(new UsageJournal(dir));
+        assertEquals(2, res.size());
+        assertEquals("[ 9 ]", res.get("a").getArray("c").toString());
+        assertEquals(300L, res.get("a").get("time"));
+        assertEquals(200L, res.get("b").get("time"));
+        journal.compact(400, Map.of("a", a));
+        res = load(new UsageJournal(dir));
+        assertEquals(1, res.size());
+        Dict copy = res.get("a");
+        assertEquals(a.getArray("c").toString(), copy.getArray("c").toString());
+        assertEquals("error å", copy.get("msg"));
+        assertEquals(Boolean.TRUE, copy.get("flag"));
+        assertTrue(copy.containsKey("none"));
+        assertEquals(1, dir.list().length);
+    }
+
+    @Test
+    public void testCorrupt() throws Exception {
+        UsageJournal journal = new UsageJournal(dir);
+        journal.append(100, Map.of("a", new Dict().set("c", 1)));
+        try (FileOutputStream os = new FileOutputStream(new File(dir, "segment-1.bin"), true)) {
+            os.write(new byte[] { 0x52, 0x4d, 0x4a, 0x31, 0, 0, 1 });
+        }
+        journal = new UsageJournal(dir);
+        HashMap<String, Dict> res = load(journal);
+        assertEquals(1, res.size());
+        journal.append(200, Map.of("b", new Dict().set("c", 2)));
+        assertEquals(2, journal.segments());
+        assertEquals(2, load(new UsageJournal(dir)).size());
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * RapidContext <https://www.rapidcontext.com/>
+ * Copyright (c) 2007-2026 Per Cederberg. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the BSD license.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the RapidContext LICENSE for more details.
+ */
+
+package org.rapidcontext.core.storage;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.rapidcontext.core.data.Array;
+import org.rapidcontext.core.data.Dict;
+
+@SuppressWarnings("javadoc")
+public class CatalogImageTest {
+
+    private File file;
+
+    @Before
+    public void setup() throws Exception {
+        file = File.createTempFile("catalog-", ".catalog");
+    }
+
+    @After
+    public void teardown() throws Exception {
+        file.delete();
+    }
+
+    @Test
+    public void testReadWrite() throws Exception {
+        Dict dict = new Dict()
+            .set("id", "test")
+            .set("int", 42)
+            .set("long", 1L << 40)
+            .set("double", 1.5)
+            .set("flag", true)
+            .set("none", null)
+            .set("date", new Date(1000000L))
+            .set("text", "åäö " + "x".repeat(70000))
+            .set("list", Array.of("a", 1, new Dict().set("b", false)));
+        Map<String, Dict> entries = new LinkedHashMap<>();
+        entries.put("type/test.yaml", dict);
+        entries.put("type/invalid.yaml", new Dict().set("obj", new Object()));
+        CatalogImage.write(file, "v1", entries);
+        Map<String, Dict> res = CatalogImage.read(file, "v1");
+        assertEquals(1, res.size());
+        Dict copy = res.get("type/test.yaml");
+        assertEquals(dict, copy);
+        assertEquals(Integer.class, copy.get("int").getClass());
+        assertEquals(Long.class, copy.get("long").getClass());
+        assertEquals(new Date(1000000L), copy.get("date"));
+        assertNull(CatalogImage.read(file, "v2"));
+        assertNull(CatalogImage.read(new File(file.getPath() + ".missing"), "v1"));
+    }
+
+    @Test
+    public void testCorrupt() throws Exception {
+        CatalogImage.write(file, "v1", Map.of("a.yaml", new Dict().set("a", "b")));
+        assertNotNull(CatalogImage.read(file, "v1"));
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(10);
+            int b = raf.read();
+            raf.seek(10);
+            raf.write(b ^ 0xFF);
+        }
+        assertNull(CatalogImage.read(file, "v1"));
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(4);
+        }
+        assertNull(CatalogImage.read(file, "v1"));
+    }
+}
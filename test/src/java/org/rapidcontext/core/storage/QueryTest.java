@@ -0,0 +1,128 @@
+/*
+ * RapidContext <https://www.rapidcontext.com/>
+ * Copyright (c) 2007-2026 Per Cederberg. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the BSD license.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the RapidContext LICENSE for more details.
+ */
+
+package org.rapidcontext.core.storage;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.rapidcontext.core.data.Dict;
+
+@SuppressWarnings("javadoc")
+public class QueryTest {
+
+    private RootStorage root;
+
+    @Before
+    public void setup() throws Exception {
+        root = new RootStorage(true);
+        root.addPropertyIndex(Path.from("/user/"), "email");
+        MemoryStorage mem = new MemoryStorage("test", true, false) {
+            @Override
+            public synchronized void store(Path path, Object data) throws StorageException {
+                super.store(Storage.objectPath(path), data);
+            }
+        };
+        Path storagePath = Path.from("/.storage/test/");
+        root.mount(mem, storagePath);
+        root.remount(storagePath, true, null, Path.ROOT, 0);
+        root.store(Path.from("/user/alice"), user("alice", "Alice@example.com", true));
+        root.store(Path.from("/user/bob"), user("bob", "bob@example.com", false));
+        root.store(Path.from("/user/.hidden"), user(".hidden", "hidden@example.com", true));
+        root.store(Path.from("/user/sub/carol"), user("carol", "carol@other.com", true));
+    }
+
+    private static Dict user(String id, String email, boolean enabled) {
+        return new Dict().set("id", id).set("email", email).set("enabled", enabled);
+    }
+
+    private static List<String> paths(Query query) {
+        return query.paths().map(Path::toString).toList();
+    }
+
+    @Test
+    public void testFilterProperty() throws Exception {
+        Path base = Path.from("/user/");
+        assertEquals(List.of("/user/alice"), paths(root.query(base).filterProperty("email", "alice@EXAMPLE.com")));
+        assertEquals(List.of(), paths(root.query(base).filterProperty("email", "missing@example.com")));
+        assertEquals(List.of(), paths(root.query(base).filterProperty("email", "hidden@example.com")));
+        assertEquals(List.of("/user/.hidden"), paths(root.query(base).filterShowHidden(true).filterProperty("email", "hidden@example.com")));
+        assertEquals(List.of(), paths(root.query(base).filterDepth(0).filterProperty("email", "carol@other.com")));
+        assertEquals(List.of("/user/sub/carol"), paths(root.query(base).filterProperty("email", "carol@other.com")));
+        assertEquals(List.of("/user/sub/carol"), paths(root.query(Path.from("/user/sub/")).filterProperty("email", "carol@other.com")));
+    }
+
+    @Test
+    public void testFilterPropertyPrefix() throws Exception {
+        Path base = Path.from("/user/");
+        assertEquals(List.of("/user/alice", "/user/bob"), paths(root.query(base).filterPropertyPrefix("email", "").filterDepth(0)));
+        assertEquals(List.of("/user/bob"), paths(root.query(base).filterPropertyPrefix("email", "BOB@")));
+        // Non-indexed property filters
+        assertEquals(List.of("/user/alice"), paths(root.query(base).filterProperty("enabled", "true").filterDepth(0)));
+        assertEquals(List.of("/user/sub/carol", "/user/alice"), paths(root.query(base).filterPropertyPrefix("email", "").filterProperty("enabled", "TRUE")));
+    }
+
+    @Test
+    public void testFilterPropertyOrder() throws Exception {
+        root.store(Path.from("/user/sub/aaron"), user("aaron", "aaron@other.com", true));
+        root.store(Path.from("/user/sub/deep/zed"), user("zed", "zed@other.com", true));
+        root.store(Path.from("/user/aa/zoe"), user("zoe", "zoe@example.com", true));
+        root.store(Path.from("/user/zack"), user("zack", "zack@example.com", true));
+        Path base = Path.from("/user/");
+        List<String> expected = List.of(
+            "/user/aa/zoe",
+            "/user/sub/deep/zed",
+            "/user/sub/aaron",
+            "/user/sub/carol",
+            "/user/alice",
+            "/user/bob",
+            "/user/zack"
+        );
+        assertEquals(expected, paths(root.query(base)));
+        assertEquals(expected, paths(root.query(base).filterPropertyPrefix("email", "")));
+        assertEquals(expected, paths(root.query(base).filterPropertyPrefix("email", "").parallel(true)));
+    }
+
+    @Test
+    public void testIndexSync() throws Exception {
+        Path base = Path.from("/user/");
+        assertEquals(List.of("/user/bob"), paths(root.query(base).filterProperty("email", "bob@example.com")));
+        root.store(Path.from("/user/bob"), user("bob", "robert@example.com", false));
+        assertEquals(List.of(), paths(root.query(base).filterProperty("email", "bob@example.com")));
+        assertEquals(List.of("/user/bob"), paths(root.query(base).filterProperty("email", "robert@example.com")));
+        root.remove(Path.from("/user/bob"));
+        assertEquals(List.of(), paths(root.query(base).filterProperty("email", "robert@example.com")));
+        root.remove(Path.from("/user/sub/"));
+        assertEquals(List.of(), paths(root.query(base).filterProperty("email", "carol@other.com")));
+        root.store(Path.from("/user/dave"), user("dave", "dave@example.com", true));
+        assertEquals(List.of("/user/dave"), paths(root.query(base).filterProperty("email", "dave@example.com")));
+    }
+
+    @Test
+    public void testParallel() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            root.store(Path.from("/data/" + (i % 7) + "/" + (i % 3) + "/obj" + i), new Dict().set("id", i));
+        }
+        Path base = Path.from("/data/");
+        List<String> expected = paths(root.query(base));
+        assertEquals(100, expected.size());
+        assertEquals(expected, paths(root.query(base).parallel(true)));
+        assertEquals(100, root.query(base).parallel(true).objects().count());
+        assertEquals(List.of(), paths(root.query(base).parallel(true).filterDepth(1)));
+        assertEquals(expected, paths(root.query(base).parallel(true).filterDepth(2)));
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * RapidContext <https://www.rapidcontext.com/>
+ * Copyright (c) 2007-2026 Per Cederberg. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the BSD license.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the RapidContext LICENSE for more details.
+ */
+
+package org.rapidcontext.core.storage;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.rapidcontext.core.data.Binary;
+import org.rapidcontext.core.data.Dict;
+import org.rapidcontext.util.BinaryUtil;
+
+@SuppressWarnings("javadoc")
+public class ZipStorageTest {
+
+    private File file;
+
+    private ZipStorage storage;
+
+    @Before
+    public void setup() throws Exception {
+        file = File.createTempFile("zipstorage-", ".zip");
+        try (ZipOutputStream os = new ZipOutputStream(new FileOutputStream(file))) {
+            os.putNextEntry(new ZipEntry("files/"));
+            add(os, "files/Readme.txt", "hello world", ZipEntry.STORED);
+            add(os, "files/data.bin", "x".repeat(100000), ZipEntry.DEFLATED);
+            add(os, "files/sub/deep/item.txt", "deep", ZipEntry.DEFLATED);
+            add(os, "plugin.properties", "id = test\n", ZipEntry.DEFLATED);
+            add(os, "type/test.yaml", "id: test\nname: Test\n", ZipEntry.DEFLATED);
+        }
+        storage = new ZipStorage(file);
+    }
+
+    @After
+    public void teardown() throws Exception {
+        storage.destroy();
+        file.delete();
+    }
+
+    private static void add(ZipOutputStream os, String name, String text, int method)
+    throws Exception {
+        byte[] data = text.getBytes(StandardCharsets.UTF_8);
+        ZipEntry entry = new ZipEntry(name);
+        entry.setMethod(method);
+        if (method == ZipEntry.STORED) {
+            CRC32 crc = new CRC32();
+            crc.update(data);
+            entry.setSize(data.length);
+            entry.setCrc(crc.getValue());
+        }
+        os.putNextEntry(entry);
+        os.write(data);
+        os.closeEntry();
+    }
+
+    private static String read(Binary data) throws Exception {
+        try (InputStream is = data.openStream()) {
+            return new String(is.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    public void testIndex() {
+        Index root = (Index) storage.load(Path.ROOT);
+        assertEquals(List.of("files", "type"), root.indices(false).toList());
+        assertEquals(List.of("plugin.properties"), root.objects(false).toList());
+        Index files = (Index) storage.load(Path.from("/FILES/"));
+        assertEquals(List.of("sub"), files.indices(false).toList());
+        assertEquals(List.of("Readme.txt", "data.bin"), files.objects(false).toList());
+        Index sub = (Index) storage.load(Path.from("/files/sub/"));
+        assertEquals(List.of("deep"), sub.indices(false).toList());
+        assertEquals(0L, sub.objects(false).count());
+        assertNull(storage.load(Path.from("/missing/")));
+        assertNull(storage.lookup(Path.from("/files/s/")));
+    }
+
+    @Test
+    public void testLoad() throws Exception {
+        Binary readme = (Binary) storage.load(Path.from("/files/readme.txt"));
+        assertEquals("hello world", read(readme));
+        assertEquals("hello world", read(readme));
+        assertEquals(11L, readme.size());
+        Binary data = (Binary) storage.load(Path.from("/files/data.bin"));
+        assertEquals(100000, read(data).length());
+        try (InputStream is = data.openStream()) {
+            assertEquals(BinaryUtil.hashSHA256(is), data.sha256());
+        }
+        assertEquals("deep", read((Binary) storage.load(Path.from("/files/sub/deep/item.txt"))));
+        Metadata meta = storage.lookup(Path.from("/type/test"));
+        assertEquals(Path.from("/type/test"), meta.path());
+        Dict dict = (Dict) storage.load(Path.from("/type/test"));
+        assertEquals("Test", dict.get("name"));
+        dict.set("name", "Modified");
+        assertEquals("Test", ((Dict) storage.load(Path.from("/type/test"))).get("name"));
+        assertNull(storage.load(Path.from("/files/missing.txt")));
+    }
+
+    @Test
+    public void testDestroy() throws Exception {
+        assertNotNull(storage.load(Path.from("/files/readme.txt")));
+        storage.destroy();
+        assertNull(storage.lookup(Path.from("/files/readme.txt")));
+        assertNull(storage.load(Path.from("/type/test")));
+    }
+
+    @Test
+    public void testRelocate() {
+        Path from = storage.locatePath(Path.from("/plugin"));
+        assertEquals(Path.from("/plugin.properties"), from);
+        storage.relocate(from, Path.from("/plugin/test.properties"));
+        assertNull(storage.load(Path.from("/plugin")));
+        assertEquals("test", ((Dict) storage.load(Path.from("/plugin/test"))).get("id"));
+        Index root = (Index) storage.load(Path.ROOT);
+        assertEquals(List.of("files", "plugin", "type"), root.indices(false).toList());
+        assertEquals(0L, root.objects(false).count());
+        Index plugin = (Index) storage.load(Path.from("/plugin/"));
+        assertEquals(List.of("test.properties"), plugin.objects(false).toList());
+    }
+
+    @Test
+    public void testLoadCatalog() throws Exception {
+        File image = File.createTempFile("zipstorage-", ".catalog");
+        try {
+            image.delete();
+            storage.loadCatalog(image);
+            assertTrue(image.isFile());
+            Dict dict = (Dict) storage.load(Path.from("/type/test"));
+            assertEquals("Test", dict.get("name"));
+            dict.set("name", "Modified");
+            assertEquals("Test", ((Dict) storage.load(Path.from("/type/test"))).get("name"));
+            long modified = image.lastModified();
+            ZipStorage other = new ZipStorage(file);
+            other.loadCatalog(image);
+            assertEquals(modified, image.lastModified());
+            assertEquals("Test", ((Dict) other.load(Path.from("/type/test"))).get("name"));
+            other.destroy();
+        } finally {
+            image.delete();
+        }
+    }
+}
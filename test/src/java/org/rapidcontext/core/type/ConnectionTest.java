@@ -0,0 +1,133 @@
+/*
+ * RapidContext <https://www.rapidcontext.com/>
+ * Copyright (c) 2007-2026 Per Cederberg. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the BSD license.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the RapidContext LICENSE for more details.
+ */
+
+package org.rapidcontext.core.type;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.rapidcontext.core.data.Dict;
+
+@SuppressWarnings("javadoc")
+public class ConnectionTest {
+
+    private static class TestConnection extends Connection {
+
+        AtomicInteger created = new AtomicInteger();
+        AtomicInteger validated = new AtomicInteger();
+
+        TestConnection(Dict dict) throws Exception {
+            super("test", "connection/test", dict);
+            init();
+        }
+
+        @Override
+        protected Channel createChannel() {
+            created.incrementAndGet();
+            return new TestChannel(this);
+        }
+
+        @Override
+        protected void destroyChannel(Channel channel) {
+            // Nothing to do
+        }
+    }
+
+    private static class TestChannel extends Channel {
+
+        TestChannel(TestConnection con) {
+            super(con);
+        }
+
+        @Override
+        protected boolean isPoolable() {
+            return true;
+        }
+
+        @Override
+        protected void reserve() {
+            // Nothing to do
+        }
+
+        @Override
+        protected void release() {
+            // Nothing to do
+        }
+
+        @Override
+        public void validate() {
+            ((TestConnection) connection).validated.incrementAndGet();
+        }
+
+        @Override
+        public void commit() {
+            // Nothing to do
+        }
+
+        @Override
+        public void rollback() {
+            // Nothing to do
+        }
+    }
+
+    @Test
+    public void testValidateIdle() throws Exception {
+        TestConnection con = new TestConnection(new Dict());
+        assertEquals(30, con.validateIdleSeconds());
+        assertEquals(0, con.keepAliveSeconds());
+        Channel channel = con.reserve();
+        con.release(channel);
+        assertSame(channel, con.reserve());
+        con.release(channel);
+        assertEquals(1, con.created.get());
+        assertEquals(0, con.validated.get());
+        con.destroy();
+    }
+
+    @Test
+    public void testValidateAlways() throws Exception {
+        TestConnection con = new TestConnection(new Dict().set(Connection.KEY_VALIDATE_IDLE_SECS, 0));
+        Channel channel = con.reserve();
+        assertEquals(0, con.validated.get());
+        con.release(channel);
+        con.release(con.reserve());
+        assertEquals(1, con.validated.get());
+        con.destroy();
+    }
+
+    @Test
+    public void testValidateOnError() throws Exception {
+        TestConnection con = new TestConnection(new Dict());
+        Channel channel = con.reserve();
+        channel.report(0, false, "test error");
+        con.release(channel);
+        assertEquals(1, con.validated.get());
+        channel = con.reserve();
+        channel.report(0, true, null);
+        con.release(channel);
+        assertEquals(1, con.validated.get());
+        con.destroy();
+    }
+
+    @Test
+    public void testKeepAlive() throws Exception {
+        TestConnection con = new TestConnection(new Dict().set(Connection.KEY_KEEP_ALIVE_SECS, 1));
+        con.release(con.reserve());
+        Thread.sleep(1500);
+        assertTrue(con.validated.get() >= 1);
+        con.destroy();
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * RapidContext <https://www.rapidcontext.com/>
+ * Copyright (c) 2007-2026 Per Cederberg. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the BSD license.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the RapidContext LICENSE for more details.
+ */
+
+package org.rapidcontext.core.type;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Date;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.rapidcontext.core.data.Array;
+import org.rapidcontext.core.data.Dict;
+import org.rapidcontext.core.stats.MovingSum.Interval;
+import org.rapidcontext.util.FileUtil;
+
+@SuppressWarnings("javadoc")
+public class MetricsTest {
+
+    private File dir;
+
+    @Before
+    public void setup() throws Exception {
+        dir = Files.createTempDirectory("metrics-").toFile();
+    }
+
+    @After
+    public void teardown() throws Exception {
+        FileUtil.delete(dir);
+    }
+
+    private static Metrics create(Dict data) throws Exception {
+        Dict dict = new Dict()
+            .set(Metrics.KEY_ID, "test")
+            .set(Metrics.KEY_TYPE, "metrics/usage")
+            .set(Metrics.KEY_UPDATED, new Date())
+            .set(Metrics.KEY_DATA, data);
+        Metrics metrics = new Metrics("test", "metrics/usage", dict);
+        metrics.init();
+        return metrics;
+    }
+
+    private static double hourCount(Metrics metrics, String key) {
+        return metrics.stream()
+            .filter(e -> e.getKey().equals(key))
+            .mapToDouble(e -> e.getValue().counts().valueFor(Interval.HOUR))
+            .sum();
+    }
+
+    @Test
+    public void testJournal() throws Exception {
+        Dict inline = new Dict().set("a", new Dict().set("c", Array.of(3, 0, 3, 0, 3, 0)));
+        Metrics metrics = create(inline);
+        metrics.openJournal(dir);
+        assertTrue(metrics.isModified());
+        assertEquals(0, metrics.serialize().getDict(Metrics.KEY_DATA).size());
+        metrics.passivate();
+        assertFalse(metrics.isModified());
+        long now = System.currentTimeMillis();
+        metrics.report("b", now, 2, 10, true, null);
+        metrics.report("a", now, 1, 10, true, null);
+        assertFalse(metrics.isModified());
+        metrics.passivate();
+
+        Metrics copy = create(new Dict());
+        copy.openJournal(dir);
+        assertFalse(copy.isModified());
+        assertEquals(4.0, hourCount(copy, "a"), 0.01);
+        assertEquals(2.0, hourCount(copy, "b"), 0.01);
+    }
+
+    @Test
+    public void testNoJournal() throws Exception {
+        Metrics metrics = create(new Dict());
+        metrics.openJournal(null);
+        metrics.report("a", System.currentTimeMillis(), 1, 0, true, null);
+        assertTrue(metrics.isModified());
+        assertEquals(1, metrics.serialize().getDict(Metrics.KEY_DATA).size());
+    }
+}
@@ -179,7 +179,9 @@ public class RoleTest {
             pathAccess("data/visible/**", "write"),
             regexAccess("^admin/.*$", "all")
         );
+        assertFalse(role.hasVia());
         role.init();
+        assertTrue(role.hasVia());
         assertFalse(role.hasAccess("data/confidential/report", PERM_READ));
         assertFalse(role.hasAccess("data/restricted/overview", PERM_READ));
         assertTrue(role.hasAccess("data/restricted/overview", "procedure/reports/list", PERM_READ));
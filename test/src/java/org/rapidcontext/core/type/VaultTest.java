@@ -22,7 +22,9 @@ import java.util.Map;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.rapidcontext.core.data.Array;
 import org.rapidcontext.core.data.Dict;
+import org.rapidcontext.core.storage.Path;
 
 @SuppressWarnings("javadoc")
 public class VaultTest {
@@ -46,6 +48,7 @@ public class VaultTest {
     @After
     public void tearDown() throws Exception {
         vaultCache().clear();
+        Vault.compilePaths(new Array());
     }
 
     @Test
@@ -79,6 +82,45 @@ public class VaultTest {
         assertEquals("Default: N/A", Vault.expand("Default: ${{missing!type:N/A}}"));
     }
 
+    @Test
+    public void testExpandSinglePass() throws Exception {
+        TestVault vault = (TestVault) vaultCache().get("user");
+        vault.data.set("ref", "${{user!name}}");
+        assertEquals("$1 ${{user!name}}", Vault.expand("$1 ${{user!ref}}"));
+        assertEquals("a\\b", Vault.expand("${{missing:a\\b}}"));
+        assertEquals("AliceAlice", Vault.expand("${{user!name}}${{user!name}}"));
+    }
+
+    @Test
+    public void testCanExpandPath() throws Exception {
+        assertFalse(Vault.canExpand(Path.from("/connection/test")));
+        Vault.compilePaths(Array.of("/connection/**", "plugin/*/config"));
+        assertTrue(Vault.canExpand(Path.from("/connection/test")));
+        assertTrue(Vault.canExpand(Path.from("/connection/sub/test")));
+        assertTrue(Vault.canExpand(Path.from("/Connection/test")));
+        assertTrue(Vault.canExpand(Path.from("/plugin/test/config")));
+        assertFalse(Vault.canExpand(Path.from("/plugin/test/sub/config")));
+        assertFalse(Vault.canExpand(Path.from("/procedure/test")));
+        assertFalse(Vault.canExpand(Path.from("/procedure/test")));
+        Vault.compilePaths(new Array());
+        assertFalse(Vault.canExpand(Path.from("/connection/test")));
+    }
+
+    @Test
+    public void testCached() throws Exception {
+        TestVault vault = (TestVault) vaultCache().get("cfg");
+        int[] calls = { 0 };
+        assertEquals("prod", vault.cached("env", k -> { calls[0]++; return "prod"; }));
+        assertEquals("prod", vault.cached("env", k -> { calls[0]++; return "test"; }));
+        assertNull(vault.cached("none", k -> { calls[0]++; return null; }));
+        assertNull(vault.cached("none", k -> { calls[0]++; return null; }));
+        assertNull(vault.cached(null, k -> { calls[0]++; return "x"; }));
+        assertEquals(2, calls[0]);
+        Vault.invalidate();
+        assertEquals("test", vault.cached("env", k -> { calls[0]++; return "test"; }));
+        assertEquals(3, calls[0]);
+    }
+
     @SuppressWarnings("unchecked")
     private Map<String, Vault> vaultCache() throws Exception {
         Field field = Vault.class.getDeclaredField("CACHE");
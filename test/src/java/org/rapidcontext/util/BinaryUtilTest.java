@@ -19,6 +19,7 @@ import static org.rapidcontext.util.BinaryUtil.*;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.security.NoSuchAlgorithmException;
 
 import org.junit.Test;
@@ -62,6 +63,14 @@ public class BinaryUtilTest {
         assertEquals(TEXT_SHA3, hashSHA3(is));
     }
 
+    @Test
+    public void testHashFnv64() {
+        assertEquals("cbf29ce484222325", hashFnv64(new byte[0]));
+        assertEquals("af63dc4c8601ec8c", hashFnv64("a".getBytes(StandardCharsets.UTF_8)));
+        assertEquals(hashFnv64(BYTES), hashFnv64(TEXT.getBytes(StandardCharsets.UTF_8)));
+        assertNotEquals(hashFnv64(BYTES), hashFnv64("other".getBytes(StandardCharsets.UTF_8)));
+    }
+
     @Test
     @SuppressWarnings("deprecation")
     public void testHashBytes() throws NoSuchAlgorithmException, IOException {
@@ -0,0 +1,77 @@
+/*
+ * RapidContext <https://www.rapidcontext.com/>
+ * Copyright (c) 2007-2026 Per Cederberg. All rights reserved.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the BSD license.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the RapidContext LICENSE for more details.
+ */
+
+package org.rapidcontext.util.logging;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+import org.rapidcontext.util.FileUtil;
+
+/**
+ * A logging-under-load benchmark for the file handler. Compares the
+ * synchronous and asynchronous modes by publishing log records from
+ * a number of concurrent (virtual) threads. Run with:
+ *
+ * <pre>
+ * java -cp "lib/*:test/classes" org.rapidcontext.util.logging.FileHandlerBenchmark [threads] [records]
+ * </pre>
+ */
+@SuppressWarnings("javadoc")
+public class FileHandlerBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int threads = (args.length > 0) ? Integer.parseInt(args[0]) : 64;
+        int records = (args.length > 1) ? Integer.parseInt(args[1]) : 5000;
+        File dir = Files.createTempDirectory("rapidcontext-bench-").toFile();
+        try {
+            for (int round = 0; round < 3; round++) {
+                run("sync", new FileHandler(dir + "/sync.log", false, 0, null), threads, records);
+                run("async-block", new FileHandler(dir + "/block.log", false, 8192, "block"), threads, records);
+                run("async-drop", new FileHandler(dir + "/drop.log", false, 8192, "drop"), threads, records);
+                run("async-sample", new FileHandler(dir + "/sample.log", false, 8192, "sample"), threads, records);
+            }
+        } finally {
+            FileUtil.delete(dir);
+        }
+    }
+
+    private static void run(String name, FileHandler handler, int threads, int records)
+    throws Exception {
+        ArrayList<Thread> list = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < threads; i++) {
+            int thread = i;
+            list.add(Thread.ofVirtual().start(() -> {
+                for (int j = 0; j < records; j++) {
+                    handler.publish(new LogRecord(Level.INFO, "benchmark record " + thread + ":" + j));
+                }
+            }));
+        }
+        for (Thread t : list) {
+            t.join();
+        }
+        long publish = System.nanoTime() - start;
+        handler.close();
+        long total = System.nanoTime() - start;
+        long count = (long) threads * records;
+        System.out.printf(
+            "%-12s %,10d records: publish %,8d ms (%,6d ns/record), total %,8d ms%n",
+            name, count, publish / 1_000_000, publish / count, total / 1_000_000
+        );
+    }
+}
@@ -23,6 +23,9 @@ import static org.junit.Assert.assertTrue;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.logging.Level;
 import java.util.logging.LogRecord;
 
@@ -93,4 +96,131 @@ public class FileHandlerTest {
             handler.close();
         }
     }
+
+    @Test
+    public void testAsyncLogging() throws Exception {
+        File logFile = new File(tempDir, "async.log");
+        FileHandler handler = new FileHandler(logFile.getAbsolutePath(), true, 16, "block");
+        try {
+            assertTrue(handler.isAsync());
+            publishConcurrently(handler, 4, 250);
+            handler.flush();
+            assertEquals(1000, countMatches(FileUtil.readText(logFile), "async-msg-"));
+            handler.publish(new LogRecord(Level.INFO, "async-last"));
+        } finally {
+            handler.close();
+        }
+        assertThat(FileUtil.readText(logFile), containsString("async-last"));
+    }
+
+    @Test
+    public void testAsyncOverflowDrop() throws Exception {
+        File logFile = new File(tempDir, "drop.log");
+        FileHandler handler = new FileHandler(logFile.getAbsolutePath(), true, 4, "drop");
+        try {
+            publishConcurrently(handler, 4, 250);
+        } finally {
+            handler.close();
+        }
+        String text = FileUtil.readText(logFile);
+        int dropped = 0;
+        Matcher m = Pattern.compile("dropped (\\d+) log record").matcher(text);
+        while (m.find()) {
+            dropped += Integer.parseInt(m.group(1));
+        }
+        assertEquals(1000, countMatches(text, "async-msg-") + dropped);
+    }
+
+    @Test
+    public void testAsyncOverflowSample() throws Exception {
+        File logFile = new File(tempDir, "sample.log");
+        FileHandler handler = new FileHandler(logFile.getAbsolutePath(), true, 4, "sample");
+        try {
+            publishConcurrently(handler, 4, 250);
+        } finally {
+            handler.close();
+        }
+        String text = FileUtil.readText(logFile);
+        int dropped = 0;
+        Matcher m = Pattern.compile("dropped (\\d+) log record").matcher(text);
+        while (m.find()) {
+            dropped += Integer.parseInt(m.group(1));
+        }
+        int written = countMatches(text, "async-msg-");
+        assertEquals(1000, written + dropped);
+        assertTrue("too many records dropped: " + dropped, written >= 90);
+    }
+
+    @Test
+    public void testAsyncOverflowDropBelowWarning() throws Exception {
+        File logFile = new File(tempDir, "warning.log");
+        FileHandler handler = new FileHandler(logFile.getAbsolutePath(), true, 4, "drop-below-warning");
+        try {
+            ArrayList<Thread> list = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                int thread = i;
+                list.add(Thread.ofPlatform().start(() -> {
+                    for (int j = 0; j < 250; j++) {
+                        Level level = (j % 10 == 0) ? Level.WARNING : Level.FINE;
+                        handler.publish(new LogRecord(level, "async-msg-" + thread + "-" + j));
+                    }
+                }));
+            }
+            for (Thread t : list) {
+                t.join();
+            }
+        } finally {
+            handler.close();
+        }
+        String text = FileUtil.readText(logFile);
+        for (int i = 0; i < 4; i++) {
+            for (int j = 0; j < 250; j += 10) {
+                assertThat(text, containsString("async-msg-" + i + "-" + j + "\n"));
+            }
+        }
+    }
+
+    @Test
+    public void testAsyncWakeup() throws Exception {
+        File logFile = new File(tempDir, "wakeup.log");
+        FileHandler handler = new FileHandler(logFile.getAbsolutePath(), true, 16, "block");
+        try {
+            for (int i = 0; i < 3; i++) {
+                Thread.sleep(50); // Let the writer thread go idle
+                String msg = "wakeup-msg-" + i;
+                handler.publish(new LogRecord(Level.INFO, msg));
+                long deadline = System.currentTimeMillis() + 5000;
+                while (!FileUtil.readText(logFile).contains(msg)) {
+                    assertTrue(msg + " not written", System.currentTimeMillis() < deadline);
+                    Thread.sleep(5);
+                }
+            }
+        } finally {
+            handler.close();
+        }
+    }
+
+    private static void publishConcurrently(FileHandler handler, int threads, int count)
+    throws InterruptedException {
+        ArrayList<Thread> list = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            int thread = i;
+            list.add(Thread.ofPlatform().start(() -> {
+                for (int j = 0; j < count; j++) {
+                    handler.publish(new LogRecord(Level.INFO, "async-msg-" + thread + "-" + j));
+                }
+            }));
+        }
+        for (Thread t : list) {
+            t.join();
+        }
+    }
+
+    private static int countMatches(String text, String str) {
+        int count = 0;
+        for (int pos = text.indexOf(str); pos >= 0; pos = text.indexOf(str, pos + 1)) {
+            count++;
+        }
+        return count;
+    }
 }